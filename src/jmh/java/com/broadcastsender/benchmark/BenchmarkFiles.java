@@ -0,0 +1,50 @@
+package com.broadcastsender.benchmark;
+
+import com.broadcastsender.model.FileAttachment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Creates and removes the temporary upload payloads used by the benchmarks.
+ */
+public final class BenchmarkFiles {
+    
+    private BenchmarkFiles() {
+    }
+    
+    /**
+     * Creates {@code count} files of {@code size} bytes in a new temporary directory.
+     * Files are sparse so that gigabyte payloads are cheap to set up.
+     */
+    public static List<FileAttachment> create(Path directory, int count, long size) throws IOException {
+        List<FileAttachment> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = directory.resolve("payload-" + i + ".bin").toFile();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(size);
+            }
+            files.add(new FileAttachment(file));
+        }
+        return files;
+    }
+    
+    /**
+     * Deletes a directory created for benchmark payloads.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.broadcastsender.benchmark;
+
+import com.broadcastsender.model.BodyEncoding;
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.RequestMode;
+import com.broadcastsender.service.HttpService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single {@link HttpService#uploadFile} call for payloads from 1 KB to 1 GB,
+ * as a multipart POST through OkHttp and as a raw PUT sent with sendfile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HttpServiceBenchmark {
+    
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public long fileSize;
+    
+    @Param({"MULTIPART", "RAW"})
+    public BodyEncoding body;
+    
+    private LocalUploadServer server;
+    private HttpService httpService;
+    private Endpoint endpoint;
+    private FileAttachment file;
+    private Path directory;
+    
+    @Setup
+    public void setUp() throws IOException {
+        server = new LocalUploadServer();
+        httpService = new HttpService();
+        endpoint = server.createEndpoints(1).get(0);
+        endpoint.setRequestMode(body == BodyEncoding.RAW
+                ? new RequestMode("PUT", BodyEncoding.RAW, null, false) : RequestMode.DEFAULT);
+        directory = Files.createTempDirectory("http-benchmark");
+        file = BenchmarkFiles.create(directory, 1, fileSize).get(0);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+        BenchmarkFiles.delete(directory);
+    }
+    
+    @Benchmark
+    public int uploadFile() throws IOException {
+        return httpService.uploadFile(endpoint, file).code();
+    }
+}
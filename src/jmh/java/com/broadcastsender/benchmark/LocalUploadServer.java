@@ -0,0 +1,59 @@
+package com.broadcastsender.benchmark;
+
+import com.broadcastsender.model.Endpoint;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process HTTP server that accepts every upload with 200 OK.
+ * Request bodies are consumed but not retained so large uploads do not fill the heap.
+ * It speaks HTTP/1.1, or only HTTP/2 with prior knowledge (h2c) if asked to.
+ */
+public class LocalUploadServer implements AutoCloseable {
+    private final MockWebServer server;
+    
+    public LocalUploadServer() throws IOException {
+        this(false);
+    }
+    
+    public LocalUploadServer(boolean h2cPriorKnowledge) throws IOException {
+        this.server = new MockWebServer();
+        if (h2cPriorKnowledge) {
+            this.server.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        this.server.setBodyLimit(0);
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(200).setBody("ok");
+            }
+        });
+        this.server.start();
+    }
+    
+    /**
+     * Creates endpoints that all point at this server under distinct paths.
+     */
+    public List<Endpoint> createEndpoints(int count) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Endpoint endpoint = new Endpoint();
+            endpoint.setName("Benchmark " + i);
+            endpoint.setUrl(server.url("/upload/" + i).toString());
+            endpoints.add(endpoint);
+        }
+        return endpoints;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,123 @@
+package com.broadcastsender.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures time to first frame and time to interactive by launching the application
+ * repeatedly in startup benchmark mode, once per launch variant (e.g. with and without
+ * a class data sharing archive).
+ *
+ * <p>Arguments: {@code <runs> <result.json> (<variant name> <command file>)...}, where each
+ * command file holds one argument of the launch command per line. Run through
+ * {@code ./gradlew startupBenchmark}, which writes the command files.
+ */
+public final class StartupBenchmark {
+    private static final Pattern STARTUP_LINE = Pattern.compile("STARTUP first-frame-ms=(\\d+) interactive-ms=(\\d+)");
+    private static final long LAUNCH_TIMEOUT_SECONDS = 120;
+    
+    private StartupBenchmark() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4 || args.length % 2 != 0) {
+            System.err.println("Usage: StartupBenchmark <runs> <result.json> (<variant> <command file>)...");
+            System.exit(2);
+        }
+        int runs = Integer.parseInt(args[0]);
+        Path output = Paths.get(args[1]);
+        
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ArrayNode results = objectMapper.createArrayNode();
+        for (int i = 2; i < args.length; i += 2) {
+            String variant = args[i];
+            List<String> command = Files.readAllLines(Paths.get(args[i + 1]), StandardCharsets.UTF_8);
+            
+            // The first launch warms the OS file cache and is not counted
+            launch(command);
+            long[] firstFrame = new long[runs];
+            long[] interactive = new long[runs];
+            long[] exited = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] sample = launch(command);
+                firstFrame[run] = sample[0];
+                interactive[run] = sample[1];
+                exited[run] = sample[2];
+            }
+            
+            ObjectNode result = results.addObject().put("variant", variant).put("runs", runs);
+            summarize(result.putObject("firstFrameMillis"), firstFrame);
+            summarize(result.putObject("interactiveMillis"), interactive);
+            summarize(result.putObject("processMillis"), exited);
+            System.out.printf("%-16s first frame %5d ms   interactive %5d ms   (median of %d)%n",
+                    variant, median(firstFrame), median(interactive), runs);
+        }
+        
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        objectMapper.writeValue(output.toFile(), results);
+        System.out.println("Results written to " + output);
+    }
+    
+    /**
+     * Launches the application once and returns the first frame, interactive and process
+     * exit times in milliseconds.
+     */
+    private static long[] launch(List<String> command) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long[] sample = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = STARTUP_LINE.matcher(line);
+                if (matcher.find()) {
+                    sample = new long[] {Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), 0};
+                }
+            }
+        }
+        if (!process.waitFor(LAUNCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Application did not exit: " + command);
+        }
+        if (sample == null) {
+            throw new IllegalStateException("Application exited with " + process.exitValue()
+                    + " without reporting its startup time: " + command);
+        }
+        sample[2] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return sample;
+    }
+    
+    private static void summarize(ObjectNode node, long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        node.put("min", sorted[0]);
+        node.put("median", median(samples));
+        node.put("max", sorted[sorted.length - 1]);
+        ArrayNode all = node.putArray("samples");
+        for (long sample : samples) {
+            all.add(sample);
+        }
+    }
+    
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
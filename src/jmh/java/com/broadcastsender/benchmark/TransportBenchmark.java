@@ -0,0 +1,96 @@
+package com.broadcastsender.benchmark;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.TransportType;
+import com.broadcastsender.service.HttpService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the transports by sending {@code parallel} uploads to one endpoint at once, which
+ * HTTP/2 multiplexes over one connection and HTTP/1.1 spreads over several.
+ * <p>
+ * Set {@code url} to measure a real endpoint instead of the in-process server, e.g.
+ * {@code ./gradlew jmh -PjmhInclude=TransportBenchmark -PjmhUrl=http://storage.internal/upload};
+ * h2c only reaches servers that accept HTTP/2 with prior knowledge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransportBenchmark {
+    
+    @Param({"OKHTTP", "OKHTTP_H2C", "JDK_HTTP2"})
+    public TransportType transport;
+    
+    @Param({"1", "16"})
+    public int parallel;
+    
+    @Param({"1024", "1048576", "67108864"})
+    public long fileSize;
+    
+    @Param({""})
+    public String url;
+    
+    private LocalUploadServer server;
+    private HttpService httpService;
+    private ExecutorService executor;
+    private Endpoint endpoint;
+    private List<FileAttachment> files;
+    private Path directory;
+    
+    @Setup
+    public void setUp() throws IOException {
+        if (url.isEmpty()) {
+            server = new LocalUploadServer(transport == TransportType.OKHTTP_H2C);
+            endpoint = server.createEndpoints(1).get(0);
+        } else {
+            endpoint = new Endpoint();
+            endpoint.setName("Benchmark");
+            endpoint.setUrl(url);
+        }
+        endpoint.setTransport(transport);
+        httpService = new HttpService();
+        executor = Executors.newFixedThreadPool(parallel);
+        directory = Files.createTempDirectory("transport-benchmark");
+        files = BenchmarkFiles.create(directory, parallel, fileSize);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (server != null) {
+            server.close();
+        }
+        BenchmarkFiles.delete(directory);
+    }
+    
+    @Benchmark
+    public int uploadInParallel() {
+        List<CompletableFuture<Integer>> uploads = new ArrayList<>(parallel);
+        for (FileAttachment file : files) {
+            uploads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return httpService.uploadFile(endpoint, file).code();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        int codes = 0;
+        for (CompletableFuture<Integer> upload : uploads) {
+            codes += upload.join();
+        }
+        return codes;
+    }
+}
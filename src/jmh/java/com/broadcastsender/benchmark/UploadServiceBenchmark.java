@@ -0,0 +1,63 @@
+package com.broadcastsender.benchmark;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.service.HttpService;
+import com.broadcastsender.service.UploadBatch;
+import com.broadcastsender.service.UploadService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link UploadService#uploadFiles} batch across endpoint counts and concurrency levels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UploadServiceBenchmark {
+    
+    private static final int FILE_COUNT = 20;
+    
+    @Param({"1", "10", "50"})
+    public int endpointCount;
+    
+    @Param({"1", "16", "64", "256"})
+    public int concurrency;
+    
+    @Param({"1024", "1048576"})
+    public long fileSize;
+    
+    private LocalUploadServer server;
+    private UploadService uploadService;
+    private List<Endpoint> endpoints;
+    private List<FileAttachment> files;
+    private Path directory;
+    
+    @Setup
+    public void setUp() throws IOException {
+        server = new LocalUploadServer();
+        uploadService = new UploadService(new HttpService());
+        uploadService.configureThreadPool(concurrency);
+        uploadService.setMaxRetryAttempts(0);
+        endpoints = server.createEndpoints(endpointCount);
+        directory = Files.createTempDirectory("upload-benchmark");
+        files = BenchmarkFiles.create(directory, FILE_COUNT, fileSize);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        uploadService.shutdown();
+        server.close();
+        BenchmarkFiles.delete(directory);
+    }
+    
+    @Benchmark
+    public UploadBatch uploadBatch() {
+        return uploadService.uploadFiles(files, endpoints, null).join();
+    }
+}
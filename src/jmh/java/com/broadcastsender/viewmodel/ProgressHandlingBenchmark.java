@@ -0,0 +1,100 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.benchmark.BenchmarkFiles;
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadSnapshot;
+import com.broadcastsender.model.UploadStatus;
+import com.broadcastsender.service.ProgressEventBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link MainViewModel} applies progress updates for a whole batch:
+ * every pair reports IN_PROGRESS and then SUCCESS, applied one by one or coalesced per pulse.
+ * Runs the FX-thread handler directly, so no JavaFX toolkit is required.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProgressHandlingBenchmark {
+    
+    private static final int ENDPOINT_COUNT = 10;
+    private static final int EVENTS_PER_PULSE = 16_384;
+    
+    @Param({"1000", "10000", "100000", "500000"})
+    public int pairCount;
+    
+    private Path directory;
+    private MainViewModel viewModel;
+    private List<UploadResult> results;
+    
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        // Keeps the benchmark away from the configuration and history in the user's home
+        directory = Files.createTempDirectory("progress-benchmark");
+        viewModel = new MainViewModel(directory);
+        
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < ENDPOINT_COUNT; i++) {
+            Endpoint endpoint = new Endpoint();
+            endpoint.setName("Endpoint " + i);
+            endpoints.add(endpoint);
+        }
+        
+        results = new ArrayList<>(pairCount);
+        for (int i = 0; i < pairCount; i++) {
+            FileAttachment file = new FileAttachment(new File("/benchmark/file-" + (i / ENDPOINT_COUNT)));
+            results.add(new UploadResult(endpoints.get(i % ENDPOINT_COUNT), file));
+        }
+        viewModel.totalCountProperty().set(pairCount);
+    }
+    
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        viewModel.shutdown();
+        BenchmarkFiles.delete(directory);
+    }
+    
+    @Benchmark
+    public double applyBatchProgress() {
+        for (UploadResult result : results) {
+            result.setStatus(UploadStatus.IN_PROGRESS);
+            viewModel.applyUploadProgress(result.snapshot());
+        }
+        for (UploadResult result : results) {
+            result.setStatus(UploadStatus.SUCCESS);
+            viewModel.applyUploadProgress(result.snapshot());
+        }
+        return viewModel.overallProgressProperty().get();
+    }
+    
+    /**
+     * Publishes through the progress buffer and drains it the way the pulse does,
+     * once per {@link #EVENTS_PER_PULSE} events.
+     */
+    @Benchmark
+    public double publishAndDrainBatchProgress() {
+        ProgressEventBuffer<UploadSnapshot> buffer = viewModel.getProgressBuffer();
+        int published = 0;
+        for (UploadStatus status : new UploadStatus[] {UploadStatus.IN_PROGRESS, UploadStatus.SUCCESS}) {
+            for (UploadResult result : results) {
+                result.setStatus(status);
+                buffer.publish(result.snapshot());
+                if (++published % EVENTS_PER_PULSE == 0) {
+                    viewModel.drainProgress();
+                }
+            }
+        }
+        viewModel.drainProgress();
+        return viewModel.overallProgressProperty().get();
+    }
+}
@@ -0,0 +1,83 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts and stops an in-process Java Flight Recorder recording that includes
+ * the upload lifecycle events alongside the JDK's profiling events.
+ */
+public class FlightRecording {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final String RECORDINGS_DIR = System.getProperty("user.home") + "/.broadcastsender/recordings";
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private Recording recording;
+    
+    /**
+     * Returns true if a recording is currently running.
+     */
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+    
+    /**
+     * Starts a recording using the JDK "profile" settings.
+     */
+    public synchronized void start() throws IOException {
+        if (recording != null) {
+            return;
+        }
+        
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration("profile"));
+        } catch (ParseException e) {
+            throw new IOException("Failed to read JFR profile settings", e);
+        }
+        newRecording.setName("BroadcastSender");
+        newRecording.setToDisk(true);
+        newRecording.enable(UploadBatchEvent.class);
+        newRecording.enable(UploadTaskScheduledEvent.class);
+        newRecording.enable(UploadAttemptEvent.class);
+        newRecording.enable(UploadRetryEvent.class);
+        newRecording.enable(ProgressDispatchEvent.class);
+        newRecording.start();
+        
+        recording = newRecording;
+        logger.info("Flight recording started");
+    }
+    
+    /**
+     * Stops the running recording and writes it to the recordings directory.
+     * Returns the path of the written file.
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+        
+        try {
+            Path directory = Paths.get(RECORDINGS_DIR);
+            Files.createDirectories(directory);
+            Path target = directory.resolve("broadcastsender-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".jfr");
+            recording.stop();
+            recording.dump(target);
+            logger.info("Flight recording written to: {}", target);
+            return target;
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event spanning one drain of buffered progress events on the FX application thread.
+ */
+@Name("com.broadcastsender.ProgressDispatch")
+@Label("Progress Dispatch")
+@Category({"BroadcastSender", "UI"})
+@Description("Drain and application of buffered upload progress events on the FX application thread")
+public class ProgressDispatchEvent extends Event {
+    @Label("Events")
+    @Description("Progress events drained from the buffer")
+    public int events;
+    
+    @Label("Rows")
+    @Description("Result rows updated after coalescing")
+    public int rows;
+    
+    @Label("Queue Delay")
+    @Description("Age of the oldest drained event when the FX thread picked it up")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueDelay;
+}
@@ -0,0 +1,192 @@
+package com.broadcastsender.diagnostics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that keeps log floods from the upload hot path away from the appenders.
+ * Every message template of a logger may log {@code maxPerSecond} events per second, in
+ * bursts of up to {@code burst}; the events over the limit are dropped and their count is
+ * logged once the template may log again. Below WARN, the events of a logger can also be
+ * sampled, keeping one in N. ERROR events and the events of exempt loggers always pass.
+ *
+ * <pre>
+ * &lt;turboFilter class="com.broadcastsender.diagnostics.RateLimitingTurboFilter"&gt;
+ *     &lt;maxPerSecond&gt;20&lt;/maxPerSecond&gt;
+ *     &lt;burst&gt;100&lt;/burst&gt;
+ *     &lt;sample&gt;com.broadcastsender.service.HttpService=100&lt;/sample&gt;
+ *     &lt;exempt&gt;com.broadcastsender.audit&lt;/exempt&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+    private static final org.slf4j.Logger logger = LoggerFactory.getLogger(RateLimitingTurboFilter.class);
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    // Messages built without placeholders are all different, so they share one bucket past this
+    private static final int MAX_TEMPLATES_PER_LOGGER = 256;
+    
+    private volatile double maxPerSecond = 20;
+    private volatile int burst = 100;
+    // Logger name or package prefix to the N of "keep one in N"
+    private final Map<String, Integer> sampleRates = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> exemptLoggers = new ConcurrentHashMap<>();
+    private final Map<String, LoggerTemplates> loggers = new ConcurrentHashMap<>();
+    
+    public void setMaxPerSecond(double maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+    
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+    
+    /**
+     * Adds a sampling rule like {@code com.broadcastsender.service=10}, keeping one in ten
+     * events below WARN of the loggers under that name. The longest matching name wins.
+     */
+    public void addSample(String rule) {
+        int equals = rule.indexOf('=');
+        try {
+            int rate = Integer.parseInt(rule.substring(equals + 1).trim());
+            if (equals <= 0 || rate < 1) {
+                throw new NumberFormatException(rule);
+            }
+            sampleRates.put(rule.substring(0, equals).trim(), rate);
+            loggers.clear();
+        } catch (NumberFormatException e) {
+            addWarn("Ignoring sample rule \"" + rule + "\", expected <logger>=<keep one in N>");
+        }
+    }
+    
+    /**
+     * Lets every event of the loggers under the name through, e.g. the audit log.
+     */
+    public void addExempt(String loggerName) {
+        exemptLoggers.put(loggerName.trim(), Boolean.TRUE);
+        loggers.clear();
+    }
+    
+    @Override
+    public FilterReply decide(Marker marker, Logger eventLogger, Level level, String format,
+                              Object[] params, Throwable t) {
+        // Turbo filters run before the level check, so disabled events are left to it untouched
+        if (format == null || level.isGreaterOrEqual(Level.ERROR)
+                || !level.isGreaterOrEqual(eventLogger.getEffectiveLevel())
+                || eventLogger.getName().equals(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        LoggerTemplates loggerTemplates = loggers.get(eventLogger.getName());
+        if (loggerTemplates == null) {
+            loggerTemplates = loggers.computeIfAbsent(eventLogger.getName(), LoggerTemplates::new);
+        }
+        if (loggerTemplates.exempt) {
+            return FilterReply.NEUTRAL;
+        }
+        
+        Template template = loggerTemplates.templateOf(format);
+        if (!level.isGreaterOrEqual(Level.WARN) && !template.sampled()) {
+            return FilterReply.DENY;
+        }
+        long suppressed = template.acquire(System.nanoTime(), maxPerSecond, burst);
+        if (suppressed < 0) {
+            return FilterReply.DENY;
+        }
+        if (suppressed > 0) {
+            logger.warn("Suppressed {} log events from {}: {}", suppressed, eventLogger.getName(), format);
+        }
+        return FilterReply.NEUTRAL;
+    }
+    
+    /**
+     * Returns the rule of the longest name the logger is under, or null if none matches.
+     */
+    private static <T> T ruleOf(Map<String, T> rules, String loggerName) {
+        String name = loggerName;
+        while (true) {
+            T rule = rules.get(name);
+            if (rule != null) {
+                return rule;
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+    
+    /**
+     * The rules and message templates of one logger.
+     */
+    private final class LoggerTemplates {
+        private final boolean exempt;
+        private final int sampleRate;
+        private final Map<String, Template> templates = new ConcurrentHashMap<>();
+        private final Template overflow;
+        
+        private LoggerTemplates(String loggerName) {
+            Integer rate = ruleOf(sampleRates, loggerName);
+            this.exempt = ruleOf(exemptLoggers, loggerName) != null;
+            this.sampleRate = rate != null ? rate : 1;
+            this.overflow = new Template(sampleRate, burst);
+        }
+        
+        Template templateOf(String format) {
+            Template template = templates.get(format);
+            if (template != null) {
+                return template;
+            }
+            if (templates.size() >= MAX_TEMPLATES_PER_LOGGER) {
+                return overflow;
+            }
+            return templates.computeIfAbsent(format, f -> new Template(sampleRate, burst));
+        }
+    }
+    
+    /**
+     * Token bucket and sampling counter of one message template.
+     */
+    private static final class Template {
+        private final int sampleRate;
+        private final AtomicLong seen = new AtomicLong();
+        // Guarded by this
+        private double tokens;
+        private long refilledNanos;
+        private long suppressed;
+        
+        private Template(int sampleRate, int burst) {
+            this.sampleRate = sampleRate;
+            this.tokens = burst;
+            this.refilledNanos = System.nanoTime();
+        }
+        
+        boolean sampled() {
+            return sampleRate == 1 || seen.getAndIncrement() % sampleRate == 0;
+        }
+        
+        /**
+         * Takes a token and returns how many events were suppressed since the last one that
+         * passed, or -1 if the event is suppressed too.
+         */
+        synchronized long acquire(long nowNanos, double perSecond, int burst) {
+            tokens = Math.min(burst, tokens + (nowNanos - refilledNanos) * perSecond / NANOS_PER_SECOND);
+            refilledNanos = nowNanos;
+            if (tokens < 1) {
+                suppressed++;
+                return -1;
+            }
+            tokens--;
+            long reported = suppressed;
+            suppressed = 0;
+            return reported;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summarizes the upload events of a {@code .jfr} file into per-endpoint statistics.
+ * Can be run standalone: {@code RecordingAnalyzer <file.jfr>}.
+ */
+public class RecordingAnalyzer {
+    private static final String ATTEMPT_EVENT = "com.broadcastsender.UploadAttempt";
+    private static final String RETRY_EVENT = "com.broadcastsender.UploadRetry";
+    private static final String BATCH_EVENT = "com.broadcastsender.UploadBatch";
+    private static final String DISPATCH_EVENT = "com.broadcastsender.ProgressDispatch";
+    
+    /**
+     * Reads the recording and returns its summary.
+     */
+    public Summary analyze(Path recordingFile) throws IOException {
+        Summary summary = new Summary();
+        LongSamples dispatchDelays = new LongSamples();
+        
+        try (RecordingFile file = new RecordingFile(recordingFile)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case ATTEMPT_EVENT:
+                        EndpointStats stats = summary.statsFor(event.getString("endpointId"), event.getString("endpointName"));
+                        stats.attempts++;
+                        long nanos = event.getDuration().toNanos();
+                        stats.durations.add(nanos);
+                        if (event.getBoolean("success")) {
+                            stats.successes++;
+                            stats.bytesUploaded += event.getLong("fileSize");
+                            stats.successNanos += nanos;
+                        } else {
+                            stats.failures++;
+                        }
+                        break;
+                    case RETRY_EVENT:
+                        summary.statsFor(event.getString("endpointId"), event.getString("endpointName")).retries++;
+                        break;
+                    case BATCH_EVENT:
+                        summary.batchCount++;
+                        break;
+                    case DISPATCH_EVENT:
+                        summary.dispatchCount++;
+                        dispatchDelays.add(event.getLong("queueDelay"));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        
+        summary.dispatchDelayP99Nanos = dispatchDelays.percentile(0.99);
+        return summary;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingAnalyzer <recording.jfr>");
+            System.exit(1);
+        }
+        System.out.print(new RecordingAnalyzer().analyze(Paths.get(args[0])).format());
+    }
+    
+    /**
+     * Summary of a recording.
+     */
+    public static class Summary {
+        private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        private int batchCount;
+        private long dispatchCount;
+        private long dispatchDelayP99Nanos;
+        
+        private EndpointStats statsFor(String endpointId, String endpointName) {
+            return endpoints.computeIfAbsent(endpointId, id -> new EndpointStats(id, endpointName));
+        }
+        
+        public Collection<EndpointStats> getEndpoints() {
+            return Collections.unmodifiableCollection(endpoints.values());
+        }
+        
+        public int getBatchCount() {
+            return batchCount;
+        }
+        
+        public long getDispatchCount() {
+            return dispatchCount;
+        }
+        
+        public long getDispatchDelayP99Nanos() {
+            return dispatchDelayP99Nanos;
+        }
+        
+        /**
+         * Returns a human-readable table of the summary.
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Batches: %d, progress dispatches: %d (p99 queue delay %.1f ms)%n",
+                    batchCount, dispatchCount, dispatchDelayP99Nanos / 1_000_000.0));
+            sb.append(String.format("%-24s %8s %8s %8s %8s %10s %10s %10s %10s%n",
+                    "Endpoint", "Attempts", "Success", "Failed", "Retries", "MB", "MB/s", "p50 ms", "p99 ms"));
+            for (EndpointStats stats : endpoints.values()) {
+                sb.append(String.format("%-24s %8d %8d %8d %8d %10.2f %10.2f %10.1f %10.1f%n",
+                        stats.getEndpointName(),
+                        stats.getAttempts(),
+                        stats.getSuccesses(),
+                        stats.getFailures(),
+                        stats.getRetries(),
+                        stats.getBytesUploaded() / (1024.0 * 1024.0),
+                        stats.getThroughputMbPerSecond(),
+                        stats.getDurationPercentileNanos(0.50) / 1_000_000.0,
+                        stats.getDurationPercentileNanos(0.99) / 1_000_000.0));
+            }
+            return sb.toString();
+        }
+    }
+    
+    /**
+     * Upload statistics of a single endpoint.
+     */
+    public static class EndpointStats {
+        private final String endpointId;
+        private final String endpointName;
+        private final LongSamples durations = new LongSamples();
+        private int attempts;
+        private int successes;
+        private int failures;
+        private int retries;
+        private long bytesUploaded;
+        private long successNanos;
+        
+        EndpointStats(String endpointId, String endpointName) {
+            this.endpointId = endpointId;
+            this.endpointName = endpointName;
+        }
+        
+        public String getEndpointId() {
+            return endpointId;
+        }
+        
+        public String getEndpointName() {
+            return endpointName != null ? endpointName : endpointId;
+        }
+        
+        public int getAttempts() {
+            return attempts;
+        }
+        
+        public int getSuccesses() {
+            return successes;
+        }
+        
+        public int getFailures() {
+            return failures;
+        }
+        
+        public int getRetries() {
+            return retries;
+        }
+        
+        public long getBytesUploaded() {
+            return bytesUploaded;
+        }
+        
+        /**
+         * Returns the average throughput of successful attempts.
+         */
+        public double getThroughputMbPerSecond() {
+            if (successNanos == 0) {
+                return 0.0;
+            }
+            return (bytesUploaded / (1024.0 * 1024.0)) / (successNanos / 1_000_000_000.0);
+        }
+        
+        public long getDurationPercentileNanos(double percentile) {
+            return durations.percentile(percentile);
+        }
+    }
+    
+    /**
+     * Growable list of primitive samples supporting percentile queries.
+     */
+    private static class LongSamples {
+        private long[] values = new long[64];
+        private int size;
+        private boolean sorted = true;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            sorted = false;
+        }
+        
+        long percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            int index = (int) Math.ceil(percentile * size) - 1;
+            return values[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+}
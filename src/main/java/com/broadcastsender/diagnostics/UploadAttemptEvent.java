@@ -0,0 +1,46 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning a single HTTP upload attempt. Its start time and duration
+ * mark the attempt start and end.
+ */
+@Name("com.broadcastsender.UploadAttempt")
+@Label("Upload Attempt")
+@Category({"BroadcastSender", "Upload"})
+@Description("A single HTTP upload attempt of a file to an endpoint")
+public class UploadAttemptEvent extends Event {
+    @Label("Batch Id")
+    public long batchId;
+    
+    @Label("Endpoint Id")
+    public String endpointId;
+    
+    @Label("Endpoint")
+    public String endpointName;
+    
+    @Label("File")
+    public String fileName;
+    
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+    
+    @Label("Attempt")
+    public int attempt;
+    
+    @Label("Status Code")
+    public int statusCode;
+    
+    @Label("Success")
+    public boolean success;
+    
+    @Label("Error")
+    public String error;
+}
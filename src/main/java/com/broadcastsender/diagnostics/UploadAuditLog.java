@@ -0,0 +1,80 @@
+package com.broadcastsender.diagnostics;
+
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one compact JSON line per finished (endpoint, file) pair to the
+ * {@code com.broadcastsender.audit} logger, which logback.xml sends to its own file,
+ * instead of several free-text lines per attempt.
+ *
+ * <pre>
+ * {"ts":"2024-05-02T14:03:11.482","job":7,"endpoint":"endpoint-1","url":"https://...","file":"/data/a.pdf","bytes":1024,
+ *  "status":"SUCCESS","code":200,"attempts":1,"ms":182}
+ * </pre>
+ */
+public final class UploadAuditLog {
+    private static final Logger audit = LoggerFactory.getLogger("com.broadcastsender.audit");
+    
+    private UploadAuditLog() {
+    }
+    
+    /**
+     * Records the outcome of a pair after its last attempt.
+     */
+    public static void record(UploadResult result, long durationNanos) {
+        if (!audit.isInfoEnabled()) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(256);
+        line.append("{\"ts\":\"").append(LocalDateTime.now()).append('"');
+        line.append(",\"job\":").append(result.getJobId());
+        appendString(line, "endpoint", result.getEndpoint().getId());
+        appendString(line, "url", result.getEndpoint().getUrl());
+        appendString(line, "file", result.getFile().getAbsolutePath());
+        line.append(",\"bytes\":").append(result.getFile().getSize());
+        appendString(line, "status", result.getStatus().name());
+        if (result.getStatusCode() > 0) {
+            line.append(",\"code\":").append(result.getStatusCode());
+        }
+        line.append(",\"attempts\":").append(result.getAttemptNumber());
+        line.append(",\"ms\":").append(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        if (result.getStatus() != UploadStatus.SUCCESS && result.getMessage() != null) {
+            appendString(line, "error", result.getMessage());
+        }
+        line.append('}');
+        audit.info("{}", line);
+    }
+    
+    private static void appendString(StringBuilder line, String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
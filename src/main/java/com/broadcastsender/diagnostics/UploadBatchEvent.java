@@ -0,0 +1,34 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event spanning an upload batch from submission until the last pair completes.
+ */
+@Name("com.broadcastsender.UploadBatch")
+@Label("Upload Batch")
+@Category({"BroadcastSender", "Upload"})
+@Description("An upload batch from submission to completion")
+public class UploadBatchEvent extends Event {
+    @Label("Batch Id")
+    public long batchId;
+    
+    @Label("Files")
+    public int fileCount;
+    
+    @Label("Endpoints")
+    public int endpointCount;
+    
+    @Label("Pairs")
+    public int pairCount;
+    
+    @Label("Succeeded")
+    public int successCount;
+    
+    @Label("Failed")
+    public int failureCount;
+}
@@ -0,0 +1,34 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted when a failed upload is about to be retried.
+ */
+@Name("com.broadcastsender.UploadRetry")
+@Label("Upload Retry")
+@Category({"BroadcastSender", "Upload"})
+@Description("A failed upload is being retried")
+public class UploadRetryEvent extends Event {
+    @Label("Batch Id")
+    public long batchId;
+    
+    @Label("Endpoint Id")
+    public String endpointId;
+    
+    @Label("Endpoint")
+    public String endpointName;
+    
+    @Label("File")
+    public String fileName;
+    
+    @Label("Attempt")
+    public int attempt;
+    
+    @Label("Previous Outcome")
+    public String reason;
+}
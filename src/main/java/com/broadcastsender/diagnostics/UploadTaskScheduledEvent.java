@@ -0,0 +1,33 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted when a file-endpoint pair is handed to the upload executor.
+ */
+@Name("com.broadcastsender.UploadTaskScheduled")
+@Label("Upload Task Scheduled")
+@Category({"BroadcastSender", "Upload"})
+@Description("A file-endpoint pair was submitted to the upload executor")
+public class UploadTaskScheduledEvent extends Event {
+    @Label("Batch Id")
+    public long batchId;
+    
+    @Label("Endpoint Id")
+    public String endpointId;
+    
+    @Label("Endpoint")
+    public String endpointName;
+    
+    @Label("File")
+    public String fileName;
+    
+    @Label("File Size")
+    @DataAmount
+    public long fileSize;
+}
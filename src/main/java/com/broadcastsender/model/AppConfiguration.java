@@ -10,22 +10,50 @@ import java.util.List;
  * Model representing the application configuration.
  */
 public class AppConfiguration {
+    public static final int DEFAULT_LOCAL_API_PORT = 8765;
+    public static final int DEFAULT_HISTORY_RETENTION_DAYS = 30;
+    public static final int DEFAULT_RESULT_WINDOW = 10_000;
+    
     private int maxConcurrentUploads;
     private int maxRetryAttempts;
+    private int maxUploadsPerEndpoint;
+    private boolean localApiEnabled;
+    private int localApiPort;
+    private int historyRetentionDays;
+    private int resultWindow;
+    private List<EndpointGroup> endpointGroups;
     private List<Endpoint> endpoints;
     
     public AppConfiguration() {
         this.maxConcurrentUploads = 3;
         this.maxRetryAttempts = 2;
+        this.maxUploadsPerEndpoint = 0;
+        this.localApiEnabled = false;
+        this.localApiPort = DEFAULT_LOCAL_API_PORT;
+        this.historyRetentionDays = DEFAULT_HISTORY_RETENTION_DAYS;
+        this.resultWindow = DEFAULT_RESULT_WINDOW;
+        this.endpointGroups = new ArrayList<>();
         this.endpoints = new ArrayList<>();
     }
     
     @JsonCreator
     public AppConfiguration(@JsonProperty("maxConcurrentUploads") Integer maxConcurrentUploads,
                            @JsonProperty("maxRetryAttempts") Integer maxRetryAttempts,
+                           @JsonProperty("maxUploadsPerEndpoint") Integer maxUploadsPerEndpoint,
+                           @JsonProperty("localApiEnabled") Boolean localApiEnabled,
+                           @JsonProperty("localApiPort") Integer localApiPort,
+                           @JsonProperty("historyRetentionDays") Integer historyRetentionDays,
+                           @JsonProperty("resultWindow") Integer resultWindow,
+                           @JsonProperty("endpointGroups") List<EndpointGroup> endpointGroups,
                            @JsonProperty("endpoints") List<Endpoint> endpoints) {
         this.maxConcurrentUploads = maxConcurrentUploads != null ? maxConcurrentUploads : 3;
         this.maxRetryAttempts = maxRetryAttempts != null ? maxRetryAttempts : 2;
+        this.maxUploadsPerEndpoint = maxUploadsPerEndpoint != null ? maxUploadsPerEndpoint : 0;
+        this.localApiEnabled = localApiEnabled != null && localApiEnabled;
+        this.localApiPort = localApiPort != null ? localApiPort : DEFAULT_LOCAL_API_PORT;
+        this.historyRetentionDays = historyRetentionDays != null ? historyRetentionDays : DEFAULT_HISTORY_RETENTION_DAYS;
+        this.resultWindow = resultWindow != null ? resultWindow : DEFAULT_RESULT_WINDOW;
+        this.endpointGroups = endpointGroups != null ? endpointGroups : new ArrayList<>();
         this.endpoints = endpoints != null ? endpoints : new ArrayList<>();
     }
     
@@ -45,6 +73,90 @@ public class AppConfiguration {
         this.maxRetryAttempts = maxRetryAttempts;
     }
     
+    /**
+     * Returns how many uploads may run against one endpoint at once, 0 for no limit
+     * beyond the concurrent uploads.
+     */
+    public int getMaxUploadsPerEndpoint() {
+        return maxUploadsPerEndpoint;
+    }
+    
+    public void setMaxUploadsPerEndpoint(int maxUploadsPerEndpoint) {
+        this.maxUploadsPerEndpoint = maxUploadsPerEndpoint;
+    }
+    
+    /**
+     * Returns whether the local job submission API is started with the application.
+     */
+    public boolean isLocalApiEnabled() {
+        return localApiEnabled;
+    }
+    
+    public void setLocalApiEnabled(boolean localApiEnabled) {
+        this.localApiEnabled = localApiEnabled;
+    }
+    
+    /**
+     * Returns the loopback port of the local API.
+     */
+    public int getLocalApiPort() {
+        return localApiPort;
+    }
+    
+    public void setLocalApiPort(int localApiPort) {
+        this.localApiPort = localApiPort;
+    }
+    
+    /**
+     * Returns how many days of upload history are kept on disk, 0 to keep everything.
+     */
+    public int getHistoryRetentionDays() {
+        return historyRetentionDays;
+    }
+    
+    public void setHistoryRetentionDays(int historyRetentionDays) {
+        this.historyRetentionDays = historyRetentionDays;
+    }
+    
+    /**
+     * Returns how many finished results stay in memory for the results table; older ones
+     * remain in the upload history.
+     */
+    public int getResultWindow() {
+        return resultWindow;
+    }
+    
+    public void setResultWindow(int resultWindow) {
+        this.resultWindow = resultWindow;
+    }
+    
+    /**
+     * Returns a deep copy, e.g. to hand to a background writer while the original keeps changing.
+     */
+    public AppConfiguration copy() {
+        List<Endpoint> endpointCopies = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            endpointCopies.add(endpoint.copy());
+        }
+        List<EndpointGroup> groupCopies = new ArrayList<>(endpointGroups.size());
+        for (EndpointGroup group : endpointGroups) {
+            groupCopies.add(group.copy());
+        }
+        return new AppConfiguration(maxConcurrentUploads, maxRetryAttempts, maxUploadsPerEndpoint,
+                localApiEnabled, localApiPort, historyRetentionDays, resultWindow, groupCopies, endpointCopies);
+    }
+    
+    /**
+     * Returns the groups of mirrored endpoints whose files only need to reach a quorum of members.
+     */
+    public List<EndpointGroup> getEndpointGroups() {
+        return endpointGroups;
+    }
+    
+    public void setEndpointGroups(List<EndpointGroup> endpointGroups) {
+        this.endpointGroups = endpointGroups != null ? endpointGroups : new ArrayList<>();
+    }
+    
     public List<Endpoint> getEndpoints() {
         return endpoints;
     }
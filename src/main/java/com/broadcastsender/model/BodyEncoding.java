@@ -0,0 +1,19 @@
+package com.broadcastsender.model;
+
+/**
+ * Enum representing how a file is put into the body of an upload request.
+ */
+public enum BodyEncoding {
+    MULTIPART("Multipart form"),
+    RAW("Raw file");
+    
+    private final String displayName;
+    
+    BodyEncoding(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -17,10 +17,16 @@ public class Endpoint {
     private String username;
     private String password;
     private String bearerToken;
+    private TimeoutPolicy timeoutPolicy;
+    private RequestMode requestMode;
+    private TransportType transport;
     
     public Endpoint() {
         this.id = UUID.randomUUID().toString();
         this.authType = AuthType.NONE;
+        this.timeoutPolicy = TimeoutPolicy.DEFAULT;
+        this.requestMode = RequestMode.DEFAULT;
+        this.transport = TransportType.OKHTTP;
     }
     
     @JsonCreator
@@ -30,7 +36,10 @@ public class Endpoint {
                     @JsonProperty("authType") AuthType authType,
                     @JsonProperty("username") String username,
                     @JsonProperty("password") String password,
-                    @JsonProperty("bearerToken") String bearerToken) {
+                    @JsonProperty("bearerToken") String bearerToken,
+                    @JsonProperty("timeoutPolicy") TimeoutPolicy timeoutPolicy,
+                    @JsonProperty("requestMode") RequestMode requestMode,
+                    @JsonProperty("transport") TransportType transport) {
         this.id = id != null ? id : UUID.randomUUID().toString();
         this.name = name;
         this.url = url;
@@ -38,6 +47,9 @@ public class Endpoint {
         this.username = username;
         this.password = password;
         this.bearerToken = bearerToken;
+        this.timeoutPolicy = timeoutPolicy != null ? timeoutPolicy : TimeoutPolicy.DEFAULT;
+        this.requestMode = requestMode != null ? requestMode : RequestMode.DEFAULT;
+        this.transport = transport != null ? transport : TransportType.OKHTTP;
     }
     
     // Getters and Setters
@@ -97,6 +109,38 @@ public class Endpoint {
         this.bearerToken = bearerToken;
     }
     
+    public TimeoutPolicy getTimeoutPolicy() {
+        return timeoutPolicy;
+    }
+    
+    public void setTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+        this.timeoutPolicy = timeoutPolicy != null ? timeoutPolicy : TimeoutPolicy.DEFAULT;
+    }
+    
+    public RequestMode getRequestMode() {
+        return requestMode;
+    }
+    
+    public void setRequestMode(RequestMode requestMode) {
+        this.requestMode = requestMode != null ? requestMode : RequestMode.DEFAULT;
+    }
+    
+    public TransportType getTransport() {
+        return transport;
+    }
+    
+    public void setTransport(TransportType transport) {
+        this.transport = transport != null ? transport : TransportType.OKHTTP;
+    }
+    
+    /**
+     * Returns an independent copy with the same id.
+     */
+    public Endpoint copy() {
+        return new Endpoint(id, name, url, authType, username, password, bearerToken, timeoutPolicy, requestMode,
+                transport);
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,114 @@
+package com.broadcastsender.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Model representing endpoints that mirror each other, so a file only has to reach a
+ * quorum of them. Once {@code quorum} members have a file, the uploads of that file to
+ * the other members are cancelled or left to run in the background, see {@link QuorumAction}.
+ */
+public class EndpointGroup {
+    private String id;
+    private String name;
+    private List<String> memberIds;
+    private int quorum;
+    private QuorumAction afterQuorum;
+    
+    public EndpointGroup() {
+        this.id = UUID.randomUUID().toString();
+        this.memberIds = new ArrayList<>();
+        this.quorum = 1;
+        this.afterQuorum = QuorumAction.CANCEL;
+    }
+    
+    @JsonCreator
+    public EndpointGroup(@JsonProperty("id") String id,
+                         @JsonProperty("name") String name,
+                         @JsonProperty("memberIds") List<String> memberIds,
+                         @JsonProperty("quorum") Integer quorum,
+                         @JsonProperty("afterQuorum") QuorumAction afterQuorum) {
+        this.id = id != null ? id : UUID.randomUUID().toString();
+        this.name = name;
+        this.memberIds = memberIds != null ? new ArrayList<>(memberIds) : new ArrayList<>();
+        this.quorum = quorum != null ? quorum : 1;
+        this.afterQuorum = afterQuorum != null ? afterQuorum : QuorumAction.CANCEL;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Returns the ids of the member endpoints.
+     */
+    public List<String> getMemberIds() {
+        return memberIds;
+    }
+    
+    public void setMemberIds(List<String> memberIds) {
+        this.memberIds = memberIds != null ? memberIds : new ArrayList<>();
+    }
+    
+    /**
+     * Returns how many members must have a file before it counts as delivered.
+     * A job that sends to fewer members needs all of them.
+     */
+    public int getQuorum() {
+        return quorum;
+    }
+    
+    public void setQuorum(int quorum) {
+        this.quorum = quorum;
+    }
+    
+    public QuorumAction getAfterQuorum() {
+        return afterQuorum;
+    }
+    
+    public void setAfterQuorum(QuorumAction afterQuorum) {
+        this.afterQuorum = afterQuorum != null ? afterQuorum : QuorumAction.CANCEL;
+    }
+    
+    /**
+     * Returns an independent copy with the same id.
+     */
+    public EndpointGroup copy() {
+        return new EndpointGroup(id, name, memberIds, quorum, afterQuorum);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EndpointGroup group = (EndpointGroup) o;
+        return Objects.equals(id, group.id);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+    
+    @Override
+    public String toString() {
+        return name != null ? name : id;
+    }
+}
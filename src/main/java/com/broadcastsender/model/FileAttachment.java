@@ -10,17 +10,30 @@ public class FileAttachment {
     private final File file;
     private final long size;
     private final String name;
+    private final String absolutePath;
     
     public FileAttachment(File file) {
+        this(file, file.length());
+    }
+    
+    /**
+     * Creates an attachment whose size is already known, without reading it from disk.
+     */
+    public FileAttachment(File file, long size) {
         this.file = file;
-        this.size = file.length();
+        this.size = size;
         this.name = file.getName();
+        this.absolutePath = file.getAbsolutePath();
     }
     
     public File getFile() {
         return file;
     }
     
+    public String getAbsolutePath() {
+        return absolutePath;
+    }
+    
     public long getSize() {
         return size;
     }
@@ -49,12 +62,12 @@ public class FileAttachment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FileAttachment that = (FileAttachment) o;
-        return Objects.equals(file.getAbsolutePath(), that.file.getAbsolutePath());
+        return Objects.equals(absolutePath, that.absolutePath);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(file.getAbsolutePath());
+        return Objects.hash(absolutePath);
     }
     
     @Override
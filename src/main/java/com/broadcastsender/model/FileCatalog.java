@@ -0,0 +1,285 @@
+package com.broadcastsender.model;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, ordered catalog of selected files.
+ * Parent directories are interned once, file names are packed as UTF-8 into one byte
+ * array, and sizes and modification times live in primitive arrays, so a million files
+ * take tens of megabytes instead of a million {@link File} and {@link FileAttachment} objects.
+ * Duplicate paths are rejected in O(1) through an open-addressing hash table.
+ * {@link FileAttachment}s are created on demand by {@link #get(int)}.
+ * Not thread-safe.
+ */
+public class FileCatalog {
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final List<String> directories = new ArrayList<>();
+    private final Map<String, Integer> directoryIds = new HashMap<>();
+    
+    private int[] directoryOf = new int[INITIAL_CAPACITY];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY];
+    private short[] nameLengths = new short[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private long[] lastModified = new long[INITIAL_CAPACITY];
+    private byte[] names = new byte[INITIAL_CAPACITY * 16];
+    private int namesLength;
+    private int count;
+    
+    // Slots hold entry index + 1, 0 marks an empty slot
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    
+    /**
+     * Adds a file, reading its size and modification time from disk.
+     *
+     * @return false if the path is already in the catalog
+     */
+    public boolean add(File file) {
+        File absolute = file.getAbsoluteFile();
+        return add(absolute.getParent(), absolute.getName(), absolute.length(), absolute.lastModified());
+    }
+    
+    /**
+     * Adds a file whose attributes are already known, e.g. from a directory walk.
+     *
+     * @param directory absolute path of the parent directory
+     * @return false if the path is already in the catalog
+     */
+    public boolean add(String directory, String name, long size, long modified) {
+        int directoryId = directoryIds.computeIfAbsent(directory, d -> {
+            directories.add(d);
+            return directories.size() - 1;
+        });
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        if (encodedName.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("File name too long: " + name);
+        }
+        int hash = hash(directoryId, encodedName, 0, encodedName.length);
+        int slot = findSlot(hash, directoryId, encodedName);
+        if (table[slot] != 0) {
+            return false;
+        }
+        
+        ensureCapacity(count + 1);
+        ensureNameCapacity(namesLength + encodedName.length);
+        System.arraycopy(encodedName, 0, names, namesLength, encodedName.length);
+        directoryOf[count] = directoryId;
+        nameOffsets[count] = namesLength;
+        nameLengths[count] = (short) encodedName.length;
+        sizes[count] = size;
+        lastModified[count] = modified;
+        namesLength += encodedName.length;
+        count++;
+        
+        table[slot] = count;
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the position of the file in the catalog, or -1 if it is not in it.
+     */
+    public int indexOf(File file) {
+        File absolute = file.getAbsoluteFile();
+        Integer directoryId = directoryIds.get(absolute.getParent());
+        if (directoryId == null) {
+            return -1;
+        }
+        byte[] encodedName = absolute.getName().getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(hash(directoryId, encodedName, 0, encodedName.length), directoryId, encodedName);
+        return table[slot] - 1;
+    }
+    
+    public boolean contains(File file) {
+        return indexOf(file) >= 0;
+    }
+    
+    /**
+     * Removes the file at the position, keeping the order of the others.
+     * Takes time linear in the catalog size, which suits single removals from the UI.
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int tail = count - index - 1;
+        System.arraycopy(directoryOf, index + 1, directoryOf, index, tail);
+        System.arraycopy(nameOffsets, index + 1, nameOffsets, index, tail);
+        System.arraycopy(nameLengths, index + 1, nameLengths, index, tail);
+        System.arraycopy(sizes, index + 1, sizes, index, tail);
+        System.arraycopy(lastModified, index + 1, lastModified, index, tail);
+        count--;
+        // Name bytes of the removed entry stay in the pool until the next compaction
+        if (namesLength > 2 * liveNameBytes() + INITIAL_CAPACITY) {
+            compactNames();
+        }
+        rehash(table.length);
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    /**
+     * Creates the attachment for the file at the position without touching the disk.
+     */
+    public FileAttachment get(int index) {
+        checkIndex(index);
+        return new FileAttachment(new File(directories.get(directoryOf[index]), getName(index)), sizes[index]);
+    }
+    
+    public String getName(int index) {
+        checkIndex(index);
+        return new String(names, nameOffsets[index], nameLengths[index], StandardCharsets.UTF_8);
+    }
+    
+    public String getDirectory(int index) {
+        checkIndex(index);
+        return directories.get(directoryOf[index]);
+    }
+    
+    public long getSize(int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+    
+    public long getLastModified(int index) {
+        checkIndex(index);
+        return lastModified[index];
+    }
+    
+    /**
+     * Returns the number of distinct parent directories.
+     */
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+    
+    /**
+     * Returns an independent copy trimmed to the entries, which stays unchanged while this
+     * catalog is edited, e.g. as the file list of an upload job.
+     */
+    public FileCatalog copy() {
+        FileCatalog copy = new FileCatalog();
+        copy.directories.addAll(directories);
+        copy.directoryIds.putAll(directoryIds);
+        copy.directoryOf = Arrays.copyOf(directoryOf, count);
+        copy.nameOffsets = Arrays.copyOf(nameOffsets, count);
+        copy.nameLengths = Arrays.copyOf(nameLengths, count);
+        copy.sizes = Arrays.copyOf(sizes, count);
+        copy.lastModified = Arrays.copyOf(lastModified, count);
+        copy.names = Arrays.copyOf(names, namesLength);
+        copy.namesLength = namesLength;
+        copy.count = count;
+        copy.table = table.clone();
+        return copy;
+    }
+    
+    /**
+     * Returns a read-only list view whose elements are created on access.
+     */
+    public List<FileAttachment> asList() {
+        return new AbstractList<>() {
+            @Override
+            public FileAttachment get(int index) {
+                return FileCatalog.this.get(index);
+            }
+            
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+    
+    private int findSlot(int hash, int directoryId, byte[] encodedName) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (directoryOf[entry] == directoryId
+                    && Arrays.equals(names, nameOffsets[entry], nameOffsets[entry] + nameLengths[entry],
+                        encodedName, 0, encodedName.length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry = 0; entry < count; entry++) {
+            int slot = hash(directoryOf[entry], names, nameOffsets[entry], nameLengths[entry]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+    }
+    
+    private void compactNames() {
+        byte[] compacted = new byte[Math.max(INITIAL_CAPACITY, liveNameBytes())];
+        int position = 0;
+        for (int entry = 0; entry < count; entry++) {
+            System.arraycopy(names, nameOffsets[entry], compacted, position, nameLengths[entry]);
+            nameOffsets[entry] = position;
+            position += nameLengths[entry];
+        }
+        names = compacted;
+        namesLength = position;
+    }
+    
+    private int liveNameBytes() {
+        int live = 0;
+        for (int entry = 0; entry < count; entry++) {
+            live += nameLengths[entry];
+        }
+        return live;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required <= directoryOf.length) {
+            return;
+        }
+        int capacity = Math.max(required, directoryOf.length * 2);
+        directoryOf = Arrays.copyOf(directoryOf, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        lastModified = Arrays.copyOf(lastModified, capacity);
+    }
+    
+    private void ensureNameCapacity(int required) {
+        if (required > names.length) {
+            names = Arrays.copyOf(names, Math.max(required, names.length * 2));
+        }
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+    
+    private static int hash(int directoryId, byte[] bytes, int offset, int length) {
+        int hash = directoryId * 0x9E3779B9;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // Spread the bits so linear probing on the low bits stays short
+        return hash ^ (hash >>> 16);
+    }
+}
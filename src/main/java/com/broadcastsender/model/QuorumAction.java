@@ -0,0 +1,20 @@
+package com.broadcastsender.model;
+
+/**
+ * Enum representing what happens to the uploads of an endpoint group's other members
+ * once a file reached its quorum.
+ */
+public enum QuorumAction {
+    CANCEL("Cancel the rest"),
+    REPLICATE("Replicate in the background");
+    
+    private final String displayName;
+    
+    QuorumAction(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,39 @@
+package com.broadcastsender.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Locale;
+
+/**
+ * How uploads to one endpoint are sent. The default is the multipart POST the application
+ * always used; object stores and WebDAV servers usually take the file itself as the body
+ * of a PUT, which saves the multipart framing and lets plain HTTP uploads be sent
+ * straight from the file by the kernel.
+ *
+ * @param method            HTTP method, e.g. POST or PUT
+ * @param body              whether the file is sent as a multipart form part or as the whole body
+ * @param fieldName         form field of the file in multipart bodies
+ * @param detectContentType whether the content type is guessed from the file instead of
+ *                          always being application/octet-stream
+ */
+public record RequestMode(String method,
+                          BodyEncoding body,
+                          String fieldName,
+                          boolean detectContentType) {
+    public static final String DEFAULT_METHOD = "POST";
+    public static final String DEFAULT_FIELD_NAME = "file";
+    public static final RequestMode DEFAULT = new RequestMode(DEFAULT_METHOD, BodyEncoding.MULTIPART,
+            DEFAULT_FIELD_NAME, false);
+    
+    public RequestMode {
+        // Fields missing from older configuration files read as null
+        method = method == null || method.isBlank() ? DEFAULT_METHOD : method.trim().toUpperCase(Locale.ROOT);
+        body = body != null ? body : BodyEncoding.MULTIPART;
+        fieldName = fieldName == null || fieldName.isBlank() ? DEFAULT_FIELD_NAME : fieldName.trim();
+    }
+    
+    @JsonIgnore
+    public boolean isRaw() {
+        return body == BodyEncoding.RAW;
+    }
+}
@@ -0,0 +1,82 @@
+package com.broadcastsender.model;
+
+/**
+ * What was learned about the uploads to one endpoint: a least-squares fit of
+ * {@code duration = overhead + size / throughput} over its past uploads, where older
+ * uploads weigh less with every new one. The overhead covers connecting, the request
+ * and the server's answer; the throughput the transfer of the file itself.
+ * Immutable; kept as decayed sums, in megabytes and seconds, so it can be saved as is.
+ */
+public record ThroughputStats(double weight,
+                              double megabytes,
+                              double seconds,
+                              double megabytesSquared,
+                              double megabyteSeconds) {
+    public static final ThroughputStats EMPTY = new ThroughputStats(0, 0, 0, 0, 0);
+    // Every new upload scales the weight of the earlier ones by this, so about the last 20 count
+    private static final double DECAY = 0.95;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    // Sizes must vary at least this much, relative to their mean, to tell the overhead from the transfer
+    private static final double MIN_SIZE_VARIATION = 0.1;
+
+    /**
+     * Returns the stats with one more upload of the given size and duration.
+     */
+    public ThroughputStats plus(long bytes, long nanos) {
+        double x = bytes / BYTES_PER_MEGABYTE;
+        double y = nanos / NANOS_PER_SECOND;
+        return new ThroughputStats(weight * DECAY + 1, megabytes * DECAY + x, seconds * DECAY + y,
+                megabytesSquared * DECAY + x * x, megabyteSeconds * DECAY + x * y);
+    }
+
+    public boolean hasSamples() {
+        return weight > 0;
+    }
+
+    /**
+     * Returns the transfer time per megabyte. While the sizes seen are too alike to fit an
+     * overhead, all of the time counts as transfer.
+     */
+    public double secondsPerMegabyte() {
+        if (weight == 0) {
+            return 0;
+        }
+        double meanX = megabytes / weight;
+        double meanY = seconds / weight;
+        double varianceX = megabytesSquared / weight - meanX * meanX;
+        if (varianceX > 0 && varianceX >= MIN_SIZE_VARIATION * MIN_SIZE_VARIATION * meanX * meanX) {
+            double slope = (megabyteSeconds / weight - meanX * meanY) / varianceX;
+            if (slope > 0 && meanY - slope * meanX >= 0) {
+                return slope;
+            }
+        }
+        return megabytes > 0 ? seconds / megabytes : 0;
+    }
+
+    /**
+     * Returns the fixed time each upload takes whatever its size.
+     */
+    public double overheadSeconds() {
+        if (weight == 0) {
+            return 0;
+        }
+        return Math.max(0, (seconds - secondsPerMegabyte() * megabytes) / weight);
+    }
+
+    /**
+     * Returns the transfer rate, or 0 if nothing was learned about it yet.
+     */
+    public double bytesPerSecond() {
+        double slope = secondsPerMegabyte();
+        return slope > 0 ? BYTES_PER_MEGABYTE / slope : 0;
+    }
+
+    /**
+     * Predicts how long uploading the given number of files of the given total size takes one at a time.
+     */
+    public long predictNanos(long bytes, int uploads) {
+        double predicted = uploads * overheadSeconds() + bytes / BYTES_PER_MEGABYTE * secondsPerMegabyte();
+        return (long) (predicted * NANOS_PER_SECOND);
+    }
+}
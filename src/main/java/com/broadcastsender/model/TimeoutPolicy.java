@@ -0,0 +1,83 @@
+package com.broadcastsender.model;
+
+import java.time.Duration;
+
+/**
+ * Timeouts of the uploads to one endpoint. Instead of one fixed limit for every file, the
+ * time a request body may take grows with its size at the throughput learned for the
+ * endpoint, while a transfer that makes no progress is abandoned after {@code stallSeconds}
+ * whatever its size. Likewise the wait for the answer shrinks to the per-request overhead
+ * learned for the endpoint, see {@link #withLearnedOverhead}.
+ *
+ * @param connectSeconds    time to open the connection
+ * @param stallSeconds      time a single write may go without progress
+ * @param responseSeconds   longest time the server may take to answer once the body is sent, and
+ *                          between reads
+ * @param minBytesPerSecond slowest throughput still accepted; bounds the write deadline of a file
+ * @param maxCallSeconds    cap on the whole call, 0 for none beyond the computed deadline
+ */
+public record TimeoutPolicy(int connectSeconds,
+                            int stallSeconds,
+                            int responseSeconds,
+                            long minBytesPerSecond,
+                            int maxCallSeconds) {
+    public static final int DEFAULT_CONNECT_SECONDS = 10;
+    public static final int DEFAULT_STALL_SECONDS = 20;
+    public static final int DEFAULT_RESPONSE_SECONDS = 60;
+    public static final long DEFAULT_MIN_BYTES_PER_SECOND = 32 * 1024;
+    public static final TimeoutPolicy DEFAULT = new TimeoutPolicy(DEFAULT_CONNECT_SECONDS,
+            DEFAULT_STALL_SECONDS, DEFAULT_RESPONSE_SECONDS, DEFAULT_MIN_BYTES_PER_SECOND, 0);
+    // The learned throughput may drop to a third before the write deadline cuts an upload short
+    private static final double THROUGHPUT_SLACK = 3.0;
+    // Likewise the learned overhead may triple before the server is given up on
+    private static final double OVERHEAD_SLACK = 3.0;
+
+    public TimeoutPolicy {
+        // Fields missing from older configuration files read as 0
+        connectSeconds = connectSeconds > 0 ? connectSeconds : DEFAULT_CONNECT_SECONDS;
+        stallSeconds = stallSeconds > 0 ? stallSeconds : DEFAULT_STALL_SECONDS;
+        responseSeconds = responseSeconds > 0 ? responseSeconds : DEFAULT_RESPONSE_SECONDS;
+        minBytesPerSecond = minBytesPerSecond > 0 ? minBytesPerSecond : DEFAULT_MIN_BYTES_PER_SECOND;
+        maxCallSeconds = Math.max(0, maxCallSeconds);
+    }
+
+    /**
+     * Returns the policy with the response time cut to a few times the per-request overhead
+     * learned for the endpoint, but not below the stall time; a server that answers fast
+     * need not be waited on for the full configured time. The configured response time stays
+     * the limit and applies as is while no overhead has been learned.
+     */
+    public TimeoutPolicy withLearnedOverhead(double overheadSeconds) {
+        if (overheadSeconds <= 0) {
+            return this;
+        }
+        int learned = (int) Math.ceil(overheadSeconds * OVERHEAD_SLACK);
+        int seconds = Math.min(responseSeconds, Math.max(stallSeconds, learned));
+        if (seconds == responseSeconds) {
+            return this;
+        }
+        return new TimeoutPolicy(connectSeconds, stallSeconds, seconds, minBytesPerSecond, maxCallSeconds);
+    }
+
+    /**
+     * Returns how long sending a body of the given size may take, from the learned
+     * throughput of the endpoint or 0 if none was learned yet.
+     */
+    public Duration writeDeadline(long bytes, double bytesPerSecond) {
+        double expected = Math.max(bytesPerSecond / THROUGHPUT_SLACK, minBytesPerSecond);
+        return Duration.ofSeconds(stallSeconds).plusMillis((long) Math.ceil(bytes * 1000.0 / expected));
+    }
+
+    /**
+     * Returns the deadline of the whole call: connecting, sending the body and reading the response.
+     */
+    public Duration callDeadline(long bytes, double bytesPerSecond) {
+        Duration deadline = writeDeadline(bytes, bytesPerSecond)
+                .plusSeconds(connectSeconds)
+                .plusSeconds(responseSeconds);
+        if (maxCallSeconds > 0 && deadline.getSeconds() >= maxCallSeconds) {
+            return Duration.ofSeconds(maxCallSeconds);
+        }
+        return deadline;
+    }
+}
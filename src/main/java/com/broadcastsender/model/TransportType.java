@@ -0,0 +1,22 @@
+package com.broadcastsender.model;
+
+/**
+ * Enum representing the HTTP client engine that sends the uploads to an endpoint.
+ */
+public enum TransportType {
+    // Raw uploads to http:// URLs are sent with sendfile instead
+    OKHTTP("OkHttp"),
+    // HTTP/2 over plain TCP without the HTTP/1.1 upgrade; for internal http:// endpoints
+    OKHTTP_H2C("OkHttp, HTTP/2 prior knowledge"),
+    JDK_HTTP2("Java HttpClient, HTTP/2");
+    
+    private final String displayName;
+    
+    TransportType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
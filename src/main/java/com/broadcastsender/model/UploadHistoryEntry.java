@@ -0,0 +1,36 @@
+package com.broadcastsender.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One finished upload attempt of a pair as kept in the upload history.
+ * Holds ids and names rather than the endpoint and file objects, so entries stay readable
+ * after the endpoint is deleted or the file moved.
+ */
+public record UploadHistoryEntry(LocalDateTime timestamp,
+                                 long jobId,
+                                 String endpointId,
+                                 String endpointName,
+                                 String file,
+                                 long fileSize,
+                                 UploadStatus status,
+                                 int statusCode,
+                                 int attempts,
+                                 String message) {
+    private static final int MAX_MESSAGE_LENGTH = 512;
+
+    /**
+     * Creates the entry of a snapshot in a final state. Long messages are cut short;
+     * response bodies are not kept.
+     */
+    public static UploadHistoryEntry of(UploadSnapshot snapshot) {
+        String message = snapshot.getMessage();
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        return new UploadHistoryEntry(snapshot.getTimestamp(), snapshot.getJobId(),
+            snapshot.getEndpoint().getId(), snapshot.getEndpoint().getName(),
+            snapshot.getFile().getAbsolutePath(), snapshot.getFile().getSize(),
+            snapshot.getStatus(), snapshot.getStatusCode(), snapshot.getAttemptNumber(), message);
+    }
+}
@@ -0,0 +1,27 @@
+package com.broadcastsender.model;
+
+/**
+ * Enum representing the priority of an upload job.
+ * The weight is the job's share of the upload slots relative to the other running jobs.
+ */
+public enum UploadPriority {
+    LOW("Low", 1),
+    NORMAL("Normal", 4),
+    HIGH("High", 16);
+    
+    private final String displayName;
+    private final int weight;
+    
+    UploadPriority(String displayName, int weight) {
+        this.displayName = displayName;
+        this.weight = weight;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public int getWeight() {
+        return weight;
+    }
+}
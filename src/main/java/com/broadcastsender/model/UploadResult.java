@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
  * Model representing the result of an upload operation.
  */
 public class UploadResult {
+    private final long jobId;
     private final Endpoint endpoint;
     private final FileAttachment file;
     private UploadStatus status;
@@ -15,8 +16,17 @@ public class UploadResult {
     private LocalDateTime timestamp;
     private int attemptNumber;
     private double progress;
+    private int pair = -1;
     
     public UploadResult(Endpoint endpoint, FileAttachment file) {
+        this(0, endpoint, file);
+    }
+    
+    /**
+     * Creates the result of a pair belonging to an upload job.
+     */
+    public UploadResult(long jobId, Endpoint endpoint, FileAttachment file) {
+        this.jobId = jobId;
         this.endpoint = endpoint;
         this.file = file;
         this.status = UploadStatus.PENDING;
@@ -25,6 +35,24 @@ public class UploadResult {
         this.progress = 0.0;
     }
     
+    /**
+     * Returns the id of the job the pair was first uploaded by, or 0 outside of a job.
+     */
+    public long getJobId() {
+        return jobId;
+    }
+    
+    /**
+     * Returns the index of the pair in the batch of its job, or -1 if it is not known.
+     */
+    public int getPair() {
+        return pair;
+    }
+    
+    public void setPair(int pair) {
+        this.pair = pair;
+    }
+    
     public Endpoint getEndpoint() {
         return endpoint;
     }
@@ -90,6 +118,13 @@ public class UploadResult {
         this.progress = progress;
     }
     
+    /**
+     * Returns an immutable copy of the current state.
+     */
+    public UploadSnapshot snapshot() {
+        return new UploadSnapshot(this);
+    }
+    
     @Override
     public String toString() {
         return String.format("[%s] %s -> %s: %s", 
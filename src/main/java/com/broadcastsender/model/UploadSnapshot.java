@@ -0,0 +1,91 @@
+package com.broadcastsender.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of an {@link UploadResult}, published by upload workers
+ * so the UI never reads state that a worker thread is still mutating.
+ */
+public final class UploadSnapshot {
+    private final long jobId;
+    private final int pair;
+    private final Endpoint endpoint;
+    private final FileAttachment file;
+    private final UploadStatus status;
+    private final String message;
+    private final int statusCode;
+    private final String responseBody;
+    private final LocalDateTime timestamp;
+    private final int attemptNumber;
+    private final double progress;
+    private final long capturedNanos;
+    
+    UploadSnapshot(UploadResult result) {
+        this.jobId = result.getJobId();
+        this.pair = result.getPair();
+        this.endpoint = result.getEndpoint();
+        this.file = result.getFile();
+        this.status = result.getStatus();
+        this.message = result.getMessage();
+        this.statusCode = result.getStatusCode();
+        this.responseBody = result.getResponseBody();
+        this.timestamp = result.getTimestamp();
+        this.attemptNumber = result.getAttemptNumber();
+        this.progress = result.getProgress();
+        this.capturedNanos = System.nanoTime();
+    }
+    
+    public long getJobId() {
+        return jobId;
+    }
+    
+    /**
+     * Returns the index of the pair in the batch of its job, or -1 if it is not known.
+     */
+    public int getPair() {
+        return pair;
+    }
+    
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+    
+    public FileAttachment getFile() {
+        return file;
+    }
+    
+    public UploadStatus getStatus() {
+        return status;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+    
+    public double getProgress() {
+        return progress;
+    }
+    
+    /**
+     * Returns the {@link System#nanoTime()} at which the snapshot was taken.
+     */
+    public long getCapturedNanos() {
+        return capturedNanos;
+    }
+}
@@ -2,13 +2,15 @@ package com.broadcastsender.model;
 
 /**
  * Enum representing the status of an upload operation.
+ * Uploads to an endpoint group member are skipped once the file reached the group's quorum.
  */
 public enum UploadStatus {
     PENDING("Pending"),
     IN_PROGRESS("In Progress"),
     SUCCESS("Success"),
     FAILED("Failed"),
-    RETRYING("Retrying");
+    RETRYING("Retrying"),
+    SKIPPED("Skipped");
     
     private final String displayName;
     
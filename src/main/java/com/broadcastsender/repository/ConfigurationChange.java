@@ -0,0 +1,46 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.AppConfiguration;
+import com.broadcastsender.model.Endpoint;
+
+/**
+ * One change to the stored configuration, appended to the change log instead of
+ * rewriting the whole file.
+ */
+public sealed interface ConfigurationChange {
+    
+    /**
+     * Identifies what the change replaces; a later change with the same key supersedes it.
+     */
+    String key();
+    
+    /**
+     * An endpoint was added or edited. Edits keep the endpoint's place in the list.
+     */
+    record EndpointSaved(Endpoint endpoint) implements ConfigurationChange {
+        @Override
+        public String key() {
+            return "endpoint:" + endpoint.getId();
+        }
+    }
+    
+    /**
+     * An endpoint was deleted.
+     */
+    record EndpointRemoved(String endpointId) implements ConfigurationChange {
+        @Override
+        public String key() {
+            return "endpoint:" + endpointId;
+        }
+    }
+    
+    /**
+     * The upload settings changed; the endpoints of the configuration are ignored.
+     */
+    record SettingsChanged(AppConfiguration settings) implements ConfigurationChange {
+        @Override
+        public String key() {
+            return "settings";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.AppConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves the configuration on a background thread, coalescing bursts of changes.
+ * A write happens once changes have been quiet for a short while, or at the latest a
+ * fixed time after the first unsaved change, so a long spinner drag still gets saved.
+ * Single changes are appended to the change log, only the newest change per endpoint or
+ * to the settings; a full configuration replaces the file and the changes before it.
+ */
+public class ConfigurationPersister implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationPersister.class);
+    private static final long DEFAULT_QUIET_MILLIS = 300;
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    
+    private final ConfigurationRepository repository;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService executor;
+    private final AtomicInteger writeCount = new AtomicInteger();
+    
+    // Guarded by this
+    private AppConfiguration pending;
+    private final Map<String, ConfigurationChange> pendingChanges = new LinkedHashMap<>();
+    private long firstPendingNanos;
+    private ScheduledFuture<?> scheduledWrite;
+    
+    public ConfigurationPersister(ConfigurationRepository repository) {
+        this(repository, DEFAULT_QUIET_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+    
+    public ConfigurationPersister(ConfigurationRepository repository, long quietMillis, long maxDelayMillis) {
+        this.repository = repository;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "config-persister");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Schedules the configuration to be saved. The caller must not change it afterwards;
+     * pass a {@link AppConfiguration#copy() copy} of a configuration that keeps changing.
+     */
+    public synchronized void submit(AppConfiguration configuration) {
+        markPending();
+        pending = configuration;
+        pendingChanges.clear();
+        scheduleWrite();
+    }
+    
+    /**
+     * Schedules a change to be logged. The endpoint or settings it carries must not be
+     * changed afterwards.
+     */
+    public synchronized void submit(ConfigurationChange change) {
+        markPending();
+        // Replaced in place, so new endpoints are still logged in the order they were added
+        pendingChanges.put(change.key(), change);
+        scheduleWrite();
+    }
+    
+    private void markPending() {
+        if (pending == null && pendingChanges.isEmpty()) {
+            firstPendingNanos = System.nanoTime();
+        }
+    }
+    
+    private void scheduleWrite() {
+        long delay = Math.min(quietNanos, firstPendingNanos + maxDelayNanos - System.nanoTime());
+        if (scheduledWrite != null) {
+            scheduledWrite.cancel(false);
+        }
+        scheduledWrite = executor.schedule(this::writePending, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Saves the pending configuration now and waits until it is on disk.
+     */
+    public void flush() {
+        try {
+            executor.submit(this::writePending).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Failed to flush configuration", e);
+        }
+    }
+    
+    /**
+     * Saves what is pending and stops the background thread.
+     */
+    @Override
+    public void close() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        flush();
+        executor.shutdown();
+    }
+    
+    /**
+     * Returns how many times the configuration was written.
+     */
+    int getWriteCount() {
+        return writeCount.get();
+    }
+    
+    private void writePending() {
+        AppConfiguration configuration;
+        List<ConfigurationChange> changes;
+        synchronized (this) {
+            configuration = pending;
+            changes = new ArrayList<>(pendingChanges.values());
+            pending = null;
+            pendingChanges.clear();
+            scheduledWrite = null;
+        }
+        // Writes run one at a time on this thread, so a newer configuration is never overwritten
+        if (configuration != null) {
+            repository.save(configuration);
+            writeCount.incrementAndGet();
+        }
+        if (!changes.isEmpty()) {
+            repository.append(changes);
+            writeCount.incrementAndGet();
+        }
+    }
+}
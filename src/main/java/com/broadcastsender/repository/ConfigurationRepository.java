@@ -1,38 +1,84 @@
 package com.broadcastsender.repository;
 
 import com.broadcastsender.model.AppConfiguration;
+import com.broadcastsender.model.Endpoint;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Repository for persisting and loading application configuration.
+ * The configuration lives in a JSON file plus a log of the changes made since the file
+ * was last written in full; {@link #load()} applies the log on top of the file.
  */
 public class ConfigurationRepository {
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationRepository.class);
     private static final String CONFIG_DIR = System.getProperty("user.home") + "/.broadcastsender";
     private static final String CONFIG_FILE = "config.json";
+    private static final String LOG_SUFFIX = ".log";
+    // The log is folded into the file after this many changes, or one per this many endpoints if more
+    private static final int COMPACT_MIN_ENTRIES = 1000;
+    private static final int COMPACT_ENDPOINT_DIVISOR = 4;
     
     private final ObjectMapper objectMapper;
+    private final ObjectReader endpointReader;
+    private final ObjectWriter lineWriter;
     private final Path configPath;
+    private final Path logPath;
+    // Guarded by this
+    private int snapshotEndpoints;
+    private int logEntries;
     
     public ConfigurationRepository() {
+        this(Paths.get(CONFIG_DIR, CONFIG_FILE));
+    }
+    
+    /**
+     * Creates a repository storing the configuration in the given file.
+     */
+    public ConfigurationRepository(Path configPath) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
         this.objectMapper.registerModule(new JavaTimeModule());
-        this.configPath = Paths.get(CONFIG_DIR, CONFIG_FILE);
+        this.endpointReader = objectMapper.readerFor(Endpoint.class);
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.configPath = configPath.toAbsolutePath();
+        this.logPath = this.configPath.resolveSibling(this.configPath.getFileName() + LOG_SUFFIX);
         
         // Ensure config directory exists
         try {
-            Files.createDirectories(Paths.get(CONFIG_DIR));
+            Files.createDirectories(this.configPath.getParent());
         } catch (IOException e) {
             logger.error("Failed to create configuration directory", e);
         }
@@ -41,38 +87,244 @@ public class ConfigurationRepository {
     /**
      * Loads the application configuration from file.
      * Returns a default configuration if file doesn't exist.
+     * The changes logged since the last full save are applied on top of the file.
      */
-    public AppConfiguration load() {
+    public synchronized AppConfiguration load() {
         try {
-            File file = configPath.toFile();
-            if (file.exists()) {
+            AppConfiguration config;
+            if (Files.exists(configPath)) {
                 logger.info("Loading configuration from: {}", configPath);
-                return objectMapper.readValue(file, AppConfiguration.class);
+                config = readSnapshot(configPath);
+            } else if (Files.exists(logPath)) {
+                logger.warn("Configuration file not found, replaying the change log onto defaults");
+                config = new AppConfiguration();
             } else {
                 logger.info("Configuration file not found, creating default configuration");
                 AppConfiguration defaultConfig = new AppConfiguration();
                 save(defaultConfig);
                 return defaultConfig;
             }
+            snapshotEndpoints = config.getEndpoints().size();
+            logEntries = replayLog(config);
+            if (logEntries < 0) {
+                // Later appends would land behind the torn line and be lost, so start over clean
+                save(config);
+            }
+            return config;
         } catch (IOException e) {
             logger.error("Failed to load configuration", e);
             return new AppConfiguration();
         }
     }
     
+    /**
+     * Parses a configuration file one endpoint at a time instead of binding a tree of the
+     * whole document, which keeps large endpoint lists fast to load.
+     */
+    private AppConfiguration readSnapshot(Path file) throws IOException {
+        List<Endpoint> endpoints = new ArrayList<>();
+        ObjectNode settings = objectMapper.createObjectNode();
+        try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a configuration object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("endpoints") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        endpoints.add(endpointReader.readValue(parser));
+                    }
+                } else {
+                    settings.set(field, parser.readValueAsTree());
+                }
+            }
+        }
+        AppConfiguration config = objectMapper.treeToValue(settings, AppConfiguration.class);
+        config.setEndpoints(endpoints);
+        return config;
+    }
+    
     /**
      * Saves the application configuration to file.
+     * The file is replaced atomically, so a crash while saving leaves the previous version intact.
+     * Clears the change log, which the saved file supersedes.
      */
-    public void save(AppConfiguration config) {
+    public synchronized void save(AppConfiguration config) {
         try {
             logger.info("Saving configuration to: {}", configPath);
-            objectMapper.writeValue(configPath.toFile(), config);
+            writeAtomically(objectMapper.writeValueAsBytes(config));
+            // A crash before this point replays the log onto the new file, which is harmless
+            Files.deleteIfExists(logPath);
+            snapshotEndpoints = config.getEndpoints().size();
+            logEntries = 0;
             logger.info("Configuration saved successfully");
         } catch (IOException e) {
             logger.error("Failed to save configuration", e);
         }
     }
     
+    /**
+     * Appends changes to the change log, one line each, so an edit costs I/O proportional
+     * to the change instead of the whole configuration. Folds the log into the
+     * configuration file once it grows past a fraction of the endpoint count.
+     */
+    public synchronized void append(List<ConfigurationChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            for (ConfigurationChange change : changes) {
+                lineWriter.writeValue(lines, toLogEntry(change));
+                lines.write('\n');
+            }
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            logEntries += changes.size();
+            logger.debug("Logged {} configuration changes ({} since the last full save)", changes.size(), logEntries);
+        } catch (IOException e) {
+            logger.error("Failed to log configuration changes", e);
+            return;
+        }
+        
+        if (logEntries >= Math.max(COMPACT_MIN_ENTRIES, snapshotEndpoints / COMPACT_ENDPOINT_DIVISOR)) {
+            compact();
+        }
+    }
+    
+    /**
+     * Rewrites the configuration file with the logged changes applied and empties the log.
+     */
+    public synchronized void compact() {
+        logger.info("Compacting {} logged configuration changes", logEntries);
+        save(load());
+    }
+    
+    private ObjectNode toLogEntry(ConfigurationChange change) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        if (change instanceof ConfigurationChange.EndpointSaved saved) {
+            entry.put("op", "put");
+            entry.set("endpoint", objectMapper.valueToTree(saved.endpoint()));
+        } else if (change instanceof ConfigurationChange.EndpointRemoved removed) {
+            entry.put("op", "remove");
+            entry.put("id", removed.endpointId());
+        } else if (change instanceof ConfigurationChange.SettingsChanged changed) {
+            ObjectNode settings = objectMapper.valueToTree(changed.settings());
+            settings.remove("endpoints");
+            entry.put("op", "settings");
+            entry.set("settings", settings);
+        }
+        return entry;
+    }
+    
+    /**
+     * Applies the logged changes in order and returns how many there were. A torn last
+     * line from a crash while appending ends the replay, and -1 is returned.
+     */
+    private int replayLog(AppConfiguration config) throws IOException {
+        if (!Files.exists(logPath)) {
+            return 0;
+        }
+        List<Endpoint> endpoints = config.getEndpoints();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            positions.put(endpoints.get(i).getId(), i);
+        }
+        boolean removed = false;
+        boolean torn = false;
+        int entries = 0;
+        
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode entry;
+                try {
+                    entry = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    logger.warn("Ignoring unreadable configuration change log entry {} and the rest of the log", entries + 1);
+                    torn = true;
+                    break;
+                }
+                entries++;
+                switch (entry.path("op").asText()) {
+                    case "put" -> {
+                        Endpoint endpoint = objectMapper.treeToValue(entry.get("endpoint"), Endpoint.class);
+                        Integer position = positions.get(endpoint.getId());
+                        if (position != null) {
+                            endpoints.set(position, endpoint);
+                        } else {
+                            positions.put(endpoint.getId(), endpoints.size());
+                            endpoints.add(endpoint);
+                        }
+                    }
+                    case "remove" -> {
+                        Integer position = positions.remove(entry.path("id").asText());
+                        if (position != null) {
+                            // Tombstone for now; compacted below so positions stay valid
+                            endpoints.set(position, null);
+                            removed = true;
+                        }
+                    }
+                    case "settings" -> {
+                        AppConfiguration settings = objectMapper.treeToValue(entry.get("settings"), AppConfiguration.class);
+                        config.setMaxConcurrentUploads(settings.getMaxConcurrentUploads());
+                        config.setMaxRetryAttempts(settings.getMaxRetryAttempts());
+                        config.setMaxUploadsPerEndpoint(settings.getMaxUploadsPerEndpoint());
+                        config.setLocalApiEnabled(settings.isLocalApiEnabled());
+                        config.setLocalApiPort(settings.getLocalApiPort());
+                        config.setHistoryRetentionDays(settings.getHistoryRetentionDays());
+                        config.setResultWindow(settings.getResultWindow());
+                        config.setEndpointGroups(settings.getEndpointGroups());
+                    }
+                    default -> logger.warn("Ignoring unknown configuration change: {}", entry.path("op").asText());
+                }
+            }
+        }
+        if (removed) {
+            endpoints.removeIf(Objects::isNull);
+        }
+        logger.info("Applied {} logged configuration changes", entries);
+        return torn ? -1 : entries;
+    }
+    
+    /**
+     * Writes the bytes to a temporary file next to the configuration, forces them to disk
+     * and renames the temporary file over the configuration.
+     */
+    private void writeAtomically(byte[] bytes) throws IOException {
+        Path tempFile = Files.createTempFile(configPath.getParent(), CONFIG_FILE, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, configPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, configPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    public Path getConfigPath() {
+        return configPath;
+    }
+    
     /**
      * Exports the configuration to a specified file.
      */
@@ -87,7 +339,7 @@ public class ConfigurationRepository {
      */
     public AppConfiguration importConfiguration(File sourceFile) throws IOException {
         logger.info("Importing configuration from: {}", sourceFile.getAbsolutePath());
-        AppConfiguration config = objectMapper.readValue(sourceFile, AppConfiguration.class);
+        AppConfiguration config = readSnapshot(sourceFile.toPath());
         logger.info("Configuration imported successfully");
         return config;
     }
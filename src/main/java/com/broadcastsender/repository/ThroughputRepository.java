@@ -0,0 +1,79 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.ThroughputStats;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Repository keeping what was learned about each endpoint's throughput between runs,
+ * as a JSON object of {@link ThroughputStats} by endpoint id.
+ */
+public class ThroughputRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ThroughputRepository.class);
+    private static final String THROUGHPUT_FILE = System.getProperty("user.home") + "/.broadcastsender/throughput.json";
+    private static final TypeReference<Map<String, ThroughputStats>> STATS_TYPE = new TypeReference<>() {
+    };
+    
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    
+    public ThroughputRepository() {
+        this(Paths.get(THROUGHPUT_FILE));
+    }
+    
+    public ThroughputRepository(Path path) {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this.path = path.toAbsolutePath();
+    }
+    
+    /**
+     * Loads the saved stats, or none if there are none or they cannot be read.
+     */
+    public synchronized Map<String, ThroughputStats> load() {
+        if (!Files.exists(path)) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(path.toFile(), STATS_TYPE);
+        } catch (IOException e) {
+            // Only predictions depend on it, so start learning again rather than fail
+            logger.warn("Ignoring unreadable throughput stats in {}: {}", path, e.getMessage());
+            return Map.of();
+        }
+    }
+    
+    /**
+     * Replaces the saved stats, writing a temporary file and renaming it over the old one.
+     */
+    public synchronized void save(Map<String, ThroughputStats> stats) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                objectMapper.writeValue(tempFile.toFile(), new TreeMap<>(stats));
+                try {
+                    Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to save throughput stats to {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.UploadHistoryEntry;
+import com.broadcastsender.model.UploadStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Disk-backed history of finished uploads.
+ * Entries are appended to one NDJSON segment per day ({@code 2026-10-19.ndjson}). Each
+ * segment has an index of its line positions by endpoint and by status, kept in memory
+ * while the segment is written and saved next to it ({@code 2026-10-19.idx}) once it is
+ * closed. A query opens only the days it covers and reads only the lines their indexes
+ * point at. Segments older than the retention are deleted whole.
+ * Entries are written on a background thread, so recording never blocks the caller.
+ */
+public class UploadHistoryStore implements AutoCloseable {
+    public static final int DEFAULT_RETENTION_DAYS = 30;
+    
+    private static final Logger logger = LoggerFactory.getLogger(UploadHistoryStore.class);
+    private static final String HISTORY_DIR = System.getProperty("user.home") + "/.broadcastsender/history";
+    private static final String SEGMENT_SUFFIX = ".ndjson";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_MAGIC = 0x42534849;
+    private static final int CACHED_INDEXES = 8;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    // A position packs the line's byte offset and its length
+    private static final int LENGTH_BITS = 20;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+    
+    private final Path directory;
+    private final ObjectWriter lineWriter;
+    private final ObjectReader entryReader;
+    private final ExecutorService writer;
+    private final BlockingQueue<UploadHistoryEntry> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile int retentionDays = DEFAULT_RETENTION_DAYS;
+    
+    // Guarded by this
+    private final TreeMap<LocalDate, Path> segments = new TreeMap<>();
+    private final Map<LocalDate, SegmentIndex> cachedIndexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, SegmentIndex> eldest) {
+            return size() > CACHED_INDEXES;
+        }
+    };
+    private LocalDate openDay;
+    private SegmentIndex openIndex;
+    
+    // Only used on the writer thread
+    private FileChannel openChannel;
+    
+    public UploadHistoryStore() {
+        this(Paths.get(HISTORY_DIR));
+    }
+    
+    /**
+     * Creates a store keeping its segments in the given directory.
+     */
+    public UploadHistoryStore(Path directory) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.lineWriter = objectMapper.writerFor(UploadHistoryEntry.class);
+        this.entryReader = objectMapper.readerFor(UploadHistoryEntry.class);
+        this.directory = directory.toAbsolutePath();
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "upload-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            Files.createDirectories(this.directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path segment : files) {
+                    LocalDate day = dayOf(segment);
+                    if (day != null) {
+                        segments.put(day, segment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to open upload history in {}", this.directory, e);
+        }
+        applyRetention();
+    }
+    
+    /**
+     * Sets how many days of history are kept, 0 to keep everything. Takes effect at the
+     * next {@link #applyRetention()}, which also runs whenever a new day starts.
+     */
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+    
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+    
+    /**
+     * Queues an entry to be written. Safe to call from any thread; does not block.
+     */
+    public void record(UploadHistoryEntry entry) {
+        queue.add(entry);
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Upload history closed, entry not written: {}", entry);
+            }
+        }
+    }
+    
+    /**
+     * Deletes the segments older than the retention in the background.
+     */
+    public void applyRetention() {
+        try {
+            writer.execute(this::deleteExpiredSegments);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Upload history closed, retention not applied");
+        }
+    }
+    
+    /**
+     * Returns the entries of the given days that match the endpoint and status, oldest first.
+     *
+     * @param endpointId the endpoint to match, or null for any
+     * @param status the status to match, or null for any
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param limit the most entries to return
+     */
+    public List<UploadHistoryEntry> query(String endpointId, UploadStatus status,
+                                          LocalDate from, LocalDate to, int limit) throws IOException {
+        // Positions are taken under the lock and read without it
+        Map<Path, long[]> selected = new LinkedHashMap<>();
+        int remaining = limit;
+        synchronized (this) {
+            for (Map.Entry<LocalDate, Path> segment : segments.subMap(from, true, to, true).entrySet()) {
+                if (remaining <= 0) {
+                    break;
+                }
+                long[] positions = indexFor(segment.getKey()).select(endpointId, status, remaining);
+                selected.put(segment.getValue(), positions);
+                remaining -= positions.length;
+            }
+        }
+        
+        List<UploadHistoryEntry> entries = new ArrayList<>();
+        for (Map.Entry<Path, long[]> segment : selected.entrySet()) {
+            try (FileChannel channel = FileChannel.open(segment.getKey(), StandardOpenOption.READ)) {
+                for (long position : segment.getValue()) {
+                    entries.add(readEntry(channel, position));
+                }
+            } catch (NoSuchFileException e) {
+                // Deleted by the retention in the meantime
+                logger.debug("History segment {} is gone", segment.getKey());
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * Returns the days that have history, oldest first.
+     */
+    public synchronized List<LocalDate> getDays() {
+        return new ArrayList<>(segments.keySet());
+    }
+    
+    /**
+     * Waits until the entries recorded so far are written.
+     */
+    public void flush() {
+        try {
+            writer.submit(this::drain).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            logger.error("Failed to flush upload history", e);
+        }
+    }
+    
+    /**
+     * Writes what is queued, saves the index of the open segment and stops the writer.
+     */
+    @Override
+    public void close() {
+        if (writer.isShutdown()) {
+            return;
+        }
+        flush();
+        try {
+            writer.submit(this::closeSegment).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Failed to close upload history", e);
+        }
+        writer.shutdown();
+    }
+    
+    private void drain() {
+        drainScheduled.set(false);
+        List<UploadHistoryEntry> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        int start = 0;
+        while (start < batch.size()) {
+            // Consecutive entries of the same day go out in one write
+            LocalDate day = batch.get(start).timestamp().toLocalDate();
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).timestamp().toLocalDate().equals(day)) {
+                end++;
+            }
+            try {
+                append(day, batch.subList(start, end));
+            } catch (IOException e) {
+                logger.error("Failed to write {} upload history entries for {}", end - start, day, e);
+                closeSegment();
+            }
+            start = end;
+        }
+    }
+    
+    private void append(LocalDate day, List<UploadHistoryEntry> entries) throws IOException {
+        if (!day.equals(openDay) || openChannel == null) {
+            openSegment(day);
+        }
+        long offset = openIndex.length;
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        long[] positions = new long[entries.size()];
+        int written = 0;
+        for (UploadHistoryEntry entry : entries) {
+            byte[] line = lineWriter.writeValueAsBytes(entry);
+            if (line.length > LENGTH_MASK) {
+                logger.warn("Upload history entry too long, not written: {}", entry.file());
+                continue;
+            }
+            positions[written++] = (offset + lines.size()) << LENGTH_BITS | line.length;
+            lines.write(line);
+            lines.write('\n');
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            openChannel.write(buffer);
+        }
+        synchronized (this) {
+            for (int i = 0; i < written; i++) {
+                UploadHistoryEntry entry = entries.get(i);
+                openIndex.add(entry.endpointId(), entry.status(), positions[i]);
+            }
+            openIndex.length = offset + lines.size();
+        }
+    }
+    
+    /**
+     * Makes the day's segment the one appended to, closing the previous one.
+     */
+    private void openSegment(LocalDate day) throws IOException {
+        closeSegment();
+        Path segment = segmentPath(day);
+        SegmentIndex index;
+        synchronized (this) {
+            index = cachedIndexes.remove(day);
+            if (index == null || index.length != sizeOf(segment)) {
+                index = loadIndex(day, segment);
+            }
+        }
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Drops a line torn by a crash, so the next line starts clean
+        channel.truncate(index.length);
+        channel.position(index.length);
+        // Rewritten when the segment is closed
+        Files.deleteIfExists(indexPath(day));
+        
+        boolean newDay;
+        synchronized (this) {
+            newDay = segments.isEmpty() || day.isAfter(segments.lastKey());
+            segments.put(day, segment);
+            openDay = day;
+            openIndex = index;
+        }
+        openChannel = channel;
+        if (newDay) {
+            deleteExpiredSegments();
+        }
+    }
+    
+    private void closeSegment() {
+        if (openChannel == null) {
+            return;
+        }
+        LocalDate day;
+        SegmentIndex index;
+        synchronized (this) {
+            day = openDay;
+            index = openIndex;
+        }
+        try {
+            openChannel.close();
+            writeIndex(indexPath(day), index);
+        } catch (IOException e) {
+            logger.warn("Failed to save the upload history index of {}", day, e);
+        }
+        openChannel = null;
+        synchronized (this) {
+            cachedIndexes.put(day, index);
+            openDay = null;
+            openIndex = null;
+        }
+    }
+    
+    private void deleteExpiredSegments() {
+        int days = retentionDays;
+        if (days <= 0) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(days);
+        List<LocalDate> expired;
+        synchronized (this) {
+            expired = new ArrayList<>(segments.headMap(cutoff, false).keySet());
+            expired.remove(openDay);
+            for (LocalDate day : expired) {
+                segments.remove(day);
+                cachedIndexes.remove(day);
+            }
+        }
+        for (LocalDate day : expired) {
+            try {
+                Files.deleteIfExists(segmentPath(day));
+                Files.deleteIfExists(indexPath(day));
+            } catch (IOException e) {
+                logger.warn("Failed to delete upload history of {}", day, e);
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Deleted {} days of upload history older than {}", expired.size(), cutoff);
+        }
+    }
+    
+    /**
+     * Returns the index of a day's segment, loading it if needed. Called under the lock.
+     */
+    private SegmentIndex indexFor(LocalDate day) throws IOException {
+        if (day.equals(openDay)) {
+            return openIndex;
+        }
+        SegmentIndex index = cachedIndexes.get(day);
+        if (index == null) {
+            index = loadIndex(day, segmentPath(day));
+            cachedIndexes.put(day, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Reads the saved index of a segment, or rebuilds it from the segment if the index is
+     * missing or does not cover the whole segment.
+     */
+    private SegmentIndex loadIndex(LocalDate day, Path segment) throws IOException {
+        long segmentSize = sizeOf(segment);
+        if (segmentSize == 0) {
+            return new SegmentIndex();
+        }
+        Path indexFile = indexPath(day);
+        if (Files.exists(indexFile)) {
+            try {
+                SegmentIndex index = readIndex(indexFile);
+                if (index.length == segmentSize) {
+                    return index;
+                }
+            } catch (IOException e) {
+                logger.warn("Unreadable upload history index {}, rebuilding it", indexFile, e);
+            }
+        }
+        return scanSegment(segment);
+    }
+    
+    /**
+     * Indexes the complete lines of a segment. A torn or unreadable line ends the scan.
+     */
+    private SegmentIndex scanSegment(Path segment) throws IOException {
+        SegmentIndex index = new SegmentIndex();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = 0;
+            int next;
+            while ((next = in.read()) != -1) {
+                if (next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+                UploadHistoryEntry entry;
+                try {
+                    entry = entryReader.readValue(line.toByteArray());
+                } catch (IOException e) {
+                    logger.warn("Unreadable line at byte {} of {}, ignoring the rest", offset, segment);
+                    break;
+                }
+                index.add(entry.endpointId(), entry.status(), offset << LENGTH_BITS | line.size());
+                offset += line.size() + 1;
+                index.length = offset;
+                line.reset();
+            }
+        }
+        return index;
+    }
+    
+    private UploadHistoryEntry readEntry(FileChannel channel, long position) throws IOException {
+        long offset = position >>> LENGTH_BITS;
+        ByteBuffer line = ByteBuffer.allocate((int) (position & LENGTH_MASK));
+        while (line.hasRemaining()) {
+            if (channel.read(line, offset + line.position()) < 0) {
+                throw new IOException("Upload history segment ends before byte " + (offset + line.capacity()));
+            }
+        }
+        return entryReader.readValue(line.array());
+    }
+    
+    private static void writeIndex(Path indexFile, SegmentIndex index) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(index.length);
+            index.all.write(out);
+            out.writeInt(index.byStatus.size());
+            for (Map.Entry<UploadStatus, PositionList> status : index.byStatus.entrySet()) {
+                out.writeUTF(status.getKey().name());
+                status.getValue().write(out);
+            }
+            out.writeInt(index.byEndpoint.size());
+            for (Map.Entry<String, PositionList> endpoint : index.byEndpoint.entrySet()) {
+                out.writeUTF(endpoint.getKey());
+                endpoint.getValue().write(out);
+            }
+        }
+    }
+    
+    private static SegmentIndex readIndex(Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new IOException("Not an upload history index");
+            }
+            SegmentIndex index = new SegmentIndex();
+            index.length = in.readLong();
+            index.all = PositionList.read(in);
+            int statuses = in.readInt();
+            for (int i = 0; i < statuses; i++) {
+                try {
+                    index.byStatus.put(UploadStatus.valueOf(in.readUTF()), PositionList.read(in));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown status in upload history index", e);
+                }
+            }
+            int endpoints = in.readInt();
+            for (int i = 0; i < endpoints; i++) {
+                index.byEndpoint.put(in.readUTF(), PositionList.read(in));
+            }
+            return index;
+        }
+    }
+    
+    private Path segmentPath(LocalDate day) {
+        return directory.resolve(day + SEGMENT_SUFFIX);
+    }
+    
+    private Path indexPath(LocalDate day) {
+        return directory.resolve(day + INDEX_SUFFIX);
+    }
+    
+    private static LocalDate dayOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    private static long sizeOf(Path file) throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+    
+    /**
+     * Line positions of one segment, in file order, overall, by status and by endpoint.
+     */
+    private static final class SegmentIndex {
+        private long length;
+        private PositionList all = new PositionList();
+        private final Map<UploadStatus, PositionList> byStatus = new HashMap<>();
+        private final Map<String, PositionList> byEndpoint = new HashMap<>();
+        
+        void add(String endpointId, UploadStatus status, long position) {
+            all.add(position);
+            byStatus.computeIfAbsent(status, s -> new PositionList()).add(position);
+            byEndpoint.computeIfAbsent(endpointId, id -> new PositionList()).add(position);
+        }
+        
+        /**
+         * Returns up to {@code limit} positions of the lines matching both constraints.
+         */
+        long[] select(String endpointId, UploadStatus status, int limit) {
+            PositionList endpointPositions = endpointId != null
+                ? byEndpoint.getOrDefault(endpointId, PositionList.EMPTY) : null;
+            PositionList statusPositions = status != null
+                ? byStatus.getOrDefault(status, PositionList.EMPTY) : null;
+            if (endpointPositions != null && statusPositions != null) {
+                return endpointPositions.intersect(statusPositions, limit);
+            }
+            PositionList positions = endpointPositions != null ? endpointPositions
+                : statusPositions != null ? statusPositions : all;
+            return Arrays.copyOf(positions.positions, Math.min(positions.size, limit));
+        }
+    }
+    
+    /**
+     * Growable list of ascending line positions.
+     */
+    private static final class PositionList {
+        static final PositionList EMPTY = new PositionList();
+        
+        private long[] positions = new long[16];
+        private int size;
+        
+        void add(long position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+        
+        /**
+         * Merges two ascending lists, keeping the positions found in both.
+         */
+        long[] intersect(PositionList other, int limit) {
+            long[] common = new long[Math.min(limit, Math.min(size, other.size))];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (count < common.length && i < size && j < other.size) {
+                long a = positions[i];
+                long b = other.positions[j];
+                if (a == b) {
+                    common[count++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return Arrays.copyOf(common, count);
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(positions[i]);
+            }
+        }
+        
+        static PositionList read(DataInputStream in) throws IOException {
+            PositionList list = new PositionList();
+            int size = in.readInt();
+            list.positions = new long[Math.max(16, size)];
+            for (int i = 0; i < size; i++) {
+                list.positions[i] = in.readLong();
+            }
+            list.size = size;
+            return list;
+        }
+    }
+}
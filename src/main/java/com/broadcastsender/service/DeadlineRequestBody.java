@@ -0,0 +1,70 @@
+package com.broadcastsender.service;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * Request body that reports the bytes it sends to a listener and fails the upload once the
+ * body is not completely sent within its write deadline. When the body is written again, the
+ * bytes reported for the earlier write are taken back with a negative count.
+ */
+class DeadlineRequestBody extends RequestBody {
+    private final RequestBody delegate;
+    private final long deadlineNanos;
+    private final LongConsumer sentListener;
+    private long reported;
+    
+    DeadlineRequestBody(RequestBody delegate, Duration writeDeadline, LongConsumer sentListener) {
+        this.delegate = delegate;
+        this.deadlineNanos = writeDeadline.toNanos();
+        this.sentListener = sentListener;
+    }
+    
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+    
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+    
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // OkHttp writes the body again when it retries on a new connection
+        if (reported > 0) {
+            sentListener.accept(-reported);
+            reported = 0;
+        }
+        long startNanos = System.nanoTime();
+        BufferedSink limited = Okio.buffer(new ForwardingSink(sink) {
+            private long bytesWritten;
+            
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                long elapsed = System.nanoTime() - startNanos;
+                if (elapsed > deadlineNanos) {
+                    throw new SocketTimeoutException(String.format(
+                            "Write deadline of %d s exceeded after %d of %d bytes",
+                            Duration.ofNanos(deadlineNanos).toSeconds(), bytesWritten, contentLength()));
+                }
+                super.write(source, byteCount);
+                bytesWritten += byteCount;
+                reported += byteCount;
+                sentListener.accept(byteCount);
+            }
+        });
+        delegate.writeTo(limited);
+        limited.flush();
+    }
+}
@@ -0,0 +1,327 @@
+package com.broadcastsender.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Service for importing whole directory trees as upload files.
+ * Directories are listed in parallel by a fork/join pool, one task per directory,
+ * and matching files are streamed to the caller in batches while the walk continues.
+ * Symbolic links are not followed.
+ */
+public class DirectoryImportService {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryImportService.class);
+    // Listing is I/O bound, so more tasks than cores keep slow (network) mounts busy
+    private static final int DEFAULT_PARALLELISM = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int BATCH_SIZE = 4096;
+    private static final long BATCH_INTERVAL_NANOS = 100_000_000L;
+    
+    private final ForkJoinPool pool;
+    
+    public DirectoryImportService() {
+        this(DEFAULT_PARALLELISM);
+    }
+    
+    public DirectoryImportService(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+    
+    /**
+     * Starts walking the tree under the root.
+     *
+     * @param includes globs a file must match one of; empty includes every file
+     * @param excludes globs that skip matching files and whole matching directories
+     * @param sink receives batches of matching files on pool threads
+     */
+    public DirectoryImport startImport(Path root, List<String> includes, List<String> excludes,
+                                       Consumer<List<FoundFile>> sink) {
+        DirectoryImport directoryImport = new DirectoryImport(root,
+                new GlobFilter(root.getFileSystem(), includes, excludes), sink);
+        logger.info("Importing directory {} (include {}, exclude {})", root, includes, excludes);
+        pool.execute(directoryImport::run);
+        return directoryImport;
+    }
+    
+    /**
+     * Reads the size and modification time of individually chosen files on the pool, so
+     * a large selection does not stall the caller. The files keep their order; missing
+     * ones get a size and time of 0, as {@link File} reports them.
+     */
+    public CompletableFuture<List<FoundFile>> describeFiles(List<File> files) {
+        List<File> chosen = List.copyOf(files);
+        return CompletableFuture.supplyAsync(() -> {
+            List<FoundFile> found = new ArrayList<>(chosen.size());
+            for (File file : chosen) {
+                File absolute = file.getAbsoluteFile();
+                found.add(new FoundFile(absolute.getParent(), absolute.getName(), absolute.length(),
+                        absolute.lastModified()));
+            }
+            return found;
+        }, pool);
+    }
+    
+    /**
+     * Cancels running imports and stops the pool.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    /**
+     * A file found by an import, with the attributes read during the walk.
+     */
+    public record FoundFile(String directory, String name, long size, long lastModified) {
+    }
+    
+    /**
+     * Counts of an import at the time it finished or was cancelled.
+     */
+    public record ImportSummary(long filesMatched, long filesSeen, long directories, long errors,
+                                boolean cancelled) {
+    }
+    
+    /**
+     * A running import. Counters may be read from any thread while it runs.
+     */
+    public static final class DirectoryImport {
+        private final Path root;
+        private final GlobFilter filter;
+        private final Consumer<List<FoundFile>> sink;
+        private final CompletableFuture<ImportSummary> completion = new CompletableFuture<>();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicLong filesMatched = new AtomicLong();
+        private final AtomicLong filesSeen = new AtomicLong();
+        private final AtomicLong directories = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final List<FoundFile> pending = new ArrayList<>();
+        private long lastFlushNanos = System.nanoTime();
+        
+        private DirectoryImport(Path root, GlobFilter filter, Consumer<List<FoundFile>> sink) {
+            this.root = root;
+            this.filter = filter;
+            this.sink = sink;
+        }
+        
+        /**
+         * Stops the walk; directories already being listed finish their current entry.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+        
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+        
+        /**
+         * Completes with the summary after the last batch was delivered.
+         */
+        public CompletableFuture<ImportSummary> completion() {
+            return completion;
+        }
+        
+        public long getFilesMatched() {
+            return filesMatched.get();
+        }
+        
+        public long getFilesSeen() {
+            return filesSeen.get();
+        }
+        
+        public long getDirectories() {
+            return directories.get();
+        }
+        
+        private void run() {
+            try {
+                new DirectoryTask(root).invoke();
+                flush(true);
+                ImportSummary summary = new ImportSummary(filesMatched.get(), filesSeen.get(),
+                        directories.get(), errors.get(), cancelled.get());
+                logger.info("Directory import of {} finished: {}", root, summary);
+                completion.complete(summary);
+            } catch (Throwable e) {
+                logger.error("Directory import of {} failed", root, e);
+                completion.completeExceptionally(e);
+            }
+        }
+        
+        private void collect(List<FoundFile> found) {
+            filesMatched.addAndGet(found.size());
+            synchronized (pending) {
+                pending.addAll(found);
+            }
+            flush(false);
+        }
+        
+        /**
+         * Hands the pending files to the sink once a batch is full or the last one is getting old,
+         * so slow trees still update the UI steadily.
+         */
+        private void flush(boolean force) {
+            List<FoundFile> batch;
+            synchronized (pending) {
+                long now = System.nanoTime();
+                if (pending.isEmpty() || (!force && pending.size() < BATCH_SIZE
+                        && now - lastFlushNanos < BATCH_INTERVAL_NANOS)) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+                lastFlushNanos = now;
+                // Delivered under the lock so batches reach the sink in the order they were cut
+                sink.accept(batch);
+            }
+        }
+        
+        /**
+         * Lists one directory, forks a task per subdirectory and reports the matching files.
+         */
+        private final class DirectoryTask extends RecursiveAction {
+            private final Path directory;
+            
+            private DirectoryTask(Path directory) {
+                this.directory = directory;
+            }
+            
+            @Override
+            protected void compute() {
+                if (cancelled.get()) {
+                    return;
+                }
+                directories.incrementAndGet();
+                
+                List<DirectoryTask> subtasks = new ArrayList<>();
+                List<FoundFile> found = new ArrayList<>();
+                String directoryName = directory.toAbsolutePath().toString();
+                
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        if (cancelled.get()) {
+                            break;
+                        }
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                                    LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            logger.debug("Cannot read attributes of {}", entry, e);
+                            continue;
+                        }
+                        
+                        Path relative = root.relativize(entry);
+                        if (attributes.isDirectory()) {
+                            if (!filter.excludes(relative)) {
+                                DirectoryTask subtask = new DirectoryTask(entry);
+                                subtask.fork();
+                                subtasks.add(subtask);
+                            }
+                        } else if (attributes.isRegularFile()) {
+                            filesSeen.incrementAndGet();
+                            if (filter.accepts(relative)) {
+                                found.add(new FoundFile(directoryName, entry.getFileName().toString(),
+                                        attributes.size(), attributes.lastModifiedTime().toMillis()));
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                    logger.debug("Cannot list directory {}", directory, e);
+                }
+                
+                if (!found.isEmpty()) {
+                    collect(found);
+                }
+                for (DirectoryTask subtask : subtasks) {
+                    subtask.join();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Include and exclude globs. Globs without a separator are matched against the
+     * file or directory name, others against the path relative to the import root.
+     */
+    static final class GlobFilter {
+        private final List<PathMatcher> includeNames = new ArrayList<>();
+        private final List<PathMatcher> includePaths = new ArrayList<>();
+        private final List<PathMatcher> excludeNames = new ArrayList<>();
+        private final List<PathMatcher> excludePaths = new ArrayList<>();
+        
+        GlobFilter(FileSystem fileSystem, List<String> includes, List<String> excludes) {
+            addMatchers(fileSystem, includes, includeNames, includePaths);
+            addMatchers(fileSystem, excludes, excludeNames, excludePaths);
+        }
+        
+        /**
+         * Returns whether a file at the relative path should be imported.
+         */
+        boolean accepts(Path relative) {
+            if (excludes(relative)) {
+                return false;
+            }
+            if (includeNames.isEmpty() && includePaths.isEmpty()) {
+                return true;
+            }
+            return matches(relative, includeNames, includePaths);
+        }
+        
+        /**
+         * Returns whether the file or directory at the relative path is excluded.
+         */
+        boolean excludes(Path relative) {
+            return matches(relative, excludeNames, excludePaths);
+        }
+        
+        private static boolean matches(Path relative, List<PathMatcher> names, List<PathMatcher> paths) {
+            Path name = relative.getFileName();
+            for (PathMatcher matcher : names) {
+                if (name != null && matcher.matches(name)) {
+                    return true;
+                }
+            }
+            for (PathMatcher matcher : paths) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static void addMatchers(FileSystem fileSystem, List<String> globs,
+                                        List<PathMatcher> names, List<PathMatcher> paths) {
+            for (String glob : globs) {
+                String trimmed = glob.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                PathMatcher matcher = fileSystem.getPathMatcher("glob:" + trimmed);
+                if (trimmed.contains("/")) {
+                    paths.add(matcher);
+                } else {
+                    names.add(matcher);
+                }
+            }
+        }
+    }
+}
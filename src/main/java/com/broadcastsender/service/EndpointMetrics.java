@@ -0,0 +1,181 @@
+package com.broadcastsender.service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Service for live per-endpoint upload metrics.
+ * Each endpoint keeps fixed-size ring buffers of per-second aggregates (bytes sent,
+ * completed uploads, failed attempts), so memory stays constant however long the
+ * application runs. Written by upload workers, read by the UI once per second.
+ * Bytes count in the second they are written, so a long upload shows as a steady rate
+ * rather than one spike when it finishes.
+ */
+public class EndpointMetrics {
+    public static final int HISTORY_SECONDS = 300;
+    private static final int RATE_WINDOW_SECONDS = 5;
+    private static final int ERROR_WINDOW_SECONDS = 60;
+    
+    private final Map<String, Series> seriesByEndpoint = new ConcurrentHashMap<>();
+    private final LongSupplier clockMillis;
+    
+    public EndpointMetrics() {
+        this(System::currentTimeMillis);
+    }
+    
+    EndpointMetrics(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+    }
+    
+    /**
+     * Records that an upload attempt to the endpoint started.
+     */
+    public void attemptStarted(String endpointId) {
+        series(endpointId).inFlight.incrementAndGet();
+    }
+    
+    /**
+     * Records request body bytes written to the endpoint. A negative count takes back bytes
+     * of a body that is sent again, within what the current second has recorded.
+     */
+    public void bytesSent(String endpointId, long bytes) {
+        series(endpointId).recordBytes(currentSecond(), bytes);
+    }
+    
+    /**
+     * Records the end of an upload attempt; its bytes were recorded as they were sent.
+     */
+    public void attemptFinished(String endpointId, boolean success) {
+        Series series = series(endpointId);
+        series.inFlight.decrementAndGet();
+        series.recordAttempt(currentSecond(), success);
+    }
+    
+    /**
+     * Records the end of an upload attempt that was cancelled as no longer needed,
+     * which neither completed nor failed.
+     */
+    public void attemptCancelled(String endpointId) {
+        series(endpointId).inFlight.decrementAndGet();
+    }
+    
+    /**
+     * Returns the current rates and the per-second throughput history of the endpoint.
+     * Rates are averaged over the last complete seconds, so the second still being
+     * filled does not make them dip.
+     */
+    public Sample sample(String endpointId) {
+        Series series = seriesByEndpoint.get(endpointId);
+        if (series == null) {
+            return new Sample(0, 0, 0, 0, new double[HISTORY_SECONDS]);
+        }
+        return series.sample(currentSecond());
+    }
+    
+    /**
+     * Drops the history of all endpoints.
+     */
+    public void clear() {
+        seriesByEndpoint.clear();
+    }
+    
+    private Series series(String endpointId) {
+        return seriesByEndpoint.computeIfAbsent(endpointId, id -> new Series());
+    }
+    
+    private long currentSecond() {
+        return clockMillis.getAsLong() / 1000;
+    }
+    
+    /**
+     * Rates of one endpoint at the time it was sampled.
+     *
+     * @param bytesHistory bytes sent per second, oldest first, ending with the last complete second
+     */
+    public record Sample(double bytesPerSecond, double uploadsPerSecond, int inFlight, double errorRate,
+                         double[] bytesHistory) {
+    }
+    
+    /**
+     * Ring buffers of per-second aggregates for one endpoint. A slot belongs to the second
+     * stored in {@code seconds}; a stale slot is reset when its index comes around again.
+     */
+    private static final class Series {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final long[] seconds = new long[HISTORY_SECONDS];
+        private final long[] bytes = new long[HISTORY_SECONDS];
+        private final int[] completed = new int[HISTORY_SECONDS];
+        private final int[] failed = new int[HISTORY_SECONDS];
+        
+        Series() {
+            Arrays.fill(seconds, -1);
+        }
+        
+        synchronized void recordBytes(long second, long sent) {
+            int slot = claim(second);
+            bytes[slot] = Math.max(0, bytes[slot] + sent);
+        }
+        
+        synchronized void recordAttempt(long second, boolean success) {
+            int slot = claim(second);
+            if (success) {
+                completed[slot]++;
+            } else {
+                failed[slot]++;
+            }
+        }
+        
+        synchronized Sample sample(long now) {
+            double[] history = new double[HISTORY_SECONDS];
+            long rateBytes = 0;
+            long rateUploads = 0;
+            long errorAttempts = 0;
+            long errors = 0;
+            
+            for (int age = 1; age <= HISTORY_SECONDS; age++) {
+                long second = now - age;
+                int slot = slot(second);
+                if (seconds[slot] != second) {
+                    continue;
+                }
+                history[HISTORY_SECONDS - age] = bytes[slot];
+                if (age <= RATE_WINDOW_SECONDS) {
+                    rateBytes += bytes[slot];
+                    rateUploads += completed[slot];
+                }
+                if (age <= ERROR_WINDOW_SECONDS) {
+                    errorAttempts += completed[slot] + failed[slot];
+                    errors += failed[slot];
+                }
+            }
+            
+            return new Sample(
+                (double) rateBytes / RATE_WINDOW_SECONDS,
+                (double) rateUploads / RATE_WINDOW_SECONDS,
+                inFlight.get(),
+                errorAttempts == 0 ? 0 : (double) errors / errorAttempts,
+                history);
+        }
+        
+        /**
+         * Returns the slot of the second, reset first if it still holds an older second.
+         */
+        private int claim(long second) {
+            int slot = slot(second);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                bytes[slot] = 0;
+                completed[slot] = 0;
+                failed[slot] = 0;
+            }
+            return slot;
+        }
+        
+        private static int slot(long second) {
+            return (int) Math.floorMod(second, (long) HISTORY_SECONDS);
+        }
+    }
+}
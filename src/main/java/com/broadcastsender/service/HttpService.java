@@ -3,84 +3,159 @@ package com.broadcastsender.service;
 import com.broadcastsender.model.AuthType;
 import com.broadcastsender.model.Endpoint;
 import com.broadcastsender.model.FileAttachment;
-import okhttp3.*;
+import com.broadcastsender.model.RequestMode;
+import com.broadcastsender.model.ThroughputStats;
+import com.broadcastsender.model.TimeoutPolicy;
+import com.broadcastsender.model.TransportType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Base64;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
- * Service for handling HTTP requests using OkHttp.
+ * Service for handling HTTP requests. It prepares each upload from its endpoint and hands
+ * it to the {@link UploadTransport} the endpoint's {@link TransportType} selects.
+ * Timeouts are set per call from the endpoint's {@link TimeoutPolicy}, scaled to the file
+ * size by the throughput learned from earlier successful uploads to the endpoint.
+ * Raw uploads to plain http:// URLs over the default transport skip OkHttp and are sent
+ * from the file by the kernel through {@link SendfileUploader}.
  */
 public class HttpService {
     private static final Logger logger = LoggerFactory.getLogger(HttpService.class);
-    private static final MediaType MEDIA_TYPE_OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final String OCTET_STREAM = "application/octet-stream";
     
-    private final OkHttpClient client;
+    private final ThroughputEstimator throughput;
+    private final Map<TransportType, UploadTransport> transports = new EnumMap<>(TransportType.class);
+    private final SendfileUploader sendfile = new SendfileUploader();
     
     public HttpService() {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .build();
+        this(new ThroughputEstimator());
+    }
+    
+    public HttpService(ThroughputEstimator throughput) {
+        this.throughput = throughput;
+        OkHttpTransport okHttp = new OkHttpTransport();
+        transports.put(TransportType.OKHTTP, okHttp);
+        transports.put(TransportType.OKHTTP_H2C, okHttp.withPriorKnowledge());
+        transports.put(TransportType.JDK_HTTP2, new JdkHttpTransport());
+    }
+    
+    /**
+     * Returns the throughput learned per endpoint from the uploads sent by this service.
+     */
+    public ThroughputEstimator getThroughputEstimator() {
+        return throughput;
     }
     
     /**
      * Uploads a file to the specified endpoint with authentication.
      */
-    public Response uploadFile(Endpoint endpoint, FileAttachment fileAttachment) throws IOException {
+    public UploadResponse uploadFile(Endpoint endpoint, FileAttachment fileAttachment) throws IOException {
+        return uploadFile(endpoint, fileAttachment, cancel -> { }, sent -> { });
+    }
+    
+    /**
+     * Uploads a file to the specified endpoint, handing an action that cancels the upload
+     * to the listener before it starts so that it can be cancelled from another thread.
+     * The bytes of the request body are reported to the sent listener as they are written.
+     * The response is read completely before this returns.
+     */
+    public UploadResponse uploadFile(Endpoint endpoint, FileAttachment fileAttachment,
+                                     Consumer<Runnable> cancelListener, LongConsumer sentListener)
+            throws IOException {
         File file = fileAttachment.getFile();
+        RequestMode mode = endpoint.getRequestMode();
         
-        logger.info("Uploading file {} to endpoint {}", file.getName(), endpoint.getUrl());
-        
-        // Build multipart request body
-        MultipartBody.Builder bodyBuilder = new MultipartBody.Builder()
-                .setType(MultipartBody.FORM);
-        
-        RequestBody fileBody = RequestBody.create(file, MEDIA_TYPE_OCTET_STREAM);
-        bodyBuilder.addFormDataPart("file", file.getName(), fileBody);
-        
-        RequestBody requestBody = bodyBuilder.build();
-        
-        // Build request with authentication
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(endpoint.getUrl())
-                .post(requestBody);
-        
-        addAuthentication(requestBuilder, endpoint);
+        logger.debug("Uploading file {} to endpoint {} ({} {} over {})", file.getName(), endpoint.getUrl(),
+                mode.method(), mode.body(), endpoint.getTransport());
         
-        Request request = requestBuilder.build();
+        ThroughputStats learned = throughput.statsOf(endpoint.getId());
+        TimeoutPolicy policy = learned != null
+                ? endpoint.getTimeoutPolicy().withLearnedOverhead(learned.overheadSeconds())
+                : endpoint.getTimeoutPolicy();
+        double bytesPerSecond = learned != null ? learned.bytesPerSecond() : 0;
+        long size = fileAttachment.getSize();
+        String authorization = authorizationOf(endpoint);
+        UploadRequest request = new UploadRequest(URI.create(endpoint.getUrl()), mode.method(),
+                authorization != null ? Map.of("Authorization", authorization) : Map.of(),
+                file, contentTypeOf(mode, file), mode.body(), mode.fieldName(), policy,
+                policy.writeDeadline(size, bytesPerSecond), policy.callDeadline(size, bytesPerSecond));
         
-        // Execute request
-        Response response = client.newCall(request).execute();
-        logger.info("Upload completed with status code: {}", response.code());
+        long startNanos = System.nanoTime();
+        UploadResponse response = transportFor(endpoint.getTransport(), request)
+                .send(request, cancelListener, sentListener);
+        if (response.isSuccessful()) {
+            // The whole request counts, so the estimator learns the per-request overhead too
+            throughput.record(endpoint.getId(), size, System.nanoTime() - startNanos);
+        }
+        logger.debug("Upload completed with status code: {}", response.code());
         
         return response;
     }
     
     /**
-     * Adds authentication headers to the request based on endpoint configuration.
+     * Returns the transport that sends the request. Prior knowledge only works without TLS,
+     * so https:// URLs of h2c endpoints go through plain OkHttp, which negotiates HTTP/2.
+     */
+    private UploadTransport transportFor(TransportType type, UploadRequest request) {
+        if (type == TransportType.OKHTTP && request.isRaw() && request.isPlainHttp()) {
+            return sendfile;
+        }
+        if (type == TransportType.OKHTTP_H2C && !request.isPlainHttp()) {
+            return transports.get(TransportType.OKHTTP);
+        }
+        return transports.get(type);
+    }
+    
+    /**
+     * Returns the content type sent for the file: guessed from its contents or name if the
+     * mode asks for it, application/octet-stream otherwise or if nothing matches.
+     */
+    static String contentTypeOf(RequestMode mode, File file) {
+        if (!mode.detectContentType()) {
+            return OCTET_STREAM;
+        }
+        String type = null;
+        try {
+            type = Files.probeContentType(file.toPath());
+        } catch (IOException e) {
+            logger.debug("Could not probe the content type of {}", file, e);
+        }
+        if (type == null) {
+            type = URLConnection.guessContentTypeFromName(file.getName());
+        }
+        return type != null ? type : OCTET_STREAM;
+    }
+    
+    /**
+     * Returns the Authorization header value for the endpoint's authentication, or null if
+     * it uses none.
      */
-    private void addAuthentication(Request.Builder requestBuilder, Endpoint endpoint) {
+    private static String authorizationOf(Endpoint endpoint) {
         AuthType authType = endpoint.getAuthType();
         
         if (authType == null || authType == AuthType.NONE) {
-            return;
+            return null;
         }
         
         switch (authType) {
             case BEARER:
                 if (endpoint.getBearerToken() != null && !endpoint.getBearerToken().isEmpty()) {
-                    requestBuilder.addHeader("Authorization", "Bearer " + endpoint.getBearerToken());
                     logger.debug("Added Bearer token authentication");
+                    return "Bearer " + endpoint.getBearerToken();
                 }
                 break;
-                
+            
             case BASIC:
             case BASIC_BASE64:
                 // Both BASIC and BASIC_BASE64 accept plain text credentials and encode to Base64
@@ -89,10 +164,11 @@ public class HttpService {
                     String credentials = endpoint.getUsername() + ":" + endpoint.getPassword();
                     String encodedCredentials = Base64.getEncoder()
                             .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
-                    requestBuilder.addHeader("Authorization", "Basic " + encodedCredentials);
                     logger.debug("Added Basic authentication (credentials encoded to Base64)");
+                    return "Basic " + encodedCredentials;
                 }
                 break;
         }
+        return null;
     }
 }
@@ -0,0 +1,220 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.TimeoutPolicy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Transport using the JDK's {@link HttpClient}, preferring HTTP/2: negotiated with ALPN over
+ * TLS and through the HTTP/1.1 upgrade on http:// URLs. Uploads to the same server share one
+ * HTTP/2 connection, each as its own stream, instead of one connection per upload.
+ * <p>
+ * The client has no write timeout, so a watchdog cancels the call once the body makes no
+ * progress for the policy's stall time or passes its write deadline, or once the server
+ * does not start to answer within the response time after the body was sent.
+ */
+class JdkHttpTransport implements UploadTransport {
+    private static final long WATCHDOG_MILLIS = 250;
+    
+    // The connect timeout is fixed per client, so there is one client per timeout in use
+    private final Map<Integer, HttpClient> clients = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "jdk-http-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @Override
+    public UploadResponse send(UploadRequest request, Consumer<Runnable> cancelListener, LongConsumer sentListener)
+            throws IOException {
+        Watch watch = new Watch(request.policy(), request.writeDeadline(), sentListener);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                .timeout(request.callDeadline());
+        request.headers().forEach(builder::header);
+        if (request.isRaw()) {
+            builder.header("Content-Type", request.contentType())
+                    .method(request.method(),
+                            watch.counting(HttpRequest.BodyPublishers.ofFile(request.file().toPath())));
+        } else {
+            String boundary = UUID.randomUUID().toString();
+            builder.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .method(request.method(), watch.counting(multipart(request, boundary)));
+        }
+        
+        CompletableFuture<HttpResponse<String>> call = clientFor(request.policy().connectSeconds())
+                .sendAsync(builder.build(), info -> {
+                    watch.responseStarted = true;
+                    return HttpResponse.BodyHandlers.ofString().apply(info);
+                });
+        cancelListener.accept(() -> call.cancel(true));
+        ScheduledFuture<?> watching = watchdog.scheduleAtFixedRate(() -> {
+            if (watch.isOverdue()) {
+                call.cancel(true);
+            }
+        }, WATCHDOG_MILLIS, WATCHDOG_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            HttpResponse<String> response = call.get();
+            // HTTP/2 has no reason phrase
+            return new UploadResponse(response.statusCode(), "", response.body());
+        } catch (CancellationException e) {
+            if (watch.timeout != null) {
+                throw new SocketTimeoutException(watch.timeout);
+            }
+            throw new IOException("Canceled", e);
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading");
+        } catch (ExecutionException e) {
+            // The client may fail the exchange itself once the watchdog cancelled it
+            if (watch.timeout != null) {
+                throw new SocketTimeoutException(watch.timeout);
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            watching.cancel(false);
+        }
+    }
+    
+    private HttpClient clientFor(int connectSeconds) {
+        return clients.computeIfAbsent(connectSeconds, seconds -> HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(seconds))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build());
+    }
+    
+    /**
+     * Progress of one call, which the watchdog checks for stalls and missed deadlines.
+     */
+    private static final class Watch {
+        private final TimeoutPolicy policy;
+        private final long writeDeadlineNanos;
+        private final LongConsumer sentListener;
+        private volatile long progressNanos = System.nanoTime();
+        // When the body publisher completed, or 0 while it is still sending
+        private volatile long bodySentNanos;
+        private volatile boolean responseStarted;
+        private volatile String timeout;
+        private long reported;
+        
+        private Watch(TimeoutPolicy policy, Duration writeDeadline, LongConsumer sentListener) {
+            this.policy = policy;
+            this.writeDeadlineNanos = System.nanoTime() + writeDeadline.toNanos();
+            this.sentListener = sentListener;
+        }
+        
+        /**
+         * Returns whether the call should be given up, keeping the reason for the timeout.
+         */
+        boolean isOverdue() {
+            if (responseStarted || timeout != null) {
+                return false;
+            }
+            long now = System.nanoTime();
+            if (bodySentNanos == 0 && now > writeDeadlineNanos) {
+                timeout = "Write deadline exceeded";
+            } else if (bodySentNanos == 0 && now - progressNanos > TimeUnit.SECONDS.toNanos(policy.stallSeconds())) {
+                timeout = "No upload progress for " + policy.stallSeconds() + " s";
+            } else if (bodySentNanos != 0 && now - bodySentNanos > TimeUnit.SECONDS.toNanos(policy.responseSeconds())) {
+                timeout = "No response within " + policy.responseSeconds() + " s";
+            } else {
+                return false;
+            }
+            return true;
+        }
+        
+        /**
+         * Wraps the body so that the bytes of each buffer are reported as the client takes
+         * it. The client pulls buffers only as fast as it sends them, so each one counts as
+         * progress. Bytes of an earlier subscription are taken back when the client sends
+         * the body again.
+         */
+        HttpRequest.BodyPublisher counting(HttpRequest.BodyPublisher body) {
+            return new HttpRequest.BodyPublisher() {
+                @Override
+                public long contentLength() {
+                    return body.contentLength();
+                }
+                
+                @Override
+                public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                    if (reported > 0) {
+                        sentListener.accept(-reported);
+                        reported = 0;
+                    }
+                    bodySentNanos = 0;
+                    progressNanos = System.nanoTime();
+                    body.subscribe(new Flow.Subscriber<>() {
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            subscriber.onSubscribe(subscription);
+                        }
+                        
+                        @Override
+                        public void onNext(ByteBuffer item) {
+                            // Read before the client consumes the buffer
+                            progressNanos = System.nanoTime();
+                            reported += item.remaining();
+                            sentListener.accept(item.remaining());
+                            subscriber.onNext(item);
+                        }
+                        
+                        @Override
+                        public void onError(Throwable throwable) {
+                            subscriber.onError(throwable);
+                        }
+                        
+                        @Override
+                        public void onComplete() {
+                            bodySentNanos = System.nanoTime();
+                            subscriber.onComplete();
+                        }
+                    });
+                }
+            };
+        }
+    }
+    
+    /**
+     * Frames the file as the only part of a multipart/form-data body, read from the file as
+     * it is sent.
+     */
+    private static HttpRequest.BodyPublisher multipart(UploadRequest request, String boundary)
+            throws IOException {
+        String fileName = request.file().getName().replace("\"", "%22");
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + request.fieldName()
+                + "\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + request.contentType() + "\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+        return HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofString(head, StandardCharsets.UTF_8),
+                HttpRequest.BodyPublishers.ofFile(request.file().toPath()),
+                HttpRequest.BodyPublishers.ofString(tail, StandardCharsets.UTF_8));
+    }
+}
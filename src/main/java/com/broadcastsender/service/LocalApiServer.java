@@ -0,0 +1,638 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadHistoryEntry;
+import com.broadcastsender.model.UploadPriority;
+import com.broadcastsender.model.UploadSnapshot;
+import com.broadcastsender.model.UploadStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP API for submitting upload jobs to the running application, so scripts reuse
+ * its warm connections instead of starting a JVM per batch.
+ * Listens on the loopback interface only. Every request has to carry the token generated at
+ * start-up as {@code Authorization: Bearer <token>}; the token is written to
+ * {@code ~/.broadcastsender/api-token}, readable by the owner only, so other local users
+ * cannot submit jobs. Requests with an {@code Origin} header, or with a {@code Host} other
+ * than {@code 127.0.0.1:<port>} or {@code localhost:<port>}, are refused, so web pages
+ * cannot drive the API through the browser, not even by rebinding a DNS name to loopback.
+ *
+ * <pre>
+ * GET    /endpoints          configured endpoints (id, name, url)
+ * GET    /jobs               active jobs and the jobs submitted here
+ * POST   /jobs               {"files": [paths], "endpoints": [ids], "priority": "HIGH", "name": "..."}
+ * GET    /jobs/{id}          job status
+ * DELETE /jobs/{id}          cancels the job
+ * GET    /jobs/{id}/events   NDJSON stream of progress events until the job finishes
+ * GET    /history            finished uploads; ?endpoint=id&amp;status=FAILED&amp;date=2026-10-13
+ *                            or from=...&amp;to=..., limit (default 1000)
+ * </pre>
+ *
+ * Jobs go through the same {@link UploadService} scheduler as the jobs started in the UI.
+ */
+public class LocalApiServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LocalApiServer.class);
+    private static final int MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_RECENT_JOBS = 256;
+    private static final int EVENT_QUEUE_CAPACITY = 4096;
+    private static final long EVENT_POLL_MILLIS = 250;
+    private static final int DEFAULT_HISTORY_LIMIT = 1000;
+    private static final int MAX_HISTORY_LIMIT = 10_000;
+    private static final String TOKEN_FILE = System.getProperty("user.home") + "/.broadcastsender/api-token";
+    private static final int TOKEN_BYTES = 32;
+    
+    /**
+     * The application side of the API.
+     */
+    public interface Host {
+        
+        /**
+         * Returns the configured endpoints; called on server threads.
+         */
+        List<Endpoint> getEndpoints();
+        
+        /**
+         * Called on a server thread after a job was submitted through the API.
+         */
+        void jobSubmitted(UploadJob job, List<FileAttachment> files, List<Endpoint> endpoints);
+        
+        /**
+         * Receives the progress of the jobs submitted through the API, on upload worker threads.
+         */
+        void progress(UploadSnapshot snapshot);
+        
+        /**
+         * Returns the finished uploads of the given days, oldest first; called on server threads.
+         */
+        List<UploadHistoryEntry> queryHistory(String endpointId, UploadStatus status,
+                                              LocalDate from, LocalDate to, int limit) throws IOException;
+    }
+    
+    private final UploadService uploadService;
+    private final Host host;
+    private final Path tokenFile;
+    private final SecureRandom random = new SecureRandom();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<EventStream> eventStreams = new CopyOnWriteArrayList<>();
+    // Jobs submitted here, kept after they finish so their status can still be queried
+    private final Map<Long, UploadJob> recentJobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UploadJob> eldest) {
+            return size() > MAX_RECENT_JOBS && eldest.getValue().getState().isFinished();
+        }
+    };
+    private final AtomicInteger threadIds = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile byte[] token;
+    
+    public LocalApiServer(UploadService uploadService, Host host) {
+        this(uploadService, host, Paths.get(TOKEN_FILE));
+    }
+    
+    /**
+     * Creates a server that writes its token to the given file instead of the user's home.
+     */
+    public LocalApiServer(UploadService uploadService, Host host, Path tokenFile) {
+        this.uploadService = uploadService;
+        this.host = host;
+        this.tokenFile = tokenFile;
+    }
+    
+    /**
+     * Starts listening on the loopback interface; port 0 picks a free port.
+     * A new token is generated and written to the token file first.
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Local API already running on port " + getPort());
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String newToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        writeToken(newToken);
+        token = newToken.getBytes(StandardCharsets.US_ASCII);
+        
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Event streams hold their thread until the job finishes, so the pool is unbounded
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "local-api-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/jobs", this::handle);
+        httpServer.createContext("/endpoints", this::handle);
+        httpServer.createContext("/history", this::handle);
+        httpServer.start();
+        server = httpServer;
+        logger.info("Local API listening on {}", httpServer.getAddress());
+    }
+    
+    /**
+     * Returns the port listened on, or -1 if the server is not running.
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+    
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+    
+    /**
+     * Returns the file holding the token that requests have to present.
+     */
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+    
+    /**
+     * Stops listening and ends the open event streams. Submitted jobs keep running.
+     * The token file is deleted, as the token is no longer valid.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete the local API token {}", tokenFile, e);
+        }
+        logger.info("Local API stopped");
+    }
+    
+    /**
+     * Replaces the token file with one only the owner can read, where the file system
+     * supports POSIX permissions.
+     */
+    private void writeToken(String newToken) throws IOException {
+        Files.createDirectories(tokenFile.getParent());
+        Files.deleteIfExists(tokenFile);
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(tokenFile);
+        }
+        Files.writeString(tokenFile, newToken, StandardCharsets.US_ASCII);
+    }
+    
+    private void handle(HttpExchange exchange) {
+        try {
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                sendError(exchange, 403, "Cross-origin requests are not accepted");
+                return;
+            }
+            int port = exchange.getLocalAddress().getPort();
+            if (!isLoopbackHost(exchange.getRequestHeaders().getFirst("Host"), port)) {
+                sendError(exchange, 403, "Host not accepted");
+                return;
+            }
+            if (!hasToken(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                sendError(exchange, 401, "Missing or wrong token, see " + tokenFile);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            
+            if (path.length == 1 && path[0].equals("endpoints")) {
+                requireMethod(exchange, method, "GET");
+                sendJson(exchange, 200, endpointsJson());
+            } else if (path.length == 1 && path[0].equals("history")) {
+                requireMethod(exchange, method, "GET");
+                sendJson(exchange, 200, historyJson(exchange.getRequestURI().getRawQuery()));
+            } else if (path.length == 1 && path[0].equals("jobs")) {
+                if (method.equals("POST")) {
+                    submit(exchange);
+                } else {
+                    requireMethod(exchange, method, "GET");
+                    sendJson(exchange, 200, jobsJson());
+                }
+            } else if (path[0].equals("jobs") && (path.length == 2 || (path.length == 3 && path[2].equals("events")))) {
+                UploadJob job = findJob(path[1]);
+                if (path.length == 3) {
+                    requireMethod(exchange, method, "GET");
+                    streamEvents(exchange, job);
+                } else if (method.equals("DELETE")) {
+                    uploadService.cancelJob(job);
+                    sendJson(exchange, 200, jobJson(job, "status"));
+                } else {
+                    requireMethod(exchange, method, "GET");
+                    sendJson(exchange, 200, jobJson(job, "status"));
+                }
+            } else {
+                throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+            }
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IOException e) {
+            // Usually the client went away, e.g. while streaming events
+            logger.debug("Local API request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        } catch (RuntimeException e) {
+            logger.error("Local API request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal error: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Accepts only the loopback names a local client uses, so a page on a rebound DNS name
+     * is refused even though its requests reach the loopback interface.
+     */
+    private static boolean isLoopbackHost(String hostHeader, int port) {
+        return hostHeader != null && (hostHeader.equalsIgnoreCase("127.0.0.1:" + port)
+                || hostHeader.equalsIgnoreCase("localhost:" + port));
+    }
+    
+    private boolean hasToken(String authorization) {
+        String prefix = "Bearer ";
+        if (authorization == null || !authorization.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return false;
+        }
+        byte[] presented = authorization.substring(prefix.length()).trim().getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(presented, token);
+    }
+    
+    private void submit(HttpExchange exchange) throws IOException {
+        JsonNode request = readJson(exchange);
+        
+        List<FileAttachment> files = new ArrayList<>();
+        for (JsonNode path : requireArray(request, "files")) {
+            File file = new File(path.asText());
+            if (!file.isFile()) {
+                throw new ApiException(400, "Not a readable file: " + path.asText());
+            }
+            files.add(new FileAttachment(file));
+        }
+        if (files.isEmpty()) {
+            throw new ApiException(400, "No files given");
+        }
+        
+        List<Endpoint> configured = host.getEndpoints();
+        List<Endpoint> endpoints = new ArrayList<>();
+        if (request.has("endpoints")) {
+            for (JsonNode id : requireArray(request, "endpoints")) {
+                endpoints.add(configured.stream()
+                        .filter(endpoint -> endpoint.getId().equals(id.asText()))
+                        .findFirst()
+                        .orElseThrow(() -> new ApiException(400, "Unknown endpoint: " + id.asText())));
+            }
+        } else {
+            endpoints.addAll(configured);
+        }
+        if (endpoints.isEmpty()) {
+            throw new ApiException(400, "No endpoints given or configured");
+        }
+        
+        UploadPriority priority = UploadPriority.NORMAL;
+        if (request.hasNonNull("priority")) {
+            try {
+                priority = UploadPriority.valueOf(request.get("priority").asText().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Unknown priority: " + request.get("priority").asText());
+            }
+        }
+        String name = request.hasNonNull("name") ? request.get("name").asText()
+                : String.format("API: %d files to %d endpoints", files.size(), endpoints.size());
+        
+        UploadJob job = uploadService.submitJob(name, priority, files, endpoints, this::publish);
+        synchronized (recentJobs) {
+            recentJobs.put(job.getId(), job);
+        }
+        logger.info("Local API queued job {}", job);
+        host.jobSubmitted(job, files, endpoints);
+        sendJson(exchange, 201, jobJson(job, "status"));
+    }
+    
+    private void publish(UploadSnapshot snapshot) {
+        host.progress(snapshot);
+        for (EventStream stream : eventStreams) {
+            if (stream.jobId == snapshot.getJobId() && !stream.queue.offer(snapshot)) {
+                stream.dropped.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Writes one JSON object per line: the current status, the progress events from then on,
+     * and a final status once the job finished. Events the client reads too slowly are
+     * dropped and counted instead of holding up the uploads.
+     */
+    private void streamEvents(HttpExchange exchange, UploadJob job) throws IOException {
+        EventStream stream = new EventStream(job.getId());
+        eventStreams.add(stream);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            writeLine(out, jobJson(job, "status"));
+            
+            List<UploadSnapshot> pending = new ArrayList<>();
+            while (true) {
+                boolean finished = job.completion().isDone();
+                UploadSnapshot first = stream.queue.poll(EVENT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    pending.add(first);
+                    stream.queue.drainTo(pending);
+                    for (UploadSnapshot snapshot : pending) {
+                        writeLine(out, snapshotJson(snapshot));
+                    }
+                    pending.clear();
+                }
+                int dropped = stream.dropped.getAndSet(0);
+                if (dropped > 0) {
+                    writeLine(out, objectMapper.createObjectNode().put("event", "dropped").put("count", dropped));
+                }
+                out.flush();
+                // Checked before polling, so the events published before completion are written
+                if (finished && first == null) {
+                    break;
+                }
+            }
+            writeLine(out, jobJson(job, "finished"));
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            eventStreams.remove(stream);
+        }
+    }
+    
+    private UploadJob findJob(String idText) {
+        long id;
+        try {
+            id = Long.parseLong(idText);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No such job: " + idText);
+        }
+        for (UploadJob job : uploadService.getActiveJobs()) {
+            if (job.getId() == id) {
+                return job;
+            }
+        }
+        synchronized (recentJobs) {
+            UploadJob job = recentJobs.get(id);
+            if (job == null) {
+                throw new ApiException(404, "No such job: " + idText);
+            }
+            return job;
+        }
+    }
+    
+    private ArrayNode endpointsJson() {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (Endpoint endpoint : host.getEndpoints()) {
+            array.addObject()
+                    .put("id", endpoint.getId())
+                    .put("name", endpoint.getName())
+                    .put("url", endpoint.getUrl());
+        }
+        return array;
+    }
+    
+    private ArrayNode historyJson(String rawQuery) throws IOException {
+        Map<String, String> query = parseQuery(rawQuery);
+        UploadStatus status = null;
+        if (query.containsKey("status")) {
+            try {
+                status = UploadStatus.valueOf(query.get("status").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Unknown status: " + query.get("status"));
+            }
+        }
+        LocalDate from = parseDate(query.getOrDefault("from", query.get("date")));
+        LocalDate to = parseDate(query.getOrDefault("to", query.get("date")));
+        int limit = DEFAULT_HISTORY_LIMIT;
+        if (query.containsKey("limit")) {
+            try {
+                limit = Math.min(Integer.parseInt(query.get("limit")), MAX_HISTORY_LIMIT);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Not a number: " + query.get("limit"));
+            }
+        }
+        
+        ArrayNode array = objectMapper.createArrayNode();
+        for (UploadHistoryEntry entry : host.queryHistory(query.get("endpoint"), status, from, to, limit)) {
+            ObjectNode node = array.addObject()
+                    .put("time", entry.timestamp().toString())
+                    .put("jobId", entry.jobId())
+                    .put("endpointId", entry.endpointId())
+                    .put("endpoint", entry.endpointName())
+                    .put("file", entry.file())
+                    .put("size", entry.fileSize())
+                    .put("status", entry.status().name())
+                    .put("attempts", entry.attempts());
+            if (entry.statusCode() > 0) {
+                node.put("statusCode", entry.statusCode());
+            }
+            if (entry.message() != null && !entry.message().isEmpty()) {
+                node.put("message", entry.message());
+            }
+        }
+        return array;
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+    
+    /**
+     * Parses an ISO date, today if none is given.
+     */
+    private static LocalDate parseDate(String text) {
+        if (text == null) {
+            return LocalDate.now();
+        }
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Expected a date like 2026-10-13: " + text);
+        }
+    }
+    
+    private ArrayNode jobsJson() {
+        Map<Long, UploadJob> jobs = new LinkedHashMap<>();
+        synchronized (recentJobs) {
+            jobs.putAll(recentJobs);
+        }
+        for (UploadJob job : uploadService.getActiveJobs()) {
+            jobs.putIfAbsent(job.getId(), job);
+        }
+        ArrayNode array = objectMapper.createArrayNode();
+        for (UploadJob job : jobs.values()) {
+            array.add(jobJson(job, "status"));
+        }
+        return array;
+    }
+    
+    private ObjectNode jobJson(UploadJob job, String event) {
+        UploadBatch batch = job.getBatch();
+        return objectMapper.createObjectNode()
+                .put("event", event)
+                .put("id", job.getId())
+                .put("name", job.getName())
+                .put("priority", job.getPriority().name())
+                .put("state", job.getState().name())
+                .put("pairs", batch.getPairCount())
+                .put("completed", batch.getCompletedCount())
+                .put("succeeded", batch.getSucceededCount())
+                .put("failed", batch.getFailedCount())
+                .put("skipped", batch.getSkippedCount())
+                .put("delivered", batch.isDelivered());
+    }
+    
+    private ObjectNode snapshotJson(UploadSnapshot snapshot) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("event", "progress")
+                .put("jobId", snapshot.getJobId())
+                .put("file", snapshot.getFile().getAbsolutePath())
+                .put("endpointId", snapshot.getEndpoint().getId())
+                .put("endpoint", snapshot.getEndpoint().getName())
+                .put("status", snapshot.getStatus().name())
+                .put("progress", snapshot.getProgress())
+                .put("attempt", snapshot.getAttemptNumber());
+        if (snapshot.getStatusCode() > 0) {
+            node.put("statusCode", snapshot.getStatusCode());
+        }
+        if (snapshot.getMessage() != null && !snapshot.getMessage().isEmpty()) {
+            node.put("message", snapshot.getMessage());
+        }
+        return node;
+    }
+    
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_REQUEST_BYTES + 1);
+            if (body.length > MAX_REQUEST_BYTES) {
+                throw new ApiException(413, "Request body larger than " + MAX_REQUEST_BYTES + " bytes");
+            }
+            JsonNode node = objectMapper.readTree(body);
+            if (node == null || !node.isObject()) {
+                throw new ApiException(400, "Expected a JSON object");
+            }
+            return node;
+        } catch (JsonProcessingException e) {
+            throw new ApiException(400, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+    
+    private static JsonNode requireArray(JsonNode request, String field) {
+        JsonNode array = request.get(field);
+        if (array == null || !array.isArray()) {
+            throw new ApiException(400, "Expected an array in \"" + field + "\"");
+        }
+        return array;
+    }
+    
+    private static void requireMethod(HttpExchange exchange, String method, String allowed) {
+        if (!method.equals(allowed)) {
+            exchange.getResponseHeaders().set("Allow", allowed);
+            throw new ApiException(405, "Method " + method + " not allowed");
+        }
+    }
+    
+    private void writeLine(OutputStream out, JsonNode node) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(node));
+        out.write('\n');
+    }
+    
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+    
+    private void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendJson(exchange, status, objectMapper.createObjectNode().put("error", message));
+        } catch (IOException e) {
+            logger.debug("Could not send error response", e);
+        }
+    }
+    
+    /**
+     * An open event stream and the events waiting to be written to it.
+     */
+    private static final class EventStream {
+        private final long jobId;
+        private final BlockingQueue<UploadSnapshot> queue = new ArrayBlockingQueue<>(EVENT_QUEUE_CAPACITY);
+        private final AtomicInteger dropped = new AtomicInteger();
+        
+        private EventStream(long jobId) {
+            this.jobId = jobId;
+        }
+    }
+    
+    /**
+     * A request the API refuses, answered with the status and message.
+     */
+    private static final class ApiException extends RuntimeException {
+        private final int status;
+        
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.TimeoutPolicy;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Transport using OkHttp, either as usual (HTTP/1.1, or HTTP/2 negotiated over TLS) or
+ * speaking HTTP/2 right away over plain TCP, for servers known to accept it.
+ * Timeouts are set per call from the request's {@link TimeoutPolicy}.
+ */
+class OkHttpTransport implements UploadTransport {
+    private final OkHttpClient client;
+    
+    OkHttpTransport() {
+        // Fallbacks for requests without a policy; uploads override them per call
+        this(new OkHttpClient.Builder()
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .addInterceptor(OkHttpTransport::applyTimeoutPolicy)
+                .build());
+    }
+    
+    private OkHttpTransport(OkHttpClient client) {
+        this.client = client;
+    }
+    
+    /**
+     * Returns a transport sharing this one's settings and thread pool that sends HTTP/2
+     * without negotiating it first (h2c with prior knowledge). It only reaches http:// URLs.
+     */
+    OkHttpTransport withPriorKnowledge() {
+        return new OkHttpTransport(client.newBuilder()
+                .protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE))
+                .build());
+    }
+    
+    @Override
+    public UploadResponse send(UploadRequest request, Consumer<Runnable> cancelListener, LongConsumer sentListener)
+            throws IOException {
+        RequestBody fileBody = RequestBody.create(request.file(), MediaType.parse(request.contentType()));
+        RequestBody body;
+        if (request.isRaw()) {
+            body = fileBody;
+        } else {
+            body = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart(request.fieldName(), request.file().getName(), fileBody)
+                    .build();
+        }
+        DeadlineRequestBody requestBody = new DeadlineRequestBody(body, request.writeDeadline(), sentListener);
+        
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(request.uri().toString())
+                .method(request.method(), requestBody)
+                .tag(TimeoutPolicy.class, request.policy());
+        for (Map.Entry<String, String> header : request.headers().entrySet()) {
+            requestBuilder.addHeader(header.getKey(), header.getValue());
+        }
+        
+        // Execute request; the call deadline also covers reading the response body
+        Call call = client.newCall(requestBuilder.build());
+        call.timeout().timeout(request.callDeadline().toMillis(), TimeUnit.MILLISECONDS);
+        cancelListener.accept(call::cancel);
+        try (Response response = call.execute()) {
+            ResponseBody responseBody = response.body();
+            return new UploadResponse(response.code(), response.message(),
+                    responseBody != null ? responseBody.string() : "");
+        }
+    }
+    
+    /**
+     * Sets the connect, write and read timeouts of a call from the policy it is tagged with.
+     * The write timeout bounds each socket write, so it detects a stalled transfer.
+     */
+    private static Response applyTimeoutPolicy(Interceptor.Chain chain) throws IOException {
+        TimeoutPolicy policy = chain.request().tag(TimeoutPolicy.class);
+        if (policy == null) {
+            return chain.proceed(chain.request());
+        }
+        return chain.withConnectTimeout(policy.connectSeconds(), TimeUnit.SECONDS)
+                .withWriteTimeout(policy.stallSeconds(), TimeUnit.SECONDS)
+                .withReadTimeout(policy.responseSeconds(), TimeUnit.SECONDS)
+                .proceed(chain.request());
+    }
+}
@@ -0,0 +1,119 @@
+package com.broadcastsender.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer carrying progress events from upload worker threads
+ * to a single consumer (the FX application thread).
+ *
+ * <p>Producers claim slots with a CAS on the tail sequence; each slot carries its own
+ * sequence number so the consumer can tell when a claimed slot has been published.
+ * When the buffer is full, {@link #publish} backs off until the consumer frees space,
+ * which throttles workers instead of dropping events.
+ */
+public class ProgressEventBuffer<T> {
+    private static final long MAX_BACKOFF_NANOS = 1_000_000L;
+    
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    
+    /**
+     * Creates a buffer; the capacity is rounded up to the next power of two.
+     */
+    public ProgressEventBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Tries to append an event. Returns false if the buffer is full.
+     */
+    public boolean offer(T event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            long difference = sequence - position;
+            
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Another producer claimed this position; retry with the new tail
+        }
+    }
+    
+    /**
+     * Appends an event, waiting with exponential back-off while the buffer is full.
+     */
+    public void publish(T event) {
+        long backoffNanos = 1_000L;
+        while (!offer(event)) {
+            if (backoffNanos < 16_000L) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(backoffNanos);
+            }
+            backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+        }
+    }
+    
+    /**
+     * Removes up to {@code maxEvents} published events in FIFO order and passes them to the consumer.
+     * Must only be called from a single consumer thread. Returns the number of events drained.
+     */
+    public int drain(Consumer<? super T> consumer, int maxEvents) {
+        int drained = 0;
+        long position = head.get();
+        while (drained < maxEvents) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            T event = slots.get(index);
+            slots.set(index, null);
+            sequences.set(index, position + capacity);
+            position++;
+            drained++;
+            consumer.accept(event);
+        }
+        head.set(position);
+        return drained;
+    }
+    
+    /**
+     * Returns the approximate number of buffered events.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
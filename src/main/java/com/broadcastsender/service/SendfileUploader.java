@@ -0,0 +1,423 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.TimeoutPolicy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Sends a file as the whole body of a plain HTTP/1.1 request without copying it through
+ * the JVM: the headers are written to the socket, then {@link FileChannel#transferTo}
+ * hands the file to the socket, which Linux serves with {@code sendfile} from the page
+ * cache. Only for http:// URLs, as TLS has to encrypt the bytes in user space.
+ * <p>
+ * Idle connections are kept per host and reused, like OkHttp does. A blocking transfer
+ * has no write timeout of its own, so a watchdog closes the socket once the transfer
+ * stalls for the policy's stall time or the call passes its deadline.
+ */
+final class SendfileUploader implements UploadTransport {
+    // Bytes per transferTo call; between calls the watchdog sees the progress
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int MAX_IDLE_PER_HOST = 8;
+    private static final long WATCHDOG_MILLIS = 250;
+    
+    private final Map<String, Deque<Connection>> idleConnections = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "sendfile-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @Override
+    public UploadResponse send(UploadRequest request, Consumer<Runnable> cancelListener, LongConsumer sentListener)
+            throws IOException {
+        if (!request.isRaw()) {
+            throw new IllegalArgumentException("Only raw bodies can be sent with sendfile");
+        }
+        Map<String, String> headers = new LinkedHashMap<>(request.headers());
+        headers.put("Content-Type", request.contentType());
+        return upload(request.uri(), request.method(), headers, request.file().toPath(), request.policy(),
+                request.writeDeadline(), request.callDeadline(), cancelListener, sentListener);
+    }
+    
+    /**
+     * Sends the file with the given method and headers and reads the response. Host and
+     * Content-Length are added. A failure on a reused connection before the server
+     * answered is retried once on a new connection, as the server may have closed it.
+     *
+     * @param cancelListener receives an action that aborts the upload from another thread
+     * @param sentListener   receives the file bytes as they are handed to the socket; bytes
+     *                       sent on a reused connection that is retried are taken back with
+     *                       a negative count
+     */
+    UploadResponse upload(URI uri, String method, Map<String, String> headers, Path file,
+                          TimeoutPolicy policy, Duration writeDeadline, Duration callDeadline,
+                          Consumer<Runnable> cancelListener, LongConsumer sentListener) throws IOException {
+        if (!"http".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("Only plain HTTP URLs can be sent with sendfile: " + uri);
+        }
+        String key = hostKey(uri);
+        long deadlineNanos = System.nanoTime() + callDeadline.toNanos();
+        Connection idle = takeIdle(key);
+        if (idle != null) {
+            Exchange exchange = new Exchange(idle, policy, writeDeadline, deadlineNanos);
+            cancelListener.accept(exchange::cancel);
+            try {
+                return exchange.run(key, uri, method, headers, file, sentListener);
+            } catch (IOException e) {
+                if (exchange.responseStarted || exchange.cancelled || exchange.timeout != null) {
+                    throw e;
+                }
+                if (exchange.bodySent > 0) {
+                    sentListener.accept(-exchange.bodySent);
+                }
+            }
+        }
+        Exchange exchange = new Exchange(connect(uri, policy), policy, writeDeadline, deadlineNanos);
+        cancelListener.accept(exchange::cancel);
+        return exchange.run(key, uri, method, headers, file, sentListener);
+    }
+    
+    /**
+     * Closes the idle connections.
+     */
+    void evictAll() {
+        for (Deque<Connection> idle : idleConnections.values()) {
+            Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+    
+    private static String hostKey(URI uri) {
+        return uri.getHost().toLowerCase(Locale.ROOT) + ":" + port(uri);
+    }
+    
+    private static int port(URI uri) {
+        return uri.getPort() > 0 ? uri.getPort() : 80;
+    }
+    
+    private static Connection connect(URI uri, TimeoutPolicy policy) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().connect(new InetSocketAddress(uri.getHost(), port(uri)),
+                    (int) TimeUnit.SECONDS.toMillis(policy.connectSeconds()));
+            return new Connection(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private Connection takeIdle(String key) {
+        Deque<Connection> idle = idleConnections.get(key);
+        if (idle == null) {
+            return null;
+        }
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (System.nanoTime() - connection.idleSinceNanos < IDLE_NANOS && connection.channel.isOpen()) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+    
+    private void release(String key, Connection connection) {
+        connection.idleSinceNanos = System.nanoTime();
+        Deque<Connection> idle = idleConnections.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        idle.addFirst(connection);
+        while (idle.size() > MAX_IDLE_PER_HOST) {
+            Connection eldest = idle.pollLast();
+            if (eldest != null) {
+                eldest.close();
+            }
+        }
+    }
+    
+    /**
+     * A socket and the buffered reader of its responses, which outlives one exchange.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final InputStream input;
+        private long idleSinceNanos;
+        
+        private Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            // The socket adaptor's stream honors the read timeout, unlike the channel
+            this.input = new BufferedInputStream(channel.socket().getInputStream(), 8192);
+        }
+        
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing to do about a socket that fails to close
+            }
+        }
+    }
+    
+    /**
+     * One request and response on a connection, watched for stalls and the deadline.
+     */
+    private final class Exchange {
+        private final Connection connection;
+        private final TimeoutPolicy policy;
+        private final long writeDeadlineNanos;
+        private final long deadlineNanos;
+        private volatile long progressNanos = System.nanoTime();
+        private volatile boolean writing;
+        private volatile boolean cancelled;
+        private volatile String timeout;
+        private boolean responseStarted;
+        private long bodySent;
+        
+        private Exchange(Connection connection, TimeoutPolicy policy, Duration writeDeadline, long deadlineNanos) {
+            this.connection = connection;
+            this.policy = policy;
+            this.writeDeadlineNanos = System.nanoTime() + writeDeadline.toNanos();
+            this.deadlineNanos = deadlineNanos;
+        }
+        
+        void cancel() {
+            cancelled = true;
+            connection.close();
+        }
+        
+        UploadResponse run(String key, URI uri, String method, Map<String, String> headers, Path file,
+                           LongConsumer sentListener) throws IOException {
+            ScheduledFuture<?> watch = watchdog.scheduleAtFixedRate(this::check,
+                    WATCHDOG_MILLIS, WATCHDOG_MILLIS, TimeUnit.MILLISECONDS);
+            try (FileChannel body = FileChannel.open(file, StandardOpenOption.READ)) {
+                writing = true;
+                long size = body.size();
+                writeFully(head(uri, method, headers, size));
+                for (long position = 0; position < size; ) {
+                    long sent = body.transferTo(position, Math.min(TRANSFER_CHUNK, size - position), connection.channel);
+                    if (sent <= 0 && body.size() <= position) {
+                        throw new EOFException("File shrank to " + body.size() + " bytes while sending " + size);
+                    }
+                    position += sent;
+                    progressNanos = System.nanoTime();
+                    bodySent += sent;
+                    sentListener.accept(sent);
+                }
+                writing = false;
+                
+                connection.channel.socket().setSoTimeout((int) TimeUnit.SECONDS.toMillis(policy.responseSeconds()));
+                Response response = readResponse();
+                if (response.keepAlive && !cancelled && timeout == null) {
+                    release(key, connection);
+                } else {
+                    connection.close();
+                }
+                return new UploadResponse(response.code, response.message, response.body);
+            } catch (IOException e) {
+                connection.close();
+                if (cancelled) {
+                    throw new IOException("Canceled", e);
+                }
+                if (timeout != null) {
+                    throw new SocketTimeoutException(timeout);
+                }
+                throw e;
+            } finally {
+                watch.cancel(false);
+            }
+        }
+        
+        /**
+         * Closes the socket of a stalled or overdue exchange, which fails the blocked transfer or read.
+         */
+        private void check() {
+            long now = System.nanoTime();
+            if (now > deadlineNanos) {
+                timeout = "Upload deadline exceeded";
+            } else if (writing && now > writeDeadlineNanos) {
+                timeout = "Write deadline exceeded";
+            } else if (writing && now - progressNanos > TimeUnit.SECONDS.toNanos(policy.stallSeconds())) {
+                timeout = "No upload progress for " + policy.stallSeconds() + " s";
+            } else {
+                return;
+            }
+            connection.close();
+        }
+        
+        private ByteBuffer head(URI uri, String method, Map<String, String> headers, long size) {
+            String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (uri.getRawQuery() != null) {
+                target += "?" + uri.getRawQuery();
+            }
+            StringBuilder head = new StringBuilder(256);
+            head.append(method).append(' ').append(target).append(" HTTP/1.1\r\n");
+            head.append("Host: ").append(uri.getHost());
+            if (uri.getPort() > 0) {
+                head.append(':').append(uri.getPort());
+            }
+            head.append("\r\nContent-Length: ").append(size).append("\r\n");
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            head.append("\r\n");
+            return ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                connection.channel.write(buffer);
+            }
+            progressNanos = System.nanoTime();
+        }
+        
+        private Response readResponse() throws IOException {
+            InputStream input = connection.input;
+            while (true) {
+                String statusLine = readLine(input);
+                responseStarted = true;
+                String[] status = statusLine.split(" ", 3);
+                if (status.length < 2 || !status[0].startsWith("HTTP/")) {
+                    throw new ProtocolException("Unexpected status line: " + statusLine);
+                }
+                int code;
+                try {
+                    code = Integer.parseInt(status[1]);
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Unexpected status line: " + statusLine);
+                }
+                Map<String, String> headers = readHeaders(input);
+                if (code >= 100 && code < 200) {
+                    // Interim responses such as 100 Continue precede the real one
+                    continue;
+                }
+                
+                String connectionHeader = headers.getOrDefault("connection", "").toLowerCase(Locale.ROOT);
+                boolean keepAlive = status[0].equals("HTTP/1.1")
+                        ? !connectionHeader.contains("close") : connectionHeader.contains("keep-alive");
+                String body;
+                if (headers.getOrDefault("transfer-encoding", "").toLowerCase(Locale.ROOT).contains("chunked")) {
+                    body = readChunked(input);
+                } else if (headers.containsKey("content-length")) {
+                    body = readBody(input, Long.parseLong(headers.get("content-length").trim()));
+                } else if (code == 204 || code == 304) {
+                    body = "";
+                } else {
+                    body = readBody(input, -1);
+                    keepAlive = false;
+                }
+                return new Response(code, status.length > 2 ? status[2] : "", body, keepAlive);
+            }
+        }
+    }
+    
+    private record Response(int code, String message, String body, boolean keepAlive) {
+    }
+    
+    private static Map<String, String> readHeaders(InputStream input) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readLine(input)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.merge(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        line.substring(colon + 1).trim(), (first, second) -> first + ", " + second);
+            }
+        }
+        return headers;
+    }
+    
+    private static String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int c;
+        while ((c = input.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException("Connection closed before the response was complete");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+    
+    /**
+     * Reads a body of the given length, or up to the end of the stream if -1, keeping at
+     * most {@link UploadResponse#MAX_BODY_CHARS} bytes of it.
+     */
+    private static String readBody(InputStream input, long length) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        copyBody(input, length, body);
+        return body.toString(StandardCharsets.UTF_8);
+    }
+    
+    private static String readChunked(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            String sizeLine = readLine(input);
+            int extension = sizeLine.indexOf(';');
+            long size;
+            try {
+                size = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new ProtocolException("Unexpected chunk size: " + sizeLine);
+            }
+            if (size == 0) {
+                // Trailers end with an empty line
+                readHeaders(input);
+                return body.toString(StandardCharsets.UTF_8);
+            }
+            copyBody(input, size, body);
+            readLine(input);
+        }
+    }
+    
+    private static void copyBody(InputStream input, long length, ByteArrayOutputStream body) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (length < 0 || remaining > 0) {
+            int read = input.read(buffer, 0, length < 0 ? buffer.length : (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                if (length < 0) {
+                    return;
+                }
+                throw new EOFException("Connection closed before the response body was complete");
+            }
+            remaining -= read;
+            int kept = Math.min(read, UploadResponse.MAX_BODY_CHARS - body.size());
+            if (kept > 0) {
+                body.write(buffer, 0, kept);
+            }
+        }
+    }
+}
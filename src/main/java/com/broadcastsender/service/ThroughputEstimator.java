@@ -0,0 +1,72 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.ThroughputStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learns the throughput and the fixed per-request overhead of each endpoint from the
+ * uploads sent to it, see {@link ThroughputStats}, and predicts how long uploads will take.
+ * Recent uploads count most, so the predictions follow a link that gets faster or slower.
+ */
+public class ThroughputEstimator {
+    private final Map<String, ThroughputStats> stats = new ConcurrentHashMap<>();
+    
+    public ThroughputEstimator() {
+    }
+    
+    /**
+     * Creates an estimator that goes on from what was learned in an earlier run.
+     */
+    public ThroughputEstimator(Map<String, ThroughputStats> learned) {
+        learned.forEach((endpointId, endpointStats) -> {
+            if (endpointStats != null && endpointStats.hasSamples()) {
+                stats.put(endpointId, endpointStats);
+            }
+        });
+    }
+    
+    /**
+     * Records that an upload of the given size took the given time, from sending the
+     * request to receiving the response.
+     */
+    public void record(String endpointId, long bytes, long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        stats.merge(endpointId, ThroughputStats.EMPTY.plus(bytes, nanos),
+                (learned, sample) -> learned.plus(bytes, nanos));
+    }
+    
+    /**
+     * Returns the learned transfer rate of the endpoint in bytes per second, or 0 if none yet.
+     */
+    public double estimate(String endpointId) {
+        ThroughputStats endpointStats = stats.get(endpointId);
+        return endpointStats != null ? endpointStats.bytesPerSecond() : 0;
+    }
+    
+    /**
+     * Predicts how long uploading a file of the given size to the endpoint takes, or
+     * returns -1 if nothing was learned about the endpoint yet.
+     */
+    public long predictNanos(String endpointId, long bytes) {
+        ThroughputStats endpointStats = stats.get(endpointId);
+        return endpointStats != null ? endpointStats.predictNanos(bytes, 1) : -1;
+    }
+    
+    /**
+     * Returns what was learned about the endpoint, or null if nothing yet.
+     */
+    public ThroughputStats statsOf(String endpointId) {
+        return stats.get(endpointId);
+    }
+    
+    /**
+     * Returns a copy of everything learned, to be saved for the next run.
+     */
+    public Map<String, ThroughputStats> snapshot() {
+        return Map.copyOf(stats);
+    }
+}
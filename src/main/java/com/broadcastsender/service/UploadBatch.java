@@ -0,0 +1,596 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.EndpointGroup;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.FileCatalog;
+import com.broadcastsender.model.QuorumAction;
+import com.broadcastsender.model.ThroughputStats;
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * The pairs of one upload job and their compact outcome.
+ * Pairs are generated on demand from one cursor per endpoint instead of being created up
+ * front, and each finished pair leaves only a status byte behind, so a batch of a million
+ * pairs costs about a megabyte plus the pairs currently in flight.
+ * Pairs are numbered endpoint by endpoint: for a batch of every file to every endpoint,
+ * pair {@code p} sends file {@code p % fileCount} to endpoint {@code p / fileCount}.
+ * Pairs are claimed under the {@link UploadScheduler}'s lock; the outcome may be read from any thread.
+ * For forecasts, each endpoint also keeps the bytes of its files up to each position and
+ * the pairs it has in flight.
+ * <p>
+ * Endpoints of an {@link EndpointGroup} only need to deliver a file to a quorum of
+ * members. Once a file reached it, the pairs of that file to the other members are no
+ * longer required: in {@link QuorumAction#CANCEL} groups they are superseded and skipped,
+ * in {@link QuorumAction#REPLICATE} groups the ones not claimed yet move to a replica
+ * queue that the scheduler serves at low priority. The batch is delivered once no
+ * required pair is left, which may be well before it finishes.
+ */
+public final class UploadBatch {
+    private static final UploadStatus[] STATUSES = UploadStatus.values();
+    
+    private final long batchId;
+    private final List<FileAttachment> files;
+    private final List<Endpoint> endpoints;
+    // Per endpoint the indexes into files it receives, or null if it receives every file
+    private final int[][] columnFiles;
+    private final int[] columnOffsets;
+    // Job that owns each pair's result row and the pair's index in that job's batch, or null
+    // if the whole batch belongs to batchId
+    private final long[] resultJobIds;
+    private final int[] resultPairs;
+    private final byte[] statuses;
+    // Per endpoint the total size of its files before each position; shared if every endpoint gets every file
+    private final long[][] columnBytesBefore;
+    
+    private final int[] cursors;
+    private final int[] openColumns;
+    private int openColumnCount;
+    private int nextOpenColumn;
+    
+    // Per endpoint the pairs in flight, their bytes and the sum of their claim times
+    private final int[] inFlightPairs;
+    private final long[] inFlightBytes;
+    private final long[] inFlightClaimedNanos;
+    
+    // Per endpoint the index of its quorum group, or -1; null if the batch has no groups
+    private final int[] columnGroups;
+    private final int[][] groupColumns;
+    private final int[] groupQuorums;
+    private final boolean[] groupReplicates;
+    // Per group and file the members that have the file
+    private final int[][] groupSuccesses;
+    // Per endpoint the pairs past its cursor that are no longer required, to replicate later
+    private final List<ArrayDeque<Integer>> replicaQueues;
+    private final long[] replicaBytes;
+    private int replicaCount;
+    private int nextReplicaColumn;
+    
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger requiredOutstanding;
+    
+    private UploadBatch(long batchId, List<FileAttachment> files, List<Endpoint> endpoints,
+                        int[][] columnFiles, long[] resultJobIds, int[] resultPairs, List<EndpointGroup> groups) {
+        this.batchId = batchId;
+        this.files = files;
+        this.endpoints = endpoints;
+        this.columnFiles = columnFiles;
+        this.resultJobIds = resultJobIds;
+        this.resultPairs = resultPairs;
+        
+        columnOffsets = new int[endpoints.size() + 1];
+        for (int column = 0; column < endpoints.size(); column++) {
+            long end = (long) columnOffsets[column] + columnSize(column);
+            if (end > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many file-endpoint pairs: " + end);
+            }
+            columnOffsets[column + 1] = (int) end;
+        }
+        statuses = new byte[columnOffsets[endpoints.size()]];
+        
+        columnBytesBefore = new long[endpoints.size()][];
+        long[] everyFile = columnFiles == null ? bytesBefore(files, null) : null;
+        for (int column = 0; column < endpoints.size(); column++) {
+            columnBytesBefore[column] = everyFile != null ? everyFile : bytesBefore(files, columnFiles[column]);
+        }
+        inFlightPairs = new int[endpoints.size()];
+        inFlightBytes = new long[endpoints.size()];
+        inFlightClaimedNanos = new long[endpoints.size()];
+        
+        cursors = new int[endpoints.size()];
+        openColumns = new int[endpoints.size()];
+        for (int column = 0; column < endpoints.size(); column++) {
+            if (columnSize(column) > 0) {
+                openColumns[openColumnCount++] = column;
+            }
+        }
+        
+        requiredOutstanding = new AtomicInteger(statuses.length);
+        List<int[]> quorumGroups = columnFiles == null ? resolveGroups(groups, endpoints) : List.of();
+        if (quorumGroups.isEmpty()) {
+            columnGroups = null;
+            groupColumns = null;
+            groupQuorums = null;
+            groupReplicates = null;
+            groupSuccesses = null;
+            replicaQueues = null;
+            replicaBytes = null;
+            return;
+        }
+        columnGroups = new int[endpoints.size()];
+        Arrays.fill(columnGroups, -1);
+        groupColumns = new int[quorumGroups.size()][];
+        groupQuorums = new int[quorumGroups.size()];
+        groupReplicates = new boolean[quorumGroups.size()];
+        groupSuccesses = new int[quorumGroups.size()][files.size()];
+        for (int group = 0; group < quorumGroups.size(); group++) {
+            int[] resolved = quorumGroups.get(group);
+            groupQuorums[group] = resolved[0];
+            groupReplicates[group] = resolved[1] == 1;
+            groupColumns[group] = Arrays.copyOfRange(resolved, 2, resolved.length);
+            for (int column : groupColumns[group]) {
+                columnGroups[column] = group;
+            }
+        }
+        replicaQueues = new ArrayList<>(endpoints.size());
+        for (int column = 0; column < endpoints.size(); column++) {
+            replicaQueues.add(new ArrayDeque<>());
+        }
+        replicaBytes = new long[endpoints.size()];
+    }
+    
+    /**
+     * Returns per group its quorum, 1 if it replicates, and its member columns, leaving
+     * out the groups that cannot spare a member among the endpoints of the batch.
+     * An endpoint only counts for the first group that lists it.
+     */
+    private static List<int[]> resolveGroups(List<EndpointGroup> groups, List<Endpoint> endpoints) {
+        if (groups == null || groups.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Integer> columnsById = new HashMap<>();
+        for (int column = 0; column < endpoints.size(); column++) {
+            columnsById.putIfAbsent(endpoints.get(column).getId(), column);
+        }
+        boolean[] grouped = new boolean[endpoints.size()];
+        List<int[]> resolved = new ArrayList<>();
+        for (EndpointGroup group : groups) {
+            int[] members = new int[group.getMemberIds().size() + 2];
+            int size = 2;
+            for (String memberId : group.getMemberIds()) {
+                Integer column = columnsById.get(memberId);
+                if (column != null && !grouped[column]) {
+                    grouped[column] = true;
+                    members[size++] = column;
+                }
+            }
+            int quorum = Math.max(1, group.getQuorum());
+            if (quorum >= size - 2) {
+                // Every member present is needed, so the group changes nothing
+                continue;
+            }
+            members[0] = quorum;
+            members[1] = group.getAfterQuorum() == QuorumAction.REPLICATE ? 1 : 0;
+            resolved.add(Arrays.copyOf(members, size));
+        }
+        return resolved;
+    }
+    
+    private static long[] bytesBefore(List<FileAttachment> files, int[] fileIndexes) {
+        int count = fileIndexes == null ? files.size() : fileIndexes.length;
+        long[] before = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            before[i + 1] = before[i] + files.get(fileIndexes == null ? i : fileIndexes[i]).getSize();
+        }
+        return before;
+    }
+    
+    /**
+     * Creates a batch sending every file to every endpoint.
+     */
+    public static UploadBatch allPairs(long batchId, List<FileAttachment> files, List<Endpoint> endpoints) {
+        return allPairs(batchId, files, endpoints, List.of());
+    }
+    
+    /**
+     * Creates a batch sending every file to every endpoint, where the endpoints of each
+     * group only need to deliver a file to the group's quorum.
+     */
+    static UploadBatch allPairs(long batchId, List<FileAttachment> files, List<Endpoint> endpoints,
+                                List<EndpointGroup> groups) {
+        return new UploadBatch(batchId, List.copyOf(files), List.copyOf(endpoints), null, null, null, groups);
+    }
+    
+    /**
+     * Creates a batch sending every file of the catalog to every endpoint. The batch reads
+     * a copy of the catalog and creates each file's attachment when a pair needs it.
+     */
+    static UploadBatch allPairs(long batchId, FileCatalog files, List<Endpoint> endpoints,
+                                List<EndpointGroup> groups) {
+        return new UploadBatch(batchId, files.copy().asList(), List.copyOf(endpoints), null, null, null, groups);
+    }
+    
+    /**
+     * Creates a batch uploading the pairs of earlier results again. The pairs keep the
+     * job id and pair index of their results, so progress updates the rows they already have.
+     */
+    static UploadBatch ofResults(long batchId, List<UploadResult> results) {
+        List<FileAttachment> files = new ArrayList<>(results.size());
+        Map<String, Integer> columnsByEndpoint = new LinkedHashMap<>();
+        List<Endpoint> endpoints = new ArrayList<>();
+        List<int[]> columns = new ArrayList<>();
+        List<Integer> columnSizes = new ArrayList<>();
+        
+        for (UploadResult result : results) {
+            int column = columnsByEndpoint.computeIfAbsent(result.getEndpoint().getId(), id -> {
+                endpoints.add(result.getEndpoint());
+                columns.add(new int[4]);
+                columnSizes.add(0);
+                return endpoints.size() - 1;
+            });
+            int size = columnSizes.get(column);
+            int[] fileIndexes = columns.get(column);
+            if (size == fileIndexes.length) {
+                fileIndexes = Arrays.copyOf(fileIndexes, size * 2);
+                columns.set(column, fileIndexes);
+            }
+            fileIndexes[size] = files.size();
+            columnSizes.set(column, size + 1);
+            files.add(result.getFile());
+        }
+        
+        int[][] columnFiles = new int[endpoints.size()][];
+        long[] resultJobIds = new long[results.size()];
+        int[] resultPairs = new int[results.size()];
+        int pair = 0;
+        for (int column = 0; column < endpoints.size(); column++) {
+            columnFiles[column] = Arrays.copyOf(columns.get(column), columnSizes.get(column));
+            for (int fileIndex : columnFiles[column]) {
+                resultJobIds[pair] = results.get(fileIndex).getJobId();
+                resultPairs[pair++] = results.get(fileIndex).getPair();
+            }
+        }
+        return new UploadBatch(batchId, files, List.copyOf(endpoints), columnFiles, resultJobIds, resultPairs, null);
+    }
+    
+    public long getBatchId() {
+        return batchId;
+    }
+    
+    public int getPairCount() {
+        return statuses.length;
+    }
+    
+    public int getEndpointCount() {
+        return endpoints.size();
+    }
+    
+    public FileAttachment getFile(int pair) {
+        int column = columnOf(pair);
+        int position = pair - columnOffsets[column];
+        return files.get(columnFiles == null ? position : columnFiles[column][position]);
+    }
+    
+    public Endpoint getEndpoint(int pair) {
+        return endpoints.get(columnOf(pair));
+    }
+    
+    /**
+     * Returns the id of the job whose result row the pair updates.
+     */
+    public long getResultJobId(int pair) {
+        return resultJobIds == null ? batchId : resultJobIds[pair];
+    }
+    
+    /**
+     * Returns the index the pair has in the batch of the job whose result row it updates.
+     */
+    public int getResultPair(int pair) {
+        return resultPairs == null ? pair : resultPairs[pair];
+    }
+    
+    /**
+     * Returns the number of files of a batch that sends every file to every endpoint.
+     */
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    /**
+     * Returns the final status of a pair, or {@link UploadStatus#PENDING} while it has not finished.
+     */
+    public UploadStatus getStatus(int pair) {
+        return STATUSES[statuses[pair]];
+    }
+    
+    public int getCompletedCount() {
+        return completed.get();
+    }
+    
+    public int getSucceededCount() {
+        return succeeded.get();
+    }
+    
+    public int getFailedCount() {
+        return completed.get() - succeeded.get() - skipped.get();
+    }
+    
+    /**
+     * Returns the pairs skipped because their file had reached the quorum of its group.
+     */
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+    
+    /**
+     * Returns whether every required pair finished, i.e. every file reached each group's
+     * quorum or failed trying, while pairs to replicate may still be running.
+     */
+    public boolean isDelivered() {
+        return requiredOutstanding.get() == 0;
+    }
+    
+    /**
+     * Returns whether some endpoints of the batch form a quorum group.
+     */
+    boolean hasQuorumGroups() {
+        return columnGroups != null;
+    }
+    
+    /**
+     * Claims the next pair of the next endpoint, round robin, that still has pairs and
+     * is accepted by the filter. Returns -1 if there is none.
+     * Pairs to replicate that come up are queued for {@link #claimReplica} instead.
+     */
+    int claim(Predicate<Endpoint> endpointAvailable) {
+        for (int tried = 0; tried < openColumnCount; tried++) {
+            if (nextOpenColumn >= openColumnCount) {
+                nextOpenColumn = 0;
+            }
+            int column = openColumns[nextOpenColumn];
+            if (!endpointAvailable.test(endpoints.get(column))) {
+                nextOpenColumn++;
+                continue;
+            }
+            
+            int pair = columnOffsets[column] + cursors[column]++;
+            if (cursors[column] == columnSize(column)) {
+                // Swap-remove; the moved column is tried next
+                openColumns[nextOpenColumn] = openColumns[--openColumnCount];
+            } else {
+                nextOpenColumn++;
+            }
+            if (isReplica(column, pair)) {
+                replicaQueues.get(column).add(pair);
+                replicaBytes[column] += getFile(pair).getSize();
+                replicaCount++;
+                // A pair was used up, so this does not count as a try
+                tried--;
+                continue;
+            }
+            return pair;
+        }
+        return -1;
+    }
+    
+    /**
+     * Claims the next queued pair to replicate of the next endpoint, round robin, that is
+     * accepted by the filter. Returns -1 if there is none.
+     */
+    int claimReplica(Predicate<Endpoint> endpointAvailable) {
+        for (int tried = 0; replicaCount > 0 && tried < endpoints.size(); tried++) {
+            int column = nextReplicaColumn;
+            nextReplicaColumn = (nextReplicaColumn + 1) % endpoints.size();
+            ArrayDeque<Integer> queue = replicaQueues.get(column);
+            if (queue.isEmpty() || !endpointAvailable.test(endpoints.get(column))) {
+                continue;
+            }
+            int pair = queue.poll();
+            replicaBytes[column] -= getFile(pair).getSize();
+            replicaCount--;
+            return pair;
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns whether pairs to replicate wait in the replica queue.
+     */
+    boolean hasReplicas() {
+        return replicaCount > 0;
+    }
+    
+    /**
+     * Returns whether the pair's file reached the quorum of a group that cancels the rest,
+     * so the pair need not be uploaded.
+     */
+    boolean isSuperseded(int pair) {
+        if (columnGroups == null) {
+            return false;
+        }
+        int column = columnOf(pair);
+        int group = columnGroups[column];
+        return group >= 0 && !groupReplicates[group] && !isRequired(group, column, pair);
+    }
+    
+    private boolean isReplica(int column, int pair) {
+        if (columnGroups == null) {
+            return false;
+        }
+        int group = columnGroups[column];
+        return group >= 0 && groupReplicates[group] && !isRequired(group, column, pair);
+    }
+    
+    private boolean isRequired(int group, int column, int pair) {
+        return groupSuccesses[group][pair - columnOffsets[column]] < groupQuorums[group];
+    }
+    
+    /**
+     * Returns whether pairs remain to be claimed.
+     */
+    boolean hasUnclaimed() {
+        return openColumnCount > 0 || replicaCount > 0;
+    }
+    
+    /**
+     * Returns the number of pairs that were never claimed.
+     */
+    int getUnclaimedCount() {
+        int unclaimed = replicaCount;
+        for (int i = 0; i < openColumnCount; i++) {
+            int column = openColumns[i];
+            unclaimed += columnSize(column) - cursors[column];
+        }
+        return unclaimed;
+    }
+    
+    /**
+     * Returns whether pairs to the endpoint remain to be claimed.
+     */
+    boolean hasUnclaimed(Endpoint endpoint) {
+        int column = columnOf(endpoint);
+        return column >= 0 && (cursors[column] < columnSize(column)
+                || replicaQueues != null && !replicaQueues.get(column).isEmpty());
+    }
+    
+    /**
+     * Returns the pairs to the endpoint in flight, or 0 if the batch does not send to it.
+     */
+    int getInFlightCount(Endpoint endpoint) {
+        int column = columnOf(endpoint);
+        return column < 0 ? 0 : inFlightPairs[column];
+    }
+    
+    /**
+     * Records that a claimed pair started uploading.
+     */
+    void markInFlight(int pair, long claimedNanos) {
+        int column = columnOf(pair);
+        inFlightPairs[column]++;
+        inFlightBytes[column] += getFile(pair).getSize();
+        inFlightClaimedNanos[column] += claimedNanos;
+    }
+    
+    /**
+     * Records that a pair marked in flight returned.
+     */
+    void clearInFlight(int pair, long claimedNanos) {
+        int column = columnOf(pair);
+        inFlightPairs[column]--;
+        inFlightBytes[column] -= getFile(pair).getSize();
+        inFlightClaimedNanos[column] -= claimedNanos;
+    }
+    
+    /**
+     * Adds the predicted time left of each endpoint's pairs to the workload: the pairs
+     * still to claim, unless left out, and what the pairs in flight are predicted to need
+     * beyond the time they have been running.
+     */
+    void addRemainingWork(UploadWorkload workload, ThroughputEstimator estimator, long nowNanos,
+                          boolean includeUnclaimed) {
+        for (int column = 0; column < endpoints.size(); column++) {
+            int unclaimed = includeUnclaimed ? columnSize(column) - cursors[column] : 0;
+            int replicas = includeUnclaimed && replicaQueues != null ? replicaQueues.get(column).size() : 0;
+            int inFlight = inFlightPairs[column];
+            if (unclaimed + replicas + inFlight == 0) {
+                continue;
+            }
+            ThroughputStats stats = estimator.statsOf(endpoints.get(column).getId());
+            if (stats == null) {
+                workload.markUnknown();
+                continue;
+            }
+            long[] before = columnBytesBefore[column];
+            long unclaimedBytes = before[columnSize(column)] - before[columnSize(column) - unclaimed]
+                    + (replicas > 0 ? replicaBytes[column] : 0);
+            unclaimed += replicas;
+            long running = (long) inFlight * nowNanos - inFlightClaimedNanos[column];
+            double nanos = stats.predictNanos(unclaimedBytes, unclaimed)
+                    + Math.max(0, stats.predictNanos(inFlightBytes[column], inFlight) - running);
+            workload.add(endpoints.get(column).getId(), nanos, unclaimed + inFlight);
+        }
+    }
+    
+    /**
+     * Records the final status of a pair.
+     */
+    void finish(int pair, UploadStatus status) {
+        statuses[pair] = (byte) status.ordinal();
+        if (status == UploadStatus.SUCCESS) {
+            succeeded.incrementAndGet();
+        } else if (status == UploadStatus.SKIPPED) {
+            skipped.incrementAndGet();
+        }
+        countTowardsQuorum(pair, status);
+        // The counter publishes the status byte written above to readers of the counts
+        completed.incrementAndGet();
+    }
+    
+    /**
+     * Settles a required pair, and once its file reached the quorum of its group, the
+     * pairs of that file to the other members that have not finished yet.
+     */
+    private void countTowardsQuorum(int pair, UploadStatus status) {
+        int column = columnGroups == null ? -1 : columnOf(pair);
+        int group = column < 0 ? -1 : columnGroups[column];
+        if (group < 0) {
+            requiredOutstanding.decrementAndGet();
+            return;
+        }
+        if (!isRequired(group, column, pair)) {
+            // Settled when the file reached the quorum
+            return;
+        }
+        requiredOutstanding.decrementAndGet();
+        int file = pair - columnOffsets[column];
+        if (status == UploadStatus.SUCCESS && ++groupSuccesses[group][file] == groupQuorums[group]) {
+            for (int member : groupColumns[group]) {
+                int memberPair = columnOffsets[member] + file;
+                if (memberPair != pair && statuses[memberPair] == UploadStatus.PENDING.ordinal()) {
+                    requiredOutstanding.decrementAndGet();
+                }
+            }
+        }
+    }
+    
+    private int columnSize(int column) {
+        return columnFiles == null ? files.size() : columnFiles[column].length;
+    }
+    
+    private int columnOf(Endpoint endpoint) {
+        for (int column = 0; column < endpoints.size(); column++) {
+            if (endpoints.get(column).getId().equals(endpoint.getId())) {
+                return column;
+            }
+        }
+        return -1;
+    }
+    
+    private int columnOf(int pair) {
+        if (pair < 0 || pair >= statuses.length) {
+            throw new IndexOutOfBoundsException(pair);
+        }
+        int column = Arrays.binarySearch(columnOffsets, pair);
+        if (column < 0) {
+            return -column - 2;
+        }
+        // binarySearch may land on any of several equal offsets; skip the endpoints without pairs
+        while (columnOffsets[column + 1] == pair) {
+            column++;
+        }
+        return column;
+    }
+}
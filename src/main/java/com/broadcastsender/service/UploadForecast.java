@@ -0,0 +1,34 @@
+package com.broadcastsender.service;
+
+import java.util.Map;
+
+/**
+ * Predicted time left of the jobs in the {@link UploadService}, from the throughput and
+ * overhead learned per endpoint. Taken at one moment; a prediction of -1 means an endpoint
+ * with pairs left has not been learned yet.
+ */
+public final class UploadForecast {
+    private final long remainingNanos;
+    private final Map<Long, Long> remainingNanosByJob;
+    
+    UploadForecast(long remainingNanos, Map<Long, Long> remainingNanosByJob) {
+        this.remainingNanos = remainingNanos;
+        this.remainingNanosByJob = remainingNanosByJob;
+    }
+    
+    /**
+     * Returns the time until every queued, running and paused job is done, 0 if there is none.
+     * The pairs of paused jobs that have not started are left out.
+     */
+    public long getRemainingNanos() {
+        return remainingNanos;
+    }
+    
+    /**
+     * Returns the time until the job is done at its share of the slots, or -1 if it is
+     * finished or cannot be predicted yet.
+     */
+    public long getRemainingNanos(UploadJob job) {
+        return remainingNanosByJob.getOrDefault(job.getId(), -1L);
+    }
+}
@@ -0,0 +1,167 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.diagnostics.UploadBatchEvent;
+import com.broadcastsender.model.UploadPriority;
+import com.broadcastsender.model.UploadSnapshot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * An upload batch queued in the {@link UploadService}, with its priority and lifecycle.
+ * Several jobs run at the same time and share the upload slots by the weight of their priority.
+ * Getters may be called from any thread.
+ */
+public final class UploadJob {
+    
+    /**
+     * Lifecycle of a job. Paused jobs finish their running uploads but start no new ones.
+     * A replicating job delivered every file to its quorum and copies the rest at low priority.
+     */
+    public enum State {
+        QUEUED("Queued"),
+        RUNNING("Running"),
+        REPLICATING("Replicating"),
+        PAUSED("Paused"),
+        COMPLETED("Completed"),
+        CANCELLED("Cancelled");
+        
+        private final String displayName;
+        
+        State(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+        
+        public boolean isFinished() {
+            return this == COMPLETED || this == CANCELLED;
+        }
+    }
+    
+    private final long id;
+    private final String name;
+    private final UploadBatch batch;
+    private final int fileCount;
+    private final int endpointCount;
+    private final Consumer<UploadSnapshot> progressCallback;
+    private final UploadBatchEvent event = new UploadBatchEvent();
+    private final CompletableFuture<UploadJob> completion = new CompletableFuture<>();
+    private final CompletableFuture<UploadJob> delivery = new CompletableFuture<>();
+    private final long submittedNanos = System.nanoTime();
+    
+    private volatile UploadPriority priority;
+    private volatile State state = State.QUEUED;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    
+    // Scheduling state, guarded by the scheduler's lock
+    double pass;
+    double replicaPass;
+    int inFlight;
+    
+    UploadJob(long id, String name, UploadPriority priority, UploadBatch batch,
+              int fileCount, int endpointCount, Consumer<UploadSnapshot> progressCallback) {
+        this.id = id;
+        this.name = name;
+        this.priority = priority;
+        this.batch = batch;
+        this.fileCount = fileCount;
+        this.endpointCount = endpointCount;
+        this.progressCallback = progressCallback;
+        event.begin();
+    }
+    
+    public long getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public UploadPriority getPriority() {
+        return priority;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * Returns the pairs of the job and their outcome so far.
+     */
+    public UploadBatch getBatch() {
+        return batch;
+    }
+    
+    /**
+     * Returns the {@link System#nanoTime()} of the first upload, or 0 if none started yet.
+     */
+    public long getStartedNanos() {
+        return startedNanos;
+    }
+    
+    /**
+     * Returns the {@link System#nanoTime()} at which the job finished, or 0 while it runs.
+     */
+    public long getFinishedNanos() {
+        return finishedNanos;
+    }
+    
+    public long getSubmittedNanos() {
+        return submittedNanos;
+    }
+    
+    /**
+     * Completes with this job once it finished or was cancelled and its last upload returned.
+     */
+    public CompletableFuture<UploadJob> completion() {
+        return completion;
+    }
+    
+    /**
+     * Completes with this job once every file reached the quorum of each endpoint group,
+     * or failed to; without groups, and at the latest, together with {@link #completion()}.
+     */
+    public CompletableFuture<UploadJob> delivery() {
+        return delivery;
+    }
+    
+    int getFileCount() {
+        return fileCount;
+    }
+    
+    int getEndpointCount() {
+        return endpointCount;
+    }
+    
+    Consumer<UploadSnapshot> getProgressCallback() {
+        return progressCallback;
+    }
+    
+    UploadBatchEvent getEvent() {
+        return event;
+    }
+    
+    void setPriority(UploadPriority priority) {
+        this.priority = priority;
+    }
+    
+    void setState(State state) {
+        this.state = state;
+        if (state == State.RUNNING && startedNanos == 0) {
+            startedNanos = System.nanoTime();
+        }
+        if (state.isFinished()) {
+            finishedNanos = System.nanoTime();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("#%d %s (%s, %s)", id, name, priority.getDisplayName(), state.getDisplayName());
+    }
+}
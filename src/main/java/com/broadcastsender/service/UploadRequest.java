@@ -0,0 +1,44 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.BodyEncoding;
+import com.broadcastsender.model.TimeoutPolicy;
+
+import java.io.File;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * One upload as {@link HttpService} prepared it for a transport: authentication, content
+ * type and deadlines are already resolved from the endpoint.
+ *
+ * @param uri           target URL
+ * @param method        HTTP method
+ * @param headers       headers to send besides Host, Content-Length and Content-Type
+ * @param file          file to send
+ * @param contentType   content type of the file
+ * @param body          whether the file is sent as a multipart form part or as the whole body
+ * @param fieldName     form field of the file in multipart bodies
+ * @param policy        the endpoint's timeouts
+ * @param writeDeadline time the request body may take to send
+ * @param callDeadline  time the whole call may take, from connecting to reading the response
+ */
+public record UploadRequest(URI uri,
+                            String method,
+                            Map<String, String> headers,
+                            File file,
+                            String contentType,
+                            BodyEncoding body,
+                            String fieldName,
+                            TimeoutPolicy policy,
+                            Duration writeDeadline,
+                            Duration callDeadline) {
+    
+    public boolean isRaw() {
+        return body == BodyEncoding.RAW;
+    }
+    
+    public boolean isPlainHttp() {
+        return "http".equalsIgnoreCase(uri.getScheme());
+    }
+}
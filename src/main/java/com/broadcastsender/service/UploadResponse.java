@@ -0,0 +1,22 @@
+package com.broadcastsender.service;
+
+/**
+ * The server's answer to an upload, read completely, whichever way the request was sent.
+ *
+ * @param code    HTTP status code
+ * @param message reason phrase of the status line, empty if the server sent none
+ * @param body    response body, at most {@link #MAX_BODY_CHARS} characters of it
+ */
+public record UploadResponse(int code, String message, String body) {
+    // Upload endpoints answer with a short status; more is kept out of the heap and the history
+    public static final int MAX_BODY_CHARS = 64 * 1024;
+    
+    public UploadResponse {
+        message = message != null ? message : "";
+        body = body == null ? "" : body.length() > MAX_BODY_CHARS ? body.substring(0, MAX_BODY_CHARS) : body;
+    }
+    
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+}
@@ -0,0 +1,307 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.UploadPriority;
+import com.broadcastsender.model.UploadStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Decides which job uploads next when a slot frees up.
+ * Jobs share the global slots by stride scheduling: every claimed pair advances the job's
+ * pass by the inverse of its priority weight, and the runnable job with the lowest pass
+ * claims next, so a high priority job gets most of the slots without starving the others.
+ * A job that joins starts at the current pass instead of catching up from zero.
+ * Within a job, endpoints are served round robin, and endpoints at their own limit are skipped.
+ * The slots of an endpoint are shared by the same weights among the runnable jobs that still
+ * have pairs for it: beyond its share, a job only takes a slot the others are not owed, so a
+ * job that runs ahead elsewhere is not starved at a busy endpoint.
+ * The pairs a job only replicates past a group's quorum form a second lane of the job,
+ * which competes only once the job has no required pair to claim, and then with the weight
+ * of {@link UploadPriority#LOW}, whatever the job's priority.
+ * Only decides; {@link UploadService} runs the claimed pairs. From the same slots and shares
+ * it also predicts when the jobs will be done, see {@link #forecast}.
+ */
+final class UploadScheduler {
+    
+    /**
+     * A pair handed out to run.
+     */
+    record Claim(UploadJob job, int pair, long claimedNanos) {
+    }
+    
+    /**
+     * The required pairs or the pairs to replicate of a job, scheduled each with their own pass.
+     */
+    private record Lane(UploadJob job, boolean replicas) {
+        
+        double pass() {
+            return replicas ? job.replicaPass : job.pass;
+        }
+        
+        void advance() {
+            if (replicas) {
+                job.replicaPass += 1.0 / UploadPriority.LOW.getWeight();
+            } else {
+                job.pass += 1.0 / job.getPriority().getWeight();
+            }
+        }
+        
+        int claim(Predicate<Endpoint> endpointAvailable) {
+            return replicas ? job.getBatch().claimReplica(endpointAvailable) : job.getBatch().claim(endpointAvailable);
+        }
+    }
+    
+    private final List<UploadJob> jobs = new ArrayList<>();
+    private final Map<String, Integer> inFlightByEndpoint = new HashMap<>();
+    private int inFlight;
+    private int maxInFlight;
+    private int maxPerEndpoint;
+    private double virtualTime;
+    
+    UploadScheduler(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+    
+    /**
+     * Sets the global and per-endpoint slot counts; 0 per endpoint means no endpoint limit.
+     */
+    synchronized void setLimits(int maxInFlight, int maxPerEndpoint) {
+        this.maxInFlight = maxInFlight;
+        this.maxPerEndpoint = maxPerEndpoint;
+    }
+    
+    synchronized void add(UploadJob job) {
+        job.pass = virtualTime;
+        job.replicaPass = virtualTime;
+        jobs.add(job);
+    }
+    
+    synchronized List<UploadJob> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+    
+    /**
+     * Claims pairs until every slot is taken or no runnable job has a pair for a free endpoint.
+     */
+    synchronized List<Claim> claim() {
+        List<Claim> claims = new ArrayList<>();
+        List<Lane> candidates = null;
+        while (inFlight < maxInFlight) {
+            if (candidates == null) {
+                candidates = new ArrayList<>();
+                for (UploadJob job : jobs) {
+                    if (isRunnable(job)) {
+                        candidates.add(new Lane(job, false));
+                    }
+                }
+            }
+            Claim claim = claimNext(candidates);
+            if (claim == null) {
+                break;
+            }
+            claims.add(claim);
+        }
+        return claims;
+    }
+    
+    private Claim claimNext(List<Lane> candidates) {
+        while (!candidates.isEmpty()) {
+            int best = 0;
+            for (int i = 1; i < candidates.size(); i++) {
+                if (candidates.get(i).pass() < candidates.get(best).pass()) {
+                    best = i;
+                }
+            }
+            Lane lane = candidates.get(best);
+            UploadJob job = lane.job();
+            int pair = lane.claim(endpoint -> hasEndpointCapacity(job, endpoint));
+            if (pair < 0) {
+                // Drained, or every endpoint it still needs is busy; retried on the next claim()
+                candidates.remove(best);
+                Lane replicas = new Lane(job, true);
+                if (!lane.replicas() && job.getBatch().hasReplicas() && !candidates.contains(replicas)) {
+                    // Only now do the pairs to replicate compete; like a joining job, the lane
+                    // does not bank the time it had nothing to do
+                    job.replicaPass = Math.max(job.replicaPass, virtualTime);
+                    candidates.add(replicas);
+                }
+                continue;
+            }
+            
+            virtualTime = Math.max(virtualTime, lane.pass());
+            lane.advance();
+            job.inFlight++;
+            inFlight++;
+            inFlightByEndpoint.merge(job.getBatch().getEndpoint(pair).getId(), 1, Integer::sum);
+            if (job.getState() == UploadJob.State.QUEUED) {
+                job.setState(UploadJob.State.RUNNING);
+            }
+            long claimedNanos = System.nanoTime();
+            job.getBatch().markInFlight(pair, claimedNanos);
+            return new Claim(job, pair, claimedNanos);
+        }
+        return null;
+    }
+    
+    /**
+     * Records the outcome of a claimed pair and frees its slots.
+     *
+     * @return true if the job is finished and left the queue
+     */
+    synchronized boolean release(Claim claim, UploadStatus status) {
+        UploadJob job = claim.job();
+        job.getBatch().clearInFlight(claim.pair(), claim.claimedNanos());
+        job.getBatch().finish(claim.pair(), status);
+        job.inFlight--;
+        inFlight--;
+        inFlightByEndpoint.merge(job.getBatch().getEndpoint(claim.pair()).getId(), -1,
+                (count, delta) -> count + delta == 0 ? null : count + delta);
+        if (finishIfDone(job)) {
+            return true;
+        }
+        if (job.getState() == UploadJob.State.RUNNING && job.getBatch().isDelivered()) {
+            job.setState(UploadJob.State.REPLICATING);
+        }
+        return false;
+    }
+    
+    /**
+     * Returns whether the claimed pair need not be uploaded any more, as its file reached
+     * the quorum of a group that cancels the rest.
+     */
+    synchronized boolean isSuperseded(Claim claim) {
+        return claim.job().getBatch().isSuperseded(claim.pair());
+    }
+    
+    synchronized void setPriority(UploadJob job, UploadPriority priority) {
+        job.setPriority(priority);
+    }
+    
+    synchronized void pause(UploadJob job) {
+        if (isRunnable(job)) {
+            job.setState(UploadJob.State.PAUSED);
+        }
+    }
+    
+    synchronized void resume(UploadJob job) {
+        if (job.getState() == UploadJob.State.PAUSED) {
+            if (job.getStartedNanos() == 0) {
+                job.setState(UploadJob.State.QUEUED);
+            } else {
+                job.setState(job.getBatch().isDelivered() ? UploadJob.State.REPLICATING : UploadJob.State.RUNNING);
+            }
+            // Do not let the pause bank a lead over the jobs that kept running
+            job.pass = Math.max(job.pass, virtualTime);
+            job.replicaPass = Math.max(job.replicaPass, virtualTime);
+        }
+    }
+    
+    /**
+     * Stops handing out the job's pairs.
+     *
+     * @return true if nothing of the job is in flight, so it finished right away
+     */
+    synchronized boolean cancel(UploadJob job) {
+        if (job.getState().isFinished()) {
+            return false;
+        }
+        job.setState(UploadJob.State.CANCELLED);
+        return finishIfDone(job);
+    }
+    
+    /**
+     * Drops a job that can no longer run, e.g. because the pool was shut down.
+     */
+    synchronized void abandon(UploadJob job) {
+        jobs.remove(job);
+    }
+    
+    /**
+     * Predicts when the jobs will be done from what the estimator learned per endpoint.
+     * Each runnable job gets the share of the slots its priority weight earns among the
+     * runnable jobs, and no job takes longer than all of them together.
+     */
+    synchronized UploadForecast forecast(ThroughputEstimator estimator, long nowNanos) {
+        double runnableWeight = 0;
+        for (UploadJob job : jobs) {
+            if (isRunnable(job)) {
+                runnableWeight += job.getPriority().getWeight();
+            }
+        }
+        
+        UploadWorkload all = new UploadWorkload();
+        Map<Long, Long> remainingByJob = new HashMap<>();
+        for (UploadJob job : jobs) {
+            UploadWorkload workload = new UploadWorkload();
+            job.getBatch().addRemainingWork(workload, estimator, nowNanos, isRunnable(job));
+            all.addAll(workload);
+            double share = isRunnable(job) ? job.getPriority().getWeight() / runnableWeight : 1;
+            remainingByJob.put(job.getId(), workload.makespanNanos(maxInFlight * share, maxPerEndpoint));
+        }
+        long remaining = all.makespanNanos(maxInFlight, maxPerEndpoint);
+        if (remaining >= 0) {
+            remainingByJob.replaceAll((id, nanos) -> nanos < 0 ? nanos : Math.min(nanos, remaining));
+        }
+        return new UploadForecast(remaining, remainingByJob);
+    }
+    
+    private boolean finishIfDone(UploadJob job) {
+        if (job.inFlight > 0 || !jobs.contains(job)) {
+            return false;
+        }
+        if (job.getState() == UploadJob.State.CANCELLED) {
+            jobs.remove(job);
+            return true;
+        }
+        if (!job.getBatch().hasUnclaimed()) {
+            job.setState(UploadJob.State.COMPLETED);
+            jobs.remove(job);
+            return true;
+        }
+        return false;
+    }
+    
+    private boolean isRunnable(UploadJob job) {
+        return job.getState() == UploadJob.State.QUEUED || job.getState() == UploadJob.State.RUNNING
+                || job.getState() == UploadJob.State.REPLICATING;
+    }
+    
+    private boolean hasEndpointCapacity(UploadJob job, Endpoint endpoint) {
+        if (maxPerEndpoint <= 0) {
+            return true;
+        }
+        int endpointInFlight = inFlightByEndpoint.getOrDefault(endpoint.getId(), 0);
+        if (endpointInFlight >= maxPerEndpoint) {
+            return false;
+        }
+        double contendingWeight = job.getPriority().getWeight();
+        for (UploadJob other : jobs) {
+            if (other != job && isRunnable(other) && other.getBatch().hasUnclaimed(endpoint)) {
+                contendingWeight += other.getPriority().getWeight();
+            }
+        }
+        if (job.getBatch().getInFlightCount(endpoint) < endpointShare(job, contendingWeight)) {
+            return true;
+        }
+        int owed = 0;
+        for (UploadJob other : jobs) {
+            if (other != job && isRunnable(other) && other.getBatch().hasUnclaimed(endpoint)) {
+                owed += Math.max(0, endpointShare(other, contendingWeight) - other.getBatch().getInFlightCount(endpoint));
+            }
+        }
+        return endpointInFlight + owed < maxPerEndpoint;
+    }
+    
+    /**
+     * Returns the slots of an endpoint the job's weight earns among the jobs contending for
+     * it, at least one.
+     */
+    private int endpointShare(UploadJob job, double contendingWeight) {
+        return Math.max(1, (int) (maxPerEndpoint * job.getPriority().getWeight() / contendingWeight));
+    }
+}
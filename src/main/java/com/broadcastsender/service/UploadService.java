@@ -1,27 +1,55 @@
 package com.broadcastsender.service;
 
+import com.broadcastsender.diagnostics.UploadAttemptEvent;
+import com.broadcastsender.diagnostics.UploadBatchEvent;
+import com.broadcastsender.diagnostics.UploadRetryEvent;
+import com.broadcastsender.diagnostics.UploadAuditLog;
+import com.broadcastsender.diagnostics.UploadTaskScheduledEvent;
 import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.EndpointGroup;
 import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.FileCatalog;
+import com.broadcastsender.model.UploadPriority;
 import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadSnapshot;
 import com.broadcastsender.model.UploadStatus;
-import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * Service for managing file uploads with concurrent processing and retry logic.
+ * Batches are queued as {@link UploadJob}s that run side by side and share the worker
+ * threads by priority, see {@link UploadScheduler}.
+ * With {@link EndpointGroup}s configured, a file is done once it reached the quorum of each
+ * group; the uploads of it to the other members are then cancelled, even mid-transfer, or
+ * left to replicate in the background, depending on the group.
  */
 public class UploadService {
     private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+    // Idle workers are kept between batches and released after a minute without uploads
+    private static final long IDLE_THREAD_SECONDS = 60;
     
     private final HttpService httpService;
-    private ExecutorService executorService;
-    private int maxRetryAttempts;
+    private final AtomicLong jobIds = new AtomicLong();
+    private final EndpointMetrics metrics = new EndpointMetrics();
+    private final UploadScheduler scheduler = new UploadScheduler(3);
+    private final AtomicInteger workerIds = new AtomicInteger();
+    // The HTTP call each running upload is waiting on, to cancel superseded ones
+    private final Map<UploadScheduler.Claim, Runnable> runningCalls = new ConcurrentHashMap<>();
+    private volatile ThreadPoolExecutor executorService;
+    private volatile int concurrency = 3; // Default to 3 threads
+    private volatile int maxUploadsPerEndpoint;
+    private volatile int maxRetryAttempts;
+    private volatile List<EndpointGroup> endpointGroups = List.of();
+    private volatile Consumer<UploadSnapshot> outcomeListener;
     
     public UploadService(HttpService httpService) {
         this.httpService = httpService;
@@ -30,14 +58,49 @@ public class UploadService {
     
     /**
      * Configures the thread pool for concurrent uploads.
+     * The running pool is resized in place: running uploads keep going, new slots are
+     * filled from the queued jobs right away, and removed ones disappear as uploads finish.
      */
-    public void configureThreadPool(int maxConcurrentUploads) {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+    public synchronized void configureThreadPool(int maxConcurrentUploads) {
+        if (maxConcurrentUploads < 1) {
+            throw new IllegalArgumentException("At least one concurrent upload is required");
         }
         
-        this.executorService = Executors.newFixedThreadPool(maxConcurrentUploads);
+        if (executorService == null || executorService.isShutdown()) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentUploads, maxConcurrentUploads,
+                    IDLE_THREAD_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), this::newWorkerThread);
+            executor.allowCoreThreadTimeOut(true);
+            executorService = executor;
+        } else if (maxConcurrentUploads != concurrency) {
+            // The core size may never exceed the maximum, so the order depends on the direction
+            if (maxConcurrentUploads > concurrency) {
+                executorService.setMaximumPoolSize(maxConcurrentUploads);
+                executorService.setCorePoolSize(maxConcurrentUploads);
+            } else {
+                executorService.setCorePoolSize(maxConcurrentUploads);
+                executorService.setMaximumPoolSize(maxConcurrentUploads);
+            }
+        } else {
+            return;
+        }
+        
+        concurrency = maxConcurrentUploads;
+        scheduler.setLimits(maxConcurrentUploads, maxUploadsPerEndpoint);
         logger.info("Thread pool configured with {} threads", maxConcurrentUploads);
+        dispatch();
+    }
+    
+    private Thread newWorkerThread(Runnable task) {
+        return new Thread(task, "upload-worker-" + workerIds.incrementAndGet());
+    }
+    
+    /**
+     * Limits how many uploads run against one endpoint at once, across all jobs; 0 for no limit.
+     */
+    public void setMaxUploadsPerEndpoint(int maxUploadsPerEndpoint) {
+        this.maxUploadsPerEndpoint = maxUploadsPerEndpoint;
+        scheduler.setLimits(concurrency, maxUploadsPerEndpoint);
+        dispatch();
     }
     
     /**
@@ -47,139 +110,420 @@ public class UploadService {
         this.maxRetryAttempts = maxRetryAttempts;
     }
     
+    /**
+     * Sets the endpoint groups whose files only need to reach a quorum of members.
+     * Applies to the jobs submitted from now on.
+     */
+    public void setEndpointGroups(List<EndpointGroup> endpointGroups) {
+        List<EndpointGroup> copies = new ArrayList<>(endpointGroups.size());
+        for (EndpointGroup group : endpointGroups) {
+            copies.add(group.copy());
+        }
+        this.endpointGroups = copies;
+    }
+    
+    /**
+     * Sets the listener told of each pair's final outcome, once per upload or retry after
+     * the last attempt, on the worker threads. Pairs of cancelled jobs that never started
+     * are not reported.
+     */
+    public void setOutcomeListener(Consumer<UploadSnapshot> outcomeListener) {
+        this.outcomeListener = outcomeListener;
+    }
+    
     /**
      * Uploads files to multiple endpoints with progress callback.
+     * The callback receives immutable snapshots on the worker threads.
      */
-    public CompletableFuture<List<UploadResult>> uploadFiles(
+    public CompletableFuture<UploadBatch> uploadFiles(
             List<FileAttachment> files,
             List<Endpoint> endpoints,
-            Consumer<UploadResult> progressCallback) {
+            Consumer<UploadSnapshot> progressCallback) {
         
+        return submitJob("Upload", UploadPriority.NORMAL, files, endpoints, progressCallback)
+                .completion()
+                .thenApply(UploadJob::getBatch);
+    }
+    
+    /**
+     * Queues a job sending every file to every endpoint. It starts as soon as it gets a
+     * share of the upload slots, next to the jobs already running.
+     * Pairs are generated lazily, so only the uploads in flight exist as objects.
+     * The endpoint groups among the endpoints apply to the job.
+     */
+    public UploadJob submitJob(String name, UploadPriority priority, List<FileAttachment> files,
+                               List<Endpoint> endpoints, Consumer<UploadSnapshot> progressCallback) {
+        long jobId = jobIds.incrementAndGet();
+        UploadBatch batch = UploadBatch.allPairs(jobId, files, endpoints, endpointGroups);
+        return submit(new UploadJob(jobId, name, priority, batch, files.size(), endpoints.size(), progressCallback));
+    }
+    
+    /**
+     * Queues a job sending every file of the catalog to every endpoint. The job works on a
+     * compact copy of the catalog, so no attachment is created per file up front.
+     */
+    public UploadJob submitJob(String name, UploadPriority priority, FileCatalog files,
+                               List<Endpoint> endpoints, Consumer<UploadSnapshot> progressCallback) {
+        long jobId = jobIds.incrementAndGet();
+        UploadBatch batch = UploadBatch.allPairs(jobId, files, endpoints, endpointGroups);
+        return submit(new UploadJob(jobId, name, priority, batch, files.size(), endpoints.size(), progressCallback));
+    }
+    
+    /**
+     * Queues a job uploading the failed ones among the results again.
+     * Progress is reported under the job ids of the results, not of the retry job.
+     */
+    public UploadJob submitRetryJob(String name, UploadPriority priority, List<UploadResult> results,
+                                    Consumer<UploadSnapshot> progressCallback) {
+        List<UploadResult> failed = new ArrayList<>();
+        for (UploadResult result : results) {
+            if (result.getStatus() == UploadStatus.FAILED) {
+                failed.add(result);
+            }
+        }
+        UploadBatch batch = UploadBatch.ofResults(jobIds.incrementAndGet(), failed);
+        return submit(new UploadJob(batch.getBatchId(), name, priority, batch, 0, 0, progressCallback));
+    }
+    
+    private UploadJob submit(UploadJob job) {
         if (executorService == null || executorService.isShutdown()) {
-            configureThreadPool(3); // Default to 3 threads
+            configureThreadPool(concurrency);
         }
-        
-        List<UploadResult> results = new CopyOnWriteArrayList<>();
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        
-        // Create upload tasks for each file-endpoint combination
-        for (FileAttachment file : files) {
-            for (Endpoint endpoint : endpoints) {
-                UploadResult result = new UploadResult(endpoint, file);
-                results.add(result);
-                
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    uploadWithRetry(result, progressCallback);
-                }, executorService);
-                
-                futures.add(future);
+        logger.info("Queued upload job {} with {} pairs", job, job.getBatch().getPairCount());
+        if (job.getBatch().getPairCount() == 0) {
+            job.setState(UploadJob.State.COMPLETED);
+            complete(job);
+            return job;
+        }
+        scheduler.add(job);
+        dispatch();
+        return job;
+    }
+    
+    /**
+     * Returns the queued, running and paused jobs.
+     */
+    public List<UploadJob> getActiveJobs() {
+        return scheduler.getJobs();
+    }
+    
+    /**
+     * Changes the share of upload slots the job gets from now on.
+     */
+    public void setJobPriority(UploadJob job, UploadPriority priority) {
+        scheduler.setPriority(job, priority);
+        logger.info("Upload job {} priority changed", job);
+    }
+    
+    /**
+     * Stops starting uploads of the job; running ones finish.
+     */
+    public void pauseJob(UploadJob job) {
+        scheduler.pause(job);
+        logger.info("Upload job {} paused", job);
+    }
+    
+    public void resumeJob(UploadJob job) {
+        scheduler.resume(job);
+        logger.info("Upload job {} resumed", job);
+        dispatch();
+    }
+    
+    /**
+     * Cancels the job's remaining uploads. It completes once its running uploads return.
+     */
+    public void cancelJob(UploadJob job) {
+        boolean finished = scheduler.cancel(job);
+        logger.info("Upload job {} cancelled", job);
+        if (finished) {
+            complete(job);
+        }
+        dispatch();
+    }
+    
+    /**
+     * Hands the pairs the scheduler picks to the worker threads until every slot is taken.
+     */
+    private void dispatch() {
+        ThreadPoolExecutor executor = executorService;
+        if (executor == null) {
+            return;
+        }
+        for (UploadScheduler.Claim claim : scheduler.claim()) {
+            UploadJob job = claim.job();
+            UploadBatch batch = job.getBatch();
+            commitTaskScheduled(job.getId(), batch.getEndpoint(claim.pair()), batch.getFile(claim.pair()));
+            try {
+                executor.execute(() -> upload(claim));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Upload job {} abandoned, the thread pool is shut down", job);
+                scheduler.abandon(job);
+                job.completion().completeExceptionally(e);
             }
         }
-        
-        // Wait for all uploads to complete
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> results);
+    }
+    
+    private void upload(UploadScheduler.Claim claim) {
+        UploadJob job = claim.job();
+        UploadBatch batch = job.getBatch();
+        UploadStatus status = UploadStatus.FAILED;
+        try {
+            UploadResult result = new UploadResult(batch.getResultJobId(claim.pair()),
+                    batch.getEndpoint(claim.pair()), batch.getFile(claim.pair()));
+            result.setPair(batch.getResultPair(claim.pair()));
+            uploadWithRetry(claim, result, job.getProgressCallback());
+            status = result.getStatus();
+        } finally {
+            runningCalls.remove(claim);
+            boolean finished = scheduler.release(claim, status);
+            if (!finished && batch.isDelivered() && job.delivery().complete(job)) {
+                logger.info("Upload job {} delivered every file to its quorum", job);
+            }
+            if (status == UploadStatus.SUCCESS && batch.hasQuorumGroups()) {
+                cancelSuperseded(job);
+            }
+            if (finished) {
+                complete(job);
+            }
+            dispatch();
+        }
     }
     
     /**
-     * Uploads a single file with retry logic.
+     * Cancels the running uploads of the job whose file just reached a quorum.
      */
-    private void uploadWithRetry(UploadResult result, Consumer<UploadResult> progressCallback) {
+    private void cancelSuperseded(UploadJob job) {
+        runningCalls.forEach((claim, cancel) -> {
+            if (claim.job() == job && isSuperseded(claim)) {
+                cancel.run();
+            }
+        });
+    }
+    
+    /**
+     * Returns whether the pair's file reached the quorum of a group that cancels the rest;
+     * batches without groups skip the scheduler's lock.
+     */
+    private boolean isSuperseded(UploadScheduler.Claim claim) {
+        return claim.job().getBatch().hasQuorumGroups() && scheduler.isSuperseded(claim);
+    }
+    
+    /**
+     * Remembers how to cancel the call a running upload waits on; a call that started
+     * after its pair was superseded is cancelled right away.
+     */
+    private void watchCall(UploadScheduler.Claim claim, Runnable cancel) {
+        runningCalls.put(claim, cancel);
+        if (isSuperseded(claim)) {
+            cancel.run();
+        }
+    }
+    
+    private void complete(UploadJob job) {
+        commitBatch(job);
+        UploadBatch batch = job.getBatch();
+        if (batch.getSkippedCount() > 0) {
+            logger.info("Upload job {} finished: {} succeeded, {} failed, {} skipped past the quorum", job,
+                    batch.getSucceededCount(), batch.getFailedCount(), batch.getSkippedCount());
+        } else {
+            logger.info("Upload job {} finished: {} succeeded, {} failed", job,
+                    batch.getSucceededCount(), batch.getFailedCount());
+        }
+        job.delivery().complete(job);
+        job.completion().complete(job);
+    }
+    
+    /**
+     * Uploads a single file with retry logic. Stops, without retrying, once the file
+     * reached the quorum of the endpoint's group and the rest are cancelled.
+     */
+    private void uploadWithRetry(UploadScheduler.Claim claim, UploadResult result,
+                                 Consumer<UploadSnapshot> progressCallback) {
+        long batchId = claim.job().getId();
+        long startNanos = System.nanoTime();
         int attempts = 0;
         boolean success = false;
+        boolean superseded = false;
         
         while (attempts <= maxRetryAttempts && !success) {
+            if (isSuperseded(claim)) {
+                superseded = true;
+                break;
+            }
             attempts++;
             result.setAttemptNumber(attempts);
             
             if (attempts > 1) {
+                commitRetry(batchId, result, attempts);
                 result.setStatus(UploadStatus.RETRYING);
                 result.setMessage("Retry attempt " + attempts + " of " + maxRetryAttempts);
-                if (progressCallback != null) {
-                    progressCallback.accept(result);
-                }
-                logger.info("Retrying upload: {} to {} (attempt {})", 
+                publish(result, progressCallback);
+                logger.debug("Retrying upload: {} to {} (attempt {})", 
                         result.getFile().getName(), 
                         result.getEndpoint().getUrl(), 
                         attempts);
             } else {
                 result.setStatus(UploadStatus.IN_PROGRESS);
                 result.setMessage("Uploading...");
-                if (progressCallback != null) {
-                    progressCallback.accept(result);
-                }
+                publish(result, progressCallback);
             }
             
+            UploadAttemptEvent attemptEvent = new UploadAttemptEvent();
+            attemptEvent.begin();
+            metrics.attemptStarted(result.getEndpoint().getId());
+            
             try {
-                Response response = httpService.uploadFile(result.getEndpoint(), result.getFile());
+                String endpointId = result.getEndpoint().getId();
+                UploadResponse response = httpService.uploadFile(result.getEndpoint(), result.getFile(),
+                        cancel -> watchCall(claim, cancel), sent -> metrics.bytesSent(endpointId, sent));
                 
                 result.setStatusCode(response.code());
                 
                 if (response.isSuccessful()) {
                     result.setStatus(UploadStatus.SUCCESS);
                     result.setMessage("Upload successful");
-                    result.setResponseBody(response.body() != null ? response.body().string() : "");
+                    result.setResponseBody(response.body());
                     success = true;
-                    logger.info("Upload successful: {} to {}", 
+                    logger.debug("Upload successful: {} to {}", 
                             result.getFile().getName(), 
                             result.getEndpoint().getUrl());
                 } else {
                     result.setStatus(UploadStatus.FAILED);
                     result.setMessage("HTTP " + response.code() + ": " + response.message());
-                    result.setResponseBody(response.body() != null ? response.body().string() : "");
-                    logger.warn("Upload failed with status {}: {} to {}", 
+                    result.setResponseBody(response.body());
+                    logger.debug("Upload failed with status {}: {} to {}", 
                             response.code(),
                             result.getFile().getName(), 
                             result.getEndpoint().getUrl());
                 }
-                
-                response.close();
-                
+            
             } catch (Exception e) {
+                if (isSuperseded(claim)) {
+                    // Cancelled because the file reached its quorum; not an endpoint error
+                    metrics.attemptCancelled(result.getEndpoint().getId());
+                    superseded = true;
+                    break;
+                }
                 result.setStatus(UploadStatus.FAILED);
                 result.setMessage("Error: " + e.getMessage());
-                logger.error("Upload error: {} to {}", 
+                // The outcome goes to the audit log; the stack trace only at DEBUG
+                logger.warn("Upload error: {} to {}: {}", 
                         result.getFile().getName(), 
                         result.getEndpoint().getUrl(), 
-                        e);
+                        e.toString());
+                logger.debug("Upload error details", e);
             }
             
+            commitAttempt(attemptEvent, batchId, result, success);
+            metrics.attemptFinished(result.getEndpoint().getId(), success);
             result.setProgress(1.0);
-            if (progressCallback != null) {
-                progressCallback.accept(result);
-            }
+            publish(result, progressCallback);
         }
         
-        if (!success) {
+        if (superseded) {
+            result.setStatus(UploadStatus.SKIPPED);
+            result.setMessage("Not needed, the group reached its quorum");
+            result.setProgress(1.0);
+            publish(result, progressCallback);
+        } else if (!success) {
             result.setStatus(UploadStatus.FAILED);
             result.setMessage("Upload failed after " + attempts + " attempts");
-            if (progressCallback != null) {
-                progressCallback.accept(result);
-            }
+            publish(result, progressCallback);
+        }
+        publish(result, outcomeListener);
+        UploadAuditLog.record(result, System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Publishes an immutable snapshot of the result to the progress callback.
+     */
+    private void publish(UploadResult result, Consumer<UploadSnapshot> progressCallback) {
+        if (progressCallback != null) {
+            progressCallback.accept(result.snapshot());
         }
     }
     
     /**
      * Retries failed uploads.
      */
-    public CompletableFuture<Void> retryFailedUploads(
+    public CompletableFuture<UploadBatch> retryFailedUploads(
             List<UploadResult> failedResults,
-            Consumer<UploadResult> progressCallback) {
+            Consumer<UploadSnapshot> progressCallback) {
         
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        
-        for (UploadResult result : failedResults) {
-            if (result.getStatus() == UploadStatus.FAILED) {
-                result.setAttemptNumber(0); // Reset attempt counter
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    uploadWithRetry(result, progressCallback);
-                }, executorService);
-                
-                futures.add(future);
-            }
+        return submitRetryJob("Retry", UploadPriority.NORMAL, failedResults, progressCallback)
+                .completion()
+                .thenApply(UploadJob::getBatch);
+    }
+    
+    private void commitTaskScheduled(long batchId, Endpoint endpoint, FileAttachment file) {
+        UploadTaskScheduledEvent event = new UploadTaskScheduledEvent();
+        if (event.shouldCommit()) {
+            event.batchId = batchId;
+            event.endpointId = endpoint.getId();
+            event.endpointName = endpoint.getName();
+            event.fileName = file.getName();
+            event.fileSize = file.getSize();
+            event.commit();
         }
-        
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+    
+    private void commitRetry(long batchId, UploadResult result, int attempt) {
+        UploadRetryEvent event = new UploadRetryEvent();
+        if (event.shouldCommit()) {
+            event.batchId = batchId;
+            event.endpointId = result.getEndpoint().getId();
+            event.endpointName = result.getEndpoint().getName();
+            event.fileName = result.getFile().getName();
+            event.attempt = attempt;
+            event.reason = result.getMessage();
+            event.commit();
+        }
+    }
+    
+    private void commitAttempt(UploadAttemptEvent event, long batchId, UploadResult result, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.batchId = batchId;
+            event.endpointId = result.getEndpoint().getId();
+            event.endpointName = result.getEndpoint().getName();
+            event.fileName = result.getFile().getName();
+            event.fileSize = result.getFile().getSize();
+            event.attempt = result.getAttemptNumber();
+            event.statusCode = result.getStatusCode();
+            event.success = success;
+            event.error = success ? null : result.getMessage();
+            event.commit();
+        }
+    }
+    
+    private void commitBatch(UploadJob job) {
+        UploadBatchEvent event = job.getEvent();
+        event.end();
+        if (event.shouldCommit()) {
+            UploadBatch batch = job.getBatch();
+            event.batchId = job.getId();
+            event.fileCount = job.getFileCount();
+            event.endpointCount = job.getEndpointCount();
+            event.pairCount = batch.getPairCount();
+            event.successCount = batch.getSucceededCount();
+            event.failureCount = batch.getFailedCount();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Predicts when the queued and running jobs will be done, from the throughput and
+     * per-request overhead learned for each endpoint.
+     */
+    public UploadForecast forecast() {
+        return scheduler.forecast(httpService.getThroughputEstimator(), System.nanoTime());
+    }
+    
+    /**
+     * Returns the live per-endpoint metrics of all uploads run by this service.
+     */
+    public EndpointMetrics getMetrics() {
+        return metrics;
     }
     
     /**
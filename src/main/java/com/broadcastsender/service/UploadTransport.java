@@ -0,0 +1,21 @@
+package com.broadcastsender.service;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An HTTP client engine that sends uploads. {@link HttpService} picks one per endpoint
+ * from its {@link com.broadcastsender.model.TransportType}.
+ */
+public interface UploadTransport {
+    
+    /**
+     * Sends the request and reads the response completely, handing an action that cancels
+     * the upload to the listener before it starts so that it can be cancelled from another
+     * thread. The bytes of the body are reported to the sent listener as they are written.
+     * A cancelled or timed-out upload fails with an IOException.
+     */
+    UploadResponse send(UploadRequest request, Consumer<Runnable> cancelListener, LongConsumer sentListener)
+            throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.broadcastsender.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The predicted upload time left per endpoint for a set of pairs, and how long the set
+ * takes on a number of upload slots.
+ */
+final class UploadWorkload {
+    // Per endpoint id: predicted nanoseconds, pairs
+    private final Map<String, double[]> byEndpoint = new HashMap<>();
+    private boolean unknown;
+    
+    void add(String endpointId, double nanos, int pairs) {
+        double[] work = byEndpoint.computeIfAbsent(endpointId, id -> new double[2]);
+        work[0] += nanos;
+        work[1] += pairs;
+    }
+    
+    /**
+     * Records that pairs remain for an endpoint nothing was learned about yet.
+     */
+    void markUnknown() {
+        unknown = true;
+    }
+    
+    void addAll(UploadWorkload other) {
+        other.byEndpoint.forEach((endpointId, work) -> add(endpointId, work[0], (int) work[1]));
+        unknown |= other.unknown;
+    }
+    
+    /**
+     * Returns how long the work takes if the slots are kept busy, or -1 if it cannot be
+     * predicted yet. An endpoint runs no more pairs at once than the per-endpoint limit
+     * allows and it has pairs left, so one slow endpoint can outlast the rest.
+     *
+     * @param slots          upload slots, a fraction if they are shared with other jobs
+     * @param maxPerEndpoint per-endpoint limit, 0 for none
+     */
+    long makespanNanos(double slots, int maxPerEndpoint) {
+        if (unknown) {
+            return -1;
+        }
+        double total = 0;
+        double longest = 0;
+        for (double[] work : byEndpoint.values()) {
+            double parallel = Math.min(slots, work[1]);
+            if (maxPerEndpoint > 0) {
+                parallel = Math.min(parallel, maxPerEndpoint);
+            }
+            total += work[0];
+            longest = Math.max(longest, work[0] / parallel);
+        }
+        return total == 0 ? 0 : (long) Math.max(longest, total / slots);
+    }
+}
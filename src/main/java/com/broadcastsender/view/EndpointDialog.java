@@ -1,7 +1,11 @@
 package com.broadcastsender.view;
 
 import com.broadcastsender.model.AuthType;
+import com.broadcastsender.model.BodyEncoding;
 import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.RequestMode;
+import com.broadcastsender.model.TimeoutPolicy;
+import com.broadcastsender.model.TransportType;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
@@ -19,6 +23,16 @@ public class EndpointDialog extends Dialog<Endpoint> {
     private final PasswordField passwordField;
     private final TextField bearerTokenField;
     private final GridPane authFieldsGrid;
+    private final Spinner<Integer> connectTimeoutSpinner;
+    private final Spinner<Integer> stallTimeoutSpinner;
+    private final Spinner<Integer> responseTimeoutSpinner;
+    private final Spinner<Integer> minThroughputSpinner;
+    private final Spinner<Integer> maxCallSpinner;
+    private final ComboBox<String> methodCombo;
+    private final ComboBox<BodyEncoding> bodyCombo;
+    private final TextField fieldNameField;
+    private final CheckBox detectContentTypeCheck;
+    private final ComboBox<TransportType> transportCombo;
     
     private Endpoint endpoint;
     
@@ -77,6 +91,66 @@ public class EndpointDialog extends Dialog<Endpoint> {
         
         grid.add(authFieldsGrid, 0, 3, 2, 1);
         
+        // Timeouts, collapsed as the defaults suit most endpoints
+        TimeoutPolicy policy = existingEndpoint != null ? existingEndpoint.getTimeoutPolicy() : TimeoutPolicy.DEFAULT;
+        connectTimeoutSpinner = timeoutSpinner(1, 600, policy.connectSeconds());
+        stallTimeoutSpinner = timeoutSpinner(1, 600, policy.stallSeconds());
+        responseTimeoutSpinner = timeoutSpinner(1, 3600, policy.responseSeconds());
+        minThroughputSpinner = timeoutSpinner(1, 1024 * 1024, (int) (policy.minBytesPerSecond() / 1024));
+        maxCallSpinner = timeoutSpinner(0, 7 * 24 * 3600, policy.maxCallSeconds());
+        
+        GridPane timeoutGrid = new GridPane();
+        timeoutGrid.setHgap(10);
+        timeoutGrid.setVgap(10);
+        timeoutGrid.add(new Label("Connect (s):"), 0, 0);
+        timeoutGrid.add(connectTimeoutSpinner, 1, 0);
+        timeoutGrid.add(new Label("Stalled transfer (s):"), 0, 1);
+        timeoutGrid.add(stallTimeoutSpinner, 1, 1);
+        timeoutGrid.add(new Label("Response (s):"), 0, 2);
+        timeoutGrid.add(responseTimeoutSpinner, 1, 2);
+        timeoutGrid.add(new Label("Slowest throughput (KB/s):"), 0, 3);
+        timeoutGrid.add(minThroughputSpinner, 1, 3);
+        timeoutGrid.add(new Label("Whole upload at most (s, 0 = no cap):"), 0, 4);
+        timeoutGrid.add(maxCallSpinner, 1, 4);
+        
+        TitledPane timeoutPane = new TitledPane("Timeouts", timeoutGrid);
+        timeoutPane.setExpanded(false);
+        grid.add(timeoutPane, 0, 4, 2, 1);
+        
+        // Request mode, collapsed as most endpoints take the default multipart POST
+        RequestMode mode = existingEndpoint != null ? existingEndpoint.getRequestMode() : RequestMode.DEFAULT;
+        methodCombo = new ComboBox<>();
+        methodCombo.getItems().addAll("POST", "PUT", "PATCH");
+        methodCombo.setEditable(true);
+        methodCombo.setValue(mode.method());
+        bodyCombo = new ComboBox<>();
+        bodyCombo.getItems().addAll(BodyEncoding.values());
+        bodyCombo.setValue(mode.body());
+        fieldNameField = new TextField(mode.fieldName());
+        fieldNameField.disableProperty().bind(bodyCombo.valueProperty().isEqualTo(BodyEncoding.RAW));
+        detectContentTypeCheck = new CheckBox("Detect content type from the file");
+        detectContentTypeCheck.setSelected(mode.detectContentType());
+        transportCombo = new ComboBox<>();
+        transportCombo.getItems().addAll(TransportType.values());
+        transportCombo.setValue(existingEndpoint != null ? existingEndpoint.getTransport() : TransportType.OKHTTP);
+        
+        GridPane requestGrid = new GridPane();
+        requestGrid.setHgap(10);
+        requestGrid.setVgap(10);
+        requestGrid.add(new Label("Method:"), 0, 0);
+        requestGrid.add(methodCombo, 1, 0);
+        requestGrid.add(new Label("Body:"), 0, 1);
+        requestGrid.add(bodyCombo, 1, 1);
+        requestGrid.add(new Label("Form field:"), 0, 2);
+        requestGrid.add(fieldNameField, 1, 2);
+        requestGrid.add(detectContentTypeCheck, 1, 3);
+        requestGrid.add(new Label("HTTP client:"), 0, 4);
+        requestGrid.add(transportCombo, 1, 4);
+        
+        TitledPane requestPane = new TitledPane("Request", requestGrid);
+        requestPane.setExpanded(false);
+        grid.add(requestPane, 0, 5, 2, 1);
+        
         getDialogPane().setContent(grid);
         
         // Load existing endpoint data if editing
@@ -117,6 +191,12 @@ public class EndpointDialog extends Dialog<Endpoint> {
                 endpoint.setUsername(usernameField.getText().trim());
                 endpoint.setPassword(passwordField.getText());
                 endpoint.setBearerToken(bearerTokenField.getText().trim());
+                endpoint.setTimeoutPolicy(new TimeoutPolicy(connectTimeoutSpinner.getValue(),
+                        stallTimeoutSpinner.getValue(), responseTimeoutSpinner.getValue(),
+                        minThroughputSpinner.getValue() * 1024L, maxCallSpinner.getValue()));
+                endpoint.setRequestMode(new RequestMode(methodCombo.getValue(), bodyCombo.getValue(),
+                        fieldNameField.getText(), detectContentTypeCheck.isSelected()));
+                endpoint.setTransport(transportCombo.getValue());
                 
                 return endpoint;
             }
@@ -124,6 +204,13 @@ public class EndpointDialog extends Dialog<Endpoint> {
         });
     }
     
+    private static Spinner<Integer> timeoutSpinner(int min, int max, int value) {
+        Spinner<Integer> spinner = new Spinner<>(min, max, value);
+        spinner.setEditable(true);
+        spinner.setPrefWidth(100);
+        return spinner;
+    }
+    
     private void updateAuthFields() {
         authFieldsGrid.getChildren().clear();
         
@@ -0,0 +1,123 @@
+package com.broadcastsender.view;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.EndpointGroup;
+import com.broadcastsender.model.QuorumAction;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dialog for adding or editing a group of mirrored endpoints and its quorum.
+ */
+public class EndpointGroupDialog extends Dialog<EndpointGroup> {
+    
+    private final TextField nameField;
+    private final ListView<Endpoint> memberListView;
+    private final Spinner<Integer> quorumSpinner;
+    private final ComboBox<QuorumAction> afterQuorumCombo;
+    
+    private EndpointGroup group;
+    
+    public EndpointGroupDialog(Stage owner, ObservableList<Endpoint> endpoints, EndpointGroup existingGroup) {
+        this.group = existingGroup;
+        
+        initOwner(owner);
+        setTitle(existingGroup == null ? "Add Endpoint Group" : "Edit Endpoint Group");
+        setHeaderText("Files are done once the quorum of the selected endpoints has them");
+        
+        ButtonType saveButtonType = new ButtonType("Save", ButtonBar.ButtonData.OK_DONE);
+        getDialogPane().getButtonTypes().addAll(saveButtonType, ButtonType.CANCEL);
+        
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+        
+        nameField = new TextField();
+        nameField.setPromptText("Group name");
+        
+        memberListView = new ListView<>(endpoints);
+        memberListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        memberListView.setPrefHeight(160);
+        
+        quorumSpinner = new Spinner<>(1, Math.max(1, endpoints.size()), 1);
+        quorumSpinner.setEditable(true);
+        quorumSpinner.setPrefWidth(100);
+        
+        afterQuorumCombo = new ComboBox<>();
+        afterQuorumCombo.getItems().addAll(QuorumAction.values());
+        afterQuorumCombo.setValue(QuorumAction.CANCEL);
+        afterQuorumCombo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(QuorumAction action) {
+                return action == null ? "" : action.getDisplayName();
+            }
+            
+            @Override
+            public QuorumAction fromString(String string) {
+                return null;
+            }
+        });
+        
+        grid.add(new Label("Name:"), 0, 0);
+        grid.add(nameField, 1, 0);
+        grid.add(new Label("Members:"), 0, 1);
+        grid.add(memberListView, 1, 1);
+        grid.add(new Label("Quorum:"), 0, 2);
+        grid.add(quorumSpinner, 1, 2);
+        grid.add(new Label("After the quorum:"), 0, 3);
+        grid.add(afterQuorumCombo, 1, 3);
+        
+        getDialogPane().setContent(grid);
+        
+        // Load existing group data if editing
+        if (existingGroup != null) {
+            nameField.setText(existingGroup.getName());
+            for (Endpoint endpoint : endpoints) {
+                if (existingGroup.getMemberIds().contains(endpoint.getId())) {
+                    memberListView.getSelectionModel().select(endpoint);
+                }
+            }
+            quorumSpinner.getValueFactory().setValue(existingGroup.getQuorum());
+            afterQuorumCombo.setValue(existingGroup.getAfterQuorum());
+        }
+        
+        // A group needs a name and more members than its quorum
+        Button saveButton = (Button) getDialogPane().lookupButton(saveButtonType);
+        Runnable validate = () -> saveButton.setDisable(nameField.getText().trim().isEmpty()
+                || memberListView.getSelectionModel().getSelectedItems().size() <= quorumSpinner.getValue());
+        nameField.textProperty().addListener((observable, oldValue, newValue) -> validate.run());
+        quorumSpinner.valueProperty().addListener((observable, oldValue, newValue) -> validate.run());
+        memberListView.getSelectionModel().getSelectedItems().addListener(
+            (ListChangeListener<Endpoint>) change -> validate.run());
+        validate.run();
+        
+        setResultConverter(dialogButton -> {
+            if (dialogButton == saveButtonType) {
+                if (group == null) {
+                    group = new EndpointGroup();
+                }
+                
+                List<String> memberIds = new ArrayList<>();
+                for (Endpoint member : memberListView.getSelectionModel().getSelectedItems()) {
+                    memberIds.add(member.getId());
+                }
+                group.setName(nameField.getText().trim());
+                group.setMemberIds(memberIds);
+                group.setQuorum(quorumSpinner.getValue());
+                group.setAfterQuorum(afterQuorumCombo.getValue());
+                
+                return group;
+            }
+            return null;
+        });
+    }
+}
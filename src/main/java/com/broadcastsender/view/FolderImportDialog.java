@@ -0,0 +1,71 @@
+package com.broadcastsender.view;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Dialog for the include and exclude globs of a folder import.
+ */
+public class FolderImportDialog extends Dialog<FolderImportDialog.Filters> {
+    
+    /**
+     * Globs entered by the user, split at commas.
+     */
+    public record Filters(List<String> includes, List<String> excludes) {
+    }
+    
+    private final TextField includeField;
+    private final TextField excludeField;
+    
+    public FolderImportDialog(Stage owner, File directory) {
+        initOwner(owner);
+        setTitle("Add Folder");
+        setHeaderText("Import files from " + directory.getAbsolutePath());
+        
+        ButtonType importButtonType = new ButtonType("Import", ButtonBar.ButtonData.OK_DONE);
+        getDialogPane().getButtonTypes().addAll(importButtonType, ButtonType.CANCEL);
+        
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+        
+        includeField = new TextField();
+        includeField.setPromptText("All files, e.g. *.jpg, *.png");
+        
+        excludeField = new TextField();
+        excludeField.setPromptText("e.g. .git, node_modules, *.tmp");
+        
+        grid.add(new Label("Include:"), 0, 0);
+        grid.add(includeField, 1, 0);
+        grid.add(new Label("Exclude:"), 0, 1);
+        grid.add(excludeField, 1, 1);
+        
+        Label infoLabel = new Label("Comma-separated globs. Globs with a '/' match the path inside the folder.");
+        infoLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: gray;");
+        grid.add(infoLabel, 1, 2);
+        
+        getDialogPane().setContent(grid);
+        
+        setResultConverter(dialogButton -> {
+            if (dialogButton == importButtonType) {
+                return new Filters(split(includeField.getText()), split(excludeField.getText()));
+            }
+            return null;
+        });
+    }
+    
+    private static List<String> split(String text) {
+        return Arrays.stream(text.split(","))
+            .map(String::trim)
+            .filter(glob -> !glob.isEmpty())
+            .collect(Collectors.toList());
+    }
+}
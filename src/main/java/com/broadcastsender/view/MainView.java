@@ -1,21 +1,30 @@
 package com.broadcastsender.view;
 
 import com.broadcastsender.model.*;
+import com.broadcastsender.viewmodel.EndpointThroughput;
 import com.broadcastsender.viewmodel.MainViewModel;
+import com.broadcastsender.viewmodel.UploadJobRow;
+import com.broadcastsender.viewmodel.UploadResultRow;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 import org.controlsfx.control.StatusBar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,13 +39,14 @@ public class MainView extends BorderPane {
     
     // UI Components
     private ListView<Endpoint> endpointListView;
+    private ListView<EndpointGroup> groupListView;
     private ListView<FileAttachment> fileListView;
-    private TableView<UploadResult> resultsTableView;
+    private TableView<UploadResultRow> resultsTableView;
+    private ResultMatrixView resultMatrixView;
     private Spinner<Integer> concurrentUploadSpinner;
     private Spinner<Integer> retryAttemptsSpinner;
     private ProgressBar overallProgressBar;
     private Button startUploadButton;
-    private Button retryButton;
     private StatusBar statusBar;
     private Label statsLabel;
     
@@ -74,11 +84,31 @@ public class MainView extends BorderPane {
         Button exportButton = new Button("Export Config");
         exportButton.setOnAction(e -> handleExportConfiguration());
         
-        topBar.getChildren().addAll(titleLabel, spacer, importButton, exportButton);
+        topBar.getChildren().addAll(titleLabel, spacer, importButton, exportButton, createDiagnosticsMenu());
         
         return topBar;
     }
     
+    private MenuButton createDiagnosticsMenu() {
+        MenuButton diagnosticsMenu = new MenuButton("Diagnostics");
+        
+        MenuItem startRecordingItem = new MenuItem("Start Flight Recording");
+        startRecordingItem.setOnAction(e -> handleStartRecording());
+        startRecordingItem.disableProperty().bind(viewModel.isRecordingProperty());
+        
+        MenuItem stopRecordingItem = new MenuItem("Stop Flight Recording");
+        stopRecordingItem.setOnAction(e -> handleStopRecording());
+        stopRecordingItem.disableProperty().bind(viewModel.isRecordingProperty().not());
+        
+        MenuItem analyzeRecordingItem = new MenuItem("Analyze Recording...");
+        analyzeRecordingItem.setOnAction(e -> handleAnalyzeRecording());
+        
+        diagnosticsMenu.getItems().addAll(startRecordingItem, stopRecordingItem, 
+            new SeparatorMenuItem(), analyzeRecordingItem);
+        
+        return diagnosticsMenu;
+    }
+    
     private Node createCenterContent() {
         // Create split pane for main content
         SplitPane splitPane = new SplitPane();
@@ -128,6 +158,46 @@ public class MainView extends BorderPane {
         
         endpointButtons.getChildren().addAll(addEndpointButton, editEndpointButton, deleteEndpointButton);
         
+        // Endpoint groups section
+        Label groupsLabel = new Label("Endpoint Groups (quorum)");
+        groupsLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
+        
+        groupListView = new ListView<>();
+        groupListView.setItems(viewModel.getEndpointGroups());
+        groupListView.setPrefHeight(80);
+        groupListView.setCellFactory(list -> new ListCell<EndpointGroup>() {
+            @Override
+            protected void updateItem(EndpointGroup group, boolean empty) {
+                super.updateItem(group, empty);
+                setText(empty || group == null ? null : String.format("%s: %d of %d, then %s", group.getName(),
+                    group.getQuorum(), group.getMemberIds().size(),
+                    group.getAfterQuorum().getDisplayName().toLowerCase()));
+            }
+        });
+        
+        HBox groupButtons = new HBox(5);
+        Button addGroupButton = new Button("Add");
+        addGroupButton.setOnAction(e -> handleEditGroup(null));
+        
+        Button editGroupButton = new Button("Edit");
+        editGroupButton.setOnAction(e -> handleEditGroup(groupListView.getSelectionModel().getSelectedItem()));
+        editGroupButton.disableProperty().bind(
+            groupListView.getSelectionModel().selectedItemProperty().isNull()
+        );
+        
+        Button deleteGroupButton = new Button("Delete");
+        deleteGroupButton.setOnAction(e -> {
+            EndpointGroup selected = groupListView.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                viewModel.removeEndpointGroup(selected);
+            }
+        });
+        deleteGroupButton.disableProperty().bind(
+            groupListView.getSelectionModel().selectedItemProperty().isNull()
+        );
+        
+        groupButtons.getChildren().addAll(addGroupButton, editGroupButton, deleteGroupButton);
+        
         // Files section
         Label filesLabel = new Label("Selected Files");
         filesLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
@@ -135,6 +205,7 @@ public class MainView extends BorderPane {
         fileListView = new ListView<>();
         fileListView.setItems(viewModel.getSelectedFiles());
         fileListView.setPrefHeight(200);
+        fileListView.setFixedCellSize(24);
         
         HBox fileButtons = new HBox(5);
         Button addFilesButton = new Button("Add Files");
@@ -149,12 +220,29 @@ public class MainView extends BorderPane {
         Button clearFilesButton = new Button("Clear All");
         clearFilesButton.setOnAction(e -> viewModel.clearFiles());
         
-        fileButtons.getChildren().addAll(addFilesButton, removeFileButton, clearFilesButton);
+        Button addFolderButton = new Button("Add Folder");
+        addFolderButton.setOnAction(e -> handleAddFolder());
+        
+        fileButtons.getChildren().addAll(addFilesButton, addFolderButton, removeFileButton, clearFilesButton);
+        
+        // Folder import progress, shown only while an import runs
+        HBox importBar = new HBox(5);
+        importBar.setAlignment(Pos.CENTER_LEFT);
+        ProgressIndicator importIndicator = new ProgressIndicator();
+        importIndicator.setPrefSize(16, 16);
+        Label importLabel = new Label();
+        importLabel.textProperty().bind(viewModel.importStatusProperty());
+        Button cancelImportButton = new Button("Cancel");
+        cancelImportButton.setOnAction(e -> viewModel.cancelImport());
+        importBar.getChildren().addAll(importIndicator, importLabel, cancelImportButton);
+        importBar.visibleProperty().bind(viewModel.isImportingProperty());
+        importBar.managedProperty().bind(viewModel.isImportingProperty());
         
         leftPanel.getChildren().addAll(
             endpointsLabel, endpointListView, endpointButtons,
+            groupsLabel, groupListView, groupButtons,
             new Separator(),
-            filesLabel, fileListView, fileButtons
+            filesLabel, fileListView, fileButtons, importBar
         );
         
         VBox.setVgrow(endpointListView, Priority.ALWAYS);
@@ -217,10 +305,46 @@ public class MainView extends BorderPane {
         });
         retryFactory.setValue(viewModel.maxRetryAttemptsProperty().get());
         
+        Label perEndpointLabel = new Label("Per Endpoint (0 = no limit):");
+        SpinnerValueFactory<Integer> perEndpointFactory = new SpinnerValueFactory.IntegerSpinnerValueFactory(0, 10, 0);
+        Spinner<Integer> perEndpointSpinner = new Spinner<>();
+        perEndpointSpinner.setValueFactory(perEndpointFactory);
+        perEndpointSpinner.setPrefWidth(100);
+        perEndpointSpinner.setEditable(true);
+        
+        perEndpointFactory.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                viewModel.updateUploadsPerEndpoint(newVal);
+            }
+        });
+        viewModel.maxUploadsPerEndpointProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null && !newVal.equals(perEndpointFactory.getValue())) {
+                perEndpointFactory.setValue(newVal.intValue());
+            }
+        });
+        perEndpointFactory.setValue(viewModel.maxUploadsPerEndpointProperty().get());
+        
         configGrid.add(concurrentLabel, 0, 0);
         configGrid.add(concurrentUploadSpinner, 1, 0);
         configGrid.add(retryLabel, 0, 1);
         configGrid.add(retryAttemptsSpinner, 1, 1);
+        configGrid.add(perEndpointLabel, 0, 2);
+        configGrid.add(perEndpointSpinner, 1, 2);
+        
+        CheckBox localApiCheckBox = new CheckBox("Local API on 127.0.0.1:" + viewModel.getLocalApiPort());
+        localApiCheckBox.setTooltip(new Tooltip("Lets scripts on this machine submit upload jobs over HTTP, "
+            + "authenticated with the token in ~/.broadcastsender/api-token"));
+        localApiCheckBox.setSelected(viewModel.localApiEnabledProperty().get());
+        localApiCheckBox.selectedProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != viewModel.localApiEnabledProperty().get()) {
+                viewModel.updateLocalApiEnabled(newVal);
+            }
+        });
+        viewModel.localApiEnabledProperty().addListener((obs, oldVal, newVal) -> {
+            localApiCheckBox.setSelected(newVal);
+            localApiCheckBox.setText("Local API on 127.0.0.1:" + viewModel.getLocalApiPort());
+        });
+        configGrid.add(localApiCheckBox, 0, 3, 2, 1);
         
         // Progress section
         Label progressLabel = new Label("Overall Progress");
@@ -230,6 +354,11 @@ public class MainView extends BorderPane {
         overallProgressBar.setPrefWidth(400);
         overallProgressBar.progressProperty().bind(viewModel.overallProgressProperty());
         
+        Label etaLabel = new Label();
+        etaLabel.textProperty().bind(viewModel.etaProperty());
+        HBox progressBox = new HBox(10, overallProgressBar, etaLabel);
+        progressBox.setAlignment(Pos.CENTER_LEFT);
+        
         statsLabel = new Label("Ready");
         statsLabel.textProperty().bind(
             viewModel.successCountProperty().asString()
@@ -247,17 +376,12 @@ public class MainView extends BorderPane {
         startUploadButton = new Button("Start Upload");
         startUploadButton.setStyle("-fx-font-size: 14px; -fx-padding: 10 20;");
         startUploadButton.setOnAction(e -> viewModel.startUpload());
-        startUploadButton.disableProperty().bind(viewModel.isUploadingProperty());
-        
-        retryButton = new Button("Retry Failed");
-        retryButton.setOnAction(e -> viewModel.retryFailedUploads());
-        retryButton.disableProperty().bind(
-            viewModel.isUploadingProperty().or(
-                viewModel.failureCountProperty().isEqualTo(0)
-            )
-        );
         
-        buttonBox.getChildren().addAll(startUploadButton, retryButton);
+        ComboBox<UploadPriority> priorityCombo = createPriorityCombo();
+        priorityCombo.valueProperty().bindBidirectional(viewModel.newJobPriorityProperty());
+        priorityCombo.setTooltip(new Tooltip("Priority of the next upload or retry job"));
+        
+        buttonBox.getChildren().addAll(priorityCombo, startUploadButton);
         
         Region spacer = new Region();
         VBox.setVgrow(spacer, Priority.ALWAYS);
@@ -265,7 +389,7 @@ public class MainView extends BorderPane {
         centerPanel.getChildren().addAll(
             configLabel, configGrid,
             new Separator(),
-            progressLabel, overallProgressBar, statsLabel,
+            progressLabel, progressBox, statsLabel,
             spacer,
             buttonBox
         );
@@ -281,46 +405,50 @@ public class MainView extends BorderPane {
         resultsLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
         
         resultsTableView = new TableView<>();
-        resultsTableView.setItems(viewModel.getUploadResults());
-        
-        TableColumn<UploadResult, String> fileColumn = new TableColumn<>("File");
+        // Sorting sits on top of the indexed filter, so both follow row changes incrementally
+        SortedList<UploadResultRow> sortedResults = new SortedList<>(viewModel.getFilteredResults());
+        sortedResults.comparatorProperty().bind(resultsTableView.comparatorProperty());
+        resultsTableView.setItems(sortedResults);
+        // Uniform row height lets the virtual flow skip measuring rows, which keeps
+        // scrolling smooth with hundreds of thousands of results
+        resultsTableView.setFixedCellSize(24);
+        
+        TableColumn<UploadResultRow, String> fileColumn = new TableColumn<>("File");
         fileColumn.setCellValueFactory(cellData -> 
             new javafx.beans.property.SimpleStringProperty(cellData.getValue().getFile().getName())
         );
         fileColumn.setPrefWidth(150);
         
-        TableColumn<UploadResult, String> endpointColumn = new TableColumn<>("Endpoint");
+        TableColumn<UploadResultRow, String> endpointColumn = new TableColumn<>("Endpoint");
         endpointColumn.setCellValueFactory(cellData -> 
             new javafx.beans.property.SimpleStringProperty(cellData.getValue().getEndpoint().getName())
         );
         endpointColumn.setPrefWidth(120);
         
-        TableColumn<UploadResult, String> statusColumn = new TableColumn<>("Status");
-        statusColumn.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().getStatus().getDisplayName()
-            )
-        );
+        TableColumn<UploadResultRow, UploadStatus> statusColumn = new TableColumn<>("Status");
+        statusColumn.setCellValueFactory(cellData -> cellData.getValue().statusProperty());
         statusColumn.setPrefWidth(100);
-        statusColumn.setCellFactory(column -> new TableCell<UploadResult, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<UploadResultRow, UploadStatus>() {
             @Override
-            protected void updateItem(String item, boolean empty) {
+            protected void updateItem(UploadStatus item, boolean empty) {
                 super.updateItem(item, empty);
                 
                 if (empty || item == null) {
                     setText(null);
                     setStyle("");
                 } else {
-                    setText(item);
-                    UploadResult result = getTableView().getItems().get(getIndex());
+                    setText(item.getDisplayName());
                     
-                    switch (result.getStatus()) {
+                    switch (item) {
                         case SUCCESS:
                             setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
                             break;
                         case FAILED:
                             setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
                             break;
+                        case SKIPPED:
+                            setStyle("-fx-text-fill: gray;");
+                            break;
                         case IN_PROGRESS:
                         case RETRYING:
                             setStyle("-fx-text-fill: blue; -fx-font-weight: bold;");
@@ -332,18 +460,367 @@ public class MainView extends BorderPane {
             }
         });
         
-        TableColumn<UploadResult, String> messageColumn = new TableColumn<>("Message");
-        messageColumn.setCellValueFactory(new PropertyValueFactory<>("message"));
+        TableColumn<UploadResultRow, String> messageColumn = new TableColumn<>("Message");
+        messageColumn.setCellValueFactory(cellData -> cellData.getValue().messageProperty());
         messageColumn.setPrefWidth(200);
         
         resultsTableView.getColumns().addAll(fileColumn, endpointColumn, statusColumn, messageColumn);
         
-        rightPanel.getChildren().addAll(resultsLabel, resultsTableView);
+        VBox tablePane = new VBox(10, createResultsFilterBar(), resultsTableView);
+        tablePane.setPadding(new Insets(10, 0, 0, 0));
         VBox.setVgrow(resultsTableView, Priority.ALWAYS);
         
+        resultMatrixView = new ResultMatrixView(viewModel);
+        Label matrixHint = new Label("One cell per file (rows) and endpoint (columns) of the selected job. "
+            + "Scroll to zoom, drag to pan, hover for details.");
+        VBox matrixPane = new VBox(10, matrixHint, resultMatrixView);
+        matrixPane.setPadding(new Insets(10, 0, 0, 0));
+        VBox.setVgrow(resultMatrixView, Priority.ALWAYS);
+        
+        Tab tableTab = new Tab("Table", tablePane);
+        Tab matrixTab = new Tab("Matrix", matrixPane);
+        // The heatmap only renders while its tab is showing
+        matrixTab.selectedProperty().addListener((obs, wasSelected, selected) -> 
+            resultMatrixView.setActive(selected));
+        
+        Tab throughputTab = new Tab("Throughput", createThroughputTable());
+        
+        Tab jobsTab = new Tab("Jobs", createJobsPane());
+        
+        Tab historyTab = new Tab("History", createHistoryPane());
+        
+        TabPane resultsTabPane = new TabPane(tableTab, matrixTab, throughputTab, jobsTab, historyTab);
+        resultsTabPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        
+        rightPanel.getChildren().addAll(resultsLabel, resultsTabPane);
+        VBox.setVgrow(resultsTabPane, Priority.ALWAYS);
+        
         return rightPanel;
     }
     
+    private Node createThroughputTable() {
+        TableView<EndpointThroughput> throughputTableView = new TableView<>(viewModel.getEndpointThroughput());
+        throughputTableView.setPlaceholder(new Label("No endpoints configured"));
+        
+        TableColumn<EndpointThroughput, String> endpointColumn = new TableColumn<>("Endpoint");
+        endpointColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getEndpoint().getName())
+        );
+        endpointColumn.setPrefWidth(120);
+        
+        TableColumn<EndpointThroughput, String> megabytesColumn = new TableColumn<>("MB/s");
+        megabytesColumn.setCellValueFactory(cellData -> 
+            cellData.getValue().megabytesPerSecondProperty().asString("%.2f"));
+        megabytesColumn.setPrefWidth(60);
+        
+        TableColumn<EndpointThroughput, String> uploadsColumn = new TableColumn<>("Uploads/s");
+        uploadsColumn.setCellValueFactory(cellData -> 
+            cellData.getValue().uploadsPerSecondProperty().asString("%.1f"));
+        uploadsColumn.setPrefWidth(70);
+        
+        TableColumn<EndpointThroughput, String> inFlightColumn = new TableColumn<>("In Flight");
+        inFlightColumn.setCellValueFactory(cellData -> 
+            cellData.getValue().inFlightProperty().asString());
+        inFlightColumn.setPrefWidth(60);
+        
+        TableColumn<EndpointThroughput, String> errorRateColumn = new TableColumn<>("Errors");
+        errorRateColumn.setCellValueFactory(cellData -> 
+            cellData.getValue().errorRateProperty().multiply(100).asString("%.0f%%"));
+        errorRateColumn.setPrefWidth(60);
+        
+        TableColumn<EndpointThroughput, double[]> historyColumn = new TableColumn<>("Last 5 min (MB/s)");
+        historyColumn.setCellValueFactory(cellData -> cellData.getValue().historyProperty());
+        historyColumn.setPrefWidth(220);
+        historyColumn.setSortable(false);
+        historyColumn.setCellFactory(column -> new TableCell<EndpointThroughput, double[]>() {
+            private final Sparkline sparkline = new Sparkline(200, 20);
+            
+            @Override
+            protected void updateItem(double[] item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setGraphic(null);
+                } else {
+                    sparkline.setValues(item);
+                    setGraphic(sparkline);
+                }
+            }
+        });
+        
+        throughputTableView.getColumns().addAll(endpointColumn, megabytesColumn, uploadsColumn, 
+            inFlightColumn, errorRateColumn, historyColumn);
+        
+        return throughputTableView;
+    }
+    
+    private Node createJobsPane() {
+        TableView<UploadJobRow> jobsTableView = new TableView<>(viewModel.getJobs());
+        jobsTableView.setPlaceholder(new Label("No upload jobs"));
+        
+        TableColumn<UploadJobRow, String> nameColumn = new TableColumn<>("Job");
+        nameColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getName())
+        );
+        nameColumn.setPrefWidth(160);
+        
+        TableColumn<UploadJobRow, String> priorityColumn = new TableColumn<>("Priority");
+        priorityColumn.setCellValueFactory(cellData -> 
+            Bindings.createStringBinding(() -> cellData.getValue().priorityProperty().get().getDisplayName(),
+                cellData.getValue().priorityProperty()));
+        priorityColumn.setPrefWidth(60);
+        
+        TableColumn<UploadJobRow, String> stateColumn = new TableColumn<>("State");
+        stateColumn.setCellValueFactory(cellData -> 
+            Bindings.createStringBinding(() -> cellData.getValue().stateProperty().get().getDisplayName(),
+                cellData.getValue().stateProperty()));
+        stateColumn.setPrefWidth(70);
+        
+        TableColumn<UploadJobRow, Number> progressColumn = new TableColumn<>("Progress");
+        progressColumn.setCellValueFactory(cellData -> cellData.getValue().progressProperty());
+        progressColumn.setPrefWidth(100);
+        progressColumn.setCellFactory(column -> new TableCell<UploadJobRow, Number>() {
+            private final ProgressBar progressBar = new ProgressBar();
+            
+            @Override
+            protected void updateItem(Number item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setGraphic(null);
+                } else {
+                    progressBar.setProgress(item.doubleValue());
+                    progressBar.setMaxWidth(Double.MAX_VALUE);
+                    setGraphic(progressBar);
+                }
+            }
+        });
+        
+        TableColumn<UploadJobRow, String> countsColumn = new TableColumn<>("Done");
+        countsColumn.setCellValueFactory(cellData -> cellData.getValue().countsProperty());
+        countsColumn.setPrefWidth(140);
+        
+        TableColumn<UploadJobRow, String> etaColumn = new TableColumn<>("ETA");
+        etaColumn.setCellValueFactory(cellData -> cellData.getValue().etaProperty());
+        etaColumn.setPrefWidth(100);
+        
+        jobsTableView.getColumns().addAll(nameColumn, priorityColumn, stateColumn, progressColumn, 
+            countsColumn, etaColumn);
+        
+        // Controls for the selected job
+        ReadOnlyObjectProperty<UploadJobRow> selectedJob = jobsTableView.getSelectionModel().selectedItemProperty();
+        
+        ComboBox<UploadPriority> jobPriorityCombo = createPriorityCombo();
+        jobPriorityCombo.setPromptText("Priority");
+        jobPriorityCombo.setOnAction(e -> {
+            UploadJobRow row = selectedJob.get();
+            UploadPriority priority = jobPriorityCombo.getValue();
+            if (row != null && priority != null && priority != row.getJob().getPriority()) {
+                viewModel.setJobPriority(row, priority);
+            }
+        });
+        selectedJob.addListener((obs, oldRow, newRow) -> {
+            jobPriorityCombo.setValue(newRow != null ? newRow.getJob().getPriority() : null);
+            if (newRow != null) {
+                viewModel.showInMatrix(newRow);
+            }
+        });
+        
+        Button pauseButton = new Button("Pause");
+        pauseButton.setOnAction(e -> {
+            UploadJobRow row = selectedJob.get();
+            if (row != null) {
+                viewModel.pauseJob(row);
+            }
+        });
+        
+        Button resumeButton = new Button("Resume");
+        resumeButton.setOnAction(e -> {
+            UploadJobRow row = selectedJob.get();
+            if (row != null) {
+                viewModel.resumeJob(row);
+            }
+        });
+        
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> {
+            UploadJobRow row = selectedJob.get();
+            if (row != null) {
+                viewModel.cancelJob(row);
+            }
+        });
+        
+        Button retryButton = new Button("Retry Failed");
+        retryButton.setTooltip(new Tooltip("Retry the failed uploads of the selected finished job"));
+        retryButton.setOnAction(e -> {
+            UploadJobRow row = selectedJob.get();
+            if (row != null) {
+                viewModel.retryFailedUploads(row);
+            }
+        });
+        
+        jobPriorityCombo.disableProperty().bind(selectedJob.isNull());
+        pauseButton.disableProperty().bind(selectedJob.isNull());
+        resumeButton.disableProperty().bind(selectedJob.isNull());
+        cancelButton.disableProperty().bind(selectedJob.isNull());
+        retryButton.disableProperty().bind(Bindings.selectBoolean(selectedJob, "retryable").not());
+        
+        Button clearFinishedButton = new Button("Clear Finished");
+        clearFinishedButton.setOnAction(e -> viewModel.clearFinishedJobs());
+        
+        HBox jobControls = new HBox(5, jobPriorityCombo, pauseButton, resumeButton, cancelButton, 
+            retryButton, clearFinishedButton);
+        jobControls.setAlignment(Pos.CENTER_LEFT);
+        
+        VBox jobsPane = new VBox(5, jobControls, jobsTableView);
+        VBox.setVgrow(jobsTableView, Priority.ALWAYS);
+        return jobsPane;
+    }
+    
+    private Node createHistoryPane() {
+        ComboBox<Endpoint> endpointCombo = new ComboBox<>(viewModel.getEndpoints());
+        endpointCombo.setPromptText("Any endpoint");
+        
+        ComboBox<UploadStatus> statusCombo = new ComboBox<>(
+            FXCollections.observableArrayList(UploadStatus.SUCCESS, UploadStatus.FAILED, UploadStatus.SKIPPED));
+        statusCombo.setPromptText("Any status");
+        statusCombo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(UploadStatus status) {
+                return status != null ? status.getDisplayName() : "";
+            }
+            
+            @Override
+            public UploadStatus fromString(String text) {
+                return null;
+            }
+        });
+        
+        DatePicker fromPicker = new DatePicker(LocalDate.now());
+        DatePicker toPicker = new DatePicker(LocalDate.now());
+        fromPicker.setPrefWidth(120);
+        toPicker.setPrefWidth(120);
+        
+        Button searchButton = new Button("Search");
+        searchButton.setOnAction(e -> {
+            if (fromPicker.getValue() != null && toPicker.getValue() != null) {
+                viewModel.searchHistory(endpointCombo.getValue(), statusCombo.getValue(),
+                    fromPicker.getValue(), toPicker.getValue());
+            }
+        });
+        
+        Button clearButton = new Button("Clear");
+        clearButton.setOnAction(e -> {
+            endpointCombo.setValue(null);
+            statusCombo.setValue(null);
+        });
+        
+        Label historyStatusLabel = new Label();
+        historyStatusLabel.textProperty().bind(viewModel.historyStatusProperty());
+        
+        HBox historyControls = new HBox(5, endpointCombo, statusCombo, fromPicker, new Label("to"), toPicker, 
+            searchButton, clearButton, historyStatusLabel);
+        historyControls.setAlignment(Pos.CENTER_LEFT);
+        
+        TableView<UploadHistoryEntry> historyTableView = new TableView<>(viewModel.getHistoryResults());
+        historyTableView.setPlaceholder(new Label("Search the uploads of the past days"));
+        
+        DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        TableColumn<UploadHistoryEntry, String> timeColumn = new TableColumn<>("Time");
+        timeColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().timestamp().format(timeFormat))
+        );
+        timeColumn.setPrefWidth(130);
+        
+        TableColumn<UploadHistoryEntry, String> endpointColumn = new TableColumn<>("Endpoint");
+        endpointColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().endpointName())
+        );
+        endpointColumn.setPrefWidth(120);
+        
+        TableColumn<UploadHistoryEntry, String> fileColumn = new TableColumn<>("File");
+        fileColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().file())
+        );
+        fileColumn.setPrefWidth(200);
+        
+        TableColumn<UploadHistoryEntry, String> statusColumn = new TableColumn<>("Status");
+        statusColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().status().getDisplayName())
+        );
+        statusColumn.setPrefWidth(70);
+        
+        TableColumn<UploadHistoryEntry, String> messageColumn = new TableColumn<>("Message");
+        messageColumn.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().message())
+        );
+        messageColumn.setPrefWidth(200);
+        
+        historyTableView.getColumns().addAll(timeColumn, endpointColumn, fileColumn, statusColumn, messageColumn);
+        
+        VBox historyPane = new VBox(5, historyControls, historyTableView);
+        VBox.setVgrow(historyTableView, Priority.ALWAYS);
+        return historyPane;
+    }
+    
+    private ComboBox<UploadPriority> createPriorityCombo() {
+        ComboBox<UploadPriority> priorityCombo = new ComboBox<>(
+            FXCollections.observableArrayList(UploadPriority.values()));
+        priorityCombo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(UploadPriority priority) {
+                return priority != null ? priority.getDisplayName() : "";
+            }
+            
+            @Override
+            public UploadPriority fromString(String text) {
+                return null;
+            }
+        });
+        return priorityCombo;
+    }
+    
+    private Node createResultsFilterBar() {
+        HBox filterBar = new HBox(5);
+        filterBar.setAlignment(Pos.CENTER_LEFT);
+        
+        ComboBox<UploadStatus> statusFilterCombo = new ComboBox<>(
+            FXCollections.observableArrayList(UploadStatus.values()));
+        statusFilterCombo.setPromptText("Any status");
+        statusFilterCombo.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(UploadStatus status) {
+                return status != null ? status.getDisplayName() : "";
+            }
+            
+            @Override
+            public UploadStatus fromString(String text) {
+                return null;
+            }
+        });
+        statusFilterCombo.valueProperty().bindBidirectional(viewModel.statusFilterProperty());
+        
+        ComboBox<Endpoint> endpointFilterCombo = new ComboBox<>(viewModel.getEndpoints());
+        endpointFilterCombo.setPromptText("Any endpoint");
+        endpointFilterCombo.valueProperty().bindBidirectional(viewModel.endpointFilterProperty());
+        
+        TextField searchField = new TextField();
+        searchField.setPromptText("File name or glob (*.pdf)");
+        searchField.textProperty().bindBidirectional(viewModel.searchQueryProperty());
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        
+        Button clearFiltersButton = new Button("Clear");
+        clearFiltersButton.setOnAction(e -> viewModel.clearFilters());
+        
+        Label shownLabel = new Label();
+        shownLabel.textProperty().bind(Bindings.size(viewModel.getFilteredResults()).asString()
+            .concat(" of ")
+            .concat(Bindings.size(viewModel.getUploadResults()).asString()));
+        
+        filterBar.getChildren().addAll(statusFilterCombo, endpointFilterCombo, searchField, 
+            clearFiltersButton, shownLabel);
+        
+        return filterBar;
+    }
+    
     private Node createBottomBar() {
         statusBar = new StatusBar();
         statusBar.textProperty().bind(viewModel.statusMessageProperty());
@@ -385,6 +862,13 @@ public class MainView extends BorderPane {
         }
     }
     
+    private void handleEditGroup(EndpointGroup existingGroup) {
+        EndpointGroupDialog dialog = new EndpointGroupDialog(stage, viewModel.getEndpoints(),
+            existingGroup != null ? existingGroup.copy() : null);
+        Optional<EndpointGroup> result = dialog.showAndWait();
+        result.ifPresent(viewModel::saveEndpointGroup);
+    }
+    
     private void handleAddFiles() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select Files to Upload");
@@ -395,6 +879,19 @@ public class MainView extends BorderPane {
         }
     }
     
+    private void handleAddFolder() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Folder to Upload");
+        File directory = directoryChooser.showDialog(stage);
+        if (directory == null) {
+            return;
+        }
+        
+        FolderImportDialog dialog = new FolderImportDialog(stage, directory);
+        dialog.showAndWait().ifPresent(filters ->
+            viewModel.importDirectory(directory, filters.includes(), filters.excludes()));
+    }
+    
     private void handleRemoveFile() {
         FileAttachment selected = fileListView.getSelectionModel().getSelectedItem();
         if (selected != null) {
@@ -441,6 +938,60 @@ public class MainView extends BorderPane {
         }
     }
     
+    private void handleStartRecording() {
+        try {
+            viewModel.startRecording();
+        } catch (Exception e) {
+            logger.error("Failed to start flight recording", e);
+            showErrorAlert("Recording Failed", "Failed to start flight recording: " + e.getMessage());
+        }
+    }
+    
+    private void handleStopRecording() {
+        viewModel.stopRecording().whenComplete((summary, error) -> {
+            if (error != null) {
+                logger.error("Failed to stop flight recording", error);
+                showErrorAlert("Recording Failed", "Failed to save flight recording: " + error.getMessage());
+            } else {
+                showSummaryAlert("Flight Recording", summary);
+            }
+        });
+    }
+    
+    private void handleAnalyzeRecording() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Analyze Flight Recording");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("JFR Files", "*.jfr")
+        );
+        
+        File file = fileChooser.showOpenDialog(stage);
+        if (file != null) {
+            viewModel.analyzeRecording(file).whenComplete((summary, error) -> {
+                if (error != null) {
+                    logger.error("Failed to analyze flight recording", error);
+                    showErrorAlert("Analysis Failed", "Failed to analyze recording: " + error.getMessage());
+                } else {
+                    showSummaryAlert(file.getName(), summary);
+                }
+            });
+        }
+    }
+    
+    private void showSummaryAlert(String title, String summary) {
+        TextArea summaryArea = new TextArea(summary);
+        summaryArea.setEditable(false);
+        summaryArea.setStyle("-fx-font-family: monospace;");
+        summaryArea.setPrefWidth(800);
+        
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText("Per-endpoint upload statistics");
+        alert.getDialogPane().setContent(summaryArea);
+        alert.setResizable(true);
+        alert.showAndWait();
+    }
+    
     private void showInfoAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -0,0 +1,268 @@
+package com.broadcastsender.view;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadStatus;
+import com.broadcastsender.viewmodel.MainViewModel;
+import com.broadcastsender.viewmodel.ResultMatrix;
+import com.broadcastsender.viewmodel.UploadResultRow;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * Heatmap of the current batch with one cell per (file, endpoint) pair, colored by status.
+ * Files are rows and endpoints are columns. Scroll to zoom around the cursor, drag to pan
+ * and hover a cell for its details. Each frame repaints only the cells that changed,
+ * falling back to a full repaint after zooming, panning, resizing or a new batch.
+ */
+public class ResultMatrixView extends Pane {
+    private static final double MIN_CELL_SIZE = 1;
+    private static final double MAX_CELL_SIZE = 48;
+    private static final double ZOOM_FACTOR = 1.25;
+    private static final Color BACKGROUND = Color.WHITE;
+    
+    private final MainViewModel viewModel;
+    private final ResultMatrix matrix;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final Tooltip tooltip;
+    private final AnimationTimer renderer;
+    private final Color[] statusColors;
+    
+    private double cellSize = 8;
+    private double offsetX;
+    private double offsetY;
+    private double dragX;
+    private double dragY;
+    private long paintedVersion = -1;
+    private boolean fullRepaint = true;
+    private int hoveredCell = -1;
+    
+    public ResultMatrixView(MainViewModel viewModel) {
+        this.viewModel = viewModel;
+        this.matrix = viewModel.getResultMatrix();
+        this.canvas = new Canvas();
+        this.graphics = canvas.getGraphicsContext2D();
+        this.tooltip = new Tooltip();
+        
+        statusColors = new Color[UploadStatus.values().length];
+        statusColors[UploadStatus.PENDING.ordinal()] = Color.GAINSBORO;
+        statusColors[UploadStatus.IN_PROGRESS.ordinal()] = Color.DODGERBLUE;
+        statusColors[UploadStatus.SUCCESS.ordinal()] = Color.SEAGREEN;
+        statusColors[UploadStatus.FAILED.ordinal()] = Color.CRIMSON;
+        statusColors[UploadStatus.RETRYING.ordinal()] = Color.ORANGE;
+        statusColors[UploadStatus.SKIPPED.ordinal()] = Color.LIGHTSTEELBLUE;
+        
+        canvas.widthProperty().bind(widthProperty());
+        canvas.heightProperty().bind(heightProperty());
+        canvas.widthProperty().addListener((obs, oldValue, newValue) -> viewportChanged());
+        canvas.heightProperty().addListener((obs, oldValue, newValue) -> viewportChanged());
+        getChildren().add(canvas);
+        
+        canvas.setOnScroll(this::handleScroll);
+        canvas.setOnMousePressed(this::handleMousePressed);
+        canvas.setOnMouseDragged(this::handleMouseDragged);
+        canvas.setOnMouseMoved(this::handleMouseMoved);
+        canvas.setOnMouseExited(e -> hideDetails());
+        
+        renderer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                render();
+            }
+        };
+    }
+    
+    /**
+     * Starts or stops per-frame rendering, e.g. when the view's tab is selected or left.
+     */
+    public void setActive(boolean active) {
+        if (active) {
+            fullRepaint = true;
+            renderer.start();
+        } else {
+            renderer.stop();
+            hideDetails();
+        }
+    }
+    
+    private void render() {
+        if (paintedVersion != matrix.getVersion()) {
+            paintedVersion = matrix.getVersion();
+            clampOffsets();
+            fullRepaint = true;
+        }
+        
+        // Past one screen's worth of changes a full repaint touches fewer pixels
+        if (fullRepaint || matrix.getDirtyCount() > visibleCellCount()) {
+            matrix.discardDirty();
+            paintAll();
+            fullRepaint = false;
+        } else {
+            matrix.drainDirty(this::paintCell);
+        }
+    }
+    
+    private void paintAll() {
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        
+        int columns = matrix.getEndpointCount();
+        if (columns == 0) {
+            return;
+        }
+        int firstRow = firstVisible(offsetY);
+        int lastRow = lastVisible(offsetY, canvas.getHeight(), matrix.getFileCount());
+        int firstColumn = firstVisible(offsetX);
+        int lastColumn = lastVisible(offsetX, canvas.getWidth(), columns);
+        double gap = gap();
+        
+        for (int row = firstRow; row < lastRow; row++) {
+            double y = row * cellSize - offsetY;
+            if (gap > 0) {
+                for (int column = firstColumn; column < lastColumn; column++) {
+                    graphics.setFill(statusColors[matrix.getStatus(row, column).ordinal()]);
+                    graphics.fillRect(column * cellSize - offsetX, y, cellSize - gap, cellSize - gap);
+                }
+                continue;
+            }
+            // Without grid gaps, neighboring cells of the same status are painted as one run
+            int runStart = firstColumn;
+            while (runStart < lastColumn) {
+                UploadStatus status = matrix.getStatus(row, runStart);
+                int runEnd = runStart + 1;
+                while (runEnd < lastColumn && matrix.getStatus(row, runEnd) == status) {
+                    runEnd++;
+                }
+                graphics.setFill(statusColors[status.ordinal()]);
+                graphics.fillRect(runStart * cellSize - offsetX, y, (runEnd - runStart) * cellSize, cellSize);
+                runStart = runEnd;
+            }
+        }
+    }
+    
+    private void paintCell(int cell) {
+        int columns = matrix.getEndpointCount();
+        double x = (cell % columns) * cellSize - offsetX;
+        double y = (cell / columns) * cellSize - offsetY;
+        if (x + cellSize <= 0 || y + cellSize <= 0 || x >= canvas.getWidth() || y >= canvas.getHeight()) {
+            return;
+        }
+        double gap = gap();
+        graphics.setFill(statusColors[matrix.getStatus(cell).ordinal()]);
+        graphics.fillRect(x, y, cellSize - gap, cellSize - gap);
+        if (cell == hoveredCell) {
+            showDetails(cell);
+        }
+    }
+    
+    private void handleScroll(ScrollEvent event) {
+        double newSize = event.getDeltaY() > 0 ? cellSize * ZOOM_FACTOR : cellSize / ZOOM_FACTOR;
+        newSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, newSize));
+        if (newSize == cellSize) {
+            return;
+        }
+        // Keep the matrix point under the cursor in place
+        offsetX = (offsetX + event.getX()) / cellSize * newSize - event.getX();
+        offsetY = (offsetY + event.getY()) / cellSize * newSize - event.getY();
+        cellSize = newSize;
+        viewportChanged();
+        event.consume();
+    }
+    
+    private void handleMousePressed(MouseEvent event) {
+        dragX = event.getX();
+        dragY = event.getY();
+    }
+    
+    private void handleMouseDragged(MouseEvent event) {
+        offsetX -= event.getX() - dragX;
+        offsetY -= event.getY() - dragY;
+        dragX = event.getX();
+        dragY = event.getY();
+        hideDetails();
+        viewportChanged();
+    }
+    
+    private void handleMouseMoved(MouseEvent event) {
+        int column = (int) ((event.getX() + offsetX) / cellSize);
+        int row = (int) ((event.getY() + offsetY) / cellSize);
+        if (column >= matrix.getEndpointCount() || row >= matrix.getFileCount()) {
+            hideDetails();
+            return;
+        }
+        int cell = row * matrix.getEndpointCount() + column;
+        if (cell != hoveredCell) {
+            hoveredCell = cell;
+            showDetails(cell);
+        }
+        tooltip.show(canvas, event.getScreenX() + 12, event.getScreenY() + 12);
+    }
+    
+    private void showDetails(int cell) {
+        int columns = matrix.getEndpointCount();
+        FileAttachment file = matrix.getFile(cell / columns);
+        Endpoint endpoint = matrix.getEndpoint(cell % columns);
+        
+        StringBuilder details = new StringBuilder()
+            .append(file.getName()).append(" -> ").append(endpoint.getName()).append('\n')
+            .append(matrix.getStatus(cell).getDisplayName());
+        UploadResultRow result = viewModel.findUploadResult(matrix.getJobId(), endpoint, file);
+        if (result != null) {
+            if (result.getStatusCode() > 0) {
+                details.append(" (HTTP ").append(result.getStatusCode()).append(')');
+            }
+            if (result.getAttemptNumber() > 1) {
+                details.append(", attempt ").append(result.getAttemptNumber());
+            }
+            if (result.getMessage() != null && !result.getMessage().isEmpty()) {
+                details.append('\n').append(result.getMessage());
+            }
+        }
+        tooltip.setText(details.toString());
+    }
+    
+    private void hideDetails() {
+        hoveredCell = -1;
+        tooltip.hide();
+    }
+    
+    private void viewportChanged() {
+        clampOffsets();
+        fullRepaint = true;
+    }
+    
+    private void clampOffsets() {
+        double maxX = matrix.getEndpointCount() * cellSize - canvas.getWidth();
+        double maxY = matrix.getFileCount() * cellSize - canvas.getHeight();
+        offsetX = Math.max(0, Math.min(offsetX, maxX));
+        offsetY = Math.max(0, Math.min(offsetY, maxY));
+    }
+    
+    private int visibleCellCount() {
+        int rows = lastVisible(offsetY, canvas.getHeight(), matrix.getFileCount()) - firstVisible(offsetY);
+        int columns = lastVisible(offsetX, canvas.getWidth(), matrix.getEndpointCount()) - firstVisible(offsetX);
+        return Math.max(0, rows) * Math.max(0, columns);
+    }
+    
+    private int firstVisible(double offset) {
+        return (int) (offset / cellSize);
+    }
+    
+    private int lastVisible(double offset, double extent, int count) {
+        return Math.min(count, (int) Math.ceil((offset + extent) / cellSize));
+    }
+    
+    /**
+     * Returns the grid line width, which is dropped once cells get too small to separate.
+     */
+    private double gap() {
+        return cellSize >= 6 ? 1 : 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.broadcastsender.view;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Small line chart of a series of values, scaled to the largest value shown.
+ */
+public class Sparkline extends Canvas {
+    private static final Color LINE_COLOR = Color.DODGERBLUE;
+    private static final Color BASELINE_COLOR = Color.GAINSBORO;
+    
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    
+    public Sparkline(double width, double height) {
+        super(width, height);
+    }
+    
+    /**
+     * Redraws the chart for the values, oldest first.
+     */
+    public void setValues(double[] values) {
+        GraphicsContext graphics = getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        graphics.clearRect(0, 0, width, height);
+        
+        graphics.setStroke(BASELINE_COLOR);
+        graphics.setLineWidth(1);
+        graphics.strokeLine(0, height - 0.5, width, height - 0.5);
+        if (values == null || values.length < 2) {
+            return;
+        }
+        
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        if (max == 0) {
+            return;
+        }
+        
+        if (xs.length != values.length) {
+            xs = new double[values.length];
+            ys = new double[values.length];
+        }
+        double step = width / (values.length - 1);
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = i * step;
+            ys[i] = height - 1 - values[i] / max * (height - 2);
+        }
+        graphics.setStroke(LINE_COLOR);
+        graphics.strokePolyline(xs, ys, values.length);
+    }
+}
@@ -0,0 +1,67 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.service.EndpointMetrics;
+import javafx.beans.property.*;
+
+/**
+ * Live throughput of one endpoint for the dashboard, refreshed once per second
+ * from {@link EndpointMetrics} on the FX application thread.
+ */
+public class EndpointThroughput {
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+    
+    private final Endpoint endpoint;
+    private final ReadOnlyDoubleWrapper megabytesPerSecond = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyDoubleWrapper uploadsPerSecond = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyIntegerWrapper inFlight = new ReadOnlyIntegerWrapper();
+    private final ReadOnlyDoubleWrapper errorRate = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyObjectWrapper<double[]> history =
+        new ReadOnlyObjectWrapper<>(new double[EndpointMetrics.HISTORY_SECONDS]);
+    
+    public EndpointThroughput(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+    
+    void update(EndpointMetrics.Sample sample) {
+        megabytesPerSecond.set(sample.bytesPerSecond() / BYTES_PER_MB);
+        uploadsPerSecond.set(sample.uploadsPerSecond());
+        inFlight.set(sample.inFlight());
+        errorRate.set(sample.errorRate());
+        double[] megabytes = sample.bytesHistory();
+        for (int i = 0; i < megabytes.length; i++) {
+            megabytes[i] /= BYTES_PER_MB;
+        }
+        history.set(megabytes);
+    }
+    
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+    
+    public ReadOnlyDoubleProperty megabytesPerSecondProperty() {
+        return megabytesPerSecond.getReadOnlyProperty();
+    }
+    
+    public ReadOnlyDoubleProperty uploadsPerSecondProperty() {
+        return uploadsPerSecond.getReadOnlyProperty();
+    }
+    
+    public ReadOnlyIntegerProperty inFlightProperty() {
+        return inFlight.getReadOnlyProperty();
+    }
+    
+    /**
+     * Failed share of the attempts finished in the last minute, from 0 to 1.
+     */
+    public ReadOnlyDoubleProperty errorRateProperty() {
+        return errorRate.getReadOnlyProperty();
+    }
+    
+    /**
+     * MB delivered per second over the last {@link EndpointMetrics#HISTORY_SECONDS} seconds, oldest first.
+     */
+    public ReadOnlyObjectProperty<double[]> historyProperty() {
+        return history.getReadOnlyProperty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.FileCatalog;
+import com.broadcastsender.service.DirectoryImportService;
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+/**
+ * Read-only observable view of a {@link FileCatalog} for the file list.
+ * Elements are created on access, so only the rows a list cell shows exist as objects.
+ * Only accessed from the FX application thread.
+ */
+class FileCatalogList extends ObservableListBase<FileAttachment> {
+    private FileCatalog catalog = new FileCatalog();
+    
+    @Override
+    public FileAttachment get(int index) {
+        return catalog.get(index);
+    }
+    
+    @Override
+    public int size() {
+        return catalog.size();
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof FileAttachment && catalog.contains(((FileAttachment) o).getFile());
+    }
+    
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof FileAttachment ? catalog.indexOf(((FileAttachment) o).getFile()) : -1;
+    }
+    
+    /**
+     * Adds files found by an import as one change and returns how many were added.
+     */
+    int addFoundFiles(List<DirectoryImportService.FoundFile> files) {
+        int from = catalog.size();
+        for (DirectoryImportService.FoundFile file : files) {
+            catalog.add(file.directory(), file.name(), file.size(), file.lastModified());
+        }
+        fireAdded(from);
+        return catalog.size() - from;
+    }
+    
+    /**
+     * Returns the catalog behind the list, which callers must not modify.
+     */
+    FileCatalog getCatalog() {
+        return catalog;
+    }
+    
+    boolean removeFile(FileAttachment file) {
+        int index = catalog.indexOf(file.getFile());
+        if (index < 0) {
+            return false;
+        }
+        FileAttachment removed = catalog.get(index);
+        catalog.remove(index);
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+        return true;
+    }
+    
+    /**
+     * Drops every file. The removed elements are reported through a view of the old
+     * catalog, so clearing does not create an object per file.
+     */
+    void clearFiles() {
+        if (catalog.isEmpty()) {
+            return;
+        }
+        FileCatalog removed = catalog;
+        catalog = new FileCatalog();
+        beginChange();
+        nextRemove(0, removed.asList());
+        endChange();
+    }
+    
+    private void fireAdded(int from) {
+        if (catalog.size() > from) {
+            beginChange();
+            nextAdd(from, catalog.size());
+            endChange();
+        }
+    }
+}
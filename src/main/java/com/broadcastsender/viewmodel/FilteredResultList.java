@@ -0,0 +1,258 @@
+package com.broadcastsender.viewmodel;
+
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of the upload results that pass a {@link ResultFilter}, in row order.
+ * Unlike a {@code FilteredList}, it is not re-evaluated against every row on each change:
+ * the view model reports which rows changed and only those are re-checked, while a new
+ * filter is seeded from the smallest matching secondary index. Rows changed between
+ * {@link #beginUpdate()} and {@link #endUpdate()} are merged in one pass, so a progress pulse
+ * costs one walk over the visible rows however many of them change.
+ * Only accessed from the FX application thread.
+ */
+class FilteredResultList extends ObservableListBase<UploadResultRow> {
+    private final ObservableList<UploadResultRow> source;
+    private ResultFilter filter = ResultFilter.NONE;
+    private int[] rows = new int[16];
+    private int size;
+    // Rows changed during an update, as row * 2 + 1 if their sort keys changed
+    private int[] pending = new int[16];
+    private int pendingSize;
+    private int updateDepth;
+    
+    FilteredResultList(ObservableList<UploadResultRow> source) {
+        this.source = source;
+    }
+    
+    @Override
+    public UploadResultRow get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.get(rows[index]);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    ResultFilter getFilter() {
+        return filter;
+    }
+    
+    /**
+     * Replaces the filter and the visible rows with the matching candidates.
+     *
+     * @param candidates unordered rows that may match, or null to check every row of the source
+     */
+    void setFilter(ResultFilter filter, int[] candidates) {
+        this.filter = filter;
+        pendingSize = 0;
+        int[] matching;
+        int count = 0;
+        if (candidates == null) {
+            matching = new int[Math.max(16, source.size())];
+            for (int row = 0; row < source.size(); row++) {
+                if (filter.matches(source.get(row))) {
+                    matching[count++] = row;
+                }
+            }
+        } else {
+            matching = candidates;
+            for (int row : candidates) {
+                if (filter.matches(source.get(row))) {
+                    matching[count++] = row;
+                }
+            }
+            Arrays.sort(matching, 0, count);
+        }
+        replaceRows(matching, count);
+    }
+    
+    /**
+     * Drops all rows and keeps the filter. Must be called before the source list is cleared.
+     */
+    void reset() {
+        pendingSize = 0;
+        replaceRows(new int[16], 0);
+    }
+    
+    /**
+     * Drops the first source rows, moving the rows after them up. Must be called before
+     * they are removed from the source list.
+     */
+    void dropHead(int count) {
+        mergePending();
+        int dropped = 0;
+        while (dropped < size && rows[dropped] < count) {
+            dropped++;
+        }
+        List<UploadResultRow> removed = new ArrayList<>(dropped);
+        for (int i = 0; i < dropped; i++) {
+            removed.add(source.get(rows[i]));
+        }
+        for (int i = dropped; i < size; i++) {
+            rows[i - dropped] = rows[i] - count;
+        }
+        size -= dropped;
+        if (dropped > 0) {
+            beginChange();
+            nextRemove(0, removed);
+            endChange();
+        }
+    }
+    
+    /**
+     * Re-checks one source row after its state changed. During an update the row is only
+     * noted and checked when the update ends.
+     *
+     * @param sortKeysChanged whether a value the table may be sorted by changed, which sorted
+     *                        views on top of this list have to be told about
+     */
+    void rowChanged(int row, boolean sortKeysChanged) {
+        if (updateDepth > 0) {
+            if (pendingSize == pending.length) {
+                pending = Arrays.copyOf(pending, pendingSize * 2);
+            }
+            pending[pendingSize++] = row * 2 + (sortKeysChanged ? 1 : 0);
+            return;
+        }
+        int position = Arrays.binarySearch(rows, 0, size, row);
+        boolean matches = filter.matches(source.get(row));
+        beginChange();
+        if (position >= 0) {
+            if (matches) {
+                if (sortKeysChanged) {
+                    // Lets sorted views on top of this list move the row
+                    nextUpdate(position);
+                }
+            } else {
+                UploadResultRow removed = source.get(row);
+                System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+                size--;
+                nextRemove(position, removed);
+            }
+        } else if (matches) {
+            insert(-position - 1, row);
+            nextAdd(-position - 1, -position);
+        }
+        endChange();
+    }
+    
+    /**
+     * Checks rows appended to the end of the source list.
+     */
+    void rowsAppended(int fromRow, int toRow) {
+        // Appended rows come after every changed one
+        mergePending();
+        int from = size;
+        for (int row = fromRow; row < toRow; row++) {
+            if (filter.matches(source.get(row))) {
+                insert(size, row);
+            }
+        }
+        if (size > from) {
+            beginChange();
+            nextAdd(from, size);
+            endChange();
+        }
+    }
+    
+    /**
+     * Groups the changes reported until {@link #endUpdate()} into one change event.
+     */
+    void beginUpdate() {
+        updateDepth++;
+        beginChange();
+    }
+    
+    void endUpdate() {
+        if (--updateDepth == 0) {
+            mergePending();
+        }
+        endChange();
+    }
+    
+    /**
+     * Re-checks the rows changed during the update in one merge of the sorted changed rows
+     * with the visible rows, reporting the removals, additions and updates in row order.
+     */
+    private void mergePending() {
+        if (pendingSize == 0) {
+            return;
+        }
+        Arrays.sort(pending, 0, pendingSize);
+        int[] merged = new int[Math.max(16, size + pendingSize)];
+        int count = 0;
+        int visible = 0;
+        beginChange();
+        for (int next = 0; next < pendingSize; ) {
+            int row = pending[next] >> 1;
+            boolean sortKeysChanged = false;
+            // A row reported more than once is checked once
+            while (next < pendingSize && pending[next] >> 1 == row) {
+                sortKeysChanged |= (pending[next] & 1) != 0;
+                next++;
+            }
+            while (visible < size && rows[visible] < row) {
+                merged[count++] = rows[visible++];
+            }
+            boolean wasVisible = visible < size && rows[visible] == row;
+            if (wasVisible) {
+                visible++;
+            }
+            boolean matches = filter.matches(source.get(row));
+            if (matches) {
+                merged[count] = row;
+                if (!wasVisible) {
+                    nextAdd(count, count + 1);
+                } else if (sortKeysChanged) {
+                    nextUpdate(count);
+                }
+                count++;
+            } else if (wasVisible) {
+                nextRemove(count, source.get(row));
+            }
+        }
+        System.arraycopy(rows, visible, merged, count, size - visible);
+        count += size - visible;
+        rows = merged;
+        size = count;
+        pendingSize = 0;
+        endChange();
+    }
+    
+    private void insert(int position, int row) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        System.arraycopy(rows, position, rows, position + 1, size - position);
+        rows[position] = row;
+        size++;
+    }
+    
+    private void replaceRows(int[] newRows, int newSize) {
+        List<UploadResultRow> removed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            removed.add(source.get(rows[i]));
+        }
+        rows = newRows.length > 0 ? newRows : new int[16];
+        size = newSize;
+        
+        beginChange();
+        if (!removed.isEmpty()) {
+            nextRemove(0, removed);
+        }
+        if (size > 0) {
+            nextAdd(0, size);
+        }
+        endChange();
+    }
+}
@@ -1,20 +1,57 @@
 package com.broadcastsender.viewmodel;
 
+import com.broadcastsender.diagnostics.FlightRecording;
+import com.broadcastsender.diagnostics.ProgressDispatchEvent;
+import com.broadcastsender.diagnostics.RecordingAnalyzer;
 import com.broadcastsender.model.*;
+import com.broadcastsender.repository.ConfigurationChange;
+import com.broadcastsender.repository.ConfigurationPersister;
 import com.broadcastsender.repository.ConfigurationRepository;
+import com.broadcastsender.repository.ThroughputRepository;
+import com.broadcastsender.repository.UploadHistoryStore;
+import com.broadcastsender.service.DirectoryImportService;
 import com.broadcastsender.service.HttpService;
+import com.broadcastsender.service.LocalApiServer;
+import com.broadcastsender.service.ProgressEventBuffer;
+import com.broadcastsender.service.ThroughputEstimator;
+import com.broadcastsender.service.UploadBatch;
+import com.broadcastsender.service.UploadForecast;
+import com.broadcastsender.service.UploadJob;
 import com.broadcastsender.service.UploadService;
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main ViewModel for the application.
@@ -22,50 +59,202 @@ import java.util.stream.Collectors;
  */
 public class MainViewModel {
     private static final Logger logger = LoggerFactory.getLogger(MainViewModel.class);
+    private static final int PROGRESS_BUFFER_CAPACITY = 1 << 16;
+    private static final int HISTORY_QUERY_LIMIT = 10_000;
+    // Fewest rows dropped at once while jobs run
+    private static final int MIN_TRIM_CHUNK = 1024;
+    private static final DateTimeFormatter FINISH_TIME = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter FINISH_DAY_TIME = DateTimeFormatter.ofPattern("EEE HH:mm");
     
     // Services
     private final ConfigurationRepository configRepository;
+    private final ConfigurationPersister configPersister;
     private final HttpService httpService;
     private final UploadService uploadService;
+    private final FlightRecording flightRecording;
+    private final DirectoryImportService directoryImportService;
+    private final LocalApiServer localApiServer;
+    private final UploadHistoryStore historyStore;
+    private final ThroughputRepository throughputRepository;
+    // Read by the local API threads, which must not touch the observable list
+    private volatile List<Endpoint> endpointSnapshot = List.of();
     
     // Observable properties
     private final ObservableList<Endpoint> endpoints;
-    private final ObservableList<FileAttachment> selectedFiles;
-    private final ObservableList<UploadResult> uploadResults;
+    private final ObservableList<EndpointGroup> endpointGroups;
+    private final FileCatalogList selectedFiles;
+    private final ObservableList<UploadResultRow> uploadResults;
+    private final UploadResultIndex resultIndex;
+    private final FilteredResultList filteredResults;
+    private final ResultMatrix resultMatrix;
+    // Job laid out in the result matrix
+    private UploadJob matrixJob;
+    private final ObjectProperty<UploadStatus> statusFilter;
+    private final ObjectProperty<Endpoint> endpointFilter;
+    private final StringProperty searchQuery;
+    private final ProgressEventBuffer<UploadSnapshot> progressBuffer;
+    private final Map<UploadResultIndex.ResultKey, UploadSnapshot> coalescedProgress;
+    private final ObservableList<UploadHistoryEntry> historyResults;
+    private final StringProperty historyStatus;
+    private final List<UploadResultRow> newRows;
+    // Failed pairs a queued or running retry job will report on, which are kept in memory
+    private final Map<UploadResultIndex.ResultKey, Integer> retryingPairs;
+    private AnimationTimer progressPump;
+    private final ObservableList<EndpointThroughput> endpointThroughput;
+    private Timeline metricsRefresh;
+    private int activeBatches;
+    private long oldestCapturedNanos;
     private final IntegerProperty maxConcurrentUploads;
     private final IntegerProperty maxRetryAttempts;
+    private final IntegerProperty maxUploadsPerEndpoint;
+    private final BooleanProperty localApiEnabled;
+    private final ObservableList<UploadJobRow> jobs;
+    private final ObjectProperty<UploadPriority> newJobPriority;
+    private int activeJobs;
     private final BooleanProperty isUploading;
     private final DoubleProperty overallProgress;
+    private final StringProperty eta;
     private final IntegerProperty successCount;
     private final IntegerProperty failureCount;
     private final IntegerProperty totalCount;
     private final StringProperty statusMessage;
+    private final BooleanProperty isRecording;
+    private final BooleanProperty isImporting;
+    private final StringProperty importStatus;
+    private final Queue<List<DirectoryImportService.FoundFile>> importedBatches;
+    private final AtomicBoolean importDrainScheduled;
+    private DirectoryImportService.DirectoryImport currentImport;
     
     // Configuration
     private AppConfiguration configuration;
     
     public MainViewModel() {
-        this.configRepository = new ConfigurationRepository();
-        this.httpService = new HttpService();
-        this.uploadService = new UploadService(httpService);
+        this(new ConfigurationRepository(), null, new ThroughputRepository(), null, new DirectoryImportService(),
+            new UploadHistoryStore());
+    }
+    
+    /**
+     * Creates a view model keeping its configuration, throughput stats and upload history in
+     * the given directory instead of the user's home, e.g. for benchmarks.
+     */
+    MainViewModel(Path dataDirectory) {
+        this(new ConfigurationRepository(dataDirectory.resolve("config.json")), null,
+            new ThroughputRepository(dataDirectory.resolve("throughput.json")), null, new DirectoryImportService(),
+            new UploadHistoryStore(dataDirectory.resolve("history")));
+    }
+    
+    /**
+     * Creates the view model from services built elsewhere, e.g. by {@link #createAsync()}.
+     *
+     * @param configuration the configuration read from the repository, or null to read it now
+     * @param httpService   the HTTP service, or null to create one going on from the saved throughput stats
+     */
+    private MainViewModel(ConfigurationRepository configRepository, AppConfiguration configuration,
+                          ThroughputRepository throughputRepository, HttpService httpService,
+                          DirectoryImportService directoryImportService, UploadHistoryStore historyStore) {
+        this.configRepository = configRepository;
+        this.configPersister = new ConfigurationPersister(configRepository);
+        this.throughputRepository = throughputRepository;
+        this.httpService = httpService != null ? httpService : createHttpService(throughputRepository);
+        this.uploadService = new UploadService(this.httpService);
+        this.flightRecording = new FlightRecording();
+        this.directoryImportService = directoryImportService;
+        this.localApiServer = new LocalApiServer(uploadService, new ApiHost());
+        this.historyStore = historyStore;
+        uploadService.setOutcomeListener(snapshot -> historyStore.record(UploadHistoryEntry.of(snapshot)));
         
         this.endpoints = FXCollections.observableArrayList();
-        this.selectedFiles = FXCollections.observableArrayList();
+        this.endpointGroups = FXCollections.observableArrayList();
+        this.selectedFiles = new FileCatalogList();
         this.uploadResults = FXCollections.observableArrayList();
+        this.resultIndex = new UploadResultIndex();
+        this.filteredResults = new FilteredResultList(uploadResults);
+        this.resultMatrix = new ResultMatrix();
+        this.endpointThroughput = FXCollections.observableArrayList();
+        this.statusFilter = new SimpleObjectProperty<>();
+        this.endpointFilter = new SimpleObjectProperty<>();
+        this.searchQuery = new SimpleStringProperty("");
+        this.progressBuffer = new ProgressEventBuffer<>(PROGRESS_BUFFER_CAPACITY);
+        this.coalescedProgress = new LinkedHashMap<>();
+        this.historyResults = FXCollections.observableArrayList();
+        this.historyStatus = new SimpleStringProperty("");
+        this.newRows = new ArrayList<>();
+        this.retryingPairs = new HashMap<>();
         this.maxConcurrentUploads = new SimpleIntegerProperty(3);
         this.maxRetryAttempts = new SimpleIntegerProperty(2);
+        this.maxUploadsPerEndpoint = new SimpleIntegerProperty(0);
+        this.localApiEnabled = new SimpleBooleanProperty(false);
+        this.jobs = FXCollections.observableArrayList();
+        this.newJobPriority = new SimpleObjectProperty<>(UploadPriority.NORMAL);
         this.isUploading = new SimpleBooleanProperty(false);
         this.overallProgress = new SimpleDoubleProperty(0.0);
+        this.eta = new SimpleStringProperty("");
         this.successCount = new SimpleIntegerProperty(0);
         this.failureCount = new SimpleIntegerProperty(0);
         this.totalCount = new SimpleIntegerProperty(0);
         this.statusMessage = new SimpleStringProperty("Ready");
+        this.isRecording = new SimpleBooleanProperty(false);
+        this.isImporting = new SimpleBooleanProperty(false);
+        this.importStatus = new SimpleStringProperty("");
+        this.importedBatches = new ConcurrentLinkedQueue<>();
+        this.importDrainScheduled = new AtomicBoolean(false);
         
-        // Load configuration
-        loadConfiguration();
+        endpoints.addListener((ListChangeListener<Endpoint>) change -> syncEndpointThroughput());
+        endpoints.addListener((ListChangeListener<Endpoint>) change -> endpointSnapshot = List.copyOf(endpoints));
+        statusFilter.addListener((obs, oldValue, newValue) -> applyFilter());
+        endpointFilter.addListener((obs, oldValue, newValue) -> applyFilter());
+        searchQuery.addListener((obs, oldValue, newValue) -> applyFilter());
         
-        // Configure upload service
-        updateUploadServiceConfig();
+        // Load configuration and configure the upload service
+        if (configuration != null) {
+            applyConfiguration(configuration);
+        } else {
+            loadConfiguration();
+        }
+    }
+    
+    /**
+     * Builds the services and reads the configuration in parallel on background threads,
+     * then creates the view model on the FX application thread, so the window can show
+     * while the application starts.
+     */
+    public static CompletableFuture<MainViewModel> createAsync() {
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService startup = Executors.newFixedThreadPool(3, task -> {
+            Thread thread = new Thread(task, "startup-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        CompletableFuture<ConfigurationRepository> repository =
+            CompletableFuture.supplyAsync(ConfigurationRepository::new, startup);
+        CompletableFuture<AppConfiguration> configuration =
+            repository.thenApplyAsync(ConfigurationRepository::load, startup);
+        CompletableFuture<ThroughputRepository> throughputRepository =
+            CompletableFuture.supplyAsync(ThroughputRepository::new, startup);
+        CompletableFuture<HttpService> httpService =
+            throughputRepository.thenApplyAsync(MainViewModel::createHttpService, startup);
+        CompletableFuture<DirectoryImportService> directoryImportService =
+            CompletableFuture.supplyAsync(DirectoryImportService::new, startup);
+        CompletableFuture<UploadHistoryStore> historyStore =
+            CompletableFuture.supplyAsync(UploadHistoryStore::new, startup);
+        
+        return CompletableFuture.allOf(configuration, httpService, directoryImportService, historyStore)
+            .thenApplyAsync(ignored -> new MainViewModel(repository.join(), configuration.join(),
+                throughputRepository.join(), httpService.join(), directoryImportService.join(),
+                historyStore.join()), Platform::runLater)
+            .whenComplete((viewModel, error) -> startup.shutdown());
+    }
+    
+    private static HttpService createHttpService(ThroughputRepository throughputRepository) {
+        return new HttpService(new ThroughputEstimator(throughputRepository.load()));
+    }
+    
+    /**
+     * Saves what was learned about the endpoints' throughput for the next run.
+     */
+    private void saveThroughput() {
+        throughputRepository.save(httpService.getThroughputEstimator().snapshot());
     }
     
     /**
@@ -73,22 +262,49 @@ public class MainViewModel {
      */
     public void loadConfiguration() {
         logger.info("Loading application configuration");
-        configuration = configRepository.load();
+        applyConfiguration(configRepository.load());
+    }
+    
+    private void applyConfiguration(AppConfiguration loaded) {
+        configuration = loaded;
         endpoints.setAll(configuration.getEndpoints());
+        endpointGroups.setAll(configuration.getEndpointGroups());
         maxConcurrentUploads.set(configuration.getMaxConcurrentUploads());
         maxRetryAttempts.set(configuration.getMaxRetryAttempts());
+        maxUploadsPerEndpoint.set(configuration.getMaxUploadsPerEndpoint());
+        localApiEnabled.set(configuration.isLocalApiEnabled());
         updateUploadServiceConfig();
+        applyLocalApi();
+        applyHistoryRetention();
     }
     
     /**
-     * Saves the current configuration.
+     * Saves the whole configuration in the background, replacing the file.
+     * Single edits log just the change instead, see {@link ConfigurationChange}.
      */
     public void saveConfiguration() {
-        logger.info("Saving application configuration");
         configuration.setEndpoints(new ArrayList<>(endpoints));
+        configuration.setEndpointGroups(new ArrayList<>(endpointGroups));
         configuration.setMaxConcurrentUploads(maxConcurrentUploads.get());
         configuration.setMaxRetryAttempts(maxRetryAttempts.get());
-        configRepository.save(configuration);
+        configuration.setMaxUploadsPerEndpoint(maxUploadsPerEndpoint.get());
+        configuration.setLocalApiEnabled(localApiEnabled.get());
+        configPersister.submit(configuration.copy());
+    }
+    
+    /**
+     * Logs the current upload settings and endpoint groups in the background, without
+     * rewriting the endpoints.
+     */
+    private void saveSettings() {
+        List<EndpointGroup> groups = new ArrayList<>(endpointGroups.size());
+        for (EndpointGroup group : endpointGroups) {
+            groups.add(group.copy());
+        }
+        configPersister.submit(new ConfigurationChange.SettingsChanged(new AppConfiguration(
+            maxConcurrentUploads.get(), maxRetryAttempts.get(), maxUploadsPerEndpoint.get(),
+            localApiEnabled.get(), configuration.getLocalApiPort(), configuration.getHistoryRetentionDays(),
+            configuration.getResultWindow(), groups, List.of())));
     }
     
     /**
@@ -96,8 +312,11 @@ public class MainViewModel {
      */
     public void exportConfiguration(File targetFile) throws Exception {
         configuration.setEndpoints(new ArrayList<>(endpoints));
+        configuration.setEndpointGroups(new ArrayList<>(endpointGroups));
         configuration.setMaxConcurrentUploads(maxConcurrentUploads.get());
         configuration.setMaxRetryAttempts(maxRetryAttempts.get());
+        configuration.setMaxUploadsPerEndpoint(maxUploadsPerEndpoint.get());
+        configuration.setLocalApiEnabled(localApiEnabled.get());
         configRepository.exportConfiguration(configuration, targetFile);
         logger.info("Configuration exported to: {}", targetFile.getAbsolutePath());
     }
@@ -108,9 +327,14 @@ public class MainViewModel {
     public void importConfiguration(File sourceFile) throws Exception {
         configuration = configRepository.importConfiguration(sourceFile);
         endpoints.setAll(configuration.getEndpoints());
+        endpointGroups.setAll(configuration.getEndpointGroups());
         maxConcurrentUploads.set(configuration.getMaxConcurrentUploads());
         maxRetryAttempts.set(configuration.getMaxRetryAttempts());
+        maxUploadsPerEndpoint.set(configuration.getMaxUploadsPerEndpoint());
+        localApiEnabled.set(configuration.isLocalApiEnabled());
         updateUploadServiceConfig();
+        applyLocalApi();
+        applyHistoryRetention();
         saveConfiguration();
         logger.info("Configuration imported from: {}", sourceFile.getAbsolutePath());
     }
@@ -121,6 +345,32 @@ public class MainViewModel {
     private void updateUploadServiceConfig() {
         uploadService.configureThreadPool(maxConcurrentUploads.get());
         uploadService.setMaxRetryAttempts(maxRetryAttempts.get());
+        uploadService.setMaxUploadsPerEndpoint(maxUploadsPerEndpoint.get());
+        uploadService.setEndpointGroups(endpointGroups);
+    }
+    
+    /**
+     * Starts or stops the local API to match the setting. The port is read from the
+     * configuration when the server starts.
+     */
+    private void applyLocalApi() {
+        if (localApiEnabled.get() && !localApiServer.isRunning()) {
+            try {
+                localApiServer.start(configuration.getLocalApiPort());
+                statusMessage.set("Local API listening on 127.0.0.1:" + localApiServer.getPort());
+            } catch (IOException e) {
+                logger.error("Failed to start the local API on port {}", configuration.getLocalApiPort(), e);
+                statusMessage.set("Local API could not start: " + e.getMessage());
+            }
+        } else if (!localApiEnabled.get() && localApiServer.isRunning()) {
+            localApiServer.close();
+            statusMessage.set("Local API stopped");
+        }
+    }
+    
+    private void applyHistoryRetention() {
+        historyStore.setRetentionDays(configuration.getHistoryRetentionDays());
+        historyStore.applyRetention();
     }
     
     /**
@@ -128,7 +378,7 @@ public class MainViewModel {
      */
     public void addEndpoint(Endpoint endpoint) {
         endpoints.add(endpoint);
-        saveConfiguration();
+        configPersister.submit(new ConfigurationChange.EndpointSaved(endpoint.copy()));
         logger.info("Added endpoint: {}", endpoint.getName());
     }
     
@@ -139,7 +389,7 @@ public class MainViewModel {
         int index = endpoints.indexOf(endpoint);
         if (index >= 0) {
             endpoints.set(index, endpoint);
-            saveConfiguration();
+            configPersister.submit(new ConfigurationChange.EndpointSaved(endpoint.copy()));
             logger.info("Updated endpoint: {}", endpoint.getName());
         }
     }
@@ -149,28 +399,133 @@ public class MainViewModel {
      */
     public void removeEndpoint(Endpoint endpoint) {
         endpoints.remove(endpoint);
-        saveConfiguration();
+        configPersister.submit(new ConfigurationChange.EndpointRemoved(endpoint.getId()));
         logger.info("Removed endpoint: {}", endpoint.getName());
     }
     
     /**
-     * Adds files to the selection list.
+     * Adds or replaces an endpoint group; it applies to the uploads started from now on.
+     */
+    public void saveEndpointGroup(EndpointGroup group) {
+        int index = endpointGroups.indexOf(group);
+        if (index >= 0) {
+            endpointGroups.set(index, group);
+        } else {
+            endpointGroups.add(group);
+        }
+        uploadService.setEndpointGroups(endpointGroups);
+        saveSettings();
+        logger.info("Saved endpoint group {}: quorum {} of {}", group.getName(), group.getQuorum(),
+            group.getMemberIds().size());
+    }
+    
+    /**
+     * Removes an endpoint group; its endpoints need every file again.
+     */
+    public void removeEndpointGroup(EndpointGroup group) {
+        endpointGroups.remove(group);
+        uploadService.setEndpointGroups(endpointGroups);
+        saveSettings();
+        logger.info("Removed endpoint group: {}", group.getName());
+    }
+    
+    /**
+     * Adds files to the selection list. Their sizes and modification times are read on an
+     * import thread, and the files appear once they are known.
      */
     public void addFiles(List<File> files) {
-        for (File file : files) {
-            FileAttachment attachment = new FileAttachment(file);
-            if (!selectedFiles.contains(attachment)) {
-                selectedFiles.add(attachment);
+        directoryImportService.describeFiles(files).whenComplete((found, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                logger.error("Reading the selected files failed", error);
+                statusMessage.set("Adding files failed: " + error.getMessage());
+                return;
             }
+            addFoundFiles(found);
+        }));
+    }
+    
+    /**
+     * Adds files whose attributes were read off the FX thread to the selection list.
+     */
+    void addFoundFiles(List<DirectoryImportService.FoundFile> found) {
+        int added = selectedFiles.addFoundFiles(found);
+        logger.info("Added {} of {} files to selection", added, found.size());
+    }
+    
+    /**
+     * Imports the files under a directory in the background. Files appear in the selection
+     * list in batches while the tree is walked; a running import is cancelled first.
+     */
+    public void importDirectory(File directory, List<String> includes, List<String> excludes) {
+        cancelImport();
+        isImporting.set(true);
+        importStatus.set("Scanning " + directory.getName() + "...");
+        
+        DirectoryImportService.DirectoryImport directoryImport = directoryImportService.startImport(
+            directory.toPath(), includes, excludes, this::queueImportedFiles);
+        currentImport = directoryImport;
+        
+        directoryImport.completion().whenComplete((summary, error) -> {
+            Platform.runLater(() -> {
+                drainImportedFiles();
+                if (currentImport != directoryImport) {
+                    return;
+                }
+                currentImport = null;
+                isImporting.set(false);
+                if (error != null) {
+                    statusMessage.set("Folder import failed: " + error.getMessage());
+                } else {
+                    statusMessage.set(String.format("%s %d files from %s (%d scanned, %d folders, %d errors)",
+                        summary.cancelled() ? "Import cancelled after" : "Imported",
+                        summary.filesMatched(), directory.getName(), summary.filesSeen(),
+                        summary.directories(), summary.errors()));
+                }
+            });
+        });
+    }
+    
+    /**
+     * Cancels the running folder import, keeping the files already added.
+     */
+    public void cancelImport() {
+        if (currentImport != null) {
+            currentImport.cancel();
+        }
+    }
+    
+    /**
+     * Called on import threads. Schedules at most one pending drain on the FX thread,
+     * however many batches arrive in between.
+     */
+    private void queueImportedFiles(List<DirectoryImportService.FoundFile> batch) {
+        importedBatches.add(batch);
+        if (importDrainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drainImportedFiles);
+        }
+    }
+    
+    private void drainImportedFiles() {
+        importDrainScheduled.set(false);
+        List<DirectoryImportService.FoundFile> found = new ArrayList<>();
+        List<DirectoryImportService.FoundFile> batch;
+        while ((batch = importedBatches.poll()) != null) {
+            found.addAll(batch);
+        }
+        if (!found.isEmpty()) {
+            selectedFiles.addFoundFiles(found);
+        }
+        if (currentImport != null) {
+            importStatus.set(String.format("Found %,d files (%,d scanned in %,d folders)",
+                currentImport.getFilesMatched(), currentImport.getFilesSeen(), currentImport.getDirectories()));
         }
-        logger.info("Added {} files to selection", files.size());
     }
     
     /**
      * Removes a file from the selection list.
      */
     public void removeFile(FileAttachment file) {
-        selectedFiles.remove(file);
+        selectedFiles.removeFile(file);
         logger.info("Removed file: {}", file.getName());
     }
     
@@ -178,12 +533,14 @@ public class MainViewModel {
      * Clears all selected files.
      */
     public void clearFiles() {
-        selectedFiles.clear();
+        selectedFiles.clearFiles();
         logger.info("Cleared all selected files");
     }
     
     /**
-     * Starts the upload process.
+     * Queues a job uploading the selected files to every endpoint, at the priority chosen
+     * for new jobs. Jobs run next to each other; the results are cleared only when a job
+     * starts while none is running.
      */
     public void startUpload() {
         if (selectedFiles.isEmpty()) {
@@ -196,69 +553,421 @@ public class MainViewModel {
             return;
         }
         
-        isUploading.set(true);
-        uploadResults.clear();
-        successCount.set(0);
-        failureCount.set(0);
-        totalCount.set(selectedFiles.size() * endpoints.size());
-        overallProgress.set(0.0);
-        statusMessage.set("Uploading...");
+        clearResultsIfIdle();
         
-        logger.info("Starting upload of {} files to {} endpoints", selectedFiles.size(), endpoints.size());
+        FileCatalog batchFiles = selectedFiles.getCatalog();
+        List<Endpoint> batchEndpoints = new ArrayList<>(endpoints);
+        String name = String.format("%d files to %d endpoints", batchFiles.size(), batchEndpoints.size());
         
         updateUploadServiceConfig();
+        UploadJob job = uploadService.submitJob(name, newJobPriority.get(), batchFiles, batchEndpoints,
+            progressBuffer::publish);
+        logger.info("Queued upload job {}: {} files to {} endpoints", job.getId(), batchFiles.size(), batchEndpoints.size());
+        showJob(job);
+    }
+    
+    /**
+     * Clears the results of earlier jobs unless a job is still running.
+     */
+    private void clearResultsIfIdle() {
+        if (activeJobs == 0) {
+            filteredResults.reset();
+            uploadResults.clear();
+            resultIndex.clear();
+            successCount.set(0);
+            failureCount.set(0);
+            totalCount.set(0);
+            overallProgress.set(0.0);
+        }
+    }
+    
+    /**
+     * Shows a newly submitted job's pairs in the results and follows it in the job list.
+     * The matrix switches to the new job unless it shows a job that is still running.
+     */
+    private void showJob(UploadJob job) {
+        if (matrixJob == null || matrixJob.getState().isFinished()) {
+            matrixJob = job;
+            resultMatrix.reset(job.getBatch());
+        }
+        totalCount.set(totalCount.get() + job.getBatch().getPairCount());
+        trackJob(new UploadJobRow(job, false));
+    }
+    
+    /**
+     * Adds a submitted job to the job list and follows it until it finishes.
+     */
+    private void trackJob(UploadJobRow row) {
+        UploadJob job = row.getJob();
+        jobs.add(row);
+        activeJobs++;
+        isUploading.set(true);
+        statusMessage.set(String.format("Uploading (%d %s running)", activeJobs, activeJobs == 1 ? "job" : "jobs"));
+        startProgressPump();
+        startMetricsRefresh();
         
-        uploadService.uploadFiles(
-            new ArrayList<>(selectedFiles),
-            new ArrayList<>(endpoints),
-            this::handleUploadProgress
-        ).thenAccept(results -> {
+        job.delivery().thenAccept(delivered -> Platform.runLater(() -> {
+            if (!delivered.getState().isFinished()) {
+                statusMessage.set(String.format("Job #%d delivered every file to its quorum, replicating the rest",
+                    delivered.getId()));
+            }
+        }));
+        job.completion().whenComplete((finished, error) -> {
+            saveThroughput();
             Platform.runLater(() -> {
-                isUploading.set(false);
+                finishProgressPump();
+                row.refresh(System.nanoTime());
+                activeJobs--;
+                isUploading.set(activeJobs > 0);
+                if (!row.isRetry()) {
+                    // Pairs a cancelled job never started will not complete
+                    totalCount.set(totalCount.get() - (job.getBatch().getPairCount() - job.getBatch().getCompletedCount()));
+                }
+                trimResults();
                 updateOverallProgress();
-                statusMessage.set(String.format("Upload completed: %d success, %d failed", 
-                    successCount.get(), failureCount.get()));
-                logger.info("Upload completed: {} success, {} failed", 
-                    successCount.get(), failureCount.get());
+                statusMessage.set(String.format("Job #%d %s: %d success, %d failed",
+                    job.getId(), job.getState().getDisplayName().toLowerCase(),
+                    job.getBatch().getSucceededCount(), job.getBatch().getFailedCount()));
+                logger.info("Upload job {} finished: {} success, {} failed", job.getId(),
+                    job.getBatch().getSucceededCount(), job.getBatch().getFailedCount());
             });
         });
     }
     
     /**
-     * Handles progress updates from the upload service.
+     * Changes the priority of a queued or running job.
+     */
+    public void setJobPriority(UploadJobRow row, UploadPriority priority) {
+        uploadService.setJobPriority(row.getJob(), priority);
+        row.refresh(System.nanoTime());
+    }
+    
+    /**
+     * Lays out the pairs of a job selected in the job list in the result matrix. The cells
+     * read the job's batch; the rows in memory add the statuses of pairs still running or
+     * retried since. Retry jobs report under the jobs they retry, so selecting one keeps
+     * the matrix.
+     */
+    public void showInMatrix(UploadJobRow row) {
+        UploadJob job = row.getJob();
+        if (row.isRetry() || job == matrixJob) {
+            return;
+        }
+        matrixJob = job;
+        resultMatrix.reset(job.getBatch());
+        for (UploadResultRow result : uploadResults) {
+            resultMatrix.set(result.getJobId(), result.getPair(), result.getStatus());
+        }
+        // The new version repaints every cell
+        resultMatrix.discardDirty();
+    }
+    
+    public void pauseJob(UploadJobRow row) {
+        uploadService.pauseJob(row.getJob());
+        row.refresh(System.nanoTime());
+    }
+    
+    public void resumeJob(UploadJobRow row) {
+        uploadService.resumeJob(row.getJob());
+        row.refresh(System.nanoTime());
+    }
+    
+    public void cancelJob(UploadJobRow row) {
+        uploadService.cancelJob(row.getJob());
+        row.refresh(System.nanoTime());
+    }
+    
+    /**
+     * Removes completed and cancelled jobs from the job list. Their result rows stay.
      */
-    private void handleUploadProgress(UploadResult result) {
-        Platform.runLater(() -> {
-            // Find and update or add the result
-            int existingIndex = -1;
-            for (int i = 0; i < uploadResults.size(); i++) {
-                UploadResult existing = uploadResults.get(i);
-                if (existing.getEndpoint().equals(result.getEndpoint()) &&
-                    existing.getFile().equals(result.getFile())) {
-                    existingIndex = i;
-                    break;
+    public void clearFinishedJobs() {
+        jobs.removeIf(row -> row.getJob().getState().isFinished());
+    }
+    
+    /**
+     * Keeps one throughput row per configured endpoint, reusing the rows of endpoints that remain.
+     */
+    private void syncEndpointThroughput() {
+        Map<String, EndpointThroughput> existing = new HashMap<>();
+        for (EndpointThroughput row : endpointThroughput) {
+            existing.put(row.getEndpoint().getId(), row);
+        }
+        List<EndpointThroughput> rows = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            EndpointThroughput row = existing.get(endpoint.getId());
+            rows.add(row != null && row.getEndpoint() == endpoint ? row : new EndpointThroughput(endpoint));
+        }
+        endpointThroughput.setAll(rows);
+    }
+    
+    /**
+     * Starts sampling the per-endpoint metrics once per second. Keeps running after
+     * a batch so the sparklines roll on to zero.
+     */
+    private void startMetricsRefresh() {
+        if (metricsRefresh == null) {
+            metricsRefresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshEndpointThroughput()));
+            metricsRefresh.setCycleCount(Animation.INDEFINITE);
+            metricsRefresh.play();
+        }
+    }
+    
+    private void refreshEndpointThroughput() {
+        for (EndpointThroughput row : endpointThroughput) {
+            row.update(uploadService.getMetrics().sample(row.getEndpoint().getId()));
+        }
+        long now = System.nanoTime();
+        UploadForecast forecast = uploadService.forecast();
+        for (UploadJobRow row : jobs) {
+            if (!row.getJob().getState().isFinished()) {
+                row.setPredictedNanos(forecast.getRemainingNanos(row.getJob()));
+                row.refresh(now);
+            }
+        }
+        eta.set(formatEta(forecast));
+    }
+    
+    /**
+     * Formats the time until every job is done and the time of day it will be.
+     */
+    private String formatEta(UploadForecast forecast) {
+        long remaining = forecast.getRemainingNanos();
+        if (!isUploading.get()) {
+            return "";
+        }
+        if (remaining < 0) {
+            return "ETA: learning endpoint speeds...";
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime finish = now.plusNanos(remaining);
+        DateTimeFormatter format = finish.toLocalDate().equals(now.toLocalDate()) ? FINISH_TIME : FINISH_DAY_TIME;
+        return "ETA " + UploadJobRow.formatDuration(remaining) + ", done around " + finish.format(format);
+    }
+    
+    /**
+     * Starts draining the progress buffer once per pulse.
+     */
+    private void startProgressPump() {
+        activeBatches++;
+        if (progressPump == null) {
+            progressPump = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    drainProgress();
                 }
+            };
+        }
+        progressPump.start();
+    }
+    
+    /**
+     * Applies the remaining buffered progress of a finished batch and stops the pump
+     * once no batch is running.
+     */
+    private void finishProgressPump() {
+        drainProgress();
+        activeBatches--;
+        if (activeBatches == 0 && progressPump != null) {
+            progressPump.stop();
+        }
+    }
+    
+    /**
+     * Drains the progress buffer, keeps only the latest snapshot per pair and applies those.
+     * Runs on the FX application thread, so UI work scales with the frame rate
+     * rather than with the rate of progress events.
+     */
+    void drainProgress() {
+        ProgressDispatchEvent dispatchEvent = new ProgressDispatchEvent();
+        dispatchEvent.begin();
+        
+        oldestCapturedNanos = Long.MAX_VALUE;
+        int drained = progressBuffer.drain(this::coalesceProgress, progressBuffer.capacity());
+        if (drained == 0) {
+            return;
+        }
+        long queueDelay = System.nanoTime() - oldestCapturedNanos;
+        int rows = coalescedProgress.size();
+        
+        filteredResults.beginUpdate();
+        for (Map.Entry<UploadResultIndex.ResultKey, UploadSnapshot> entry : coalescedProgress.entrySet()) {
+            applySnapshot(entry.getKey(), entry.getValue());
+        }
+        coalescedProgress.clear();
+        flushNewRows();
+        filteredResults.endUpdate();
+        updateCounters();
+        trimResults();
+        
+        dispatchEvent.end();
+        if (dispatchEvent.shouldCommit()) {
+            dispatchEvent.events = drained;
+            dispatchEvent.rows = rows;
+            dispatchEvent.queueDelay = queueDelay;
+            dispatchEvent.commit();
+        }
+    }
+    
+    private void coalesceProgress(UploadSnapshot snapshot) {
+        oldestCapturedNanos = Math.min(oldestCapturedNanos, snapshot.getCapturedNanos());
+        coalescedProgress.put(UploadResultIndex.keyOf(snapshot.getJobId(), snapshot.getEndpoint(), snapshot.getFile()),
+            snapshot);
+    }
+    
+    /**
+     * Applies a single progress snapshot to the results list and counters.
+     * Must be called on the FX application thread.
+     */
+    void applyUploadProgress(UploadSnapshot snapshot) {
+        applySnapshot(UploadResultIndex.keyOf(snapshot.getJobId(), snapshot.getEndpoint(), snapshot.getFile()), snapshot);
+        flushNewRows();
+        updateCounters();
+    }
+    
+    /**
+     * Copies a snapshot into the pair's row, creating the row if needed.
+     * Existing rows update their properties in place, so the list itself only changes
+     * when new rows are appended in one change by {@link #flushNewRows()}.
+     */
+    private void applySnapshot(UploadResultIndex.ResultKey key, UploadSnapshot snapshot) {
+        resultMatrix.set(snapshot.getJobId(), snapshot.getPair(), snapshot.getStatus());
+        UploadResultIndex.Entry entry = resultIndex.get(key);
+        if (entry != null) {
+            int rowIndex = entry.getRowIndex();
+            UploadResultRow row = rowIndex < uploadResults.size()
+                ? uploadResults.get(rowIndex)
+                : newRows.get(rowIndex - uploadResults.size());
+            // Progress alone leaves the sorted table as it is; the cells follow the row's properties
+            boolean sortKeysChanged = row.getStatus() != snapshot.getStatus()
+                || !Objects.equals(row.getMessage(), snapshot.getMessage());
+            row.update(snapshot);
+            resultIndex.updateStatus(entry, snapshot.getStatus());
+            if (rowIndex < uploadResults.size()) {
+                filteredResults.rowChanged(rowIndex, sortKeysChanged);
+            }
+        } else {
+            UploadResultRow row = new UploadResultRow(snapshot.getJobId(), snapshot.getEndpoint(), snapshot.getFile());
+            row.update(snapshot);
+            resultIndex.add(key, snapshot.getFile().getName(), snapshot.getStatus(),
+                uploadResults.size() + newRows.size());
+            newRows.add(row);
+        }
+    }
+    
+    private void flushNewRows() {
+        if (!newRows.isEmpty()) {
+            int firstRow = uploadResults.size();
+            uploadResults.addAll(newRows);
+            newRows.clear();
+            filteredResults.rowsAppended(firstRow, uploadResults.size());
+        }
+    }
+    
+    private static boolean isFinal(UploadStatus status) {
+        return status == UploadStatus.SUCCESS || status == UploadStatus.FAILED || status == UploadStatus.SKIPPED;
+    }
+    
+    /**
+     * Drops the oldest finished results beyond the configured window from memory; they
+     * remain in the upload history. Rows go from the head, up to the oldest row still in
+     * flight or queued for a retry, so a long job keeps about the window while it runs.
+     * While jobs run this happens once the window is exceeded by a chunk, as the rows
+     * after the dropped ones move up.
+     */
+    private void trimResults() {
+        int window = configuration.getResultWindow();
+        int excess = uploadResults.size() - window;
+        if (excess <= 0 || !newRows.isEmpty()
+                || (activeJobs > 0 && excess < Math.max(MIN_TRIM_CHUNK, window / 8))) {
+            return;
+        }
+        int dropped = 0;
+        while (dropped < excess) {
+            UploadResultRow row = uploadResults.get(dropped);
+            if (!isFinal(row.getStatus()) || retryingPairs.containsKey(
+                    UploadResultIndex.keyOf(row.getJobId(), row.getEndpoint(), row.getFile()))) {
+                break;
+            }
+            dropped++;
+        }
+        if (dropped == 0) {
+            return;
+        }
+        
+        filteredResults.dropHead(dropped);
+        resultIndex.dropHead(dropped);
+        uploadResults.remove(0, dropped);
+        totalCount.set(totalCount.get() - dropped);
+        updateCounters();
+        logger.debug("Dropped {} finished results from memory, {} kept", dropped, uploadResults.size());
+    }
+    
+    /**
+     * Looks up the upload history in the background and shows the matches in
+     * {@link #getHistoryResults()}.
+     *
+     * @param endpoint the endpoint to match, or null for any
+     * @param status the status to match, or null for any
+     */
+    public void searchHistory(Endpoint endpoint, UploadStatus status, LocalDate from, LocalDate to) {
+        historyStatus.set("Searching...");
+        String endpointId = endpoint != null ? endpoint.getId() : null;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return historyStore.query(endpointId, status, from, to, HISTORY_QUERY_LIMIT);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            
-            if (existingIndex >= 0) {
-                uploadResults.set(existingIndex, result);
+        }).whenComplete((entries, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                logger.error("Upload history search failed", error);
+                historyResults.clear();
+                historyStatus.set("Search failed: " + error.getMessage());
             } else {
-                uploadResults.add(result);
+                historyResults.setAll(entries);
+                historyStatus.set(entries.size() >= HISTORY_QUERY_LIMIT
+                    ? String.format("First %,d uploads shown", entries.size())
+                    : String.format("%,d uploads", entries.size()));
             }
-            
-            // Update counters
-            long success = uploadResults.stream()
-                .filter(r -> r.getStatus() == UploadStatus.SUCCESS)
-                .count();
-            long failed = uploadResults.stream()
-                .filter(r -> r.getStatus() == UploadStatus.FAILED)
-                .count();
-            
-            successCount.set((int) success);
-            failureCount.set((int) failed);
-            
-            updateOverallProgress();
-        });
+        }));
+    }
+    
+    /**
+     * Returns the row of the job's (endpoint, file) pair, or null if it has not reported progress yet.
+     */
+    public UploadResultRow findUploadResult(long jobId, Endpoint endpoint, FileAttachment file) {
+        UploadResultIndex.Entry entry = resultIndex.get(UploadResultIndex.keyOf(jobId, endpoint, file));
+        if (entry == null || entry.getRowIndex() >= uploadResults.size()) {
+            return null;
+        }
+        return uploadResults.get(entry.getRowIndex());
+    }
+    
+    /**
+     * Rebuilds the filtered results from the smallest secondary index the filter constrains.
+     */
+    private void applyFilter() {
+        Endpoint endpoint = endpointFilter.get();
+        ResultFilter filter = new ResultFilter(
+            statusFilter.get(),
+            endpoint != null ? endpoint.getId() : null,
+            searchQuery.get());
+        filteredResults.setFilter(filter, resultIndex.candidateRows(filter));
+    }
+    
+    /**
+     * Resets the status, endpoint and name filters.
+     */
+    public void clearFilters() {
+        statusFilter.set(null);
+        endpointFilter.set(null);
+        searchQuery.set("");
+    }
+    
+    private void updateCounters() {
+        successCount.set(resultIndex.count(UploadStatus.SUCCESS));
+        failureCount.set(resultIndex.count(UploadStatus.FAILED));
+        updateOverallProgress();
     }
     
     /**
@@ -270,42 +979,49 @@ public class MainViewModel {
             return;
         }
         
-        long completed = uploadResults.stream()
-            .filter(r -> r.getStatus() == UploadStatus.SUCCESS || r.getStatus() == UploadStatus.FAILED)
-            .count();
-        
-        overallProgress.set((double) completed / totalCount.get());
+        overallProgress.set((double) resultIndex.completedCount() / totalCount.get());
     }
     
     /**
-     * Retries failed uploads.
+     * Queues a job retrying the failed uploads of a finished job, at the priority chosen
+     * for new jobs, while other jobs keep running. The failures of a retry job are retried
+     * under the jobs they belong to. Uploads already queued for another retry, and those
+     * whose rows were dropped from memory, are left out.
      */
-    public void retryFailedUploads() {
-        List<UploadResult> failedResults = uploadResults.stream()
-            .filter(r -> r.getStatus() == UploadStatus.FAILED)
-            .collect(Collectors.toList());
+    public void retryFailedUploads(UploadJobRow selected) {
+        UploadBatch batch = selected.getJob().getBatch();
+        // Workers get their own copies; the rows in uploadResults belong to the FX thread
+        List<UploadResult> failedResults = new ArrayList<>();
+        List<UploadResultIndex.ResultKey> failedPairs = new ArrayList<>();
+        for (int pair = 0; pair < batch.getPairCount(); pair++) {
+            if (batch.getStatus(pair) != UploadStatus.FAILED) {
+                continue;
+            }
+            UploadResultRow row = findUploadResult(batch.getResultJobId(pair), batch.getEndpoint(pair),
+                batch.getFile(pair));
+            if (row == null || row.getStatus() != UploadStatus.FAILED) {
+                continue;
+            }
+            UploadResultIndex.ResultKey key = UploadResultIndex.keyOf(row.getJobId(), row.getEndpoint(), row.getFile());
+            if (!retryingPairs.containsKey(key)) {
+                failedResults.add(row.toUploadResult());
+                failedPairs.add(key);
+            }
+        }
         
         if (failedResults.isEmpty()) {
             statusMessage.set("No failed uploads to retry");
             return;
         }
         
-        isUploading.set(true);
-        statusMessage.set("Retrying failed uploads...");
-        
         logger.info("Retrying {} failed uploads", failedResults.size());
-        
-        uploadService.retryFailedUploads(failedResults, this::handleUploadProgress)
-            .thenRun(() -> {
-                Platform.runLater(() -> {
-                    isUploading.set(false);
-                    updateOverallProgress();
-                    statusMessage.set(String.format("Retry completed: %d success, %d failed", 
-                        successCount.get(), failureCount.get()));
-                    logger.info("Retry completed: {} success, {} failed", 
-                        successCount.get(), failureCount.get());
-                });
-            });
+        UploadJob job = uploadService.submitRetryJob(
+            String.format("Retry %d failed uploads", failedResults.size()),
+            newJobPriority.get(), failedResults, progressBuffer::publish);
+        failedPairs.forEach(pair -> retryingPairs.merge(pair, 1, Integer::sum));
+        job.completion().whenComplete((finished, error) -> Platform.runLater(() -> failedPairs.forEach(pair ->
+            retryingPairs.computeIfPresent(pair, (key, count) -> count > 1 ? count - 1 : null))));
+        trackJob(new UploadJobRow(job, true));
     }
     
     /**
@@ -313,40 +1029,175 @@ public class MainViewModel {
      */
     public void updateConcurrentUploads(int value) {
         maxConcurrentUploads.set(value);
-        saveConfiguration();
+        saveSettings();
+        updateUploadServiceConfig();
+    }
+    
+    /**
+     * Updates the per-endpoint upload limit, 0 for none.
+     */
+    public void updateUploadsPerEndpoint(int value) {
+        maxUploadsPerEndpoint.set(value);
+        saveSettings();
         updateUploadServiceConfig();
     }
     
+    /**
+     * Turns the local job submission API on or off.
+     */
+    public void updateLocalApiEnabled(boolean enabled) {
+        localApiEnabled.set(enabled);
+        saveSettings();
+        applyLocalApi();
+    }
+    
     /**
      * Updates the retry attempts configuration.
      */
     public void updateRetryAttempts(int value) {
         maxRetryAttempts.set(value);
-        saveConfiguration();
+        saveSettings();
         updateUploadServiceConfig();
     }
     
+    /**
+     * Starts a flight recording of the upload lifecycle.
+     */
+    public void startRecording() throws IOException {
+        flightRecording.start();
+        isRecording.set(true);
+        statusMessage.set("Flight recording started");
+    }
+    
+    /**
+     * Stops the flight recording, then writes and summarizes it in the background. The
+     * returned future completes on the FX thread with the summary of the written file.
+     */
+    public CompletableFuture<String> stopRecording() {
+        // The recording ends even if it cannot be written
+        isRecording.set(false);
+        statusMessage.set("Saving flight recording...");
+        return completeOnFxThread(CompletableFuture.supplyAsync(() -> {
+            try {
+                Path recordingFile = flightRecording.stop();
+                Platform.runLater(() -> statusMessage.set("Flight recording saved to " + recordingFile));
+                return recordingFile + System.lineSeparator() + System.lineSeparator()
+                        + new RecordingAnalyzer().analyze(recordingFile).format();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+    
+    /**
+     * Summarizes an existing flight recording file in the background. The returned future
+     * completes on the FX thread.
+     */
+    public CompletableFuture<String> analyzeRecording(File recordingFile) {
+        return completeOnFxThread(CompletableFuture.supplyAsync(() -> {
+            try {
+                return new RecordingAnalyzer().analyze(recordingFile.toPath()).format();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+    
+    /**
+     * Returns a future completed on the FX thread like the given one, failing with the
+     * IOException of a failed I/O task.
+     */
+    private static <T> CompletableFuture<T> completeOnFxThread(CompletableFuture<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        task.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            result.completeExceptionally(cause instanceof UncheckedIOException ? cause.getCause() : cause);
+        }));
+        return result;
+    }
+    
     /**
      * Shuts down the services.
      */
     public void shutdown() {
+        if (flightRecording.isRecording()) {
+            try {
+                flightRecording.stop();
+            } catch (IOException e) {
+                logger.error("Failed to save flight recording", e);
+            }
+        }
+        if (metricsRefresh != null) {
+            metricsRefresh.stop();
+        }
+        configPersister.close();
+        localApiServer.close();
         uploadService.shutdown();
+        saveThroughput();
+        historyStore.close();
+        directoryImportService.shutdown();
         logger.info("MainViewModel shut down");
     }
     
+    ProgressEventBuffer<UploadSnapshot> getProgressBuffer() {
+        return progressBuffer;
+    }
+    
     // Getters for observable properties
     public ObservableList<Endpoint> getEndpoints() {
         return endpoints;
     }
     
+    public ObservableList<EndpointGroup> getEndpointGroups() {
+        return endpointGroups;
+    }
+    
     public ObservableList<FileAttachment> getSelectedFiles() {
         return selectedFiles;
     }
     
-    public ObservableList<UploadResult> getUploadResults() {
+    public ObservableList<UploadResultRow> getUploadResults() {
         return uploadResults;
     }
     
+    /**
+     * Returns the upload results that pass the current status, endpoint and name filters.
+     */
+    public ObservableList<UploadResultRow> getFilteredResults() {
+        return filteredResults;
+    }
+    
+    /**
+     * Returns the live throughput of each configured endpoint, in endpoint order.
+     */
+    public ObservableList<EndpointThroughput> getEndpointThroughput() {
+        return endpointThroughput;
+    }
+    
+    /**
+     * Returns the status matrix of the current batch, for the heatmap view.
+     */
+    public ResultMatrix getResultMatrix() {
+        return resultMatrix;
+    }
+    
+    public ObjectProperty<UploadStatus> statusFilterProperty() {
+        return statusFilter;
+    }
+    
+    public ObjectProperty<Endpoint> endpointFilterProperty() {
+        return endpointFilter;
+    }
+    
+    public StringProperty searchQueryProperty() {
+        return searchQuery;
+    }
+    
     public IntegerProperty maxConcurrentUploadsProperty() {
         return maxConcurrentUploads;
     }
@@ -355,6 +1206,49 @@ public class MainViewModel {
         return maxRetryAttempts;
     }
     
+    /**
+     * Uploads allowed against one endpoint at once across all jobs, 0 for no limit.
+     */
+    public IntegerProperty maxUploadsPerEndpointProperty() {
+        return maxUploadsPerEndpoint;
+    }
+    
+    public BooleanProperty localApiEnabledProperty() {
+        return localApiEnabled;
+    }
+    
+    /**
+     * Returns the port the local API listens on, or the configured port while it is off.
+     */
+    public int getLocalApiPort() {
+        return localApiServer.isRunning() ? localApiServer.getPort() : configuration.getLocalApiPort();
+    }
+    
+    /**
+     * Returns the matches of the last upload history search, oldest first.
+     */
+    public ObservableList<UploadHistoryEntry> getHistoryResults() {
+        return historyResults;
+    }
+    
+    public StringProperty historyStatusProperty() {
+        return historyStatus;
+    }
+    
+    /**
+     * Returns the submitted jobs, oldest first, until they are cleared.
+     */
+    public ObservableList<UploadJobRow> getJobs() {
+        return jobs;
+    }
+    
+    /**
+     * Priority given to the next upload or retry job.
+     */
+    public ObjectProperty<UploadPriority> newJobPriorityProperty() {
+        return newJobPriority;
+    }
+    
     public BooleanProperty isUploadingProperty() {
         return isUploading;
     }
@@ -363,6 +1257,13 @@ public class MainViewModel {
         return overallProgress;
     }
     
+    /**
+     * Predicted time until every job is done, refreshed once per second while uploading.
+     */
+    public StringProperty etaProperty() {
+        return eta;
+    }
+    
     public IntegerProperty successCountProperty() {
         return successCount;
     }
@@ -378,4 +1279,46 @@ public class MainViewModel {
     public StringProperty statusMessageProperty() {
         return statusMessage;
     }
+    
+    public BooleanProperty isRecordingProperty() {
+        return isRecording;
+    }
+    
+    public BooleanProperty isImportingProperty() {
+        return isImporting;
+    }
+    
+    public StringProperty importStatusProperty() {
+        return importStatus;
+    }
+    
+    /**
+     * Feeds the jobs submitted through the local API into the job list and results.
+     */
+    private final class ApiHost implements LocalApiServer.Host {
+        
+        @Override
+        public List<Endpoint> getEndpoints() {
+            return endpointSnapshot;
+        }
+        
+        @Override
+        public void jobSubmitted(UploadJob job, List<FileAttachment> files, List<Endpoint> jobEndpoints) {
+            Platform.runLater(() -> {
+                clearResultsIfIdle();
+                showJob(job);
+            });
+        }
+        
+        @Override
+        public void progress(UploadSnapshot snapshot) {
+            progressBuffer.publish(snapshot);
+        }
+        
+        @Override
+        public List<UploadHistoryEntry> queryHistory(String endpointId, UploadStatus status,
+                                                     LocalDate from, LocalDate to, int limit) throws IOException {
+            return historyStore.query(endpointId, status, from, to, limit);
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.UploadStatus;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable filter over the upload results: an optional status, endpoint and file name query.
+ * A name query without wildcards matches file names starting with it; with {@code *} or
+ * {@code ?} it is a glob over the whole name. Name matching ignores case.
+ */
+final class ResultFilter {
+    static final ResultFilter NONE = new ResultFilter(null, null, null);
+    
+    private final UploadStatus status;
+    private final String endpointId;
+    private final String query;
+    private final Pattern glob;
+    private final String namePrefix;
+    private final String nameSuffix;
+    
+    ResultFilter(UploadStatus status, String endpointId, String query) {
+        this.status = status;
+        this.endpointId = endpointId;
+        this.query = query == null || query.isBlank() ? null : query.trim().toLowerCase(Locale.ROOT);
+        
+        int wildcard = this.query == null ? -1 : firstWildcard(this.query, 0);
+        if (this.query == null) {
+            this.glob = null;
+            this.namePrefix = null;
+            this.nameSuffix = null;
+        } else if (wildcard < 0) {
+            this.glob = null;
+            this.namePrefix = this.query;
+            this.nameSuffix = null;
+        } else {
+            this.glob = compileGlob(this.query);
+            this.namePrefix = this.query.substring(0, wildcard);
+            // "*.pdf" style queries are served by the reversed name index
+            int lastWildcard = Math.max(this.query.lastIndexOf('*'), this.query.lastIndexOf('?'));
+            this.nameSuffix = this.query.substring(lastWildcard + 1);
+        }
+    }
+    
+    /**
+     * Returns whether the row passes every constraint of the filter.
+     */
+    boolean matches(UploadResultRow row) {
+        if (status != null && row.getStatus() != status) {
+            return false;
+        }
+        if (endpointId != null && !endpointId.equals(row.getEndpoint().getId())) {
+            return false;
+        }
+        if (query != null) {
+            String name = row.getFile().getName().toLowerCase(Locale.ROOT);
+            return glob != null ? glob.matcher(name).matches() : name.startsWith(namePrefix);
+        }
+        return true;
+    }
+    
+    UploadStatus getStatus() {
+        return status;
+    }
+    
+    String getEndpointId() {
+        return endpointId;
+    }
+    
+    /**
+     * Returns the literal start every matching name has, or null without a name query.
+     */
+    String getNamePrefix() {
+        return namePrefix;
+    }
+    
+    /**
+     * Returns the literal end every matching name has, or null if the query has no wildcard.
+     */
+    String getNameSuffix() {
+        return nameSuffix;
+    }
+    
+    private static int firstWildcard(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static Pattern compileGlob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        int wildcard;
+        while ((wildcard = firstWildcard(glob, start)) >= 0) {
+            if (wildcard > start) {
+                regex.append(Pattern.quote(glob.substring(start, wildcard)));
+            }
+            regex.append(glob.charAt(wildcard) == '*' ? ".*" : ".");
+            start = wildcard + 1;
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,150 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadStatus;
+import com.broadcastsender.service.UploadBatch;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Status of every (file, endpoint) pair of one job as a matrix, with files as rows and
+ * endpoints as columns. Cells are read on demand from the status bytes of the job's
+ * {@link UploadBatch}, so laying out a job takes constant time and memory whatever its
+ * size. Statuses reported while a pair runs, or by a retry job afterwards, are kept on
+ * top of the batch for the pairs where they differ from it.
+ * Changed cells are queued once until a renderer drains them, so views can redraw
+ * only what changed. Only accessed from the FX application thread.
+ */
+public class ResultMatrix {
+    private UploadBatch batch;
+    private int fileCount;
+    private int endpointCount;
+    // Reported statuses that differ from the batch, by pair; the bits mark their pairs
+    private final Map<Integer, UploadStatus> reported = new HashMap<>();
+    private final BitSet reportedPairs = new BitSet();
+    private final BitSet dirty = new BitSet();
+    private int[] dirtyCells = new int[64];
+    private int dirtyCount;
+    private long version;
+    private long jobId;
+    
+    /**
+     * Lays out the pairs of a batch that sends every file to every endpoint and bumps the
+     * version, which tells renderers to repaint everything.
+     */
+    void reset(UploadBatch batch) {
+        this.batch = batch;
+        jobId = batch.getBatchId();
+        endpointCount = batch.getEndpointCount();
+        fileCount = endpointCount == 0 ? 0 : batch.getFileCount();
+        reported.clear();
+        reportedPairs.clear();
+        discardDirty();
+        version++;
+    }
+    
+    /**
+     * Records the reported status of a pair and queues its cell if the status changed.
+     * Pairs of other jobs are ignored.
+     *
+     * @param pair the index of the pair in the job's batch
+     */
+    void set(long pairJobId, int pair, UploadStatus status) {
+        if (pairJobId != jobId || pair < 0 || pair >= fileCount * endpointCount) {
+            return;
+        }
+        UploadStatus previous = reportedPairs.get(pair) ? reported.get(pair) : null;
+        if (status == batch.getStatus(pair)) {
+            reported.remove(pair);
+            reportedPairs.clear(pair);
+        } else {
+            reported.put(pair, status);
+            reportedPairs.set(pair);
+        }
+        if (status == previous) {
+            return;
+        }
+        // Pairs are numbered endpoint by endpoint, cells file by file
+        int cell = (pair % fileCount) * endpointCount + pair / fileCount;
+        if (!dirty.get(cell)) {
+            dirty.set(cell);
+            if (dirtyCount == dirtyCells.length) {
+                dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+            }
+            dirtyCells[dirtyCount++] = cell;
+        }
+    }
+    
+    /**
+     * Passes every cell changed since the last drain to the consumer, once each,
+     * and returns how many there were. Cells are numbered {@code row * endpointCount + column}.
+     */
+    public int drainDirty(IntConsumer consumer) {
+        int drained = dirtyCount;
+        for (int i = 0; i < drained; i++) {
+            consumer.accept(dirtyCells[i]);
+        }
+        discardDirty();
+        return drained;
+    }
+    
+    /**
+     * Forgets the queued cells, for renderers that are about to repaint everything.
+     */
+    public void discardDirty() {
+        dirty.clear();
+        dirtyCount = 0;
+    }
+    
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+    
+    /**
+     * Returns a counter that changes whenever the matrix is laid out for a new batch.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns the id of the job shown, or 0 before the first job.
+     */
+    public long getJobId() {
+        return jobId;
+    }
+    
+    public int getFileCount() {
+        return fileCount;
+    }
+    
+    public int getEndpointCount() {
+        return endpointCount;
+    }
+    
+    public FileAttachment getFile(int row) {
+        // The first endpoint's pairs are the files in order
+        return batch.getFile(row);
+    }
+    
+    public Endpoint getEndpoint(int column) {
+        return batch.getEndpoint(column * fileCount);
+    }
+    
+    public UploadStatus getStatus(int row, int column) {
+        int pair = column * fileCount + row;
+        return reportedPairs.get(pair) ? reported.get(pair) : batch.getStatus(pair);
+    }
+    
+    /**
+     * Returns the status of a cell by its number.
+     */
+    public UploadStatus getStatus(int cell) {
+        return getStatus(cell / endpointCount, cell % endpointCount);
+    }
+}
@@ -0,0 +1,129 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.UploadPriority;
+import com.broadcastsender.service.UploadBatch;
+import com.broadcastsender.service.UploadJob;
+import javafx.beans.property.*;
+
+/**
+ * Row of the job list, refreshed from its {@link UploadJob} on the FX application thread.
+ */
+public class UploadJobRow {
+    private final UploadJob job;
+    private final boolean retry;
+    private final ReadOnlyObjectWrapper<UploadPriority> priority = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyObjectWrapper<UploadJob.State> state = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper();
+    private final ReadOnlyStringWrapper counts = new ReadOnlyStringWrapper("");
+    private final ReadOnlyStringWrapper eta = new ReadOnlyStringWrapper("");
+    private final ReadOnlyBooleanWrapper retryable = new ReadOnlyBooleanWrapper();
+    private long predictedNanos = -1;
+    
+    UploadJobRow(UploadJob job, boolean retry) {
+        this.job = job;
+        this.retry = retry;
+        refresh(System.nanoTime());
+    }
+    
+    /**
+     * Copies the job's current state into the properties.
+     */
+    void refresh(long nowNanos) {
+        UploadBatch batch = job.getBatch();
+        int completed = batch.getCompletedCount();
+        int total = batch.getPairCount();
+        priority.set(job.getPriority());
+        state.set(job.getState());
+        progress.set(total == 0 ? 1.0 : (double) completed / total);
+        if (batch.getSkippedCount() > 0) {
+            counts.set(String.format("%,d / %,d (%,d failed, %,d skipped)", completed, total,
+                    batch.getFailedCount(), batch.getSkippedCount()));
+        } else {
+            counts.set(String.format("%,d / %,d (%,d failed)", completed, total, batch.getFailedCount()));
+        }
+        eta.set(formatEta(nowNanos, completed, total));
+        retryable.set(job.getState().isFinished() && batch.getFailedCount() > 0);
+    }
+    
+    /**
+     * Sets the time left predicted for the job, or -1 if there is no prediction.
+     */
+    void setPredictedNanos(long predictedNanos) {
+        this.predictedNanos = predictedNanos;
+    }
+    
+    /**
+     * Uses the predicted time left if there is one; otherwise extrapolates the job's own
+     * completion rate so far to its remaining pairs.
+     */
+    private String formatEta(long nowNanos, int completed, int total) {
+        UploadJob.State current = job.getState();
+        if (current.isFinished()) {
+            return formatDuration(job.getFinishedNanos() - job.getStartedNanos()) + " total";
+        }
+        if (current == UploadJob.State.PAUSED) {
+            return "-";
+        }
+        if (predictedNanos >= 0) {
+            return formatDuration(predictedNanos);
+        }
+        if (current == UploadJob.State.QUEUED || completed == 0) {
+            return "-";
+        }
+        long elapsed = nowNanos - job.getStartedNanos();
+        return formatDuration((long) ((double) elapsed / completed * (total - completed)));
+    }
+    
+    static String formatDuration(long nanos) {
+        long seconds = Math.max(0, nanos / 1_000_000_000L);
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+    
+    public UploadJob getJob() {
+        return job;
+    }
+    
+    /**
+     * Returns whether the job retries rows of earlier jobs instead of adding its own.
+     */
+    boolean isRetry() {
+        return retry;
+    }
+    
+    public String getName() {
+        return "#" + job.getId() + " " + job.getName();
+    }
+    
+    public ReadOnlyObjectProperty<UploadPriority> priorityProperty() {
+        return priority.getReadOnlyProperty();
+    }
+    
+    public ReadOnlyObjectProperty<UploadJob.State> stateProperty() {
+        return state.getReadOnlyProperty();
+    }
+    
+    public ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+    
+    /**
+     * Completed and total pairs, e.g. "1,200 / 5,000 (3 failed)".
+     */
+    public ReadOnlyStringProperty countsProperty() {
+        return counts.getReadOnlyProperty();
+    }
+    
+    /**
+     * Whether the job finished with failed uploads that can be retried.
+     */
+    public ReadOnlyBooleanProperty retryableProperty() {
+        return retryable.getReadOnlyProperty();
+    }
+    
+    /**
+     * Estimated time left while running, the total duration once finished.
+     */
+    public ReadOnlyStringProperty etaProperty() {
+        return eta.getReadOnlyProperty();
+    }
+}
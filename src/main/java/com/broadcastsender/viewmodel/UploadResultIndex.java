@@ -0,0 +1,305 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the upload results shown in the results table.
+ * Maps each (endpoint, file) pair to its row in O(1) and keeps secondary indexes
+ * of row numbers by status, by endpoint and by file name (forward and reversed,
+ * for prefix and suffix searches). Status indexes are updated on transitions
+ * instead of being recounted, so their sizes double as per-status counters.
+ * Rows are stored by an id that does not change when the oldest rows are dropped, so
+ * {@link #dropHead(int)} only touches the dropped rows.
+ * Only accessed from the FX application thread.
+ */
+class UploadResultIndex {
+    private final Map<ResultKey, Entry> entries = new HashMap<>();
+    private final List<Entry> entriesByRow = new ArrayList<>();
+    private final RowList[] rowsByStatus = new RowList[UploadStatus.values().length];
+    private final Map<String, RowList> rowsByEndpoint = new HashMap<>();
+    private final TreeMap<String, RowList> rowsByName = new TreeMap<>();
+    private final TreeMap<String, RowList> rowsByReversedName = new TreeMap<>();
+    // Rows dropped from the head; a row's id is its row number plus this
+    private int droppedRows;
+    
+    UploadResultIndex() {
+        for (int i = 0; i < rowsByStatus.length; i++) {
+            rowsByStatus[i] = new RowList();
+        }
+    }
+    
+    /**
+     * Returns the key identifying an (endpoint, file) pair of a job.
+     */
+    static ResultKey keyOf(long jobId, Endpoint endpoint, FileAttachment file) {
+        return new ResultKey(jobId, endpoint.getId(), file.getAbsolutePath());
+    }
+    
+    /**
+     * Returns the index entry of the pair, or null if the pair has no row yet.
+     */
+    Entry get(ResultKey key) {
+        return entries.get(key);
+    }
+    
+    /**
+     * Registers a new row for the pair. Rows must be added in row order.
+     */
+    Entry add(ResultKey key, String fileName, UploadStatus status, int rowIndex) {
+        int id = rowIndex + droppedRows;
+        String name = fileName.toLowerCase(Locale.ROOT);
+        Entry entry = new Entry(key, name, id, status);
+        entries.put(key, entry);
+        entriesByRow.add(entry);
+        entry.statusSlot = rowsByStatus[status.ordinal()].add(id);
+        
+        rowsByEndpoint.computeIfAbsent(key.endpointId(), endpointId -> new RowList()).add(id);
+        rowsByName.computeIfAbsent(name, n -> new RowList()).add(id);
+        rowsByReversedName.computeIfAbsent(reverse(name), n -> new RowList()).add(id);
+        return entry;
+    }
+    
+    /**
+     * Forgets the first rows, whose row numbers go to the rows after them, in time
+     * proportional to the rows dropped.
+     */
+    void dropHead(int count) {
+        for (Entry entry : entriesByRow.subList(0, count)) {
+            entries.remove(entry.key);
+            removeFromStatus(entry);
+            // Row ids only grow, so a dropped row is the first of each list it is in
+            dropFirst(rowsByEndpoint, entry.key.endpointId());
+            dropFirst(rowsByName, entry.name);
+            dropFirst(rowsByReversedName, reverse(entry.name));
+        }
+        entriesByRow.subList(0, count).clear();
+        droppedRows += count;
+    }
+    
+    private static void dropFirst(Map<String, RowList> index, String key) {
+        RowList rows = index.get(key);
+        rows.dropFirst();
+        if (rows.size() == 0) {
+            index.remove(key);
+        }
+    }
+    
+    /**
+     * Moves the entry to a new status index in O(1).
+     */
+    void updateStatus(Entry entry, UploadStatus status) {
+        if (entry.status == status) {
+            return;
+        }
+        removeFromStatus(entry);
+        entry.statusSlot = rowsByStatus[status.ordinal()].add(entry.id);
+        entry.status = status;
+    }
+    
+    private void removeFromStatus(Entry entry) {
+        int movedId = rowsByStatus[entry.status.ordinal()].removeAt(entry.statusSlot);
+        if (movedId >= 0) {
+            entriesByRow.get(movedId - droppedRows).statusSlot = entry.statusSlot;
+        }
+    }
+    
+    int count(UploadStatus status) {
+        return rowsByStatus[status.ordinal()].size();
+    }
+    
+    /**
+     * Returns the number of pairs that reached a final state.
+     */
+    int completedCount() {
+        return count(UploadStatus.SUCCESS) + count(UploadStatus.FAILED) + count(UploadStatus.SKIPPED);
+    }
+    
+    int size() {
+        return entries.size();
+    }
+    
+    void clear() {
+        entries.clear();
+        entriesByRow.clear();
+        for (RowList rows : rowsByStatus) {
+            rows.clear();
+        }
+        rowsByEndpoint.clear();
+        rowsByName.clear();
+        rowsByReversedName.clear();
+        droppedRows = 0;
+    }
+    
+    /**
+     * Returns the rows that may match the filter, taken from the smallest index the
+     * filter constrains, or null if the filter constrains nothing and every row is a candidate.
+     * Candidates are unordered and still have to be checked with {@link ResultFilter#matches}.
+     */
+    int[] candidateRows(ResultFilter filter) {
+        List<RowList> best = null;
+        int bestSize = Integer.MAX_VALUE;
+        
+        if (filter.getStatus() != null) {
+            best = List.of(rowsByStatus[filter.getStatus().ordinal()]);
+            bestSize = best.get(0).size();
+        }
+        if (filter.getEndpointId() != null) {
+            RowList rows = rowsByEndpoint.getOrDefault(filter.getEndpointId(), new RowList());
+            if (rows.size() < bestSize) {
+                best = List.of(rows);
+                bestSize = rows.size();
+            }
+        }
+        if (filter.getNamePrefix() != null && !filter.getNamePrefix().isEmpty()) {
+            List<RowList> named = collectRange(rowsByName, filter.getNamePrefix(), bestSize);
+            if (named != null) {
+                best = named;
+                bestSize = sizeOf(named);
+            }
+        }
+        if (filter.getNameSuffix() != null && !filter.getNameSuffix().isEmpty()) {
+            List<RowList> named = collectRange(rowsByReversedName, reverse(filter.getNameSuffix()), bestSize);
+            if (named != null) {
+                best = named;
+                bestSize = sizeOf(named);
+            }
+        }
+        
+        if (best == null) {
+            return null;
+        }
+        int[] candidates = new int[bestSize];
+        int position = 0;
+        for (RowList rows : best) {
+            for (int i = rows.start; i < rows.end; i++) {
+                candidates[position++] = rows.rows[i] - droppedRows;
+            }
+        }
+        return candidates;
+    }
+    
+    /**
+     * Collects the row lists of all names starting with the prefix, giving up as soon
+     * as they hold more rows than the limit.
+     */
+    private static List<RowList> collectRange(TreeMap<String, RowList> index, String prefix, int limit) {
+        NavigableMap<String, RowList> range = index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<RowList> collected = new ArrayList<>();
+        int size = 0;
+        for (RowList rows : range.values()) {
+            size += rows.size();
+            if (size >= limit) {
+                return null;
+            }
+            collected.add(rows);
+        }
+        return collected;
+    }
+    
+    private static int sizeOf(List<RowList> lists) {
+        int size = 0;
+        for (RowList rows : lists) {
+            size += rows.size();
+        }
+        return size;
+    }
+    
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+    
+    /**
+     * Row position and last status seen on the FX thread for one pair.
+     */
+    final class Entry {
+        private final ResultKey key;
+        private final String name;
+        private final int id;
+        private UploadStatus status;
+        private int statusSlot;
+        
+        private Entry(ResultKey key, String name, int id, UploadStatus status) {
+            this.key = key;
+            this.name = name;
+            this.id = id;
+            this.status = status;
+        }
+        
+        int getRowIndex() {
+            return id - droppedRows;
+        }
+        
+        UploadStatus getStatus() {
+            return status;
+        }
+    }
+    
+    /**
+     * Growable list of row ids. Removal swaps the last row into the freed slot; lists that
+     * stay in row order instead drop their first row.
+     */
+    private static final class RowList {
+        private int[] rows = new int[8];
+        private int start;
+        private int end;
+        
+        int size() {
+            return end - start;
+        }
+        
+        int add(int row) {
+            if (end == rows.length) {
+                if (start > 0) {
+                    // Only lists that drop their first rows have a start, and they hold no slots
+                    System.arraycopy(rows, start, rows, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                if (end == rows.length) {
+                    rows = Arrays.copyOf(rows, end * 2);
+                }
+            }
+            rows[end] = row;
+            return end++;
+        }
+        
+        /**
+         * Removes the row at the slot and returns the row moved into it, or -1 if none moved.
+         */
+        int removeAt(int slot) {
+            end--;
+            if (slot == end) {
+                return -1;
+            }
+            rows[slot] = rows[end];
+            return rows[slot];
+        }
+        
+        void dropFirst() {
+            start++;
+        }
+        
+        void clear() {
+            rows = new int[8];
+            start = 0;
+            end = 0;
+        }
+    }
+    
+    /**
+     * Identity of an (endpoint, file) pair.
+     */
+    record ResultKey(long jobId, String endpointId, String filePath) {
+    }
+}
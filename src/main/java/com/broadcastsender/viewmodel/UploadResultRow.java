@@ -0,0 +1,176 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadSnapshot;
+import com.broadcastsender.model.UploadStatus;
+import javafx.beans.property.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Table row for one endpoint/file pair, owned by the FX application thread.
+ * Changing fields are exposed as JavaFX properties so cells follow them directly
+ * instead of the whole row being replaced in the list. Properties are created
+ * on first access, so rows that never scroll into view stay plain fields.
+ */
+public class UploadResultRow {
+    private final long jobId;
+    private final Endpoint endpoint;
+    private final FileAttachment file;
+    private UploadStatus status;
+    private String message;
+    private int statusCode;
+    private String responseBody;
+    private LocalDateTime timestamp;
+    private int attemptNumber;
+    private double progress;
+    private int pair = -1;
+    
+    private ReadOnlyObjectWrapper<UploadStatus> statusProperty;
+    private ReadOnlyStringWrapper messageProperty;
+    private ReadOnlyIntegerWrapper statusCodeProperty;
+    private ReadOnlyIntegerWrapper attemptNumberProperty;
+    private ReadOnlyDoubleWrapper progressProperty;
+    
+    public UploadResultRow(long jobId, Endpoint endpoint, FileAttachment file) {
+        this.jobId = jobId;
+        this.endpoint = endpoint;
+        this.file = file;
+        this.status = UploadStatus.PENDING;
+        this.message = "";
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    /**
+     * Copies the state of a snapshot into this row and its created properties.
+     */
+    public void update(UploadSnapshot snapshot) {
+        status = snapshot.getStatus();
+        pair = snapshot.getPair();
+        message = snapshot.getMessage();
+        statusCode = snapshot.getStatusCode();
+        responseBody = snapshot.getResponseBody();
+        timestamp = snapshot.getTimestamp();
+        attemptNumber = snapshot.getAttemptNumber();
+        progress = snapshot.getProgress();
+        
+        if (statusProperty != null) {
+            statusProperty.set(status);
+        }
+        if (messageProperty != null) {
+            messageProperty.set(message);
+        }
+        if (statusCodeProperty != null) {
+            statusCodeProperty.set(statusCode);
+        }
+        if (attemptNumberProperty != null) {
+            attemptNumberProperty.set(attemptNumber);
+        }
+        if (progressProperty != null) {
+            progressProperty.set(progress);
+        }
+    }
+    
+    /**
+     * Creates a detached {@link UploadResult} with this row's state, for handing to upload workers.
+     */
+    public UploadResult toUploadResult() {
+        UploadResult result = new UploadResult(jobId, endpoint, file);
+        result.setPair(pair);
+        result.setStatus(status);
+        result.setMessage(message);
+        result.setStatusCode(statusCode);
+        result.setResponseBody(responseBody);
+        result.setTimestamp(timestamp);
+        result.setAttemptNumber(attemptNumber);
+        result.setProgress(progress);
+        return result;
+    }
+    
+    /**
+     * Returns the id of the job the row belongs to.
+     */
+    public long getJobId() {
+        return jobId;
+    }
+    
+    /**
+     * Returns the index of the pair in the batch of its job, or -1 if it is not known.
+     */
+    public int getPair() {
+        return pair;
+    }
+    
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+    
+    public FileAttachment getFile() {
+        return file;
+    }
+    
+    public UploadStatus getStatus() {
+        return status;
+    }
+    
+    public ReadOnlyObjectProperty<UploadStatus> statusProperty() {
+        if (statusProperty == null) {
+            statusProperty = new ReadOnlyObjectWrapper<>(this, "status", status);
+        }
+        return statusProperty.getReadOnlyProperty();
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public ReadOnlyStringProperty messageProperty() {
+        if (messageProperty == null) {
+            messageProperty = new ReadOnlyStringWrapper(this, "message", message);
+        }
+        return messageProperty.getReadOnlyProperty();
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    public ReadOnlyIntegerProperty statusCodeProperty() {
+        if (statusCodeProperty == null) {
+            statusCodeProperty = new ReadOnlyIntegerWrapper(this, "statusCode", statusCode);
+        }
+        return statusCodeProperty.getReadOnlyProperty();
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+    
+    public ReadOnlyIntegerProperty attemptNumberProperty() {
+        if (attemptNumberProperty == null) {
+            attemptNumberProperty = new ReadOnlyIntegerWrapper(this, "attemptNumber", attemptNumber);
+        }
+        return attemptNumberProperty.getReadOnlyProperty();
+    }
+    
+    public double getProgress() {
+        return progress;
+    }
+    
+    public ReadOnlyDoubleProperty progressProperty() {
+        if (progressProperty == null) {
+            progressProperty = new ReadOnlyDoubleWrapper(this, "progress", progress);
+        }
+        return progressProperty.getReadOnlyProperty();
+    }
+}
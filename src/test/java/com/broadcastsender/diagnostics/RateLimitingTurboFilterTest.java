@@ -0,0 +1,80 @@
+package com.broadcastsender.diagnostics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingTurboFilterTest {
+    
+    private final LoggerContext context = new LoggerContext();
+    private RateLimitingTurboFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitingTurboFilter();
+        // Refill slowly enough that no token comes back while a test runs
+        filter.setMaxPerSecond(0.001);
+        filter.setBurst(5);
+    }
+    
+    @Test
+    void testTemplateIsLimitedToItsBurst() {
+        Logger logger = logger("com.broadcastsender.service.UploadService", Level.DEBUG);
+        assertEquals(5, passed(logger, Level.INFO, "Retrying {} in {} ms", 20));
+        assertEquals(5, passed(logger, Level.INFO, "Upload successful: {}", 20));
+        assertEquals(20, passed(logger, Level.ERROR, "Upload error", 20));
+    }
+    
+    @Test
+    void testSampleRuleKeepsOneInN() {
+        filter.setBurst(1000);
+        filter.addSample("com.broadcastsender.service=10");
+        Logger logger = logger("com.broadcastsender.service.HttpService", Level.DEBUG);
+        assertEquals(10, passed(logger, Level.DEBUG, "Response from {}", 100));
+        assertEquals(100, passed(logger, Level.WARN, "Slow response from {}", 100));
+    }
+    
+    @Test
+    void testExemptLoggerAndDisabledLevelsPass() {
+        filter.addExempt("com.broadcastsender.audit");
+        Logger audit = logger("com.broadcastsender.audit", Level.INFO);
+        assertEquals(50, passed(audit, Level.INFO, "{}", 50));
+        
+        Logger quiet = logger("com.broadcastsender.service.UploadService", Level.INFO);
+        // Left to the level check rather than counted against the bucket
+        assertEquals(50, passed(quiet, Level.DEBUG, "Retrying {} in {} ms", 50));
+        assertEquals(5, passed(quiet, Level.INFO, "Retrying {} in {} ms", 50));
+    }
+    
+    @Test
+    void testMessagesWithoutPlaceholdersShareOneBucketPastTheCap() {
+        filter.setBurst(1);
+        Logger logger = logger("com.broadcastsender.viewmodel.MainViewModel", Level.DEBUG);
+        int passed = 0;
+        for (int i = 0; i < 1000; i++) {
+            passed += passed(logger, Level.INFO, "Loaded file " + i, 1);
+        }
+        assertEquals(257, passed);
+    }
+    
+    private Logger logger(String name, Level level) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(level);
+        return logger;
+    }
+    
+    private int passed(Logger logger, Level level, String format, int events) {
+        int passed = 0;
+        for (int i = 0; i < events; i++) {
+            if (filter.decide(null, logger, level, format, null, null) != FilterReply.DENY) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+}
@@ -0,0 +1,64 @@
+package com.broadcastsender.diagnostics;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingAnalyzerTest {
+    
+    @Test
+    void testPerEndpointSummary(@TempDir Path tempDir) throws Exception {
+        Path recordingFile = tempDir.resolve("test.jfr");
+        
+        try (Recording recording = new Recording()) {
+            recording.enable(UploadAttemptEvent.class);
+            recording.enable(UploadRetryEvent.class);
+            recording.enable(UploadBatchEvent.class);
+            recording.start();
+            
+            commitAttempt("ep-1", "API 1", 1024, true);
+            commitAttempt("ep-1", "API 1", 2048, false);
+            commitAttempt("ep-2", "API 2", 512, true);
+            
+            UploadRetryEvent retry = new UploadRetryEvent();
+            retry.endpointId = "ep-1";
+            retry.endpointName = "API 1";
+            retry.commit();
+            
+            UploadBatchEvent batch = new UploadBatchEvent();
+            batch.begin();
+            batch.commit();
+            
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        
+        RecordingAnalyzer.Summary summary = new RecordingAnalyzer().analyze(recordingFile);
+        
+        assertEquals(1, summary.getBatchCount());
+        assertEquals(2, summary.getEndpoints().size());
+        
+        RecordingAnalyzer.EndpointStats first = summary.getEndpoints().iterator().next();
+        assertEquals("API 1", first.getEndpointName());
+        assertEquals(2, first.getAttempts());
+        assertEquals(1, first.getSuccesses());
+        assertEquals(1, first.getFailures());
+        assertEquals(1, first.getRetries());
+        assertEquals(1024, first.getBytesUploaded());
+        assertTrue(summary.format().contains("API 2"));
+    }
+    
+    private void commitAttempt(String endpointId, String endpointName, long size, boolean success) {
+        UploadAttemptEvent event = new UploadAttemptEvent();
+        event.begin();
+        event.endpointId = endpointId;
+        event.endpointName = endpointName;
+        event.fileSize = size;
+        event.success = success;
+        event.commit();
+    }
+}
@@ -0,0 +1,33 @@
+package com.broadcastsender.loadtest;
+
+import java.util.Random;
+
+/**
+ * Distribution of server-side processing latency, in milliseconds.
+ */
+public interface LatencyDistribution {
+    
+    LatencyDistribution NONE = random -> 0;
+    
+    long sampleMillis(Random random);
+    
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+    
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+    
+    static LatencyDistribution exponential(double meanMillis) {
+        return random -> (long) (-meanMillis * Math.log(1.0 - random.nextDouble()));
+    }
+    
+    /**
+     * Log-normal latency with the given median and shape; produces the long tail typical of real APIs.
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+}
@@ -0,0 +1,167 @@
+package com.broadcastsender.loadtest;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scripted behaviour of one route of the {@link StandInUploadServer}.
+ */
+public class RouteScript {
+    private final LatencyDistribution latency;
+    private final long bandwidthBytesPerSecond;
+    private final int burstStatus;
+    private final int burstLength;
+    private final int burstPeriod;
+    private final int errorStatus;
+    private final double errorProbability;
+    private final double resetProbability;
+    private final double slowLorisProbability;
+    private final int slowLorisBytes;
+    private final long slowLorisIntervalMillis;
+    private final AtomicLong requestCounter = new AtomicLong();
+    
+    private RouteScript(Builder builder) {
+        this.latency = builder.latency;
+        this.bandwidthBytesPerSecond = builder.bandwidthBytesPerSecond;
+        this.burstStatus = builder.burstStatus;
+        this.burstLength = builder.burstLength;
+        this.burstPeriod = builder.burstPeriod;
+        this.errorStatus = builder.errorStatus;
+        this.errorProbability = builder.errorProbability;
+        this.resetProbability = builder.resetProbability;
+        this.slowLorisProbability = builder.slowLorisProbability;
+        this.slowLorisBytes = builder.slowLorisBytes;
+        this.slowLorisIntervalMillis = builder.slowLorisIntervalMillis;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Decides how the next request on this route is answered.
+     */
+    Action nextAction(Random random) {
+        long sequence = requestCounter.getAndIncrement();
+        if (random.nextDouble() < resetProbability) {
+            return Action.RESET;
+        }
+        if (burstLength > 0 && sequence % burstPeriod < burstLength) {
+            return Action.BURST_ERROR;
+        }
+        if (random.nextDouble() < errorProbability) {
+            return Action.RANDOM_ERROR;
+        }
+        if (random.nextDouble() < slowLorisProbability) {
+            return Action.SLOW_LORIS;
+        }
+        return Action.OK;
+    }
+    
+    LatencyDistribution getLatency() {
+        return latency;
+    }
+    
+    long getBandwidthBytesPerSecond() {
+        return bandwidthBytesPerSecond;
+    }
+    
+    int getBurstStatus() {
+        return burstStatus;
+    }
+    
+    int getErrorStatus() {
+        return errorStatus;
+    }
+    
+    int getSlowLorisBytes() {
+        return slowLorisBytes;
+    }
+    
+    long getSlowLorisIntervalMillis() {
+        return slowLorisIntervalMillis;
+    }
+    
+    enum Action {
+        OK,
+        BURST_ERROR,
+        RANDOM_ERROR,
+        RESET,
+        SLOW_LORIS
+    }
+    
+    /**
+     * Builder for {@link RouteScript}. The default script accepts every upload immediately.
+     */
+    public static class Builder {
+        private LatencyDistribution latency = LatencyDistribution.NONE;
+        private long bandwidthBytesPerSecond;
+        private int burstStatus = 503;
+        private int burstLength;
+        private int burstPeriod = 1;
+        private int errorStatus = 503;
+        private double errorProbability;
+        private double resetProbability;
+        private double slowLorisProbability;
+        private int slowLorisBytes = 64;
+        private long slowLorisIntervalMillis = 100;
+        
+        /**
+         * Delay before the response is written.
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+        
+        /**
+         * Caps how fast the request body is read from each connection. Zero means unlimited.
+         */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bandwidthBytesPerSecond = bytesPerSecond;
+            return this;
+        }
+        
+        /**
+         * Answers the first {@code length} requests of every {@code period} requests with {@code status},
+         * e.g. 429 or 503 bursts.
+         */
+        public Builder burst(int status, int length, int period) {
+            this.burstStatus = status;
+            this.burstLength = length;
+            this.burstPeriod = Math.max(period, 1);
+            return this;
+        }
+        
+        /**
+         * Answers a random fraction of requests with {@code status}.
+         */
+        public Builder errors(int status, double probability) {
+            this.errorStatus = status;
+            this.errorProbability = probability;
+            return this;
+        }
+        
+        /**
+         * Resets the connection halfway through reading the request body for a random fraction of requests.
+         */
+        public Builder resets(double probability) {
+            this.resetProbability = probability;
+            return this;
+        }
+        
+        /**
+         * Trickles the response body one byte per interval for a random fraction of requests.
+         */
+        public Builder slowLoris(double probability, int bytes, long intervalMillis) {
+            this.slowLorisProbability = probability;
+            this.slowLorisBytes = bytes;
+            this.slowLorisIntervalMillis = intervalMillis;
+            return this;
+        }
+        
+        public RouteScript build() {
+            return new RouteScript(this);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.broadcastsender.loadtest;
+
+/**
+ * Named {@link RouteScript} presets that model typical receiving API behaviour.
+ */
+public final class Scenarios {
+    
+    private Scenarios() {
+    }
+    
+    /**
+     * A healthy API: low, slightly variable latency and no errors.
+     */
+    public static RouteScript clean() {
+        return RouteScript.builder()
+                .latency(LatencyDistribution.uniform(1, 5))
+                .build();
+    }
+    
+    /**
+     * A remote API behind a slow link with a long latency tail.
+     */
+    public static RouteScript throttled() {
+        return RouteScript.builder()
+                .latency(LatencyDistribution.logNormal(40, 0.8))
+                .bandwidth(2 * 1024 * 1024)
+                .build();
+    }
+    
+    /**
+     * An overloaded API answering with bursts of 429 and occasional 503.
+     */
+    public static RouteScript overloaded() {
+        return RouteScript.builder()
+                .latency(LatencyDistribution.exponential(20))
+                .burst(429, 5, 20)
+                .errors(503, 0.05)
+                .build();
+    }
+    
+    /**
+     * A flaky network path: connections are reset mid-upload.
+     */
+    public static RouteScript lossy() {
+        return RouteScript.builder()
+                .latency(LatencyDistribution.uniform(5, 30))
+                .resets(0.1)
+                .build();
+    }
+    
+    /**
+     * An API that sometimes trickles its response, exercising read timeouts.
+     */
+    public static RouteScript slow() {
+        return RouteScript.builder()
+                .latency(LatencyDistribution.uniform(5, 30))
+                .slowLoris(0.05, 20, 100)
+                .build();
+    }
+    
+    public static RouteScript byName(String name) {
+        switch (name) {
+            case "clean":
+                return clean();
+            case "throttled":
+                return throttled();
+            case "overloaded":
+                return overloaded();
+            case "lossy":
+                return lossy();
+            case "slow":
+                return slow();
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + name
+                        + " (expected clean, throttled, overloaded, lossy or slow)");
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.broadcastsender.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embeddable stand-in for the receiving upload APIs.
+ * Speaks plain HTTP/1.1 on a loopback socket, accepts multipart uploads and raw PUT bodies
+ * and injects faults per route as described by a {@link RouteScript}.
+ *
+ * <p>Run standalone with {@code ./gradlew standInServer -Pport=8089 -Pscenario=lossy}.
+ */
+public class StandInUploadServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(StandInUploadServer.class);
+    private static final int MAX_HEADER_LINE = 8192;
+    
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionPool;
+    private final Map<String, RouteScript> routes = new ConcurrentSkipListMap<>(
+            Comparator.comparingInt(String::length).reversed().thenComparing(Comparator.naturalOrder()));
+    private final Map<Integer, AtomicLong> responsesByStatus = new ConcurrentHashMap<>();
+    private final AtomicLong connectionCounter = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesAccepted = new AtomicLong();
+    private final AtomicLong wastedBytes = new AtomicLong();
+    private final long seed;
+    private volatile RouteScript defaultRoute = RouteScript.builder().build();
+    private volatile boolean running = true;
+    
+    public StandInUploadServer() throws IOException {
+        this(0, 42L);
+    }
+    
+    public StandInUploadServer(int port, long seed) throws IOException {
+        this.seed = seed;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.connectionPool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connectionPool.execute(this::acceptLoop);
+        logger.info("Stand-in upload server listening on {}", baseUrl());
+    }
+    
+    /**
+     * Scripts every request whose path starts with {@code pathPrefix}; the longest prefix wins.
+     */
+    public StandInUploadServer route(String pathPrefix, RouteScript script) {
+        routes.put(pathPrefix, script);
+        return this;
+    }
+    
+    /**
+     * Scripts requests that match no route.
+     */
+    public StandInUploadServer defaultRoute(RouteScript script) {
+        this.defaultRoute = script;
+        return this;
+    }
+    
+    public String baseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+    
+    public String url(String path) {
+        return baseUrl() + path;
+    }
+    
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    public long getResets() {
+        return resets.get();
+    }
+    
+    /**
+     * Request body bytes read from clients, including bytes of rejected or reset requests.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+    
+    /**
+     * Request body bytes of uploads that were answered with a 2xx status.
+     */
+    public long getBytesAccepted() {
+        return bytesAccepted.get();
+    }
+    
+    /**
+     * Request body bytes that were transferred but not accepted (error responses and resets).
+     */
+    public long getWastedBytes() {
+        return wastedBytes.get();
+    }
+    
+    public long getResponses(int status) {
+        AtomicLong count = responsesByStatus.get(status);
+        return count != null ? count.get() : 0;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        connectionPool.shutdownNow();
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                long connectionId = connectionCounter.incrementAndGet();
+                connectionPool.execute(() -> serve(socket, new Random(seed + connectionId)));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Accept failed", e);
+                }
+            }
+        }
+    }
+    
+    private void serve(Socket socket, Random random) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            OutputStream out = socket.getOutputStream();
+            
+            while (running) {
+                String requestLine = readLine(in);
+                if (requestLine == null) {
+                    return;
+                }
+                if (requestLine.isEmpty()) {
+                    continue;
+                }
+                requests.incrementAndGet();
+                
+                String[] parts = requestLine.split(" ");
+                String method = parts[0];
+                String path = parts.length > 1 ? parts[1] : "/";
+                Map<String, String> headers = readHeaders(in);
+                RouteScript script = scriptFor(path);
+                RouteScript.Action action = script.nextAction(random);
+                
+                if (action == RouteScript.Action.RESET) {
+                    long read = readBody(in, headers, script.getBandwidthBytesPerSecond(), true);
+                    wastedBytes.addAndGet(read);
+                    resets.incrementAndGet();
+                    socket.setSoLinger(true, 0);
+                    return;
+                }
+                
+                long read = readBody(in, headers, script.getBandwidthBytesPerSecond(), false);
+                sleep(script.getLatency().sampleMillis(random));
+                
+                boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+                switch (action) {
+                    case BURST_ERROR:
+                        wastedBytes.addAndGet(read);
+                        writeResponse(out, script.getBurstStatus(), "rejected", keepAlive);
+                        break;
+                    case RANDOM_ERROR:
+                        wastedBytes.addAndGet(read);
+                        writeResponse(out, script.getErrorStatus(), "rejected", keepAlive);
+                        break;
+                    case SLOW_LORIS:
+                        bytesAccepted.addAndGet(read);
+                        writeSlowResponse(out, script.getSlowLorisBytes(), script.getSlowLorisIntervalMillis());
+                        break;
+                    default:
+                        // Raw uploads send the file itself as the body of a PUT
+                        if (isMultipart(headers) || "PUT".equals(method)) {
+                            bytesAccepted.addAndGet(read);
+                            writeResponse(out, 200, "{\"received\":" + read + "}", keepAlive);
+                        } else {
+                            wastedBytes.addAndGet(read);
+                            writeResponse(out, 415, "expected multipart/form-data or a PUT body", keepAlive);
+                        }
+                        break;
+                }
+                
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (SocketException e) {
+            logger.debug("Connection closed by client: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.debug("Connection error", e);
+        }
+    }
+    
+    private RouteScript scriptFor(String path) {
+        for (Map.Entry<String, RouteScript> route : routes.entrySet()) {
+            if (path.startsWith(route.getKey())) {
+                return route.getValue();
+            }
+        }
+        return defaultRoute;
+    }
+    
+    private Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+    
+    /**
+     * Reads the request body, throttled to the route's bandwidth. Returns the number of bytes read.
+     * When {@code stopHalfway} is set, only half of a sized body is read.
+     */
+    private long readBody(InputStream in, Map<String, String> headers, long bytesPerSecond, boolean stopHalfway)
+            throws IOException {
+        Throttle throttle = new Throttle(bytesPerSecond);
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            long total = 0;
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new IOException("Unexpected end of chunked body");
+                }
+                int semicolon = sizeLine.indexOf(';');
+                long chunkSize = Long.parseLong((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+                if (chunkSize == 0) {
+                    readHeaders(in);
+                    return total;
+                }
+                total += consume(in, chunkSize, throttle);
+                readLine(in);
+                if (stopHalfway) {
+                    return total;
+                }
+            }
+        }
+        
+        String contentLength = headers.get("content-length");
+        long length = contentLength != null ? Long.parseLong(contentLength) : 0;
+        return consume(in, stopHalfway ? length / 2 : length, throttle);
+    }
+    
+    private long consume(InputStream in, long length, Throttle throttle) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new IOException("Unexpected end of request body");
+            }
+            remaining -= read;
+            bytesReceived.addAndGet(read);
+            throttle.consumed(read);
+        }
+        return length;
+    }
+    
+    private boolean isMultipart(Map<String, String> headers) {
+        String contentType = headers.get("content-type");
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data");
+    }
+    
+    private void writeResponse(OutputStream out, int status, String body, boolean keepAlive) throws IOException {
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder()
+                .append("HTTP/1.1 ").append(status).append(' ').append(reason(status)).append("\r\n")
+                .append("Content-Type: application/json\r\n")
+                .append("Content-Length: ").append(bodyBytes.length).append("\r\n");
+        if (status == 429 || status == 503) {
+            head.append("Retry-After: 1\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        out.write(bodyBytes);
+        out.flush();
+        countResponse(status);
+    }
+    
+    private void writeSlowResponse(OutputStream out, int bodyBytes, long intervalMillis) throws IOException {
+        String head = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + bodyBytes
+                + "\r\nConnection: keep-alive\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        for (int i = 0; i < bodyBytes; i++) {
+            sleep(intervalMillis);
+            out.write('.');
+            out.flush();
+        }
+        countResponse(200);
+    }
+    
+    private void countResponse(int status) {
+        responsesByStatus.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+    }
+    
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 415:
+                return "Unsupported Media Type";
+            case 429:
+                return "Too Many Requests";
+            case 500:
+                return "Internal Server Error";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "Status";
+        }
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > MAX_HEADER_LINE) {
+                throw new IOException("Header line too long");
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+    
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Paces reads so that the average rate stays at or below the configured bandwidth.
+     */
+    private static class Throttle {
+        private final long bytesPerSecond;
+        private final long startNanos = System.nanoTime();
+        private long consumed;
+        
+        Throttle(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+        
+        void consumed(int bytes) {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            consumed += bytes;
+            long dueNanos = consumed * 1_000_000_000L / bytesPerSecond;
+            long aheadMillis = (dueNanos - (System.nanoTime() - startNanos)) / 1_000_000L;
+            sleep(aheadMillis);
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        String scenario = args.length > 1 ? args[1] : "clean";
+        
+        StandInUploadServer server = new StandInUploadServer(port, System.nanoTime());
+        server.defaultRoute(Scenarios.byName(scenario));
+        System.out.println("Stand-in upload server (" + scenario + ") at " + server.baseUrl() + " - Ctrl+C to stop");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.printf("requests=%d accepted=%d B wasted=%d B resets=%d%n",
+                    server.getRequests(), server.getBytesAccepted(), server.getWastedBytes(), server.getResets());
+        }));
+        Thread.currentThread().join();
+    }
+}
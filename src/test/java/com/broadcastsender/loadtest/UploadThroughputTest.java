@@ -0,0 +1,176 @@
+package com.broadcastsender.loadtest;
+
+import com.broadcastsender.model.BodyEncoding;
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.RequestMode;
+import com.broadcastsender.model.UploadStatus;
+import com.broadcastsender.service.HttpService;
+import com.broadcastsender.service.UploadBatch;
+import com.broadcastsender.service.UploadService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end throughput suite: drives {@link UploadService} against the {@link StandInUploadServer}
+ * and reports goodput, p99 pair completion time and wasted bytes per scenario.
+ * Run with {@code ./gradlew loadTest}.
+ */
+@Tag("loadtest")
+class UploadThroughputTest {
+    
+    private static final int FILE_COUNT = 40;
+    private static final int ENDPOINT_COUNT = 5;
+    private static final long FILE_SIZE = 256 * 1024;
+    private static final int CONCURRENCY = 8;
+    private static final int RETRIES = 2;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testCleanScenario() throws Exception {
+        Report report = run("clean", Scenarios.clean());
+        
+        assertEquals(FILE_COUNT * ENDPOINT_COUNT, report.succeeded);
+        assertEquals(0, report.wastedBytes);
+    }
+    
+    @Test
+    void testThrottledScenario() throws Exception {
+        Report report = run("throttled", Scenarios.throttled());
+        
+        assertEquals(FILE_COUNT * ENDPOINT_COUNT, report.succeeded);
+    }
+    
+    @Test
+    void testOverloadedScenario() throws Exception {
+        Report report = run("overloaded", Scenarios.overloaded());
+        
+        assertTrue(report.wastedBytes > 0, "Rejected uploads should waste bytes");
+    }
+    
+    @Test
+    void testLossyScenario() throws Exception {
+        Report report = run("lossy", Scenarios.lossy());
+        
+        assertTrue(report.resets > 0, "Server should have reset connections");
+    }
+    
+    @Test
+    void testRawPutScenario() throws Exception {
+        Report report = run("raw-put", Scenarios.clean(), new RequestMode("PUT", BodyEncoding.RAW, null, false));
+        
+        assertEquals(FILE_COUNT * ENDPOINT_COUNT, report.succeeded);
+        assertEquals(0, report.wastedBytes);
+    }
+    
+    @Test
+    void testSlowScenario() throws Exception {
+        Report report = run("slow", Scenarios.slow());
+        
+        assertEquals(FILE_COUNT * ENDPOINT_COUNT, report.succeeded + report.failed);
+    }
+    
+    private Report run(String scenario, RouteScript script) throws Exception {
+        return run(scenario, script, RequestMode.DEFAULT);
+    }
+    
+    private Report run(String scenario, RouteScript script, RequestMode mode) throws Exception {
+        try (StandInUploadServer server = new StandInUploadServer()) {
+            server.defaultRoute(script);
+            
+            List<Endpoint> endpoints = new ArrayList<>();
+            for (int i = 0; i < ENDPOINT_COUNT; i++) {
+                Endpoint endpoint = new Endpoint();
+                endpoint.setName("Stand-in " + i);
+                endpoint.setUrl(server.url("/upload/" + i));
+                endpoint.setRequestMode(mode);
+                endpoints.add(endpoint);
+            }
+            List<FileAttachment> files = createFiles();
+            
+            UploadService uploadService = new UploadService(new HttpService());
+            uploadService.configureThreadPool(CONCURRENCY);
+            uploadService.setMaxRetryAttempts(RETRIES);
+            
+            Map<String, Long> completedAt = new HashMap<>();
+            long start = System.nanoTime();
+            UploadBatch batch;
+            try {
+                batch = uploadService.uploadFiles(files, endpoints, snapshot -> {
+                    synchronized (completedAt) {
+                        completedAt.put(pairKey(snapshot.getEndpoint(), snapshot.getFile()), System.nanoTime());
+                    }
+                }).get(5, TimeUnit.MINUTES);
+            } finally {
+                uploadService.shutdown();
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            Report report = new Report();
+            long goodBytes = 0;
+            long[] completionNanos = new long[batch.getPairCount()];
+            for (int pair = 0; pair < batch.getPairCount(); pair++) {
+                if (batch.getStatus(pair) == UploadStatus.SUCCESS) {
+                    report.succeeded++;
+                    goodBytes += batch.getFile(pair).getSize();
+                } else {
+                    report.failed++;
+                }
+                Long finished = completedAt.get(pairKey(batch.getEndpoint(pair), batch.getFile(pair)));
+                completionNanos[pair] = (finished != null ? finished : start + elapsed) - start;
+            }
+            Arrays.sort(completionNanos);
+            
+            report.goodputMbPerSecond = (goodBytes / (1024.0 * 1024.0)) / (elapsed / 1_000_000_000.0);
+            report.p99CompletionMillis = completionNanos[(int) Math.ceil(0.99 * completionNanos.length) - 1] / 1_000_000.0;
+            report.wastedBytes = server.getWastedBytes();
+            report.resets = server.getResets();
+            
+            System.out.printf("[%s] pairs=%d ok=%d failed=%d goodput=%.2f MB/s p99=%.1f ms wasted=%d B "
+                            + "requests=%d resets=%d elapsed=%.1f s%n",
+                    scenario, batch.getPairCount(), report.succeeded, report.failed, report.goodputMbPerSecond,
+                    report.p99CompletionMillis, report.wastedBytes, server.getRequests(), report.resets,
+                    elapsed / 1_000_000_000.0);
+            return report;
+        }
+    }
+    
+    private static String pairKey(Endpoint endpoint, FileAttachment file) {
+        return endpoint.getId() + '|' + file.getAbsolutePath();
+    }
+    
+    private List<FileAttachment> createFiles() throws Exception {
+        List<FileAttachment> files = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Path path = tempDir.resolve("payload-" + i + ".bin");
+            try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+                raf.setLength(FILE_SIZE);
+            }
+            files.add(new FileAttachment(path.toFile()));
+        }
+        return files;
+    }
+    
+    private static class Report {
+        int succeeded;
+        int failed;
+        double goodputMbPerSecond;
+        double p99CompletionMillis;
+        long wastedBytes;
+        long resets;
+    }
+}
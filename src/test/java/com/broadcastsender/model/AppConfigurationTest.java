@@ -1,7 +1,10 @@
 package com.broadcastsender.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AppConfigurationTest {
@@ -34,6 +37,23 @@ class AppConfigurationTest {
         assertEquals(2, config.getEndpoints().size());
     }
     
+    @Test
+    void testEndpointGroupsSurviveJson() throws Exception {
+        AppConfiguration config = new AppConfiguration();
+        EndpointGroup group = new EndpointGroup(null, "mirrors", List.of("a", "b", "c"), 2, QuorumAction.REPLICATE);
+        config.getEndpointGroups().add(group);
+        
+        ObjectMapper mapper = new ObjectMapper();
+        AppConfiguration read = mapper.readValue(mapper.writeValueAsString(config.copy()), AppConfiguration.class);
+        
+        EndpointGroup readGroup = read.getEndpointGroups().get(0);
+        assertEquals(group, readGroup);
+        assertEquals(List.of("a", "b", "c"), readGroup.getMemberIds());
+        assertEquals(2, readGroup.getQuorum());
+        assertEquals(QuorumAction.REPLICATE, readGroup.getAfterQuorum());
+        assertTrue(mapper.readValue("{}", AppConfiguration.class).getEndpointGroups().isEmpty());
+    }
+    
     @Test
     void testConfigurationSettings() {
         AppConfiguration config = new AppConfiguration();
@@ -1,5 +1,6 @@
 package com.broadcastsender.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,4 +50,27 @@ class EndpointTest {
         // Same endpoint should be equal to itself
         assertEquals(endpoint1, endpoint1);
     }
+    
+    @Test
+    void testRequestModeAndTransportDefaultAndSurviveJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Endpoint old = mapper.readValue("{\"id\":\"a\",\"name\":\"A\",\"url\":\"http://a\"}", Endpoint.class);
+        assertEquals(RequestMode.DEFAULT, old.getRequestMode());
+        assertEquals(TransportType.OKHTTP, old.getTransport());
+        
+        Endpoint raw = mapper.readValue(
+            "{\"id\":\"b\",\"url\":\"http://b\",\"requestMode\":{\"method\":\"put\",\"body\":\"RAW\"}}",
+            Endpoint.class);
+        assertEquals(new RequestMode("PUT", BodyEncoding.RAW, "file", false), raw.getRequestMode());
+        assertTrue(raw.getRequestMode().isRaw());
+        
+        Endpoint copy = mapper.readValue(mapper.writeValueAsString(raw), Endpoint.class);
+        assertEquals(raw.getRequestMode(), copy.getRequestMode());
+        assertEquals(raw.getRequestMode(), raw.copy().getRequestMode());
+        
+        raw.setTransport(TransportType.JDK_HTTP2);
+        assertEquals(TransportType.JDK_HTTP2,
+                mapper.readValue(mapper.writeValueAsString(raw), Endpoint.class).getTransport());
+        assertEquals(TransportType.JDK_HTTP2, raw.copy().getTransport());
+    }
 }
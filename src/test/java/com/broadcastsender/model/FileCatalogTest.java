@@ -0,0 +1,77 @@
+package com.broadcastsender.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCatalogTest {
+    
+    @Test
+    void testDuplicatePathsAreRejected() {
+        FileCatalog catalog = new FileCatalog();
+        
+        assertTrue(catalog.add("/data/in", "a.pdf", 10, 1));
+        assertTrue(catalog.add("/data/in", "b.pdf", 20, 2));
+        assertTrue(catalog.add("/data/out", "a.pdf", 30, 3));
+        assertFalse(catalog.add("/data/in", "a.pdf", 99, 9));
+        
+        assertEquals(3, catalog.size());
+        assertEquals(2, catalog.getDirectoryCount());
+        assertEquals(2, catalog.indexOf(new File("/data/out/a.pdf")));
+        assertEquals(-1, catalog.indexOf(new File("/data/out/b.pdf")));
+        assertEquals(10, catalog.getSize(0));
+    }
+    
+    @Test
+    void testGetCreatesAttachmentWithoutDisk() {
+        FileCatalog catalog = new FileCatalog();
+        catalog.add("/data/in", "r\u00e9sum\u00e9.txt", 1234, 5);
+        
+        FileAttachment attachment = catalog.get(0);
+        
+        assertEquals("r\u00e9sum\u00e9.txt", attachment.getName());
+        assertEquals(new File("/data/in", "r\u00e9sum\u00e9.txt").getAbsolutePath(), attachment.getAbsolutePath());
+        assertEquals(1234, attachment.getSize());
+        assertEquals(5, catalog.getLastModified(0));
+    }
+    
+    @Test
+    void testRemoveKeepsOrderAndLookups() {
+        FileCatalog catalog = new FileCatalog();
+        for (int i = 0; i < 1000; i++) {
+            catalog.add("/data/dir" + (i % 7), "file-" + i, i, i);
+        }
+        
+        for (int i = 0; i < 500; i++) {
+            catalog.remove(0);
+        }
+        
+        assertEquals(500, catalog.size());
+        assertEquals("file-500", catalog.getName(0));
+        assertEquals(999, catalog.getSize(499));
+        assertEquals(0, catalog.indexOf(new File("/data/dir" + (500 % 7), "file-500")));
+        assertEquals(-1, catalog.indexOf(new File("/data/dir" + (10 % 7), "file-10")));
+        assertTrue(catalog.add("/data/dir3", "file-10", 10, 10), "A removed path can be added again");
+    }
+    
+    @Test
+    void testCopyIsUnaffectedByLaterEdits() {
+        FileCatalog catalog = new FileCatalog();
+        catalog.add("/data/in", "a.pdf", 10, 1);
+        catalog.add("/data/in", "b.pdf", 20, 2);
+        
+        FileCatalog copy = catalog.copy();
+        catalog.remove(0);
+        catalog.add("/data/in", "c.pdf", 30, 3);
+        
+        assertEquals(2, copy.size());
+        assertEquals("a.pdf", copy.getName(0));
+        assertEquals(20, copy.getSize(1));
+        assertEquals(1, copy.indexOf(new File("/data/in/b.pdf")));
+        assertEquals(-1, copy.indexOf(new File("/data/in/c.pdf")));
+        assertTrue(copy.add("/data/in", "d.pdf", 40, 4), "The copy can grow on its own");
+        assertEquals(2, catalog.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.broadcastsender.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutPolicyTest {
+    
+    private static final long MB = 1024 * 1024;
+    
+    @Test
+    void testWriteDeadlineScalesWithSizeAndLearnedThroughput() {
+        TimeoutPolicy policy = new TimeoutPolicy(10, 20, 60, 32 * 1024, 0);
+        
+        // Nothing learned yet: the slowest accepted throughput
+        assertEquals(Duration.ofSeconds(20 + 320), policy.writeDeadline(10 * MB, 0));
+        // 3 MB/s learned: a third of it
+        assertEquals(Duration.ofSeconds(20 + 10), policy.writeDeadline(10 * MB, 3 * MB));
+        // A tiny file only gets the stall allowance
+        assertEquals(Duration.ofSeconds(20).plusMillis(1), policy.writeDeadline(1, 3 * MB));
+    }
+    
+    @Test
+    void testCallDeadlineIsCappedByMaxCallSeconds() {
+        TimeoutPolicy uncapped = new TimeoutPolicy(10, 20, 60, 32 * 1024, 0);
+        assertEquals(Duration.ofSeconds(10 + 20 + 10 + 60), uncapped.callDeadline(10 * MB, 3 * MB));
+        
+        TimeoutPolicy capped = new TimeoutPolicy(10, 20, 60, 32 * 1024, 45);
+        assertEquals(Duration.ofSeconds(45), capped.callDeadline(10 * MB, 3 * MB));
+    }
+    
+    @Test
+    void testResponseTimeFollowsLearnedOverhead() {
+        TimeoutPolicy policy = new TimeoutPolicy(10, 20, 60, 32 * 1024, 0);
+        
+        // Nothing learned yet: the configured time
+        assertSame(policy, policy.withLearnedOverhead(0));
+        // 9 s learned: three times it
+        assertEquals(27, policy.withLearnedOverhead(9).responseSeconds());
+        assertEquals(Duration.ofSeconds(10 + 20 + 10 + 27),
+                policy.withLearnedOverhead(9).callDeadline(10 * MB, 3 * MB));
+        // A fast server still gets the stall allowance, a slow one no more than configured
+        assertEquals(20, policy.withLearnedOverhead(0.2).responseSeconds());
+        assertEquals(60, policy.withLearnedOverhead(45).responseSeconds());
+    }
+    
+    @Test
+    void testEndpointWithoutPolicyGetsDefaults() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Endpoint old = mapper.readValue("{\"id\":\"a\",\"name\":\"A\",\"url\":\"http://a\"}", Endpoint.class);
+        assertEquals(TimeoutPolicy.DEFAULT, old.getTimeoutPolicy());
+        
+        Endpoint partial = mapper.readValue(
+            "{\"id\":\"b\",\"url\":\"http://b\",\"timeoutPolicy\":{\"stallSeconds\":5}}", Endpoint.class);
+        assertEquals(5, partial.getTimeoutPolicy().stallSeconds());
+        assertEquals(TimeoutPolicy.DEFAULT_CONNECT_SECONDS, partial.getTimeoutPolicy().connectSeconds());
+        
+        Endpoint copy = mapper.readValue(mapper.writeValueAsString(partial), Endpoint.class);
+        assertEquals(partial.getTimeoutPolicy(), copy.getTimeoutPolicy());
+    }
+}
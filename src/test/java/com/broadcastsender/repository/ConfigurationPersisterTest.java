@@ -0,0 +1,63 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.AppConfiguration;
+import com.broadcastsender.model.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationPersisterTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testBurstIsWrittenOnceWithTheLatestValues() throws Exception {
+        ConfigurationRepository repository = new ConfigurationRepository(tempDir.resolve("config.json"));
+        ConfigurationPersister persister = new ConfigurationPersister(repository, 200, 5000);
+        
+        AppConfiguration configuration = new AppConfiguration();
+        for (int uploads = 1; uploads <= 50; uploads++) {
+            configuration.setMaxConcurrentUploads(uploads);
+            persister.submit(configuration.copy());
+        }
+        assertEquals(0, persister.getWriteCount(), "Nothing is written while changes keep coming");
+        
+        persister.close();
+        assertEquals(1, persister.getWriteCount());
+        assertEquals(50, repository.load().getMaxConcurrentUploads());
+    }
+    
+    @Test
+    void testSubmittedCopyIsUnaffectedByLaterChanges() {
+        ConfigurationRepository repository = new ConfigurationRepository(tempDir.resolve("config.json"));
+        ConfigurationPersister persister = new ConfigurationPersister(repository);
+        
+        AppConfiguration configuration = new AppConfiguration();
+        Endpoint endpoint = new Endpoint();
+        endpoint.setName("before");
+        configuration.getEndpoints().add(endpoint);
+        persister.submit(configuration.copy());
+        endpoint.setName("after");
+        
+        persister.flush();
+        assertEquals("before", repository.load().getEndpoints().get(0).getName());
+        persister.close();
+    }
+    
+    @Test
+    void testSaveLeavesNoTemporaryFiles() throws Exception {
+        ConfigurationRepository repository = new ConfigurationRepository(tempDir.resolve("config.json"));
+        repository.save(new AppConfiguration());
+        repository.save(new AppConfiguration());
+        
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
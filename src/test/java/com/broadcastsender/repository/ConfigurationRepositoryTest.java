@@ -0,0 +1,102 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.AppConfiguration;
+import com.broadcastsender.model.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationRepositoryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testLoggedChangesAreAppliedOnLoad() {
+        Path configFile = tempDir.resolve("config.json");
+        ConfigurationRepository repository = new ConfigurationRepository(configFile);
+        AppConfiguration config = new AppConfiguration();
+        config.setEndpoints(new ArrayList<>(List.of(endpoint("a"), endpoint("b"), endpoint("c"))));
+        repository.save(config);
+        
+        Endpoint renamed = endpoint("b");
+        renamed.setName("b renamed");
+        AppConfiguration settings = new AppConfiguration();
+        settings.setMaxConcurrentUploads(7);
+        repository.append(List.of(
+            new ConfigurationChange.EndpointSaved(renamed),
+            new ConfigurationChange.EndpointRemoved("a"),
+            new ConfigurationChange.EndpointSaved(endpoint("d")),
+            new ConfigurationChange.SettingsChanged(settings)));
+        
+        AppConfiguration loaded = new ConfigurationRepository(configFile).load();
+        assertEquals(List.of("b renamed", "c", "d"), names(loaded));
+        assertEquals(7, loaded.getMaxConcurrentUploads());
+        assertEquals(2, loaded.getMaxRetryAttempts());
+    }
+    
+    @Test
+    void testTornLastLineIsIgnored() throws Exception {
+        Path configFile = tempDir.resolve("config.json");
+        ConfigurationRepository repository = new ConfigurationRepository(configFile);
+        repository.save(new AppConfiguration());
+        repository.append(List.of(new ConfigurationChange.EndpointSaved(endpoint("a"))));
+        Files.writeString(tempDir.resolve("config.json.log"), "{\"op\":\"put\",\"endpo", StandardOpenOption.APPEND);
+        
+        AppConfiguration loaded = new ConfigurationRepository(configFile).load();
+        assertEquals(List.of("a"), names(loaded));
+        assertFalse(Files.exists(tempDir.resolve("config.json.log")), "The log is folded into the file");
+    }
+    
+    @Test
+    void testLogIsCompactedAfterManyChanges() {
+        Path configFile = tempDir.resolve("config.json");
+        ConfigurationRepository repository = new ConfigurationRepository(configFile);
+        repository.save(new AppConfiguration());
+        
+        for (int i = 0; i < 1000; i++) {
+            repository.append(List.of(new ConfigurationChange.EndpointSaved(endpoint("e" + i))));
+        }
+        
+        assertFalse(Files.exists(tempDir.resolve("config.json.log")));
+        assertEquals(1000, new ConfigurationRepository(configFile).load().getEndpoints().size());
+    }
+    
+    @Test
+    void testLoadsTwentyThousandEndpoints() {
+        Path configFile = tempDir.resolve("config.json");
+        AppConfiguration config = new AppConfiguration();
+        for (int i = 0; i < 20_000; i++) {
+            Endpoint endpoint = endpoint("tenant-" + i);
+            endpoint.setUrl("https://tenant-" + i + ".example.com/upload");
+            config.getEndpoints().add(endpoint);
+        }
+        new ConfigurationRepository(configFile).save(config);
+        
+        AppConfiguration loaded = new ConfigurationRepository(configFile).load();
+        assertEquals(20_000, loaded.getEndpoints().size());
+        assertEquals("tenant-19999", loaded.getEndpoints().get(19_999).getId());
+    }
+    
+    private static Endpoint endpoint(String id) {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setId(id);
+        endpoint.setName(id);
+        return endpoint;
+    }
+    
+    private static List<String> names(AppConfiguration config) {
+        List<String> names = new ArrayList<>();
+        for (Endpoint endpoint : config.getEndpoints()) {
+            names.add(endpoint.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,36 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.ThroughputStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThroughputRepositoryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testSavedStatsLoadInTheNextRun() {
+        Path file = tempDir.resolve("throughput.json");
+        ThroughputStats stats = ThroughputStats.EMPTY.plus(1024 * 1024, 500_000_000L).plus(4096, 100_000_000L);
+        
+        new ThroughputRepository(file).save(Map.of("endpoint-1", stats));
+        
+        assertEquals(Map.of("endpoint-1", stats), new ThroughputRepository(file).load());
+    }
+    
+    @Test
+    void testMissingOrUnreadableFileLoadsNothing() throws Exception {
+        Path file = tempDir.resolve("throughput.json");
+        assertTrue(new ThroughputRepository(file).load().isEmpty());
+        
+        Files.writeString(file, "{\"endpoint-1\": {\"weight\": ");
+        assertTrue(new ThroughputRepository(file).load().isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.broadcastsender.repository;
+
+import com.broadcastsender.model.UploadHistoryEntry;
+import com.broadcastsender.model.UploadStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadHistoryStoreTest {
+    
+    private static final LocalDate DAY = LocalDate.now().minusDays(3);
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testQueryByEndpointStatusAndDay() throws Exception {
+        UploadHistoryStore store = new UploadHistoryStore(tempDir);
+        for (int i = 0; i < 300; i++) {
+            LocalDate day = i < 200 ? DAY : NEXT_DAY;
+            String endpoint = "endpoint-" + (i % 3);
+            UploadStatus status = i % 5 == 0 ? UploadStatus.FAILED : UploadStatus.SUCCESS;
+            store.record(entry(day, i, endpoint, status));
+        }
+        store.flush();
+        
+        List<UploadHistoryEntry> received = store.query("endpoint-1", UploadStatus.SUCCESS, DAY, DAY, 1000);
+        assertEquals(54, received.size());
+        assertTrue(received.stream().allMatch(entry -> entry.endpointId().equals("endpoint-1")
+            && entry.status() == UploadStatus.SUCCESS
+            && entry.timestamp().toLocalDate().equals(DAY)));
+        
+        assertEquals(60, store.query(null, UploadStatus.FAILED, DAY, NEXT_DAY, 1000).size());
+        assertEquals(100, store.query(null, null, NEXT_DAY, NEXT_DAY, 1000).size());
+        assertEquals(10, store.query(null, null, DAY, NEXT_DAY, 10).size());
+        assertEquals(List.of(DAY, NEXT_DAY), store.getDays());
+        store.close();
+    }
+    
+    @Test
+    void testReopenedStoreRebuildsMissingIndexAndDropsTornLine() throws Exception {
+        UploadHistoryStore store = new UploadHistoryStore(tempDir);
+        for (int i = 0; i < 10; i++) {
+            store.record(entry(DAY, i, "a", UploadStatus.SUCCESS));
+        }
+        store.close();
+        assertTrue(Files.exists(tempDir.resolve(DAY + ".idx")));
+        
+        Files.delete(tempDir.resolve(DAY + ".idx"));
+        Files.writeString(tempDir.resolve(DAY + ".ndjson"), "{\"timestamp\":\"20", StandardOpenOption.APPEND);
+        
+        UploadHistoryStore reopened = new UploadHistoryStore(tempDir);
+        assertEquals(10, reopened.query("a", null, DAY, DAY, 1000).size());
+        reopened.record(entry(DAY, 10, "a", UploadStatus.FAILED));
+        reopened.flush();
+        
+        List<UploadHistoryEntry> entries = reopened.query("a", null, DAY, DAY, 1000);
+        assertEquals(11, entries.size());
+        assertEquals(10, entries.get(10).jobId());
+        reopened.close();
+    }
+    
+    @Test
+    void testSegmentsOlderThanRetentionAreDeleted() throws Exception {
+        LocalDate old = LocalDate.now().minusDays(40);
+        UploadHistoryStore store = new UploadHistoryStore(tempDir);
+        store.setRetentionDays(0);
+        store.record(entry(old, 1, "a", UploadStatus.SUCCESS));
+        store.record(entry(DAY, 2, "a", UploadStatus.SUCCESS));
+        store.flush();
+        assertEquals(List.of(old, DAY), store.getDays());
+        
+        store.setRetentionDays(30);
+        store.applyRetention();
+        store.flush();
+        
+        assertEquals(List.of(DAY), store.getDays());
+        assertFalse(Files.exists(tempDir.resolve(old + ".ndjson")));
+        assertTrue(store.query("a", null, old, old, 1000).isEmpty());
+        store.close();
+    }
+    
+    private static UploadHistoryEntry entry(LocalDate day, long jobId, String endpointId, UploadStatus status) {
+        return new UploadHistoryEntry(LocalDateTime.of(day, LocalTime.NOON), jobId, endpointId,
+            endpointId, "/data/file-" + jobId + ".bin", 1024, status,
+            status == UploadStatus.SUCCESS ? 200 : 503, 1, status == UploadStatus.SUCCESS ? "Upload successful" : "HTTP 503");
+    }
+}
@@ -0,0 +1,60 @@
+package com.broadcastsender.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryImportServiceTest {
+    
+    @Test
+    void testImportAppliesGlobsAndSkipsExcludedDirectories(@TempDir Path root) throws Exception {
+        Files.createDirectories(root.resolve("photos/2024"));
+        Files.createDirectories(root.resolve("node_modules/lib"));
+        Files.writeString(root.resolve("a.jpg"), "a");
+        Files.writeString(root.resolve("notes.txt"), "notes");
+        Files.writeString(root.resolve("photos/b.jpg"), "bb");
+        Files.writeString(root.resolve("photos/2024/c.jpg"), "ccc");
+        Files.writeString(root.resolve("photos/2024/c.tmp.jpg"), "temp");
+        Files.writeString(root.resolve("node_modules/lib/d.jpg"), "d");
+        
+        DirectoryImportService service = new DirectoryImportService(4);
+        ConcurrentLinkedQueue<DirectoryImportService.FoundFile> found = new ConcurrentLinkedQueue<>();
+        try {
+            DirectoryImportService.ImportSummary summary = service
+                .startImport(root, List.of("*.jpg"), List.of("node_modules", "*.tmp.*"), found::addAll)
+                .completion().get(10, TimeUnit.SECONDS);
+            
+            assertFalse(summary.cancelled());
+            assertEquals(3, summary.filesMatched());
+            assertEquals(3, summary.directories(), "node_modules is never listed");
+        } finally {
+            service.shutdown();
+        }
+        
+        Set<String> names = new TreeSet<>();
+        for (DirectoryImportService.FoundFile file : found) {
+            names.add(root.relativize(Path.of(file.directory(), file.name())).toString().replace('\\', '/'));
+            assertEquals(Files.size(Path.of(file.directory(), file.name())), file.size());
+        }
+        assertEquals(Set.of("a.jpg", "photos/b.jpg", "photos/2024/c.jpg"), names);
+    }
+    
+    @Test
+    void testPathGlobsMatchRelativeToRoot(@TempDir Path root) {
+        DirectoryImportService.GlobFilter filter = new DirectoryImportService.GlobFilter(
+            root.getFileSystem(), List.of("photos/**"), List.of());
+        
+        assertTrue(filter.accepts(Path.of("photos", "2024", "c.jpg")));
+        assertFalse(filter.accepts(Path.of("c.jpg")));
+        assertFalse(filter.excludes(Path.of("photos")));
+    }
+}
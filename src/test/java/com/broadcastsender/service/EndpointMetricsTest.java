@@ -0,0 +1,73 @@
+package com.broadcastsender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointMetricsTest {
+    
+    @Test
+    void testRatesUseCompleteSeconds() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        EndpointMetrics metrics = new EndpointMetrics(clock::get);
+        
+        metrics.attemptStarted("a");
+        metrics.attemptStarted("a");
+        metrics.bytesSent("a", 3_000);
+        metrics.bytesSent("a", 2_000);
+        metrics.attemptFinished("a", true);
+        metrics.attemptFinished("a", false);
+        assertEquals(0, metrics.sample("a").inFlight());
+        assertEquals(0, metrics.sample("a").bytesPerSecond(), "The current second is not complete yet");
+        
+        clock.addAndGet(1_000);
+        EndpointMetrics.Sample sample = metrics.sample("a");
+        assertEquals(1_000, sample.bytesPerSecond(), 0.001);
+        assertEquals(0.2, sample.uploadsPerSecond(), 0.001);
+        assertEquals(0.5, sample.errorRate(), 0.001);
+        assertEquals(5_000, sample.bytesHistory()[EndpointMetrics.HISTORY_SECONDS - 1], 0.001);
+    }
+    
+    @Test
+    void testOldSecondsFallOutOfTheRing() {
+        AtomicLong clock = new AtomicLong(0);
+        EndpointMetrics metrics = new EndpointMetrics(clock::get);
+        metrics.attemptStarted("a");
+        metrics.bytesSent("a", 100);
+        metrics.attemptFinished("a", true);
+        
+        // Same ring slot, one full window later
+        clock.addAndGet(EndpointMetrics.HISTORY_SECONDS * 1_000L);
+        metrics.attemptStarted("a");
+        metrics.bytesSent("a", 7);
+        metrics.attemptFinished("a", true);
+        clock.addAndGet(1_000);
+        
+        double[] history = metrics.sample("a").bytesHistory();
+        assertEquals(EndpointMetrics.HISTORY_SECONDS, history.length);
+        double total = 0;
+        for (double bytes : history) {
+            total += bytes;
+        }
+        assertEquals(7, total, 0.001);
+        assertEquals(0, metrics.sample("unknown").uploadsPerSecond());
+    }
+    
+    @Test
+    void testBytesCountInTheSecondTheyAreSent() {
+        AtomicLong clock = new AtomicLong(0);
+        EndpointMetrics metrics = new EndpointMetrics(clock::get);
+        metrics.attemptStarted("a");
+        metrics.bytesSent("a", 400);
+        clock.addAndGet(1_000);
+        metrics.bytesSent("a", 600);
+        metrics.attemptFinished("a", true);
+        clock.addAndGet(1_000);
+        
+        double[] history = metrics.sample("a").bytesHistory();
+        assertEquals(400, history[EndpointMetrics.HISTORY_SECONDS - 2], 0.001);
+        assertEquals(600, history[EndpointMetrics.HISTORY_SECONDS - 1], 0.001);
+    }
+}
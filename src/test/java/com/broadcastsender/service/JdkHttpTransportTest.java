@@ -0,0 +1,109 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.BodyEncoding;
+import com.broadcastsender.model.TimeoutPolicy;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkHttpTransportTest {
+    
+    @TempDir
+    Path directory;
+    
+    private HttpServer server;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1);
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestHeaders().getFirst("Content-Type")
+                    + " " + exchange.getRequestHeaders().getFirst("Authorization") + "\n" + body);
+            byte[] answer = "stored".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, answer.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(answer);
+            }
+        });
+        server.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+    
+    @Test
+    void testSendsRawAndMultipartBodies() throws Exception {
+        Path file = Files.writeString(directory.resolve("report.txt"), "line one\nline two\n");
+        JdkHttpTransport transport = new JdkHttpTransport();
+        AtomicLong sent = new AtomicLong();
+        
+        UploadResponse raw = transport.send(request(file, "PUT", BodyEncoding.RAW), cancel -> { }, sent::addAndGet);
+        assertEquals(201, raw.code());
+        assertEquals(Files.size(file), sent.get());
+        assertEquals("stored", raw.body());
+        assertEquals("PUT text/plain Bearer t\nline one\nline two\n", received.get(0));
+        
+        UploadResponse multipart = transport.send(request(file, "POST", BodyEncoding.MULTIPART), cancel -> { },
+                bytes -> { });
+        assertEquals(201, multipart.code());
+        String form = received.get(1);
+        assertTrue(form.startsWith("POST multipart/form-data; boundary="), form);
+        assertTrue(form.contains("Content-Disposition: form-data; name=\"upload\"; filename=\"report.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\nline one\nline two\n\r\n--"), form);
+    }
+    
+    @Test
+    void testStalledBodyIsCutOff() throws Exception {
+        // More than the socket buffers hold, so the client stalls once the peer stops reading
+        Path file = directory.resolve("large.bin");
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.setLength(64L << 20);
+        }
+        TimeoutPolicy policy = new TimeoutPolicy(10, 1, 60, TimeoutPolicy.DEFAULT_MIN_BYTES_PER_SECOND, 0);
+        Duration deadline = Duration.ofMinutes(5);
+        
+        try (ServerSocket silent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            UploadRequest request = new UploadRequest(
+                    URI.create("http://127.0.0.1:" + silent.getLocalPort() + "/files"), "PUT", Map.of(),
+                    file.toFile(), "application/octet-stream", BodyEncoding.RAW, "upload", policy, deadline,
+                    deadline);
+            long start = System.nanoTime();
+            SocketTimeoutException e = assertThrows(SocketTimeoutException.class,
+                    () -> new JdkHttpTransport().send(request, cancel -> { }, bytes -> { }));
+            assertTrue(e.getMessage().startsWith("No upload progress"), e.getMessage());
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+        }
+    }
+    
+    private UploadRequest request(Path file, String method, BodyEncoding body) {
+        Duration deadline = Duration.ofSeconds(10);
+        return new UploadRequest(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/files"),
+                method, Map.of("Authorization", "Bearer t"), file.toFile(), "text/plain", body, "upload",
+                TimeoutPolicy.DEFAULT, deadline, deadline);
+    }
+}
@@ -0,0 +1,187 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadHistoryEntry;
+import com.broadcastsender.model.UploadSnapshot;
+import com.broadcastsender.model.UploadStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalApiServerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<UploadJob> submitted = new CopyOnWriteArrayList<>();
+    private final List<UploadSnapshot> progress = new CopyOnWriteArrayList<>();
+    private UploadService uploadService;
+    private LocalApiServer server;
+    private Endpoint endpoint;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadService = new UploadService(new RefusingHttpService());
+        uploadService.setMaxRetryAttempts(0);
+        endpoint = new Endpoint();
+        endpoint.setName("refusing");
+        endpoint.setUrl("http://localhost/upload");
+        
+        server = new LocalApiServer(uploadService, new LocalApiServer.Host() {
+            @Override
+            public List<Endpoint> getEndpoints() {
+                return List.of(endpoint);
+            }
+            
+            @Override
+            public void jobSubmitted(UploadJob job, List<FileAttachment> files, List<Endpoint> endpoints) {
+                submitted.add(job);
+            }
+            
+            @Override
+            public void progress(UploadSnapshot snapshot) {
+                progress.add(snapshot);
+            }
+            
+            @Override
+            public List<UploadHistoryEntry> queryHistory(String endpointId, UploadStatus status,
+                                                         LocalDate from, LocalDate to, int limit) {
+                return List.of();
+            }
+        }, tempDir.resolve("api-token"));
+        server.start(0);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.close();
+        uploadService.shutdown();
+    }
+    
+    @Test
+    void testSubmittedJobStreamsEventsUntilFinished() throws Exception {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            paths.add(Files.writeString(tempDir.resolve("file-" + i + ".txt"), "data").toString());
+        }
+        ObjectNode request = objectMapper.createObjectNode().put("priority", "high");
+        request.set("files", objectMapper.valueToTree(paths));
+        request.set("endpoints", objectMapper.valueToTree(List.of(endpoint.getId())));
+        String body = objectMapper.writeValueAsString(request);
+        
+        HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/jobs"))
+            .POST(HttpRequest.BodyPublishers.ofString(body)));
+        assertEquals(201, created.statusCode(), created.body());
+        JsonNode job = objectMapper.readTree(created.body());
+        assertEquals("HIGH", job.get("priority").asText());
+        assertEquals(3, job.get("pairs").asInt());
+        assertEquals(1, submitted.size());
+        
+        HttpResponse<String> events = send(HttpRequest.newBuilder(uri("/jobs/" + job.get("id").asLong() + "/events")));
+        assertEquals(200, events.statusCode());
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : events.body().split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertEquals("status", lines.get(0).get("event").asText());
+        JsonNode last = lines.get(lines.size() - 1);
+        assertEquals("finished", last.get("event").asText());
+        assertEquals("COMPLETED", last.get("state").asText());
+        assertEquals(3, last.get("failed").asInt());
+        assertFalse(progress.isEmpty(), "Progress also reaches the host");
+        
+        HttpResponse<String> status = send(HttpRequest.newBuilder(uri("/jobs/" + job.get("id").asLong())));
+        assertEquals(3, objectMapper.readTree(status.body()).get("completed").asInt());
+    }
+    
+    @Test
+    void testRejectsBadRequests() throws Exception {
+        String unknownEndpoint = "{\"files\": [\"" + Files.writeString(tempDir.resolve("a.txt"), "a")
+            .toString().replace("\\", "\\\\") + "\"], \"endpoints\": [\"nope\"]}";
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/jobs"))
+            .POST(HttpRequest.BodyPublishers.ofString(unknownEndpoint))).statusCode());
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/jobs"))
+            .POST(HttpRequest.BodyPublishers.ofString("{\"files\": [\"/does/not/exist\"]}"))).statusCode());
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/jobs/42"))).statusCode());
+        assertEquals(403, send(HttpRequest.newBuilder(uri("/jobs"))
+            .header("Origin", "https://example.com")).statusCode());
+        assertTrue(submitted.isEmpty());
+    }
+    
+    @Test
+    void testRequiresTokenAndLoopbackHost() throws Exception {
+        Path tokenFile = tempDir.resolve("api-token");
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+        }
+        
+        HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder(uri("/endpoints")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(401, anonymous.statusCode());
+        assertEquals(401, client.send(HttpRequest.newBuilder(uri("/endpoints"))
+            .header("Authorization", "Bearer wrong").build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(200, send(HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + "/endpoints"))).statusCode());
+        
+        // A page on a DNS name rebound to 127.0.0.1 sends its own name as the Host
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String request = "GET /endpoints HTTP/1.1\r\nHost: attacker.example:" + server.getPort()
+                + "\r\nAuthorization: Bearer " + Files.readString(tokenFile) + "\r\nConnection: close\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            String statusLine = new String(socket.getInputStream().readAllBytes(), StandardCharsets.US_ASCII)
+                .lines().findFirst().orElse("");
+            assertTrue(statusLine.contains(" 403 "), statusLine);
+        }
+        
+        server.close();
+        assertFalse(Files.exists(tokenFile), "The token is removed with the server");
+    }
+    
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+    
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        request.header("Authorization", "Bearer " + Files.readString(server.getTokenFile()));
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    /**
+     * Fails every upload right away.
+     */
+    private static final class RefusingHttpService extends HttpService {
+        @Override
+        public UploadResponse uploadFile(Endpoint endpoint, FileAttachment fileAttachment,
+                                         Consumer<Runnable> cancelListener, LongConsumer sentListener)
+                throws IOException {
+            throw new IOException("Refused");
+        }
+    }
+}
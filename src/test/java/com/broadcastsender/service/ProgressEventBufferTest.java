@@ -0,0 +1,68 @@
+package com.broadcastsender.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressEventBufferTest {
+    
+    @Test
+    void testFifoAndCapacity() {
+        ProgressEventBuffer<Integer> buffer = new ProgressEventBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4), "Full buffer should reject offers");
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertTrue(buffer.offer(4));
+        assertEquals(3, buffer.drain(drained::add, 10));
+        
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertTrue(buffer.isEmpty());
+    }
+    
+    @Test
+    void testConcurrentProducersLoseNothing() throws Exception {
+        ProgressEventBuffer<Long> buffer = new ProgressEventBuffer<>(64);
+        int producers = 4;
+        int perProducer = 50_000;
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.publish(base + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        long[] received = new long[1];
+        while (received[0] < (long) producers * perProducer) {
+            buffer.drain(value -> {
+                int producer = (int) (value / perProducer);
+                assertTrue(value > lastSeen[producer], "Events of one producer must stay in order");
+                lastSeen[producer] = value;
+                received[0]++;
+            }, 32);
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) producers * perProducer, received[0]);
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,193 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.TimeoutPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SendfileUploaderTest {
+    
+    private static final Duration DEADLINE = Duration.ofSeconds(10);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testSendsTheFileAsTheBodyAndReusesTheConnection() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        Path file = Files.write(directory.resolve("data.bin"), content);
+        
+        try (EchoServer server = new EchoServer()) {
+            SendfileUploader uploader = new SendfileUploader();
+            AtomicLong sent = new AtomicLong();
+            URI uri = URI.create("http://127.0.0.1:" + server.port() + "/files/data.bin?v=1");
+            for (int i = 0; i < 2; i++) {
+                UploadResponse response = uploader.upload(uri, "PUT",
+                        Map.of("Content-Type", "application/octet-stream", "Authorization", "Bearer t"), file,
+                        TimeoutPolicy.DEFAULT, DEADLINE, DEADLINE, cancel -> { }, sent::addAndGet);
+                
+                assertEquals(201, response.code());
+                assertEquals("Created", response.message());
+                assertEquals("received " + content.length, response.body());
+            }
+            
+            assertEquals(1, server.connections.get(), "The second upload reuses the idle connection");
+            assertEquals(2L * content.length, sent.get());
+            assertEquals(2, server.requests.size());
+            Request request = server.requests.get(0);
+            assertEquals("PUT /files/data.bin?v=1 HTTP/1.1", request.line());
+            assertTrue(request.head().contains("Authorization: Bearer t"));
+            assertArrayEquals(content, request.body());
+            uploader.evictAll();
+        }
+    }
+    
+    @Test
+    void testRetriesADroppedIdleConnectionWithoutCountingTheBodyTwice() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024];
+        Path file = Files.write(directory.resolve("data.bin"), content);
+        
+        try (EchoServer server = new EchoServer(true)) {
+            SendfileUploader uploader = new SendfileUploader();
+            AtomicLong sent = new AtomicLong();
+            URI uri = URI.create("http://127.0.0.1:" + server.port() + "/files/data.bin");
+            for (int i = 0; i < 2; i++) {
+                UploadResponse response = uploader.upload(uri, "PUT", Map.of(), file,
+                        TimeoutPolicy.DEFAULT, DEADLINE, DEADLINE, cancel -> { }, sent::addAndGet);
+                assertEquals(201, response.code());
+            }
+            
+            assertEquals(2, server.connections.get(), "The dropped upload is sent again on a new connection");
+            assertEquals(2L * content.length, sent.get());
+            assertEquals(2, server.requests.size());
+            uploader.evictAll();
+        }
+    }
+    
+    @Test
+    void testRejectsHttpsUrls() {
+        SendfileUploader uploader = new SendfileUploader();
+        assertThrows(IllegalArgumentException.class, () -> uploader.upload(URI.create("https://example.com/"),
+                "PUT", Map.of(), directory, TimeoutPolicy.DEFAULT, DEADLINE, DEADLINE, cancel -> { }, sent -> { }));
+    }
+    
+    private record Request(String line, String head, byte[] body) {
+    }
+    
+    /**
+     * Keep-alive HTTP/1.1 server that answers every request with a chunked 201 naming the
+     * number of body bytes it received. It can reset the first reused connection partway
+     * through the body, as a server does that closed an idle connection.
+     */
+    private static final class EchoServer implements AutoCloseable {
+        private final ServerSocket socket = new ServerSocket(0);
+        private final AtomicInteger connections = new AtomicInteger();
+        private final List<Request> requests = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean dropReuse;
+        
+        EchoServer() throws IOException {
+            this(false);
+        }
+        
+        EchoServer(boolean dropReuse) throws IOException {
+            this.dropReuse = new AtomicBoolean(dropReuse);
+            Thread acceptor = new Thread(this::accept, "echo-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        
+        int port() {
+            return socket.getLocalPort();
+        }
+        
+        private void accept() {
+            while (!socket.isClosed()) {
+                try (Socket connection = socket.accept()) {
+                    connections.incrementAndGet();
+                    serve(connection);
+                } catch (IOException e) {
+                    // Closed by the test or the client
+                }
+            }
+        }
+        
+        private void serve(Socket connection) throws IOException {
+            InputStream in = new BufferedInputStream(connection.getInputStream());
+            OutputStream out = connection.getOutputStream();
+            for (int served = 0; ; served++) {
+                String line = readLine(in);
+                if (line == null) {
+                    return;
+                }
+                StringBuilder head = new StringBuilder();
+                int length = 0;
+                String header;
+                while (!(header = readLine(in)).isEmpty()) {
+                    head.append(header).append('\n');
+                    if (header.toLowerCase().startsWith("content-length:")) {
+                        length = Integer.parseInt(header.substring(15).trim());
+                    }
+                }
+                if (served > 0 && dropReuse.compareAndSet(true, false)) {
+                    in.readNBytes(Math.min(length, 64 * 1024));
+                    connection.setSoLinger(true, 0);
+                    return;
+                }
+                byte[] body = in.readNBytes(length);
+                requests.add(new Request(line, head.toString(), body));
+                
+                String text = "received " + body.length;
+                String split = text.substring(0, 4);
+                String rest = text.substring(4);
+                out.write(("HTTP/1.1 100 Continue\r\n\r\n"
+                        + "HTTP/1.1 201 Created\r\nTransfer-Encoding: chunked\r\n\r\n"
+                        + Integer.toHexString(split.length()) + "\r\n" + split + "\r\n"
+                        + Integer.toHexString(rest.length()) + ";ext=1\r\n" + rest + "\r\n"
+                        + "0\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+            }
+        }
+        
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+                }
+                if (c != '\r') {
+                    line.write(c);
+                }
+            }
+            return line.toString(StandardCharsets.ISO_8859_1);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.ThroughputStats;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThroughputEstimatorTest {
+    
+    private static final long SECOND = 1_000_000_000L;
+    private static final long MILLISECOND = 1_000_000L;
+    private static final long MB = 1024 * 1024;
+    
+    @Test
+    void testLearnsOverheadAndThroughputFromMixedSizes() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        // 200 ms per request plus 2 MB/s
+        for (int i = 0; i < 30; i++) {
+            for (long size : new long[] {MB, 4 * MB, 16 * MB}) {
+                estimator.record("a", size, 200 * MILLISECOND + size * SECOND / (2 * MB));
+            }
+        }
+        
+        ThroughputStats stats = estimator.statsOf("a");
+        assertEquals(0.2, stats.overheadSeconds(), 1e-6);
+        assertEquals(2 * MB, estimator.estimate("a"), 1);
+        assertEquals(200 * MILLISECOND + 50 * SECOND, estimator.predictNanos("a", 100 * MB), MILLISECOND);
+    }
+    
+    @Test
+    void testSameSizedUploadsCountAsTransfer() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        for (int i = 0; i < 3; i++) {
+            estimator.record("a", 10 * MB, 5 * SECOND);
+        }
+        
+        assertEquals(0, estimator.statsOf("a").overheadSeconds(), 1e-9);
+        assertEquals(2 * MB, estimator.estimate("a"), 1);
+        assertEquals(-1, estimator.predictNanos("b", MB));
+        assertEquals(0, estimator.estimate("b"));
+    }
+    
+    @Test
+    void testRecentUploadsOutweighOlderOnes() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        for (int i = 0; i < 20; i++) {
+            estimator.record("a", 10 * MB, SECOND);
+        }
+        for (int i = 0; i < 40; i++) {
+            estimator.record("a", 10 * MB, 10 * SECOND);
+        }
+        
+        double estimate = estimator.estimate("a");
+        assertTrue(estimate > MB && estimate < 1.2 * MB, "Estimate " + estimate);
+    }
+    
+    @Test
+    void testGoesOnFromSavedStats() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record("a", MB, SECOND);
+        estimator.record("a", 8 * MB, 4 * SECOND);
+        
+        ThroughputEstimator restored = new ThroughputEstimator(estimator.snapshot());
+        assertEquals(estimator.predictNanos("a", 3 * MB), restored.predictNanos("a", 3 * MB));
+    }
+}
@@ -0,0 +1,120 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.EndpointGroup;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.QuorumAction;
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadBatchTest {
+    
+    @Test
+    void testPairsAreNumberedEndpointByEndpoint() {
+        List<FileAttachment> files = List.of(file("a"), file("b"));
+        List<Endpoint> endpoints = List.of(endpoint("x"), endpoint("y"), endpoint("z"));
+        UploadBatch batch = UploadBatch.allPairs(1, files, endpoints);
+        
+        assertEquals(6, batch.getPairCount());
+        assertSame(files.get(1), batch.getFile(3));
+        assertSame(endpoints.get(1), batch.getEndpoint(3));
+        assertEquals(1, batch.getResultJobId(3));
+        assertEquals(UploadStatus.PENDING, batch.getStatus(3));
+    }
+    
+    @Test
+    void testClaimsRotateOverEndpointsAndSkipBusyOnes() {
+        List<Endpoint> endpoints = List.of(endpoint("x"), endpoint("y"));
+        UploadBatch batch = UploadBatch.allPairs(1, List.of(file("a"), file("b")), endpoints);
+        
+        assertEquals(0, batch.claim(endpoint -> true));
+        assertEquals(2, batch.claim(endpoint -> true));
+        assertEquals(1, batch.claim(endpoint -> true));
+        assertEquals(-1, batch.claim(endpoint -> endpoint != endpoints.get(1)), "Only y has pairs left");
+        assertTrue(batch.hasUnclaimed());
+        assertEquals(1, batch.getUnclaimedCount());
+        assertEquals(3, batch.claim(endpoint -> true));
+        assertFalse(batch.hasUnclaimed());
+        
+        batch.finish(0, UploadStatus.SUCCESS);
+        batch.finish(3, UploadStatus.FAILED);
+        assertEquals(1, batch.getSucceededCount());
+        assertEquals(1, batch.getFailedCount());
+        assertEquals(UploadStatus.FAILED, batch.getStatus(3));
+    }
+    
+    @Test
+    void testRetriedPairsKeepTheJobOfTheirResults() {
+        Endpoint x = endpoint("x");
+        Endpoint y = endpoint("y");
+        List<UploadResult> results = List.of(
+            new UploadResult(7, x, file("a")),
+            new UploadResult(8, y, file("b")),
+            new UploadResult(9, x, file("c")));
+        UploadBatch batch = UploadBatch.ofResults(10, results);
+        
+        assertEquals(3, batch.getPairCount());
+        assertEquals(2, batch.getEndpointCount());
+        assertSame(results.get(2).getFile(), batch.getFile(1));
+        assertSame(x, batch.getEndpoint(1));
+        assertEquals(9, batch.getResultJobId(1));
+        assertSame(y, batch.getEndpoint(2));
+        assertEquals(8, batch.getResultJobId(2));
+    }
+    
+    @Test
+    void testQuorumSupersedesTheOtherMembersOfAFile() {
+        List<Endpoint> endpoints = List.of(endpoint("x"), endpoint("y"), endpoint("z"), endpoint("w"));
+        EndpointGroup mirrors = new EndpointGroup(null, "mirrors",
+            List.of(endpoints.get(0).getId(), endpoints.get(1).getId(), endpoints.get(2).getId()), 2, QuorumAction.CANCEL);
+        UploadBatch batch = UploadBatch.allPairs(1, List.of(file("a"), file("b")), endpoints, List.of(mirrors));
+        
+        assertEquals(0, batch.claim(endpoint -> true));
+        assertEquals(2, batch.claim(endpoint -> true));
+        assertEquals(4, batch.claim(endpoint -> true));
+        assertEquals(6, batch.claim(endpoint -> true));
+        batch.finish(0, UploadStatus.SUCCESS);
+        assertFalse(batch.isSuperseded(4));
+        batch.finish(2, UploadStatus.SUCCESS);
+        assertTrue(batch.isSuperseded(4), "Two of three mirrors have a");
+        assertFalse(batch.isSuperseded(6), "w is not a mirror");
+        batch.finish(4, UploadStatus.SKIPPED);
+        batch.finish(6, UploadStatus.SUCCESS);
+        
+        // b reaches the quorum even though y fails it
+        Set<Integer> claimed = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            claimed.add(batch.claim(endpoint -> true));
+        }
+        assertEquals(Set.of(1, 3, 5, 7), claimed);
+        batch.finish(1, UploadStatus.SUCCESS);
+        batch.finish(3, UploadStatus.FAILED);
+        batch.finish(5, UploadStatus.SUCCESS);
+        assertFalse(batch.isDelivered(), "w still needs b");
+        batch.finish(7, UploadStatus.SUCCESS);
+        
+        assertTrue(batch.isDelivered());
+        assertEquals(6, batch.getSucceededCount());
+        assertEquals(1, batch.getFailedCount());
+        assertEquals(1, batch.getSkippedCount());
+    }
+    
+    private static FileAttachment file(String name) {
+        return new FileAttachment(new File(name), 1);
+    }
+    
+    private static Endpoint endpoint(String name) {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setName(name);
+        endpoint.setUrl("http://localhost/" + name);
+        return endpoint;
+    }
+}
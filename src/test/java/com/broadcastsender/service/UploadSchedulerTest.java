@@ -0,0 +1,200 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.EndpointGroup;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.QuorumAction;
+import com.broadcastsender.model.UploadPriority;
+import com.broadcastsender.model.UploadStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSchedulerTest {
+    
+    @Test
+    void testSlotsAreSharedByPriorityWeight() {
+        UploadScheduler scheduler = new UploadScheduler(1);
+        Endpoint endpoint = endpoint("x");
+        UploadJob bulk = job(1, UploadPriority.NORMAL, 100, endpoint);
+        UploadJob urgent = job(2, UploadPriority.HIGH, 100, endpoint);
+        scheduler.add(bulk);
+        scheduler.add(urgent);
+        
+        int urgentClaims = 0;
+        for (int i = 0; i < 40; i++) {
+            UploadScheduler.Claim claim = scheduler.claim().get(0);
+            if (claim.job() == urgent) {
+                urgentClaims++;
+            }
+            scheduler.release(claim, UploadStatus.SUCCESS);
+        }
+        
+        // Weights 16 and 4 give the urgent job four of every five slots
+        assertEquals(32, urgentClaims);
+        assertEquals(UploadJob.State.RUNNING, bulk.getState());
+    }
+    
+    @Test
+    void testPerEndpointLimitLetsOtherEndpointsAndJobsThrough() {
+        UploadScheduler scheduler = new UploadScheduler(4);
+        scheduler.setLimits(4, 1);
+        Endpoint slow = endpoint("slow");
+        Endpoint fast = endpoint("fast");
+        scheduler.add(job(1, UploadPriority.HIGH, 10, slow));
+        scheduler.add(job(2, UploadPriority.LOW, 10, fast));
+        
+        List<UploadScheduler.Claim> claims = scheduler.claim();
+        
+        assertEquals(2, claims.size(), "One slot per endpoint");
+        assertNotSame(claims.get(0).job(), claims.get(1).job());
+    }
+    
+    @Test
+    void testEndpointSlotsAreSharedByPriorityWeight() {
+        UploadScheduler scheduler = new UploadScheduler(100);
+        scheduler.setLimits(100, 2);
+        Endpoint hot = endpoint("hot");
+        Endpoint cold = endpoint("cold");
+        UploadJob bulk = job(1, UploadPriority.LOW, 10, hot);
+        scheduler.add(bulk);
+        List<UploadScheduler.Claim> bulkClaims = scheduler.claim();
+        assertEquals(2, bulkClaims.size());
+        
+        UploadBatch batch = UploadBatch.allPairs(2, files(2, 100), List.of(cold, hot));
+        UploadJob urgent = new UploadJob(2, "Job 2", UploadPriority.HIGH, batch, 100, 2, null);
+        scheduler.add(urgent);
+        // Fast uploads to the cold endpoint carry the urgent job's pass past the bulk job's
+        for (int i = 0; i < 24; i++) {
+            for (UploadScheduler.Claim claim : scheduler.claim()) {
+                assertSame(cold, batch.getEndpoint(claim.pair()));
+                scheduler.release(claim, UploadStatus.SUCCESS);
+            }
+        }
+        assertTrue(urgent.pass > bulk.pass);
+        
+        scheduler.release(bulkClaims.get(0), UploadStatus.SUCCESS);
+        List<UploadScheduler.Claim> claims = scheduler.claim();
+        
+        assertTrue(claims.stream().anyMatch(claim -> claim.job() == urgent
+                && batch.getEndpoint(claim.pair()) == hot), "The freed slot is the urgent job's share");
+        assertTrue(claims.stream().noneMatch(claim -> claim.job() == bulk));
+    }
+    
+    @Test
+    void testPausedAndCancelledJobsStopClaiming() {
+        UploadScheduler scheduler = new UploadScheduler(2);
+        UploadJob job = job(1, UploadPriority.NORMAL, 5, endpoint("x"));
+        scheduler.add(job);
+        
+        List<UploadScheduler.Claim> running = scheduler.claim();
+        assertEquals(2, running.size());
+        scheduler.pause(job);
+        scheduler.release(running.get(0), UploadStatus.SUCCESS);
+        assertTrue(scheduler.claim().isEmpty());
+        
+        scheduler.resume(job);
+        UploadScheduler.Claim resumed = scheduler.claim().get(0);
+        assertFalse(scheduler.cancel(job), "Two uploads are still running");
+        assertFalse(scheduler.release(running.get(1), UploadStatus.SUCCESS));
+        assertTrue(scheduler.release(resumed, UploadStatus.FAILED));
+        
+        assertEquals(UploadJob.State.CANCELLED, job.getState());
+        assertEquals(2, job.getBatch().getUnclaimedCount());
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+    
+    @Test
+    void testForecastFromLearnedEndpointSpeeds() {
+        long second = 1_000_000_000L;
+        Endpoint known = endpoint("known");
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        for (int i = 0; i < 5; i++) {
+            estimator.record(known.getId(), 1, second);
+        }
+        UploadScheduler scheduler = new UploadScheduler(2);
+        UploadJob job = job(1, UploadPriority.NORMAL, 10, known);
+        scheduler.add(job);
+        
+        // Ten pairs of a second each on two slots
+        assertEquals(5 * second, scheduler.forecast(estimator, System.nanoTime()).getRemainingNanos(), 1_000_000);
+        
+        // Half a second into the first two pairs: eight queued seconds and one running second left
+        List<UploadScheduler.Claim> running = scheduler.claim();
+        long now = running.get(0).claimedNanos() + second / 2;
+        UploadForecast forecast = scheduler.forecast(estimator, now);
+        assertEquals(4.5 * second, forecast.getRemainingNanos(), 1_000_000);
+        assertEquals(forecast.getRemainingNanos(), forecast.getRemainingNanos(job));
+        
+        scheduler.setLimits(2, 1);
+        assertEquals(9 * second, scheduler.forecast(estimator, now).getRemainingNanos(), 1_000_000);
+        
+        // An endpoint nothing was learned about leaves the total open, not the other job
+        scheduler.add(job(2, UploadPriority.NORMAL, 3, endpoint("unknown")));
+        forecast = scheduler.forecast(estimator, now);
+        assertEquals(-1, forecast.getRemainingNanos());
+        assertEquals(9 * second, forecast.getRemainingNanos(job), 1_000_000);
+    }
+    
+    @Test
+    void testReplicasRunAtLowPriorityOnceTheQuorumIsReached() {
+        UploadScheduler scheduler = new UploadScheduler(1);
+        Endpoint x = endpoint("x");
+        Endpoint y = endpoint("y");
+        EndpointGroup mirrors = new EndpointGroup(null, "mirrors", List.of(x.getId(), y.getId()), 1,
+            QuorumAction.REPLICATE);
+        UploadBatch batch = UploadBatch.allPairs(1, files(1, 3), List.of(x, y), List.of(mirrors));
+        UploadJob mirrored = new UploadJob(1, "Job 1", UploadPriority.HIGH, batch, 3, 2, null);
+        scheduler.add(mirrored);
+        
+        // Each file reaches x first, so its pair to y waits for the replica lane
+        for (int pair = 0; pair < 3; pair++) {
+            UploadScheduler.Claim claim = scheduler.claim().get(0);
+            assertEquals(pair, claim.pair());
+            scheduler.release(claim, UploadStatus.SUCCESS);
+        }
+        assertTrue(batch.isDelivered());
+        assertEquals(UploadJob.State.REPLICATING, mirrored.getState());
+        
+        UploadJob other = job(2, UploadPriority.NORMAL, 8, endpoint("z"));
+        scheduler.add(other);
+        int replicaClaims = 0;
+        for (int i = 0; i < 10; i++) {
+            UploadScheduler.Claim claim = scheduler.claim().get(0);
+            if (claim.job() == mirrored) {
+                replicaClaims++;
+            }
+            scheduler.release(claim, UploadStatus.SUCCESS);
+        }
+        
+        // Low and normal weights give the replicas one of every five slots
+        assertEquals(2, replicaClaims);
+        assertTrue(scheduler.release(scheduler.claim().get(0), UploadStatus.SUCCESS));
+        assertEquals(UploadJob.State.COMPLETED, mirrored.getState());
+        assertEquals(6, batch.getSucceededCount());
+    }
+    
+    private static UploadJob job(long id, UploadPriority priority, int fileCount, Endpoint endpoint) {
+        UploadBatch batch = UploadBatch.allPairs(id, files(id, fileCount), List.of(endpoint));
+        return new UploadJob(id, "Job " + id, priority, batch, fileCount, 1, null);
+    }
+    
+    private static List<FileAttachment> files(long id, int fileCount) {
+        List<FileAttachment> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            files.add(new FileAttachment(new File("file-" + id + "-" + i), 1));
+        }
+        return files;
+    }
+    
+    private static Endpoint endpoint(String name) {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setName(name);
+        endpoint.setUrl("http://localhost/" + name);
+        return endpoint;
+    }
+}
@@ -0,0 +1,93 @@
+package com.broadcastsender.service;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadServiceTest {
+    
+    @Test
+    void testGrowingThePoolAppliesToTheRunningBatch() throws Exception {
+        BlockingHttpService httpService = new BlockingHttpService();
+        UploadService uploadService = new UploadService(httpService);
+        uploadService.setMaxRetryAttempts(0);
+        uploadService.configureThreadPool(1);
+        
+        List<FileAttachment> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            files.add(new FileAttachment(new File("file-" + i), 1));
+        }
+        Endpoint endpoint = new Endpoint();
+        endpoint.setName("blocking");
+        endpoint.setUrl("http://localhost/upload");
+        
+        try {
+            CompletableFuture<UploadBatch> completion = uploadService.uploadFiles(files, List.of(endpoint), null);
+            assertTrue(httpService.started.await(5, TimeUnit.SECONDS));
+            assertEquals(1, httpService.running.get());
+            
+            uploadService.configureThreadPool(4);
+            assertTrue(waitFor(() -> httpService.running.get() == 4), "New threads pick up queued pairs");
+            
+            httpService.released.release(files.size());
+            UploadBatch batch = completion.get(5, TimeUnit.SECONDS);
+            assertEquals(8, batch.getFailedCount());
+            assertEquals(4, httpService.maxRunning.get());
+        } finally {
+            httpService.released.release(files.size());
+            uploadService.shutdown();
+        }
+    }
+    
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+    
+    /**
+     * Blocks every upload until released and fails it afterwards.
+     */
+    private static final class BlockingHttpService extends HttpService {
+        private final Semaphore released = new Semaphore(0);
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        
+        @Override
+        public UploadResponse uploadFile(Endpoint endpoint, FileAttachment fileAttachment,
+                                         Consumer<Runnable> cancelListener, LongConsumer sentListener)
+                throws IOException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                released.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            throw new IOException("Refused");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadResult;
+import com.broadcastsender.model.UploadStatus;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilteredResultListTest {
+    
+    @Test
+    void testChangesOfOneUpdateAreMergedInRowOrder() {
+        Endpoint endpoint = new Endpoint();
+        ObservableList<UploadResultRow> source = FXCollections.observableArrayList();
+        for (int i = 0; i < 8; i++) {
+            UploadResultRow row = new UploadResultRow(1, endpoint, new FileAttachment(new File("/tmp/" + i + ".txt")));
+            source.add(row);
+            setStatus(row, i % 3 == 0 ? UploadStatus.FAILED : UploadStatus.PENDING);
+        }
+        FilteredResultList filtered = new FilteredResultList(source);
+        filtered.setFilter(new ResultFilter(UploadStatus.FAILED, null, null), null);
+        assertEquals(List.of(0, 3, 6), rowsOf(filtered, source));
+        
+        filtered.beginUpdate();
+        setStatus(source.get(5), UploadStatus.FAILED);
+        filtered.rowChanged(5, true);
+        setStatus(source.get(3), UploadStatus.SUCCESS);
+        filtered.rowChanged(3, true);
+        setStatus(source.get(1), UploadStatus.FAILED);
+        filtered.rowChanged(1, true);
+        // Reported twice in one pulse, ends up failed again
+        filtered.rowChanged(5, false);
+        filtered.rowChanged(6, false);
+        // Nothing is checked before the update ends
+        assertEquals(List.of(0, 3, 6), rowsOf(filtered, source));
+        filtered.endUpdate();
+        
+        assertEquals(List.of(0, 1, 5, 6), rowsOf(filtered, source));
+    }
+    
+    private static void setStatus(UploadResultRow row, UploadStatus status) {
+        UploadResult result = new UploadResult(row.getJobId(), row.getEndpoint(), row.getFile());
+        result.setStatus(status);
+        row.update(result.snapshot());
+    }
+    
+    private static List<Integer> rowsOf(FilteredResultList filtered, List<UploadResultRow> source) {
+        List<Integer> rows = new ArrayList<>();
+        for (UploadResultRow row : filtered) {
+            rows.add(source.indexOf(row));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,53 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.loadtest.StandInUploadServer;
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.service.DirectoryImportService;
+import com.broadcastsender.service.UploadJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the view model's FX-thread handlers directly, so no JavaFX toolkit is required.
+ */
+class MainViewModelTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testUploadReachesEndpoint() throws Exception {
+        Path file = Files.write(tempDir.resolve("upload.txt"), new byte[4096]);
+        
+        try (StandInUploadServer server = new StandInUploadServer()) {
+            MainViewModel viewModel = new MainViewModel(tempDir.resolve("data"));
+            try {
+                Endpoint endpoint = new Endpoint();
+                endpoint.setName("stand-in");
+                endpoint.setUrl(server.url("/upload"));
+                viewModel.addEndpoint(endpoint);
+                viewModel.addFoundFiles(List.of(new DirectoryImportService.FoundFile(
+                        tempDir.toString(), "upload.txt", 4096, 0)));
+                
+                viewModel.startUpload();
+                UploadJob job = viewModel.getJobs().get(0).getJob();
+                job.completion().get(30, TimeUnit.SECONDS);
+                viewModel.drainProgress();
+                
+                assertEquals(1, job.getBatch().getSucceededCount());
+                assertEquals(1, viewModel.successCountProperty().get());
+                assertEquals(0, viewModel.failureCountProperty().get());
+                assertEquals(1, server.getResponses(200));
+            } finally {
+                viewModel.shutdown();
+            }
+        }
+    }
+}
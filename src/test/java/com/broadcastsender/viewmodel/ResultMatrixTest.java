@@ -0,0 +1,69 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadStatus;
+import com.broadcastsender.service.UploadBatch;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultMatrixTest {
+    
+    @Test
+    void testChangedCellsAreQueuedOnce() {
+        ResultMatrix matrix = new ResultMatrix();
+        Endpoint first = new Endpoint();
+        Endpoint second = new Endpoint();
+        FileAttachment a = file("a");
+        FileAttachment b = file("b");
+        FileAttachment c = file("c");
+        matrix.reset(UploadBatch.allPairs(1, List.of(a, b, c), List.of(first, second)));
+        
+        assertEquals(3, matrix.getFileCount());
+        assertEquals(2, matrix.getEndpointCount());
+        assertSame(c, matrix.getFile(2));
+        assertSame(second, matrix.getEndpoint(1));
+        assertEquals(UploadStatus.PENDING, matrix.getStatus(1, 1));
+        
+        // Pair 4 sends file b to the second endpoint, which is cell 3
+        matrix.set(1, 4, UploadStatus.IN_PROGRESS);
+        matrix.set(1, 4, UploadStatus.SUCCESS);
+        matrix.set(1, 4, UploadStatus.SUCCESS);
+        matrix.set(1, -1, UploadStatus.FAILED);
+        matrix.set(1, 6, UploadStatus.FAILED);
+        matrix.set(2, 0, UploadStatus.FAILED);
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, matrix.drainDirty(drained::add));
+        assertEquals(List.of(3), drained);
+        assertEquals(UploadStatus.SUCCESS, matrix.getStatus(3));
+        assertEquals(UploadStatus.SUCCESS, matrix.getStatus(1, 1));
+        assertEquals(0, matrix.getDirtyCount());
+    }
+    
+    @Test
+    void testResetStartsNewLayout() {
+        ResultMatrix matrix = new ResultMatrix();
+        Endpoint endpoint = new Endpoint();
+        matrix.reset(UploadBatch.allPairs(1, List.of(file("a")), List.of(endpoint)));
+        matrix.set(1, 0, UploadStatus.FAILED);
+        long version = matrix.getVersion();
+        
+        matrix.reset(UploadBatch.allPairs(2, List.of(file("a"), file("b")), List.of(endpoint)));
+        
+        assertNotEquals(version, matrix.getVersion());
+        assertEquals(2, matrix.getJobId());
+        assertEquals(2, matrix.getFileCount());
+        assertEquals(UploadStatus.PENDING, matrix.getStatus(0, 0));
+        assertEquals(0, matrix.getDirtyCount());
+    }
+    
+    private static FileAttachment file(String name) {
+        return new FileAttachment(new File("/tmp/" + name + ".txt"), 1);
+    }
+}
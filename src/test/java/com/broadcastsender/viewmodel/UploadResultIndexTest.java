@@ -0,0 +1,119 @@
+package com.broadcastsender.viewmodel;
+
+import com.broadcastsender.model.Endpoint;
+import com.broadcastsender.model.FileAttachment;
+import com.broadcastsender.model.UploadStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadResultIndexTest {
+    
+    @Test
+    void testLookupByPair() {
+        UploadResultIndex index = new UploadResultIndex();
+        Endpoint endpoint = new Endpoint();
+        UploadResultIndex.ResultKey key = UploadResultIndex.keyOf(1, endpoint, new FileAttachment(new File("/tmp/a.txt")));
+        
+        assertNull(index.get(key));
+        index.add(key, "a.txt", UploadStatus.PENDING, 7);
+        
+        // A different attachment object for the same file resolves to the same row
+        UploadResultIndex.ResultKey samePair = UploadResultIndex.keyOf(1, endpoint, new FileAttachment(new File("/tmp/a.txt")));
+        assertEquals(7, index.get(samePair).getRowIndex());
+        
+        UploadResultIndex.ResultKey otherEndpoint = UploadResultIndex.keyOf(1, new Endpoint(), new FileAttachment(new File("/tmp/a.txt")));
+        assertNull(index.get(otherEndpoint));
+    }
+    
+    @Test
+    void testCountersFollowStatusTransitions() {
+        UploadResultIndex index = new UploadResultIndex();
+        UploadResultIndex.ResultKey key = UploadResultIndex.keyOf(1, new Endpoint(), new FileAttachment(new File("/tmp/b.txt")));
+        
+        UploadResultIndex.Entry entry = index.add(key, "b.txt", UploadStatus.PENDING, 0);
+        assertEquals(1, index.count(UploadStatus.PENDING));
+        
+        index.updateStatus(entry, UploadStatus.FAILED);
+        assertEquals(0, index.count(UploadStatus.PENDING));
+        assertEquals(1, index.count(UploadStatus.FAILED));
+        assertEquals(1, index.completedCount());
+        
+        index.updateStatus(entry, UploadStatus.RETRYING);
+        assertEquals(0, index.count(UploadStatus.FAILED));
+        assertEquals(0, index.completedCount());
+        
+        index.updateStatus(entry, UploadStatus.SUCCESS);
+        assertEquals(1, index.count(UploadStatus.SUCCESS));
+        assertEquals(1, index.completedCount());
+        
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.count(UploadStatus.SUCCESS));
+    }
+    
+    @Test
+    void testCandidatesComeFromSmallestIndex() {
+        UploadResultIndex index = new UploadResultIndex();
+        Endpoint first = new Endpoint();
+        Endpoint second = new Endpoint();
+        String[] names = {"report.pdf", "Report-2.PDF", "notes.txt", "image.png"};
+        
+        int row = 0;
+        for (String name : names) {
+            for (Endpoint endpoint : new Endpoint[] {first, second}) {
+                FileAttachment file = new FileAttachment(new File("/tmp/" + name));
+                index.add(UploadResultIndex.keyOf(1, endpoint, file), name, UploadStatus.PENDING, row++);
+            }
+        }
+        
+        assertNull(index.candidateRows(ResultFilter.NONE));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, sorted(index.candidateRows(new ResultFilter(null, null, "rep"))));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, sorted(index.candidateRows(new ResultFilter(null, null, "*.pdf"))));
+        assertArrayEquals(new int[] {0, 2, 4, 6}, sorted(index.candidateRows(new ResultFilter(null, first.getId(), null))));
+        assertEquals(0, index.candidateRows(new ResultFilter(null, null, "zzz")).length);
+        
+        // Status moves swap rows between status indexes without losing any
+        UploadResultIndex.Entry failed = index.get(UploadResultIndex.keyOf(1, first, new FileAttachment(new File("/tmp/notes.txt"))));
+        index.updateStatus(failed, UploadStatus.FAILED);
+        index.updateStatus(index.get(UploadResultIndex.keyOf(1, first, new FileAttachment(new File("/tmp/report.pdf")))), UploadStatus.SUCCESS);
+        assertArrayEquals(new int[] {4}, index.candidateRows(new ResultFilter(UploadStatus.FAILED, null, "*.txt")));
+        assertArrayEquals(new int[] {1, 2, 3, 5, 6, 7}, sorted(index.candidateRows(new ResultFilter(UploadStatus.PENDING, null, null))));
+    }
+    
+    private static int[] sorted(int[] rows) {
+        int[] copy = rows.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+    
+    @Test
+    void testDroppingTheHeadMovesTheOtherRowsUp() {
+        UploadResultIndex index = new UploadResultIndex();
+        Endpoint endpoint = new Endpoint();
+        UploadResultIndex.Entry[] entries = new UploadResultIndex.Entry[6];
+        for (int row = 0; row < entries.length; row++) {
+            String name = (row % 2 == 0 ? "even-" : "odd-") + row + ".txt";
+            entries[row] = index.add(UploadResultIndex.keyOf(1, endpoint, new FileAttachment(new File("/tmp/" + name))),
+                name, row < 4 ? UploadStatus.SUCCESS : UploadStatus.IN_PROGRESS, row);
+        }
+        
+        index.dropHead(3);
+        assertEquals(3, index.size());
+        assertNull(index.get(UploadResultIndex.keyOf(1, endpoint, new FileAttachment(new File("/tmp/even-0.txt")))));
+        assertEquals(0, entries[3].getRowIndex());
+        assertEquals(1, index.count(UploadStatus.SUCCESS));
+        assertArrayEquals(new int[] {0, 1, 2}, sorted(index.candidateRows(new ResultFilter(null, endpoint.getId(), null))));
+        assertArrayEquals(new int[] {1}, sorted(index.candidateRows(new ResultFilter(null, null, "even"))));
+        
+        // Rows added after the drop and status moves keep using row numbers
+        index.add(UploadResultIndex.keyOf(1, endpoint, new FileAttachment(new File("/tmp/odd-6.txt"))),
+            "odd-6.txt", UploadStatus.PENDING, 3);
+        index.updateStatus(entries[4], UploadStatus.SUCCESS);
+        assertArrayEquals(new int[] {0, 1}, sorted(index.candidateRows(new ResultFilter(UploadStatus.SUCCESS, null, null))));
+        assertArrayEquals(new int[] {0, 2, 3}, sorted(index.candidateRows(new ResultFilter(null, null, "odd"))));
+    }
+}